@@ -0,0 +1,237 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.routing;
+
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.NodeLoadStats;
+import org.elasticsearch.node.NodeRanking;
+import org.elasticsearch.node.ResponseCollectorService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates adaptive replica selection of searches on three copies of a shard that live on heterogeneous nodes: a fast node with
+ * periodic garbage collection pauses, a node with a noisy neighbour that saturates its CPU, and a slower node. Each node serves the
+ * searches that are routed to it one after the other. The simulation routes searches through the actual
+ * {@link IndexShardRoutingTable#activeInitializingShardsRankedIt} and {@link ResponseCollectorService} with the configured
+ * {@link NodeRanking}, and feeds the statistics and load of each response back when the response arrives.
+ *
+ * Each iteration runs a single simulation. Besides how long the simulation takes, the benchmark reports the latency percentiles of the
+ * simulated searches as the secondary results {@code p50Micros}, {@code p99Micros} and {@code maxMicros}, which is how rankings
+ * should be compared.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class AdaptiveReplicaSelectionBenchmark {
+
+    private static final String[] NODES = new String[] { "gc_node", "noisy_node", "slow_node" };
+    // base service time of a search in milliseconds
+    private static final double[] SERVICE_MILLIS = new double[] { 4, 5, 8 };
+    // service times of the noisy node are multiplied by this factor, and it reports a saturated CPU
+    private static final double NOISY_NEIGHBOUR_FACTOR = 2;
+    private static final long GC_PERIOD_MILLIS = 2000;
+
+    @Param({ "c3", "c3_node_load" })
+    public String ranking = "c3_node_load";
+
+    @Param({ "0", "300" })
+    public long gcPauseMillis = 300;
+
+    @Param({ "20000" })
+    public int searches = 20000;
+
+    @Param({ "3" })
+    public double interArrivalMillis = 3;
+
+    private IndexShardRoutingTable routingTable;
+    private double[] latencies;
+
+    @Setup
+    public void setUp() {
+        ShardId shardId = new ShardId("index", "_na_", 0);
+        IndexShardRoutingTable.Builder builder = new IndexShardRoutingTable.Builder(shardId);
+        for (int i = 0; i < NODES.length; i++) {
+            RecoverySource recoverySource = i == 0
+                ? RecoverySource.EmptyStoreRecoverySource.INSTANCE
+                : RecoverySource.PeerRecoverySource.INSTANCE;
+            builder.addShard(ShardRouting.newUnassigned(shardId, i == 0, recoverySource,
+                new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, null)).initialize(NODES[i], null, -1).moveToStarted());
+        }
+        routingTable = builder.build();
+        latencies = new double[searches];
+    }
+
+    /**
+     * The latency percentiles of the simulated searches of an iteration in microseconds.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Latencies {
+        public long p50Micros;
+        public long p99Micros;
+        public long maxMicros;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            p50Micros = 0;
+            p99Micros = 0;
+            maxMicros = 0;
+        }
+    }
+
+    @Benchmark
+    public double simulate(Latencies result) {
+        Settings settings = Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), "coordinating_node").build();
+        ClusterSettings clusterSettings = new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        ResponseCollectorService collector = new ResponseCollectorService(new ClusterService(settings, clusterSettings, null));
+        collector.setRanking(NodeRanking.fromName(ranking));
+
+        Random random = new Random(0);
+        SimulatedNode[] nodes = new SimulatedNode[NODES.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = new SimulatedNode(i);
+        }
+        PriorityQueue<Response> responses = new PriorityQueue<>((r1, r2) -> Double.compare(r1.arrivalMillis, r2.arrivalMillis));
+        Map<String, Long> outstanding = new HashMap<>();
+        double now = 0;
+        for (int i = 0; i < searches; i++) {
+            now += interArrivalMillis * -Math.log(1 - random.nextDouble());
+            while (responses.isEmpty() == false && responses.peek().arrivalMillis <= now) {
+                Response response = responses.poll();
+                outstanding.compute(NODES[response.node], (k, v) -> v - 1);
+                collector.addNodeStatistics(NODES[response.node], response.queueSize, (long) (response.latencyMillis * 1_000_000),
+                    (long) (response.serviceTimeEWMAMillis * 1_000_000), response.load);
+            }
+            // the ranking updates the counts of the winning node, so give it a copy
+            Map<String, Long> searchCounts = new HashMap<>(outstanding);
+            String nodeId = routingTable.activeInitializingShardsRankedIt(collector, searchCounts).nextOrNull().currentNodeId();
+            int node = Arrays.asList(NODES).indexOf(nodeId);
+            Response response = nodes[node].execute(now, random);
+            outstanding.merge(nodeId, 1L, Long::sum);
+            responses.add(response);
+            latencies[i] = response.latencyMillis;
+        }
+        Arrays.sort(latencies);
+        result.p50Micros = (long) (latencies[latencies.length / 2] * 1000);
+        result.p99Micros = (long) (latencies[(int) (latencies.length * 0.99)] * 1000);
+        result.maxMicros = (long) (latencies[latencies.length - 1] * 1000);
+        return latencies[(int) (latencies.length * 0.99)];
+    }
+
+    private class SimulatedNode {
+        private final int node;
+        private final ArrayDeque<Double> queue = new ArrayDeque<>();
+        private final ExponentiallyWeightedMovingAverage serviceTime;
+        private double busyUntilMillis;
+
+        SimulatedNode(int node) {
+            this.node = node;
+            this.serviceTime = new ExponentiallyWeightedMovingAverage(ResponseCollectorService.ALPHA, SERVICE_MILLIS[node]);
+        }
+
+        Response execute(double now, Random random) {
+            while (queue.isEmpty() == false && queue.peek() <= now) {
+                queue.poll();
+            }
+            final int queueSize = queue.size();
+            double serviceMillis = SERVICE_MILLIS[node] * (0.5 + random.nextDouble());
+            if (node == 1) {
+                serviceMillis *= NOISY_NEIGHBOUR_FACTOR;
+            }
+            double startMillis = Math.max(now, busyUntilMillis);
+            double endMillis = startMillis + serviceMillis;
+            if (node == 0 && gcPauseMillis > 0) {
+                // the search is stalled by the pauses that overlap with it
+                final long firstPause = (long) Math.floor(startMillis / GC_PERIOD_MILLIS);
+                for (long pause = firstPause; pause * GC_PERIOD_MILLIS < endMillis; pause++) {
+                    final double pauseStart = pause * GC_PERIOD_MILLIS;
+                    final double pauseEnd = pauseStart + gcPauseMillis;
+                    if (pauseEnd > startMillis) {
+                        endMillis += pauseEnd - Math.max(pauseStart, startMillis);
+                    }
+                }
+            }
+            busyUntilMillis = endMillis;
+            queue.add(endMillis);
+            serviceTime.addValue(endMillis - startMillis);
+            return new Response(node, endMillis, endMillis - now, queueSize, serviceTime.getAverage(), load(endMillis));
+        }
+
+        /**
+         * The load that the node samples over the last second, like the node load sampler does.
+         */
+        private NodeLoadStats load(double nowMillis) {
+            int gcOverheadPercent = 0;
+            if (node == 0 && gcPauseMillis > 0) {
+                final double windowStart = nowMillis - 1000;
+                final long lastPause = (long) Math.floor(nowMillis / GC_PERIOD_MILLIS);
+                double gcMillis = 0;
+                for (long pause = lastPause; pause >= 0 && pause * GC_PERIOD_MILLIS + gcPauseMillis > windowStart; pause--) {
+                    final double pauseStart = Math.max(pause * GC_PERIOD_MILLIS, windowStart);
+                    final double pauseEnd = Math.min(pause * GC_PERIOD_MILLIS + gcPauseMillis, nowMillis);
+                    gcMillis += Math.max(0, pauseEnd - pauseStart);
+                }
+                gcOverheadPercent = (int) (gcMillis / 10);
+            }
+            final int cpuPercent = node == 1 ? 98 : 40;
+            return new NodeLoadStats(gcOverheadPercent, cpuPercent, 0);
+        }
+    }
+
+    private static class Response {
+        private final int node;
+        private final double arrivalMillis;
+        private final double latencyMillis;
+        private final int queueSize;
+        private final double serviceTimeEWMAMillis;
+        private final NodeLoadStats load;
+
+        Response(int node, double arrivalMillis, double latencyMillis, int queueSize, double serviceTimeEWMAMillis, NodeLoadStats load) {
+            this.node = node;
+            this.arrivalMillis = arrivalMillis;
+            this.latencyMillis = latencyMillis;
+            this.queueSize = queueSize;
+            this.serviceTimeEWMAMillis = serviceTimeEWMAMillis;
+            this.load = load;
+        }
+    }
+}
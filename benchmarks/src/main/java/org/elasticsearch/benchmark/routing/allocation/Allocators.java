@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.routing.allocation.FailedShard;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -65,10 +66,18 @@ public final class Allocators {
     }
 
     public static AllocationService createAllocationService(Settings settings, ClusterSettings clusterSettings) {
+        return createAllocationService(settings, clusterSettings, new BalancedShardsAllocator(settings));
+    }
+
+    public static AllocationService createAllocationService(
+        Settings settings,
+        ClusterSettings clusterSettings,
+        ShardsAllocator shardsAllocator
+    ) {
         return new AllocationService(
             defaultAllocationDeciders(settings, clusterSettings),
             NoopGatewayAllocator.INSTANCE,
-            new BalancedShardsAllocator(settings),
+            shardsAllocator,
             EmptyClusterInfoService.INSTANCE,
             EmptySnapshotsInfoService.INSTANCE
         );
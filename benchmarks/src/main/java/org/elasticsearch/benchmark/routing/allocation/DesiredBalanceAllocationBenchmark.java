@@ -0,0 +1,188 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.routing.allocation;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalance;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalanceComputer;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalanceInput;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalanceShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.ConcurrentRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.ThrottlingAllocationDecider;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time that a reroute takes on the master's cluster state update thread with the {@link BalancedShardsAllocator} and
+ * with the {@link DesiredBalanceShardsAllocator}, after a node joined a balanced cluster, and measures how long the background
+ * computation of the desired balance takes for the same cluster.
+ */
+@Fork(2)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class DesiredBalanceAllocationBenchmark {
+
+    @Param(
+        {
+            // indices| shards| replicas| nodes
+            "       50|    100|        1|   100",
+            "      200|    150|        1|   300" }
+    )
+    public String indicesShardsReplicasNodes = "50|100|1|100";
+
+    private AllocationService balancedAllocationService;
+    private AllocationService desiredBalanceAllocationService;
+    private DesiredBalanceComputer desiredBalanceComputer;
+    private DesiredBalance desiredBalance;
+    private DesiredBalanceInput desiredBalanceInput;
+    private ClusterState clusterStateWithNewNode;
+
+    @Setup
+    public void setUp() throws Exception {
+        final String[] params = indicesShardsReplicasNodes.split("\\|");
+        final int numIndices = toInt(params[0]);
+        final int numShards = toInt(params[1]);
+        final int numReplicas = toInt(params[2]);
+        final int numNodes = toInt(params[3]);
+
+        final Metadata.Builder mb = Metadata.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            mb.put(
+                IndexMetadata.builder("test_" + i)
+                    .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+                    .numberOfShards(numShards)
+                    .numberOfReplicas(numReplicas)
+            );
+        }
+        final Metadata metadata = mb.build();
+        final RoutingTable.Builder rb = RoutingTable.builder();
+        for (int i = 1; i <= numIndices; i++) {
+            rb.addAsNew(metadata.index("test_" + i));
+        }
+        final DiscoveryNodes.Builder nb = DiscoveryNodes.builder();
+        for (int i = 1; i <= numNodes; i++) {
+            nb.add(Allocators.newNode("node" + i, Collections.emptyMap()));
+        }
+        ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metadata(metadata)
+            .routingTable(rb.build())
+            .nodes(nb)
+            .build();
+
+        // allocate and balance the initial cluster without throttling, so that the setup doesn't take hundreds of reroutes
+        final int unlimited = numIndices * numShards * (numReplicas + 1);
+        final AllocationService setupAllocationService = Allocators.createAllocationService(
+            Settings.builder()
+                .put(ThrottlingAllocationDecider.CLUSTER_ROUTING_ALLOCATION_NODE_CONCURRENT_RECOVERIES_SETTING.getKey(), unlimited)
+                .put(ThrottlingAllocationDecider.CLUSTER_ROUTING_ALLOCATION_NODE_INITIAL_PRIMARIES_RECOVERIES_SETTING.getKey(), unlimited)
+                .put(
+                    ConcurrentRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_CLUSTER_CONCURRENT_REBALANCE_SETTING.getKey(),
+                    unlimited
+                )
+                .build()
+        );
+        clusterState = setupAllocationService.reroute(clusterState, "initial allocation");
+        while (clusterState.getRoutingNodes().hasInactiveShards()) {
+            clusterState = setupAllocationService.applyStartedShards(
+                clusterState,
+                clusterState.getRoutingNodes().shardsWithState(ShardRoutingState.INITIALIZING)
+            );
+            clusterState = setupAllocationService.reroute(clusterState, "initial allocation");
+        }
+
+        clusterStateWithNewNode = ClusterState.builder(clusterState)
+            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(Allocators.newNode("new_node", Collections.emptyMap())))
+            .build();
+
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        balancedAllocationService = Allocators.createAllocationService(Settings.EMPTY, clusterSettings);
+
+        // compute the desired balance for the new node up front, and skip the background computations during the measurements
+        final boolean[] computeDesiredBalance = new boolean[] { true };
+        final DesiredBalanceShardsAllocator desiredBalanceShardsAllocator = new DesiredBalanceShardsAllocator(
+            new BalancedShardsAllocator(Settings.EMPTY),
+            command -> {
+                if (computeDesiredBalance[0]) {
+                    command.run();
+                }
+            },
+            () -> (reason, priority, listener) -> {}
+        );
+        desiredBalanceAllocationService = Allocators.createAllocationService(
+            Settings.EMPTY,
+            clusterSettings,
+            desiredBalanceShardsAllocator
+        );
+        desiredBalanceAllocationService.reroute(clusterStateWithNewNode, "compute desired balance");
+        computeDesiredBalance[0] = false;
+        desiredBalance = desiredBalanceShardsAllocator.getCurrentDesiredBalance();
+
+        desiredBalanceComputer = new DesiredBalanceComputer(new BalancedShardsAllocator(Settings.EMPTY));
+        desiredBalanceInput = DesiredBalanceInput.create(
+            0,
+            new RoutingAllocation(
+                Allocators.defaultAllocationDeciders(Settings.EMPTY, clusterSettings),
+                new RoutingNodes(clusterStateWithNewNode, false),
+                clusterStateWithNewNode,
+                ClusterInfo.EMPTY,
+                SnapshotShardSizeInfo.EMPTY,
+                System.nanoTime()
+            )
+        );
+    }
+
+    private int toInt(String v) {
+        return Integer.valueOf(v.trim());
+    }
+
+    @Benchmark
+    public ClusterState measureBalancedReroute() {
+        return balancedAllocationService.reroute(clusterStateWithNewNode, "benchmark");
+    }
+
+    @Benchmark
+    public ClusterState measureDesiredBalanceReroute() {
+        return desiredBalanceAllocationService.reroute(clusterStateWithNewNode, "benchmark");
+    }
+
+    @Benchmark
+    public DesiredBalance measureDesiredBalanceComputation() {
+        return desiredBalanceComputer.compute(desiredBalance, desiredBalanceInput);
+    }
+}
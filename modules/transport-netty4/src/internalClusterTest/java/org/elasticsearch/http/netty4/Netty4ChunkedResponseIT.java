@@ -0,0 +1,66 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.ESNetty4IntegTestCase;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.rest.action.search.RestSearchAction;
+import org.elasticsearch.test.ESIntegTestCase.ClusterScope;
+import org.elasticsearch.test.ESIntegTestCase.Scope;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@ClusterScope(scope = Scope.TEST, supportsDedicatedMasters = false, numDataNodes = 1)
+public class Netty4ChunkedResponseIT extends ESNetty4IntegTestCase {
+
+    @Override
+    protected boolean addMockHttpTransport() {
+        return false; // enable http
+    }
+
+    public void testSearchResponseIsSentInChunks() throws IOException {
+        createIndex("test");
+        final int numDocs = between(1, 100);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test").setId(Integer.toString(i)).setSource("field", randomAlphaOfLength(between(1, 1000))).get();
+        }
+        refresh("test");
+
+        final Request request = new Request("GET", "/test/_search");
+        request.addParameter("size", Integer.toString(numDocs));
+        request.addParameter(RestSearchAction.CHUNKED_RESPONSE_PARAM, "true");
+        // every request goes through the pipelining handler of the netty transport, which must pass the chunked response on
+        final Response response = getRestClient().performRequest(request);
+        assertThat(response.getHeader("Transfer-Encoding"), equalTo("chunked"));
+        assertThat(response.getHeader("Content-Length"), nullValue());
+        assertThat(XContentMapValues.extractValue("hits.total.value", responseAsMap(response)), equalTo(numDocs));
+
+        // without the parameter the response is sent at once
+        final Request fullRequest = new Request("GET", "/test/_search");
+        fullRequest.addParameter("size", Integer.toString(numDocs));
+        final Response fullResponse = getRestClient().performRequest(fullRequest);
+        assertThat(fullResponse.getHeader("Transfer-Encoding"), nullValue());
+        assertThat(fullResponse.getHeader("Content-Length"), notNullValue());
+        assertThat(XContentMapValues.extractValue("hits.total.value", responseAsMap(fullResponse)), equalTo(numDocs));
+    }
+
+    private static Map<String, Object> responseAsMap(Response response) throws IOException {
+        return XContentHelper.convertToMap(JsonXContent.jsonXContent, EntityUtils.toString(response.getEntity()), false);
+    }
+}
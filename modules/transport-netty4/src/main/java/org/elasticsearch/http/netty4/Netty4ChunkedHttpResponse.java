@@ -0,0 +1,93 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.stream.ChunkedInput;
+import org.elasticsearch.http.HttpResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.transport.netty4.Netty4Utils;
+
+/**
+ * A response whose body is sent with chunked transfer encoding. The chunks of the body are only encoded when the channel is writable,
+ * see {@link io.netty.handler.stream.ChunkedWriteHandler}, so that slow clients don't make the node buffer the whole body.
+ */
+public class Netty4ChunkedHttpResponse extends DefaultHttpResponse implements HttpResponse {
+
+    private final ChunkedRestResponseBody body;
+
+    Netty4ChunkedHttpResponse(HttpVersion version, RestStatus status, ChunkedRestResponseBody body) {
+        super(version, HttpResponseStatus.valueOf(status.getStatus()));
+        this.body = body;
+        HttpUtil.setTransferEncodingChunked(this, true);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        headers().add(name, value);
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers().contains(name);
+    }
+
+    /**
+     * Returns the input that encodes the chunks of the body, each of about the given size, when they are written.
+     */
+    HttpChunkedInput chunkedInput(int chunkSize) {
+        return new HttpChunkedInput(new ChunkedInput<ByteBuf>() {
+
+            private long progress = 0;
+
+            @Override
+            public boolean isEndOfInput() {
+                return body.isDone();
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Deprecated
+            @Override
+            public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+                return readChunk(ctx.alloc());
+            }
+
+            @Override
+            public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+                if (body.isDone()) {
+                    return null;
+                }
+                final ByteBuf chunk = Netty4Utils.toByteBuf(body.encodeChunk(chunkSize));
+                progress += chunk.readableBytes();
+                return chunk;
+            }
+
+            @Override
+            public long length() {
+                return -1;
+            }
+
+            @Override
+            public long progress() {
+                return progress;
+            }
+        });
+    }
+}
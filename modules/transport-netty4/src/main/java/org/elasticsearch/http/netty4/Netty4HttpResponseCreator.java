@@ -17,16 +17,18 @@ import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.stream.ChunkedWriteHandler;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.transport.NettyAllocator;
 
 import java.util.List;
 
 /**
- * Split up large responses to prevent batch compression {@link JdkZlibEncoder} down the pipeline.
+ * Split up large responses to prevent batch compression {@link JdkZlibEncoder} down the pipeline. Chunked responses are turned into
+ * their headers and an input that the {@link ChunkedWriteHandler} down the pipeline reads chunks of the same size from.
  */
 @ChannelHandler.Sharable
-class Netty4HttpResponseCreator extends MessageToMessageEncoder<Netty4HttpResponse> {
+class Netty4HttpResponseCreator extends MessageToMessageEncoder<HttpResponse> {
 
     private static final String DO_NOT_SPLIT = "es.unsafe.do_not_split_http_responses";
 
@@ -40,7 +42,14 @@ class Netty4HttpResponseCreator extends MessageToMessageEncoder<Netty4HttpRespon
     }
 
     @Override
-    protected void encode(ChannelHandlerContext ctx, Netty4HttpResponse msg, List<Object> out) {
+    protected void encode(ChannelHandlerContext ctx, HttpResponse response, List<Object> out) {
+        if (response instanceof Netty4ChunkedHttpResponse) {
+            out.add(response);
+            out.add(((Netty4ChunkedHttpResponse) response).chunkedInput(SPLIT_THRESHOLD));
+            return;
+        }
+        assert response instanceof Netty4HttpResponse : "unexpected response type: " + response.getClass();
+        final Netty4HttpResponse msg = (Netty4HttpResponse) response;
         if (DO_NOT_SPLIT_HTTP_RESPONSES || msg.content().readableBytes() <= SPLIT_THRESHOLD) {
             out.add(msg.retain());
         } else {
@@ -14,13 +14,18 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.seqno.ReplicationTracker;
+import org.elasticsearch.index.seqno.RetentionLease;
+import org.elasticsearch.index.seqno.RetentionLeaseIT;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchService;
@@ -30,6 +35,8 @@ import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ESIntegTestCase;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -42,6 +49,7 @@ import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertFail
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
 import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.in;
@@ -58,6 +66,11 @@ public class PointInTimeIT extends ESIntegTestCase {
             .build();
     }
 
+    @Override
+    protected Collection<Class<? extends Plugin>> nodePlugins() {
+        return CollectionUtils.appendToCopy(super.nodePlugins(), RetentionLeaseIT.RetentionLeaseSyncIntervalSettingPlugin.class);
+    }
+
     public void testBasic() {
         createIndex("test");
         int numDocs = randomIntBetween(10, 50);
@@ -359,6 +372,85 @@ public class PointInTimeIT extends ESIntegTestCase {
         }
     }
 
+    public void testPersistentPointInTimeAfterRestart() throws Exception {
+        final String dataNode = internalCluster().startDataOnlyNode();
+        createIndex("test", Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put("index.routing.allocation.include._name", dataNode)
+            .build());
+        int numDocs = randomIntBetween(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test").setId(Integer.toString(i)).setSource("value", i).get();
+        }
+        OpenPointInTimeRequest request = new OpenPointInTimeRequest(new String[] { "test" })
+            .keepAlive(TimeValue.timeValueMinutes(2))
+            .persistCommit(true);
+        String pitId = client().execute(OpenPointInTimeAction.INSTANCE, request).actionGet().getPointInTimeId();
+        try {
+            // the retention lease of the point in time pins its commit but retains no operation history
+            final List<RetentionLease> leases = pointInTimeRetentionLeases("test");
+            assertThat(leases.size(), equalTo(1));
+            assertThat(leases.get(0).retainingSequenceNumber(), equalTo(ReplicationTracker.POINT_IN_TIME_RETAINING_SEQUENCE_NUMBER));
+
+            int moreDocs = randomIntBetween(1, 50);
+            for (int i = 0; i < moreDocs; i++) {
+                client().prepareIndex("test").setId(Integer.toString(numDocs + i)).setSource("value", numDocs + i).get();
+            }
+            client().admin().indices().prepareFlush("test").setForce(true).get();
+
+            internalCluster().restartNode(dataNode);
+            ensureGreen("test");
+
+            SearchResponse resp = client().prepareSearch()
+                .setPreference(null)
+                .setPointInTime(new PointInTimeBuilder(pitId))
+                .get();
+            assertNoFailures(resp);
+            assertHitCount(resp, numDocs);
+            assertThat(resp.pointInTimeId(), equalTo(pitId));
+        } finally {
+            closePointInTime(pitId);
+        }
+        assertBusy(() -> assertThat(pointInTimeRetentionLeases("test"), empty()));
+    }
+
+    public void testPersistentPointInTimeRenewsRetentionLease() throws Exception {
+        final long retentionPeriodMillis = 2000;
+        createIndex("test", Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING.getKey(), TimeValue.timeValueMillis(retentionPeriodMillis))
+            .put(IndexService.RETENTION_LEASE_SYNC_INTERVAL_SETTING.getKey(), TimeValue.timeValueMillis(100))
+            .build());
+        int numDocs = randomIntBetween(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test").setId(Integer.toString(i)).setSource("value", i).get();
+        }
+        OpenPointInTimeRequest request = new OpenPointInTimeRequest(new String[] { "test" })
+            .keepAlive(TimeValue.timeValueMinutes(2))
+            .persistCommit(true);
+        String pitId = client().execute(OpenPointInTimeAction.INSTANCE, request).actionGet().getPointInTimeId();
+        try {
+            assertThat(pointInTimeRetentionLeases("test").size(), equalTo(1));
+            // keep using the point in time for several retention periods, the expired lease would be removed by the background sync
+            final long endTimeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(3 * retentionPeriodMillis);
+            while (System.nanoTime() < endTimeNanos) {
+                SearchResponse resp = client().prepareSearch()
+                    .setPreference(null)
+                    .setPointInTime(new PointInTimeBuilder(pitId))
+                    .get();
+                assertNoFailures(resp);
+                assertHitCount(resp, numDocs);
+                Thread.sleep(randomLongBetween(10, 100));
+            }
+            assertThat(pointInTimeRetentionLeases("test").size(), equalTo(1));
+
+            // the lease is also renewed while the point in time is kept alive without being used
+            Thread.sleep(2 * retentionPeriodMillis);
+            assertThat(pointInTimeRetentionLeases("test").size(), equalTo(1));
+        } finally {
+            closePointInTime(pitId);
+        }
+        assertBusy(() -> assertThat(pointInTimeRetentionLeases("test"), empty()));
+    }
+
     public void testPITTiebreak() throws Exception {
         assertAcked(client().admin().indices().prepareDelete("index-*").get());
         int numIndex = randomIntBetween(2, 10);
@@ -457,6 +549,13 @@ public class PointInTimeIT extends ESIntegTestCase {
         return response.getPointInTimeId();
     }
 
+    private List<RetentionLease> pointInTimeRetentionLeases(String index) {
+        return Arrays.stream(client().admin().indices().prepareStats(index).get().getShards())
+            .flatMap(shardStats -> shardStats.getRetentionLeaseStats().retentionLeases().leases().stream())
+            .filter(lease -> ReplicationTracker.POINT_IN_TIME_RETENTION_LEASE_SOURCE.equals(lease.source()))
+            .collect(Collectors.toList());
+    }
+
     private void closePointInTime(String readerId) {
         client().execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(readerId)).actionGet();
     }
@@ -8,28 +8,45 @@
 
 package org.elasticsearch.action.admin.cluster.tasks;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.cluster.service.MasterTaskQueueRecordingService;
 import org.elasticsearch.cluster.service.PendingClusterTask;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class PendingClusterTasksResponse extends ActionResponse implements Iterable<PendingClusterTask>, ToXContentObject {
 
     private final List<PendingClusterTask> pendingTasks;
+    @Nullable // if the master node is on a version before 8.0
+    private final MasterTaskQueueRecordingService.Stats queueStats;
 
     public PendingClusterTasksResponse(StreamInput in) throws IOException {
         super(in);
         pendingTasks = in.readList(PendingClusterTask::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            queueStats = in.readOptionalWriteable(MasterTaskQueueRecordingService.Stats::new);
+        } else {
+            queueStats = null;
+        }
     }
 
-    PendingClusterTasksResponse(List<PendingClusterTask> pendingTasks) {
+    PendingClusterTasksResponse(List<PendingClusterTask> pendingTasks, @Nullable MasterTaskQueueRecordingService.Stats queueStats) {
         this.pendingTasks = pendingTasks;
+        this.queueStats = queueStats;
     }
 
     public List<PendingClusterTask> pendingTasks() {
@@ -43,6 +60,15 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
         return pendingTasks();
     }
 
+    /**
+     * The statistics about the tasks that the master node executed, by priority, or {@code null} if the master node is on a version
+     * before 8.0
+     */
+    @Nullable
+    public MasterTaskQueueRecordingService.Stats getQueueStats() {
+        return queueStats;
+    }
+
     @Override
     public Iterator<PendingClusterTask> iterator() {
         return pendingTasks.iterator();
@@ -74,6 +100,36 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
             builder.endObject();
         }
         builder.endArray();
+        builder.startObject(Fields.QUEUES);
+        final Set<Priority> priorities = EnumSet.noneOf(Priority.class);
+        for (PendingClusterTask pendingClusterTask : this) {
+            priorities.add(pendingClusterTask.getPriority());
+        }
+        final Map<Priority, MasterTaskQueueRecordingService.QueueStats> executed =
+            queueStats == null ? Map.of() : queueStats.getQueueStats();
+        priorities.addAll(executed.keySet());
+        for (Priority priority : priorities) {
+            builder.startObject(priority.name().toLowerCase(Locale.ROOT));
+            long pending = 0;
+            long maxTimeInQueueMillis = 0;
+            for (PendingClusterTask pendingClusterTask : this) {
+                if (pendingClusterTask.getPriority() == priority) {
+                    pending++;
+                    maxTimeInQueueMillis = Math.max(maxTimeInQueueMillis, pendingClusterTask.getTimeInQueueInMillis());
+                }
+            }
+            builder.field(Fields.PENDING, pending);
+            builder.humanReadableField(Fields.MAX_TIME_IN_QUEUE_MILLIS, Fields.MAX_TIME_IN_QUEUE,
+                TimeValue.timeValueMillis(maxTimeInQueueMillis));
+            final MasterTaskQueueRecordingService.QueueStats executedStats = executed.get(priority);
+            if (executedStats != null) {
+                builder.startObject(Fields.EXECUTED);
+                executedStats.toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -87,12 +143,20 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
         static final String SOURCE = "source";
         static final String TIME_IN_QUEUE_MILLIS = "time_in_queue_millis";
         static final String TIME_IN_QUEUE = "time_in_queue";
+        static final String QUEUES = "queues";
+        static final String PENDING = "pending";
+        static final String MAX_TIME_IN_QUEUE_MILLIS = "max_time_in_queue_millis";
+        static final String MAX_TIME_IN_QUEUE = "max_time_in_queue";
+        static final String EXECUTED = "executed";
 
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeList(pendingTasks);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(queueStats);
+        }
     }
 
 }
@@ -52,6 +52,6 @@ public class TransportPendingClusterTasksAction
         logger.trace("fetching pending tasks from cluster service");
         final List<PendingClusterTask> pendingTasks = clusterService.getMasterService().pendingTasks();
         logger.trace("done fetching pending tasks from cluster service");
-        listener.onResponse(new PendingClusterTasksResponse(pendingTasks));
+        listener.onResponse(new PendingClusterTasksResponse(pendingTasks, clusterService.getMasterService().getQueueStats()));
     }
 }
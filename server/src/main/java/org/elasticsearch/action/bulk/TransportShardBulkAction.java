@@ -65,6 +65,8 @@ import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
@@ -152,6 +154,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         ActionListener<PrimaryResult<BulkShardRequest, BulkShardResponse>> listener,
         ThreadPool threadPool,
         String executorName) {
+        prefetchDocVersions(request, primary);
         new ActionRunnable<>(listener) {
 
             private final Executor executor = threadPool.executor(executorName);
@@ -212,6 +215,39 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }.run();
     }
 
+    /**
+     * Resolves the current versions of all documents in the bulk that will need a version lookup in one sorted pass over the segments,
+     * rather than one lookup per item. Index requests with auto-generated ids skip the lookup unless they are retries, and updates
+     * load the document through a get, so neither is included.
+     */
+    static void prefetchDocVersions(BulkShardRequest request, IndexShard primary) {
+        final List<String> ids = new ArrayList<>();
+        for (BulkItemRequest item : request.items()) {
+            if (item == null || item.getPrimaryResponse() != null) {
+                continue;
+            }
+            final DocWriteRequest<?> docWriteRequest = item.request();
+            if (docWriteRequest.opType() == DocWriteRequest.OpType.DELETE) {
+                ids.add(docWriteRequest.id());
+            } else if (docWriteRequest.opType() != DocWriteRequest.OpType.UPDATE) {
+                final IndexRequest indexRequest = (IndexRequest) docWriteRequest;
+                if (indexRequest.getAutoGeneratedTimestamp() == IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP || indexRequest.isRetry()) {
+                    ids.add(indexRequest.id());
+                }
+            }
+        }
+        if (ids.size() < 2) {
+            // nothing to amortize
+            return;
+        }
+        try {
+            primary.prefetchDocVersions(ids);
+        } catch (Exception e) {
+            // this is only an optimization, any real problem with the shard will surface when executing the items
+            logger.debug(() -> new ParameterizedMessage("{} failed to prefetch document versions", primary.shardId()), e);
+        }
+    }
+
     /**
      * Executes bulk item requests and handles request execution exceptions.
      * @return {@code true} if request completed on this thread and the listener was invoked, {@code false} if the request triggered
@@ -75,6 +75,12 @@ final class CanMatchPreFilterSearchPhase extends AbstractSearchAsyncAction<CanMa
         throw new RuntimeException("cannot add releasable in " + getName() + " phase");
     }
 
+    @Override
+    protected void onShardResult(CanMatchResponse result, SearchShardIterator shardIt) {
+        coordinatorRewriteContextProvider.onShardFieldRanges(shardIt.shardId(), result.fieldRanges());
+        super.onShardResult(result, shardIt);
+    }
+
     @Override
     protected void executePhaseOnShard(SearchShardIterator shardIt, SearchShardTarget shard,
                                        SearchActionListener<CanMatchResponse> listener) {
@@ -127,6 +133,9 @@ final class CanMatchPreFilterSearchPhase extends AbstractSearchAsyncAction<CanMa
     protected void performPhaseOnShard(int shardIndex, SearchShardIterator shardIt, SearchShardTarget shard) {
         CoordinatorRewriteContext coordinatorRewriteContext =
             coordinatorRewriteContextProvider.getCoordinatorRewriteContext(shardIt.shardId().getIndex());
+        if (coordinatorRewriteContext == null && canUseCachedFieldRanges(getRequest().source())) {
+            coordinatorRewriteContext = coordinatorRewriteContextProvider.getCachedFieldRangesRewriteContext(shardIt.shardId());
+        }
 
         if (coordinatorRewriteContext == null) {
             super.performPhaseOnShard(shardIndex, shardIt, shard);
@@ -157,6 +166,13 @@ final class CanMatchPreFilterSearchPhase extends AbstractSearchAsyncAction<CanMa
         }
     }
 
+    /**
+     * Cached field ranges describe the mapped fields, they cannot be used if runtime fields of the request may shadow them.
+     */
+    private static boolean canUseCachedFieldRanges(SearchSourceBuilder source) {
+        return source == null || source.runtimeMappings().isEmpty();
+    }
+
     private static List<SearchShardIterator> sortShards(GroupShardsIterator<SearchShardIterator> shardsIts,
                                                         MinAndMax<?>[] minAndMaxes,
                                                         SortOrder order) {
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.IndicesRequest;
@@ -29,6 +30,7 @@ public final class OpenPointInTimeRequest extends ActionRequest implements Indic
     private String[] indices;
     private IndicesOptions indicesOptions = DEFAULT_INDICES_OPTIONS;
     private TimeValue keepAlive;
+    private boolean persistCommit;
 
     @Nullable
     private String routing;
@@ -48,6 +50,9 @@ public final class OpenPointInTimeRequest extends ActionRequest implements Indic
         this.keepAlive = in.readTimeValue();
         this.routing = in.readOptionalString();
         this.preference = in.readOptionalString();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            this.persistCommit = in.readBoolean();
+        }
     }
 
     @Override
@@ -58,6 +63,9 @@ public final class OpenPointInTimeRequest extends ActionRequest implements Indic
         out.writeTimeValue(keepAlive);
         out.writeOptionalString(routing);
         out.writeOptionalString(preference);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeBoolean(persistCommit);
+        }
     }
 
     @Override
@@ -123,6 +131,19 @@ public final class OpenPointInTimeRequest extends ActionRequest implements Indic
         return this;
     }
 
+    public boolean persistCommit() {
+        return persistCommit;
+    }
+
+    /**
+     * Whether the point in time should be opened on a flushed index commit that is retained until the point in time is closed or has
+     * not been used for the retention lease period, so that it can still be searched after the nodes holding it restart.
+     */
+    public OpenPointInTimeRequest persistCommit(boolean persistCommit) {
+        this.persistCommit = persistCommit;
+        return this;
+    }
+
     @Override
     public boolean includeDataStreams() {
         return true;
@@ -130,7 +151,8 @@ public final class OpenPointInTimeRequest extends ActionRequest implements Indic
 
     @Override
     public String getDescription() {
-        return "open search context: indices [" + String.join(",", indices) + "] keep_alive [" + keepAlive + "]";
+        return "open search context: indices [" + String.join(",", indices) + "] keep_alive [" + keepAlive + "]"
+            + (persistCommit ? " persist_commit [true]" : "");
     }
 
     @Override
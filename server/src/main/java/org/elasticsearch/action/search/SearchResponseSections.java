@@ -93,6 +93,13 @@ public class SearchResponseSections implements ToXContentFragment {
     @Override
     public final XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         hits.toXContent(builder, params);
+        return toXContentAfterHits(builder, params);
+    }
+
+    /**
+     * Renders the sections that come after the hits.
+     */
+    public final XContentBuilder toXContentAfterHits(XContentBuilder builder, Params params) throws IOException {
         if (aggregations != null) {
             aggregations.toXContent(builder, params);
         }
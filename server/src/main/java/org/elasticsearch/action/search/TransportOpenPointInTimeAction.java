@@ -8,6 +8,7 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionListenerResponseHandler;
 import org.elasticsearch.action.IndicesRequest;
@@ -83,7 +84,8 @@ public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenP
                 final ShardOpenReaderRequest shardRequest = new ShardOpenReaderRequest(
                     shardTarget.getShardId(),
                     shardTarget.getOriginalIndices(),
-                    request.keepAlive()
+                    request.keepAlive(),
+                    request.persistCommit()
                 );
                 transportService.sendChildRequest(
                     connection,
@@ -104,11 +106,13 @@ public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenP
         final ShardId shardId;
         final OriginalIndices originalIndices;
         final TimeValue keepAlive;
+        final boolean persistCommit;
 
-        ShardOpenReaderRequest(ShardId shardId, OriginalIndices originalIndices, TimeValue keepAlive) {
+        ShardOpenReaderRequest(ShardId shardId, OriginalIndices originalIndices, TimeValue keepAlive, boolean persistCommit) {
             this.shardId = shardId;
             this.originalIndices = originalIndices;
             this.keepAlive = keepAlive;
+            this.persistCommit = persistCommit;
         }
 
         ShardOpenReaderRequest(StreamInput in) throws IOException {
@@ -116,6 +120,11 @@ public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenP
             shardId = new ShardId(in);
             originalIndices = OriginalIndices.readOriginalIndices(in);
             keepAlive = in.readTimeValue();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                persistCommit = in.readBoolean();
+            } else {
+                persistCommit = false;
+            }
         }
 
         @Override
@@ -124,6 +133,9 @@ public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenP
             shardId.writeTo(out);
             OriginalIndices.writeOriginalIndices(originalIndices, out);
             out.writeTimeValue(keepAlive);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeBoolean(persistCommit);
+            }
         }
 
         public ShardId getShardId() {
@@ -163,6 +175,7 @@ public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenP
             searchService.openReaderContext(
                 request.getShardId(),
                 request.keepAlive,
+                request.persistCommit,
                 new ChannelActionListener<>(channel, OPEN_SHARD_READER_CONTEXT_NAME, request).map(ShardOpenReaderResponse::new)
             );
         }
@@ -15,9 +15,12 @@ import org.elasticsearch.cluster.metadata.IndexGraveyard.IndexGraveyardDiff;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -25,6 +28,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +44,11 @@ public class ClusterChangedEvent {
 
     private final DiscoveryNodes.Delta nodesDelta;
 
+    // computed on demand, events are only consumed on the cluster applier thread
+    private Set<Index> changedIndices;
+
+    private Set<ShardId> changedShards;
+
     public ClusterChangedEvent(String source, ClusterState state, ClusterState previousState) {
         Objects.requireNonNull(source, "source must not be null");
         Objects.requireNonNull(state, "state must not be null");
@@ -95,6 +104,86 @@ public class ClusterChangedEvent {
         return true;
     }
 
+    /**
+     * Returns the indices whose {@link IndexMetadata} or {@link IndexRoutingTable} differ between the previous and the new cluster
+     * state, including the indices that were created or removed. Applying a cluster state diff keeps the instances of the parts of the
+     * state that didn't change, so this only compares references, which makes it much cheaper than visiting all the indices of the
+     * cluster state when only a few of them changed.
+     */
+    public Set<Index> changedIndices() {
+        if (changedIndices == null) {
+            final Set<Index> indices = new HashSet<>();
+            if (metadataChanged()) {
+                addChangedIndices(indices, state.metadata().indices(), previousState.metadata().indices(), IndexMetadata::getIndex);
+            }
+            if (routingTableChanged()) {
+                addChangedIndices(indices, state.routingTable().indicesRouting(), previousState.routingTable().indicesRouting(),
+                    IndexRoutingTable::getIndex);
+            }
+            changedIndices = Collections.unmodifiableSet(indices);
+        }
+        return changedIndices;
+    }
+
+    private static <T> void addChangedIndices(Set<Index> changed, ImmutableOpenMap<String, T> current, ImmutableOpenMap<String, T> previous,
+                                              Function<T, Index> indexFunction) {
+        for (ObjectObjectCursor<String, T> cursor : current) {
+            final T previousValue = previous.get(cursor.key);
+            if (cursor.value != previousValue) {
+                changed.add(indexFunction.apply(cursor.value));
+                if (previousValue != null) {
+                    // the index may have been deleted and recreated with the same name
+                    changed.add(indexFunction.apply(previousValue));
+                }
+            }
+        }
+        for (ObjectObjectCursor<String, T> cursor : previous) {
+            if (current.containsKey(cursor.key) == false) {
+                changed.add(indexFunction.apply(cursor.value));
+            }
+        }
+    }
+
+    /**
+     * Returns the shards whose routing entries differ between the previous and the new cluster state, including the shards of the
+     * indices that were created or removed. Only the routing tables of the indices whose routing changed are compared.
+     */
+    public Set<ShardId> changedShards() {
+        if (changedShards == null) {
+            if (routingTableChanged() == false) {
+                changedShards = Collections.emptySet();
+            } else {
+                final Set<ShardId> shards = new HashSet<>();
+                for (Index index : changedIndices()) {
+                    final IndexRoutingTable current = state.routingTable().hasIndex(index) ? state.routingTable().index(index) : null;
+                    final IndexRoutingTable previous =
+                        previousState.routingTable().hasIndex(index) ? previousState.routingTable().index(index) : null;
+                    if (current == previous) {
+                        continue;
+                    }
+                    if (current != null) {
+                        for (IndexShardRoutingTable indexShardRoutingTable : current) {
+                            final IndexShardRoutingTable previousShardRoutingTable =
+                                previous == null ? null : previous.shard(indexShardRoutingTable.shardId().id());
+                            if (indexShardRoutingTable.equals(previousShardRoutingTable) == false) {
+                                shards.add(indexShardRoutingTable.shardId());
+                            }
+                        }
+                    }
+                    if (previous != null) {
+                        for (IndexShardRoutingTable indexShardRoutingTable : previous) {
+                            if (current == null || current.shards().containsKey(indexShardRoutingTable.shardId().id()) == false) {
+                                shards.add(indexShardRoutingTable.shardId());
+                            }
+                        }
+                    }
+                }
+                changedShards = Collections.unmodifiableSet(shards);
+            }
+        }
+        return changedShards;
+    }
+
     /**
      * Returns the indices created in this event
      */
@@ -19,16 +19,21 @@ import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
-import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
-import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesTransportRequest;
@@ -55,6 +60,7 @@ public class PublicationTransportHandler {
     public static final String PUBLISH_STATE_ACTION_NAME = "internal:cluster/coordination/publish_state";
     public static final String COMMIT_STATE_ACTION_NAME = "internal:cluster/coordination/commit_state";
 
+    private final BigArrays bigArrays;
     private final TransportService transportService;
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final Function<PublishRequest, PublishWithJoinResponse> handlePublishRequest;
@@ -76,9 +82,11 @@ public class PublicationTransportHandler {
     private static final TransportRequestOptions STATE_REQUEST_OPTIONS =
             TransportRequestOptions.of(null, TransportRequestOptions.Type.STATE);
 
-    public PublicationTransportHandler(TransportService transportService, NamedWriteableRegistry namedWriteableRegistry,
+    public PublicationTransportHandler(BigArrays bigArrays, TransportService transportService,
+                                       NamedWriteableRegistry namedWriteableRegistry,
                                        Function<PublishRequest, PublishWithJoinResponse> handlePublishRequest,
                                        BiConsumer<ApplyCommitRequest, ActionListener<Void>> handleApplyCommit) {
+        this.bigArrays = bigArrays;
         this.transportService = transportService;
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.handlePublishRequest = handlePublishRequest;
@@ -195,54 +203,79 @@ public class PublicationTransportHandler {
         return handlePublishRequest.apply(new PublishRequest(incomingState));
     }
 
+    /**
+     * Creates the context for publishing the given cluster state, holding a reference to it that the caller must release with
+     * {@link PublicationContext#decRef()} once it no longer sends any requests through it.
+     */
     public PublicationContext newPublicationContext(ClusterChangedEvent clusterChangedEvent) {
         final PublicationContext publicationContext = new PublicationContext(clusterChangedEvent);
-
-        // Build the serializations we expect to need now, early in the process, so that an error during serialization fails the publication
-        // straight away. This isn't watertight since we send diffs on a best-effort basis and may fall back to sending a full state (and
-        // therefore serializing it) if the diff-based publication fails.
-        publicationContext.buildDiffAndSerializeStates();
-        return publicationContext;
+        boolean success = false;
+        try {
+            // Build the serializations we expect to need now, early in the process, so that an error during serialization fails the
+            // publication straight away. This isn't watertight since we send diffs on a best-effort basis and may fall back to sending a
+            // full state (and therefore serializing it) if the diff-based publication fails.
+            publicationContext.buildDiffAndSerializeStates();
+            success = true;
+            return publicationContext;
+        } finally {
+            if (success == false) {
+                publicationContext.decRef();
+            }
+        }
     }
 
-    private static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
-        final BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream))) {
-            stream.setVersion(nodeVersion);
-            stream.writeBoolean(true);
-            clusterState.writeTo(stream);
-        }
-        final BytesReference serializedState = bStream.bytes();
+    private ReleasableBytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        final ReleasableBytesReference serializedState = serialize(nodeVersion, true, clusterState);
         logger.trace("serialized full cluster state version [{}] for node version [{}] with size [{}]",
             clusterState.version(), nodeVersion, serializedState.length());
         return serializedState;
     }
 
-    private static BytesReference serializeDiffClusterState(Diff<ClusterState> diff, Version nodeVersion) throws IOException {
-        final BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = new OutputStreamStreamOutput(CompressorFactory.COMPRESSOR.threadLocalOutputStream(bStream))) {
-            stream.setVersion(nodeVersion);
-            stream.writeBoolean(false);
-            diff.writeTo(stream);
+    private ReleasableBytesReference serializeDiffClusterState(Diff<ClusterState> diff, Version nodeVersion) throws IOException {
+        return serialize(nodeVersion, false, diff);
+    }
+
+    /**
+     * Compresses the given state or diff into pages that are recycled once the returned reference is released, rather than into a single
+     * freshly-allocated array, so that publishing a large cluster state does not require a large contiguous allocation on the master.
+     */
+    private ReleasableBytesReference serialize(Version nodeVersion, boolean isFullState, Writeable stateOrDiff) throws IOException {
+        final ReleasableBytesStreamOutput bytesStream = new ReleasableBytesStreamOutput(bigArrays);
+        boolean success = false;
+        try {
+            try (StreamOutput stream = new OutputStreamStreamOutput(
+                CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(bytesStream)))) {
+                stream.setVersion(nodeVersion);
+                stream.writeBoolean(isFullState);
+                stateOrDiff.writeTo(stream);
+            }
+            final ReleasableBytesReference serialized = new ReleasableBytesReference(bytesStream.bytes(), bytesStream);
+            success = true;
+            return serialized;
+        } finally {
+            if (success == false) {
+                bytesStream.close();
+            }
         }
-        return bStream.bytes();
     }
 
     /**
      * Publishing a cluster state typically involves sending the same cluster state (or diff) to every node, so the work of diffing,
      * serializing, and compressing the state can be done once and the results shared across publish requests. The
-     * {@code PublicationContext} implements this sharing.
+     * {@code PublicationContext} implements this sharing. It is reference-counted, and releases the serialized states once the publication
+     * has completed and all the requests that were sent through it have been answered.
      */
-    public class PublicationContext {
+    public class PublicationContext extends AbstractRefCounted {
 
         private final DiscoveryNodes discoveryNodes;
         private final ClusterState newState;
         private final ClusterState previousState;
         private final boolean sendFullVersion;
-        private final Map<Version, BytesReference> serializedStates = new HashMap<>();
-        private final Map<Version, BytesReference> serializedDiffs = new HashMap<>();
+        private final Map<Version, ReleasableBytesReference> serializedStates = new HashMap<>();
+        private final Map<Version, ReleasableBytesReference> serializedDiffs = new HashMap<>();
 
         PublicationContext(ClusterChangedEvent clusterChangedEvent) {
+            super("publication-context");
             discoveryNodes = clusterChangedEvent.state().nodes();
             newState = clusterChangedEvent.state();
             previousState = clusterChangedEvent.previousState();
@@ -263,7 +296,7 @@ public class PublicationTransportHandler {
                             diff = newState.diff(previousState);
                         }
                         if (serializedDiffs.containsKey(node.getVersion()) == false) {
-                            final BytesReference serializedDiff = serializeDiffClusterState(diff, node.getVersion());
+                            final ReleasableBytesReference serializedDiff = serializeDiffClusterState(diff, node.getVersion());
                             serializedDiffs.put(node.getVersion(), serializedDiff);
                             logger.trace("serialized cluster state diff for version [{}] in for node version [{}] with size [{}]",
                                 newState.version(), node.getVersion(), serializedDiff.length());
@@ -302,12 +335,15 @@ public class PublicationTransportHandler {
             } else {
                 responseActionListener = listener;
             }
+            // keep the serialized states alive until the destination has responded, possibly after a retry with the full state
+            incRef();
+            final ActionListener<PublishWithJoinResponse> releasingListener = ActionListener.runAfter(responseActionListener, this::decRef);
             if (sendFullVersion || previousState.nodes().nodeExists(destination) == false) {
                 logger.trace("sending full cluster state version [{}] to [{}]", newState.version(), destination);
-                sendFullClusterState(destination, responseActionListener);
+                sendFullClusterState(destination, releasingListener);
             } else {
                 logger.trace("sending cluster state diff for version [{}] to [{}]", newState.version(), destination);
-                sendClusterStateDiff(destination, responseActionListener);
+                sendClusterStateDiff(destination, releasingListener);
             }
         }
 
@@ -340,30 +376,35 @@ public class PublicationTransportHandler {
         }
 
         private void sendFullClusterState(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
-            BytesReference bytes = serializedStates.get(destination.getVersion());
-            if (bytes == null) {
-                try {
-                    bytes = serializeFullClusterState(newState, destination.getVersion());
-                    serializedStates.put(destination.getVersion(), bytes);
-                } catch (Exception e) {
-                    logger.warn(() -> new ParameterizedMessage(
-                        "failed to serialize cluster state before publishing it to node {}", destination), e);
-                    listener.onFailure(e);
-                    return;
+            assert refCount() > 0 : "publication context released while still in use";
+            ReleasableBytesReference bytes;
+            // a full state may be serialized lazily on retry, which happens outside the coordinator mutex
+            synchronized (serializedStates) {
+                bytes = serializedStates.get(destination.getVersion());
+                if (bytes == null) {
+                    try {
+                        bytes = serializeFullClusterState(newState, destination.getVersion());
+                        serializedStates.put(destination.getVersion(), bytes);
+                    } catch (Exception e) {
+                        logger.warn(() -> new ParameterizedMessage(
+                            "failed to serialize cluster state before publishing it to node {}", destination), e);
+                        listener.onFailure(e);
+                        return;
+                    }
                 }
             }
             sendClusterState(destination, bytes, false, listener);
         }
 
         private void sendClusterStateDiff(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
-            final BytesReference bytes = serializedDiffs.get(destination.getVersion());
+            final ReleasableBytesReference bytes = serializedDiffs.get(destination.getVersion());
             assert bytes != null
                 : "failed to find serialized diff for node " + destination + " of version [" + destination.getVersion() + "]";
             sendClusterState(destination, bytes, true, listener);
         }
 
-        private void sendClusterState(DiscoveryNode destination, BytesReference bytes, boolean retryWithFullClusterStateOnFailure,
-                                      ActionListener<PublishWithJoinResponse> listener) {
+        private void sendClusterState(DiscoveryNode destination, ReleasableBytesReference bytes,
+                                      boolean retryWithFullClusterStateOnFailure, ActionListener<PublishWithJoinResponse> listener) {
             try {
                 final BytesTransportRequest request = new BytesTransportRequest(bytes, destination.getVersion());
                 final Consumer<TransportException> transportExceptionHandler = exp -> {
@@ -404,6 +445,14 @@ public class PublicationTransportHandler {
                 listener.onFailure(e);
             }
         }
+
+        @Override
+        protected void closeInternal() {
+            synchronized (serializedStates) {
+                Releasables.close(serializedStates.values());
+            }
+            Releasables.close(serializedDiffs.values());
+        }
     }
 
 }
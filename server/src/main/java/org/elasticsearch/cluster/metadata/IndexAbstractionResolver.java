@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedMap;
 
 public class IndexAbstractionResolver {
 
@@ -81,7 +82,7 @@ public class IndexAbstractionResolver {
             if (replaceWildcards && Regex.isSimpleMatchPattern(indexAbstraction)) {
                 wildcardSeen = true;
                 Set<String> resolvedIndices = new HashSet<>();
-                for (String authorizedIndex : availableIndexAbstractions) {
+                for (String authorizedIndex : wildcardCandidates(indexAbstraction, metadata, availableIndexAbstractions)) {
                     if (Regex.simpleMatch(indexAbstraction, authorizedIndex) &&
                         isIndexVisible(indexAbstraction, authorizedIndex, indicesOptions, metadata, indexNameExpressionResolver,
                             includeDataStreams)) {
@@ -111,6 +112,35 @@ public class IndexAbstractionResolver {
         return finalIndices;
     }
 
+    /**
+     * Returns the available names that may match the given wildcard pattern. If the pattern has a literal prefix these are found in the
+     * sorted indices lookup, which avoids checking every available name against the pattern, unless more names share the prefix than
+     * there are available names.
+     */
+    private static Collection<String> wildcardCandidates(String pattern, Metadata metadata,
+                                                         Collection<String> availableIndexAbstractions) {
+        if (availableIndexAbstractions instanceof Set == false) {
+            return availableIndexAbstractions;
+        }
+        final SortedMap<String, IndexAbstraction> indicesLookup = metadata.getIndicesLookup();
+        final SortedMap<String, IndexAbstraction> prefixRange =
+            IndexNameExpressionResolver.WildcardExpressionResolver.literalPrefixRange(indicesLookup, pattern);
+        if (prefixRange == indicesLookup) {
+            return availableIndexAbstractions;
+        }
+        final List<String> candidates = new ArrayList<>();
+        int visited = 0;
+        for (String name : prefixRange.keySet()) {
+            if (++visited > availableIndexAbstractions.size()) {
+                return availableIndexAbstractions;
+            }
+            if (availableIndexAbstractions.contains(name)) {
+                candidates.add(name);
+            }
+        }
+        return candidates;
+    }
+
     public static boolean isIndexVisible(String expression, String index, IndicesOptions indicesOptions, Metadata metadata,
                                          IndexNameExpressionResolver resolver, boolean includeDataStreams) {
         return isIndexVisible(expression, index, indicesOptions, metadata, resolver, includeDataStreams, false);
@@ -334,6 +334,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     static final String KEY_SETTINGS = "settings";
     static final String KEY_STATE = "state";
     static final String KEY_MAPPINGS = "mappings";
+    static final String KEY_MAPPINGS_HASH = "mappings_hash";
     static final String KEY_ALIASES = "aliases";
     static final String KEY_ROLLOVER_INFOS = "rollover_info";
     static final String KEY_SYSTEM = "system";
@@ -342,6 +343,12 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
 
     public static final String INDEX_STATE_FILE_PREFIX = "state-";
 
+    /**
+     * When set, {@link #toXContent} refers to the mappings by their {@link MappingMetadata#getSha256() hash} rather than writing their
+     * content, which is then stored separately and only once for all the indices that share the same mappings.
+     */
+    public static final String DEDUPLICATED_MAPPINGS_PARAM = "deduplicated_mappings";
+
     static final Version SYSTEM_INDEX_FLAG_ADDED = Version.V_7_10_0;
 
     private final int routingNumShards;
@@ -450,6 +457,43 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         assert numberOfShards * routingFactor == routingNumShards :  routingNumShards + " must be a multiple of " + numberOfShards;
     }
 
+    /**
+     * Returns a copy of this index metadata that uses the given, equal, instance of its mappings, so that indices with identical
+     * mappings share a single instance.
+     */
+    IndexMetadata withMappingMetadata(MappingMetadata mappingMetadata) {
+        assert mappingMetadata.equals(mapping()) : mappingMetadata + " vs " + mapping();
+        if (mappingMetadata == mapping()) {
+            return this;
+        }
+        return new IndexMetadata(
+            index,
+            version,
+            mappingVersion,
+            settingsVersion,
+            aliasesVersion,
+            primaryTerms,
+            state,
+            numberOfShards,
+            numberOfReplicas,
+            settings,
+            ImmutableOpenMap.<String, MappingMetadata>builder().fPut(MapperService.SINGLE_MAPPING_NAME, mappingMetadata).build(),
+            aliases,
+            customData,
+            inSyncAllocationIds,
+            requireFilters,
+            initialRecoveryFilters,
+            includeFilters,
+            excludeFilters,
+            indexCreatedVersion,
+            routingNumShards,
+            routingPartitionSize,
+            waitForActiveShards,
+            rolloverInfos,
+            isSystem,
+            timestampRange);
+    }
+
     public Index getIndex() {
         return index;
     }
@@ -838,6 +882,15 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
     }
 
     public static IndexMetadata readFrom(StreamInput in) throws IOException {
+        return readFrom(in, null);
+    }
+
+    /**
+     * Reads index metadata whose mappings were written by {@link #writeTo(StreamOutput, boolean)}.
+     *
+     * @param mappingLookup looks up the mappings by their hash, or {@code null} if the mappings were written in full
+     */
+    public static IndexMetadata readFrom(StreamInput in, @Nullable Function<String, MappingMetadata> mappingLookup) throws IOException {
         Builder builder = new Builder(in.readString());
         builder.version(in.readLong());
         builder.mappingVersion(in.readVLong());
@@ -851,7 +904,16 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         builder.primaryTerms(in.readVLongArray());
         int mappingsSize = in.readVInt();
         for (int i = 0; i < mappingsSize; i++) {
-            MappingMetadata mappingMd = new MappingMetadata(in);
+            final MappingMetadata mappingMd;
+            if (mappingLookup == null) {
+                mappingMd = new MappingMetadata(in);
+            } else {
+                final String mappingHash = in.readString();
+                mappingMd = mappingLookup.apply(mappingHash);
+                if (mappingMd == null) {
+                    throw new IllegalStateException("no mappings found for hash [" + mappingHash + "] of index [" + builder.index + "]");
+                }
+            }
             builder.putMapping(mappingMd);
         }
         int aliasesSize = in.readVInt();
@@ -884,6 +946,14 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
+        writeTo(out, false);
+    }
+
+    /**
+     * @param mappingsAsHash whether to write only the hash of the mappings, which the reader must be able to resolve
+     *                       with {@link #readFrom(StreamInput, Function)}
+     */
+    public void writeTo(StreamOutput out, boolean mappingsAsHash) throws IOException {
         out.writeString(index.getName()); // uuid will come as part of settings
         out.writeLong(version);
         out.writeVLong(mappingVersion);
@@ -897,7 +967,11 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         out.writeVLongArray(primaryTerms);
         out.writeVInt(mappings.size());
         for (ObjectCursor<MappingMetadata> cursor : mappings.values()) {
-            cursor.value.writeTo(out);
+            if (mappingsAsHash) {
+                out.writeString(cursor.value.getSha256());
+            } else {
+                cursor.value.writeTo(out);
+            }
         }
         out.writeVInt(aliases.size());
         for (ObjectCursor<AliasMetadata> cursor : aliases.values()) {
@@ -1333,7 +1407,14 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             }
             builder.endObject();
 
-            if (context != Metadata.XContentContext.API) {
+            if (context != Metadata.XContentContext.API && params.paramAsBoolean(DEDUPLICATED_MAPPINGS_PARAM, false)) {
+                builder.startArray(KEY_MAPPINGS_HASH);
+                MappingMetadata mmd = indexMetadata.mapping();
+                if (mmd != null) {
+                    builder.value(mmd.getSha256());
+                }
+                builder.endArray();
+            } else if (context != Metadata.XContentContext.API) {
                 builder.startArray(KEY_MAPPINGS);
                 MappingMetadata mmd = indexMetadata.mapping();
                 if (mmd != null) {
@@ -1416,6 +1497,15 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
 
         public static IndexMetadata fromXContent(XContentParser parser) throws IOException {
+            return fromXContent(parser, null);
+        }
+
+        /**
+         * @param mappingsByHash the mappings that the index metadata may refer to by their hash, or {@code null} if it contains its
+         *                       mappings in full
+         */
+        public static IndexMetadata fromXContent(XContentParser parser, @Nullable Map<String, MappingMetadata> mappingsByHash)
+            throws IOException {
             if (parser.currentToken() == null) { // fresh parser? move to the first token
                 parser.nextToken();
             }
@@ -1511,6 +1601,15 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
                                 }
                             }
                         }
+                    } else if (KEY_MAPPINGS_HASH.equals(currentFieldName)) {
+                        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                            final String mappingHash = parser.text();
+                            final MappingMetadata mappingMetadata = mappingsByHash == null ? null : mappingsByHash.get(mappingHash);
+                            if (mappingMetadata == null) {
+                                throw new IllegalArgumentException("no mappings found for hash [" + mappingHash + "]");
+                            }
+                            builder.putMapping(mappingMetadata);
+                        }
                     } else if (KEY_PRIMARY_TERMS.equals(currentFieldName)) {
                         LongArrayList list = new LongArrayList();
                         while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
@@ -871,10 +871,15 @@ public class IndexNameExpressionResolver {
                     .collect(Collectors.toList());
                 if (context.includeDataStreams()) {
                     final IndexMetadata.State excludeState = excludeState(options);
-                    final Map<String, IndexAbstraction> dataStreamsAbstractions = metadata.getIndicesLookup().entrySet()
-                        .stream()
-                        .filter(entry -> entry.getValue().getType() == IndexAbstraction.Type.DATA_STREAM)
-                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                    // look up the data streams by name rather than scanning all indices and aliases for them
+                    final Map<String, IndexAbstraction> dataStreamsAbstractions = new HashMap<>();
+                    for (String dataStreamName : metadata.dataStreams().keySet()) {
+                        final IndexAbstraction dataStream = metadata.getIndicesLookup().get(dataStreamName);
+                        if (dataStream != null) {
+                            assert dataStream.getType() == IndexAbstraction.Type.DATA_STREAM : dataStream;
+                            dataStreamsAbstractions.put(dataStreamName, dataStream);
+                        }
+                    }
                     // dedup backing indices if expand hidden indices option is true
                     Set<String> resolvedIncludingDataStreams = new HashSet<>(resolvedExpressions);
                     resolvedIncludingDataStreams.addAll(expand(context, excludeState, dataStreamsAbstractions,
@@ -1023,18 +1028,37 @@ public class IndexNameExpressionResolver {
 
         private static Map<String, IndexAbstraction> suffixWildcard(Context context, Metadata metadata, String expression) {
             assert expression.length() >= 2 : "expression [" + expression + "] should have at least a length of 2";
-            String fromPrefix = expression.substring(0, expression.length() - 1);
-            char[] toPrefixCharArr = fromPrefix.toCharArray();
-            toPrefixCharArr[toPrefixCharArr.length - 1]++;
-            String toPrefix = new String(toPrefixCharArr);
-            SortedMap<String, IndexAbstraction> subMap = metadata.getIndicesLookup().subMap(fromPrefix, toPrefix);
+            SortedMap<String, IndexAbstraction> subMap = literalPrefixRange(metadata.getIndicesLookup(), expression);
             return filterIndicesLookup(context, subMap, null, context.getOptions());
         }
 
         private static Map<String, IndexAbstraction> otherWildcard(Context context, Metadata metadata, String expression) {
             final String pattern = expression;
-            return filterIndicesLookup(context, metadata.getIndicesLookup(), e -> Regex.simpleMatch(pattern, e.getKey()),
-                context.getOptions());
+            return filterIndicesLookup(context, literalPrefixRange(metadata.getIndicesLookup(), pattern),
+                e -> Regex.simpleMatch(pattern, e.getKey()), context.getOptions());
+        }
+
+        /**
+         * Returns the range of the given sorted lookup whose names start with the literal prefix of the given wildcard pattern, i.e. the
+         * part of the pattern before its first wildcard, which contains all names that may match the pattern. This range is located in
+         * logarithmic time, so that patterns like {@code logs-*-prod} only look at the names that start with {@code logs-}. Returns the
+         * whole lookup if the pattern starts with a wildcard.
+         */
+        static <V> SortedMap<String, V> literalPrefixRange(SortedMap<String, V> lookup, String pattern) {
+            final int firstWildcard = pattern.indexOf('*');
+            final String fromPrefix = firstWildcard < 0 ? pattern : pattern.substring(0, firstWildcard);
+            // the names with the prefix sort before the prefix with its last character incremented, after dropping the trailing
+            // characters that are already the largest character
+            int toPrefixLength = fromPrefix.length();
+            while (toPrefixLength > 0 && fromPrefix.charAt(toPrefixLength - 1) == Character.MAX_VALUE) {
+                toPrefixLength--;
+            }
+            if (toPrefixLength == 0) {
+                return fromPrefix.isEmpty() ? lookup : lookup.tailMap(fromPrefix);
+            }
+            char[] toPrefixCharArr = fromPrefix.substring(0, toPrefixLength).toCharArray();
+            toPrefixCharArr[toPrefixLength - 1]++;
+            return lookup.subMap(fromPrefix, new String(toPrefixCharArr));
         }
 
         private static Map<String, IndexAbstraction> filterIndicesLookup(Context context, SortedMap<String, IndexAbstraction> indicesLookup,
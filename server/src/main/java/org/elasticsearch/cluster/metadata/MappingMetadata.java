@@ -14,6 +14,7 @@ import org.elasticsearch.cluster.AbstractDiffable;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -43,10 +44,13 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
 
     private final boolean routingRequired;
 
+    private final String sha256;
+
     public MappingMetadata(DocumentMapper docMapper) {
         this.type = docMapper.type();
         this.source = docMapper.mappingSource();
         this.routingRequired = docMapper.routingFieldMapper().required();
+        this.sha256 = computeSha256(source);
     }
 
     @SuppressWarnings("unchecked")
@@ -58,6 +62,7 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
         }
         this.type = mappingMap.keySet().iterator().next();
         this.routingRequired = routingRequired((Map<String, Object>) mappingMap.get(this.type));
+        this.sha256 = computeSha256(source);
     }
 
     @SuppressWarnings("unchecked")
@@ -74,6 +79,11 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
             withoutType = (Map<String, Object>) mapping.get(type);
         }
         this.routingRequired = routingRequired(withoutType);
+        this.sha256 = computeSha256(source);
+    }
+
+    private static String computeSha256(CompressedXContent source) {
+        return MessageDigests.toHexString(MessageDigests.sha256().digest(source.compressed()));
     }
 
     public static void writeMappingMetadata(StreamOutput out, ImmutableOpenMap<String, MappingMetadata> mappings) throws IOException {
@@ -121,6 +131,13 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
         return this.source;
     }
 
+    /**
+     * Returns the SHA-256 digest of the compressed mapping source, which identifies the mappings that are shared between indices.
+     */
+    public String getSha256() {
+        return this.sha256;
+    }
+
     /**
      * Converts the serialized compressed form of the mappings into a parsed map.
      */
@@ -176,6 +193,7 @@ public class MappingMetadata extends AbstractDiffable<MappingMetadata> {
         type = in.readString();
         source = CompressedXContent.readCompressedString(in);
         routingRequired = in.readBoolean();
+        sha256 = computeSha256(source);
     }
 
     public static Diff<MappingMetadata> readDiffFrom(StreamInput in) throws IOException {
@@ -165,6 +165,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
     private final ImmutableOpenMap<String, IndexMetadata> indices;
     private final ImmutableOpenMap<String, IndexTemplateMetadata> templates;
     private final ImmutableOpenMap<String, Custom> customs;
+    private final ImmutableOpenMap<String, MappingMetadata> mappingsByHash;
 
     private final transient int totalNumberOfShards; // Transient ? not serializable anyway?
     private final int totalOpenIndexShards;
@@ -181,9 +182,9 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
     Metadata(String clusterUUID, boolean clusterUUIDCommitted, long version, CoordinationMetadata coordinationMetadata,
              Settings transientSettings, Settings persistentSettings, DiffableStringMap hashesOfConsistentSettings,
              ImmutableOpenMap<String, IndexMetadata> indices, ImmutableOpenMap<String, IndexTemplateMetadata> templates,
-             ImmutableOpenMap<String, Custom> customs, String[] allIndices, String[] visibleIndices, String[] allOpenIndices,
-             String[] visibleOpenIndices, String[] allClosedIndices, String[] visibleClosedIndices,
-             SortedMap<String, IndexAbstraction> indicesLookup) {
+             ImmutableOpenMap<String, Custom> customs, ImmutableOpenMap<String, MappingMetadata> mappingsByHash, String[] allIndices,
+             String[] visibleIndices, String[] allOpenIndices, String[] visibleOpenIndices, String[] allClosedIndices,
+             String[] visibleClosedIndices, SortedMap<String, IndexAbstraction> indicesLookup) {
         this.clusterUUID = clusterUUID;
         this.clusterUUIDCommitted = clusterUUIDCommitted;
         this.version = version;
@@ -195,6 +196,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         this.indices = indices;
         this.customs = customs;
         this.templates = templates;
+        this.mappingsByHash = mappingsByHash;
         int totalNumberOfShards = 0;
         int totalOpenIndexShards = 0;
         for (ObjectCursor<IndexMetadata> cursor : indices.values()) {
@@ -675,6 +677,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         return indices();
     }
 
+    /**
+     * Returns the distinct mappings of the indices by their {@link MappingMetadata#getSha256() hash}. Indices with identical mappings
+     * share the same {@link MappingMetadata} instance.
+     */
+    public ImmutableOpenMap<String, MappingMetadata> getMappingsByHash() {
+        return mappingsByHash;
+    }
+
     public ImmutableOpenMap<String, IndexTemplateMetadata> templates() {
         return this.templates;
     }
@@ -938,9 +948,21 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         if (in.getVersion().onOrAfter(Version.V_7_3_0)) {
             builder.hashesOfConsistentSettings(DiffableStringMap.readFrom(in));
         }
+        final Function<String, MappingMetadata> mappingLookup;
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            final int mappingsSize = in.readVInt();
+            final Map<String, MappingMetadata> mappingsByHash = new HashMap<>(mappingsSize);
+            for (int i = 0; i < mappingsSize; i++) {
+                final MappingMetadata mappingMetadata = new MappingMetadata(in);
+                mappingsByHash.put(mappingMetadata.getSha256(), mappingMetadata);
+            }
+            mappingLookup = mappingsByHash::get;
+        } else {
+            mappingLookup = null;
+        }
         int size = in.readVInt();
         for (int i = 0; i < size; i++) {
-            builder.put(IndexMetadata.readFrom(in), false);
+            builder.put(IndexMetadata.readFrom(in, mappingLookup), false);
         }
         size = in.readVInt();
         for (int i = 0; i < size; i++) {
@@ -965,9 +987,17 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         if (out.getVersion().onOrAfter(Version.V_7_3_0)) {
             hashesOfConsistentSettings.writeTo(out);
         }
+        // write each distinct mapping only once, the indices refer to them by their hash
+        final boolean mappingsAsHash = out.getVersion().onOrAfter(Version.V_8_0_0);
+        if (mappingsAsHash) {
+            out.writeVInt(mappingsByHash.size());
+            for (ObjectCursor<MappingMetadata> cursor : mappingsByHash.values()) {
+                cursor.value.writeTo(out);
+            }
+        }
         out.writeVInt(indices.size());
         for (IndexMetadata indexMetadata : this) {
-            indexMetadata.writeTo(out);
+            indexMetadata.writeTo(out, mappingsAsHash);
         }
         out.writeVInt(templates.size());
         for (ObjectCursor<IndexTemplateMetadata> cursor : templates.values()) {
@@ -998,12 +1028,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         private final ImmutableOpenMap.Builder<String, IndexMetadata> indices;
         private final ImmutableOpenMap.Builder<String, IndexTemplateMetadata> templates;
         private final ImmutableOpenMap.Builder<String, Custom> customs;
+        private final ImmutableOpenMap<String, MappingMetadata> previousMappingsByHash;
 
         public Builder() {
             clusterUUID = UNKNOWN_CLUSTER_UUID;
             indices = ImmutableOpenMap.builder();
             templates = ImmutableOpenMap.builder();
             customs = ImmutableOpenMap.builder();
+            previousMappingsByHash = ImmutableOpenMap.of();
             indexGraveyard(IndexGraveyard.builder().build()); // create new empty index graveyard to initialize
         }
 
@@ -1018,6 +1050,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             this.indices = ImmutableOpenMap.builder(metadata.indices);
             this.templates = ImmutableOpenMap.builder(metadata.templates);
             this.customs = ImmutableOpenMap.builder(metadata.customs);
+            this.previousMappingsByHash = metadata.mappingsByHash;
         }
 
         public Builder put(IndexMetadata.Builder indexMetadataBuilder) {
@@ -1413,6 +1446,8 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             //    while these datastructures aren't even used.
             // 2) The aliasAndIndexLookup can be updated instead of rebuilding it all the time.
 
+            final ImmutableOpenMap<String, MappingMetadata> mappingsByHash = deduplicateMappings();
+
             final Set<String> allIndices = new HashSet<>(indices.size());
             final List<String> visibleIndices = new ArrayList<>();
             final List<String> allOpenIndices = new ArrayList<>();
@@ -1507,8 +1542,37 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             String[] visibleClosedIndicesArray = visibleClosedIndices.toArray(Strings.EMPTY_ARRAY);
 
             return new Metadata(clusterUUID, clusterUUIDCommitted, version, coordinationMetadata, transientSettings, persistentSettings,
-                hashesOfConsistentSettings, indices.build(), templates.build(), customs.build(), allIndicesArray, visibleIndicesArray,
-                allOpenIndicesArray, visibleOpenIndicesArray, allClosedIndicesArray, visibleClosedIndicesArray, indicesLookup);
+                hashesOfConsistentSettings, indices.build(), templates.build(), customs.build(), mappingsByHash, allIndicesArray,
+                visibleIndicesArray, allOpenIndicesArray, visibleOpenIndicesArray, allClosedIndicesArray, visibleClosedIndicesArray,
+                indicesLookup);
+        }
+
+        /**
+         * Makes all indices with identical mappings share a single {@link MappingMetadata} instance, and returns the distinct mappings by
+         * their hash. The instances of the previous metadata are preferred, so that the indices that already share them stay the same.
+         */
+        private ImmutableOpenMap<String, MappingMetadata> deduplicateMappings() {
+            final Map<String, MappingMetadata> mappingsByHash = new HashMap<>(previousMappingsByHash.size());
+            final List<IndexMetadata> deduplicatedIndices = new ArrayList<>();
+            for (ObjectCursor<IndexMetadata> cursor : indices.values()) {
+                final MappingMetadata mappingMetadata = cursor.value.mapping();
+                if (mappingMetadata == null) {
+                    continue;
+                }
+                final String hash = mappingMetadata.getSha256();
+                MappingMetadata sharedMappingMetadata = mappingsByHash.get(hash);
+                if (sharedMappingMetadata == null) {
+                    sharedMappingMetadata = previousMappingsByHash.getOrDefault(hash, mappingMetadata);
+                    mappingsByHash.put(hash, sharedMappingMetadata);
+                }
+                if (sharedMappingMetadata != mappingMetadata) {
+                    deduplicatedIndices.add(cursor.value.withMappingMetadata(sharedMappingMetadata));
+                }
+            }
+            for (IndexMetadata indexMetadata : deduplicatedIndices) {
+                indices.put(indexMetadata.getIndex().getName(), indexMetadata);
+            }
+            return ImmutableOpenMap.<String, MappingMetadata>builder(mappingsByHash.size()).putAll(mappingsByHash).build();
         }
 
         private SortedMap<String, IndexAbstraction> buildIndicesLookup() {
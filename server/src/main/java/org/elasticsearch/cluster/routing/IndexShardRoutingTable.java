@@ -17,6 +17,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.NodeLoadStats;
 import org.elasticsearch.node.ResponseCollectorService;
 
 import java.io.IOException;
@@ -296,7 +297,8 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
      *
      * This adjustment takes the "winning" node's statistics and adds the average of those statistics with each non-winning node. Let's say
      * the winning node had a queue size of 10 and a non-winning node had a queue of 18. The average queue size is (10 + 18) / 2 = 14 so the
-     * non-winning node will have statistics added for a queue size of 14. This is repeated for the response time and service times as well.
+     * non-winning node will have statistics added for a queue size of 14. This is repeated for the response time and service times as well,
+     * and for the load that the nodes reported, so that a node that was avoided because of its load eventually gets requests again.
      */
     private static void adjustStats(final ResponseCollectorService collector,
                                     final Map<String, Optional<ResponseCollectorService.ComputedNodeStats>> nodeStats,
@@ -316,12 +318,25 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
                     avgServiceTime.addValue((minStats.serviceTime + stats.serviceTime) / 2);
                     final long updatedService = (long) avgServiceTime.getAverage();
 
-                    collector.addNodeStatistics(nodeId, updatedQueue, updatedResponse, updatedService);
+                    final NodeLoadStats updatedLoad = new NodeLoadStats(
+                        (int) averageLoad(minStats.gcOverhead, stats.gcOverhead),
+                        (int) averageLoad(minStats.cpuPercent, stats.cpuPercent),
+                        (long) averageLoad(minStats.searchRejections, stats.searchRejections));
+
+                    collector.addNodeStatistics(nodeId, updatedQueue, updatedResponse, updatedService, updatedLoad);
                 }
             }
         }
     }
 
+    private static double averageLoad(double winnerLoad, double load) {
+        if (load < 0) {
+            // the node does not report this load
+            return -1;
+        }
+        return winnerLoad < 0 ? load : (winnerLoad + load) / 2;
+    }
+
     private static List<ShardRouting> rankShardsAndUpdateStats(List<ShardRouting> shards, final ResponseCollectorService collector,
                                                                final Map<String, Long> nodeSearchCounts) {
         if (collector == null || nodeSearchCounts == null || shards.size() <= 1) {
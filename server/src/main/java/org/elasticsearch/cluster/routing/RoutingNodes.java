@@ -979,6 +979,20 @@ public class RoutingNodes implements Iterable<RoutingNode> {
             Randomness.shuffle(unassigned);
         }
 
+        /**
+         * Moves the ignored shards back to the non-ignored unassigned shards, so that another round of allocation on these routing
+         * nodes considers them again. Used when simulating allocations, in which throttled shards become allocatable once the
+         * simulated recoveries complete.
+         */
+        public void resetIgnored() {
+            nodes.ensureMutable();
+            for (ShardRouting shardRouting : ignored) {
+                add(shardRouting);
+            }
+            ignored.clear();
+            ignoredPrimaries = 0;
+        }
+
         /**
          * Drains all unassigned shards and returns it.
          * This method will not drain ignored shards.
@@ -438,23 +438,30 @@ public class AllocationService {
             existingShardsAllocator.beforeAllocation(allocation);
         }
 
-        final RoutingNodes.UnassignedShards.UnassignedIterator primaryIterator = allocation.routingNodes().unassigned().iterator();
-        while (primaryIterator.hasNext()) {
-            final ShardRouting shardRouting = primaryIterator.next();
-            if (shardRouting.primary()) {
-                getAllocatorForShard(shardRouting, allocation).allocateUnassigned(shardRouting, allocation, primaryIterator);
+        try {
+            final RoutingNodes.UnassignedShards.UnassignedIterator primaryIterator = allocation.routingNodes().unassigned().iterator();
+            while (primaryIterator.hasNext()) {
+                final ShardRouting shardRouting = primaryIterator.next();
+                if (shardRouting.primary()) {
+                    getAllocatorForShard(shardRouting, allocation).allocateUnassigned(shardRouting, allocation, primaryIterator);
+                }
             }
-        }
 
-        for (final ExistingShardsAllocator existingShardsAllocator : existingShardsAllocators.values()) {
-            existingShardsAllocator.afterPrimariesBeforeReplicas(allocation);
-        }
+            for (final ExistingShardsAllocator existingShardsAllocator : existingShardsAllocators.values()) {
+                existingShardsAllocator.afterPrimariesBeforeReplicas(allocation);
+            }
 
-        final RoutingNodes.UnassignedShards.UnassignedIterator replicaIterator = allocation.routingNodes().unassigned().iterator();
-        while (replicaIterator.hasNext()) {
-            final ShardRouting shardRouting = replicaIterator.next();
-            if (shardRouting.primary() == false) {
-                getAllocatorForShard(shardRouting, allocation).allocateUnassigned(shardRouting, allocation, replicaIterator);
+            final RoutingNodes.UnassignedShards.UnassignedIterator replicaIterator = allocation.routingNodes().unassigned().iterator();
+            while (replicaIterator.hasNext()) {
+                final ShardRouting shardRouting = replicaIterator.next();
+                if (shardRouting.primary() == false) {
+                    getAllocatorForShard(shardRouting, allocation).allocateUnassigned(shardRouting, allocation, replicaIterator);
+                }
+            }
+        } finally {
+            // e.g. the gateway allocator sends the shard fetches it deferred, which would otherwise never complete if allocation failed
+            for (final ExistingShardsAllocator existingShardsAllocator : existingShardsAllocators.values()) {
+                existingShardsAllocator.afterAllocation(allocation);
             }
         }
     }
@@ -42,6 +42,13 @@ public interface ExistingShardsAllocator {
      */
     void afterPrimariesBeforeReplicas(RoutingAllocation allocation);
 
+    /**
+     * Called at the end of a round of allocation, after attempting to allocate all the primaries and replicas, and also if allocating
+     * them failed, allowing the allocator to complete any work that it deferred during the round.
+     */
+    default void afterAllocation(RoutingAllocation allocation) {
+    }
+
     /**
      * Allocate any unassigned shards in the given {@link RoutingAllocation} for which this {@link ExistingShardsAllocator} is responsible.
      */
@@ -19,6 +19,7 @@ import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.IndexLevelDecisionCache;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.RestoreService.RestoreInProgressUpdater;
@@ -70,6 +71,7 @@ public class RoutingAllocation {
     private final RoutingChangesObserver routingChangesObserver = new RoutingChangesObserver.DelegatingRoutingChangesObserver(
         nodesChangedObserver, indexMetadataUpdater, restoreInProgressUpdater
     );
+    private final IndexLevelDecisionCache indexLevelDecisionCache = new IndexLevelDecisionCache();
 
 
     /**
@@ -105,6 +107,14 @@ public class RoutingAllocation {
         return this.deciders;
     }
 
+    /**
+     * Get the cache of the decisions of the {@link AllocationDeciders} that only depend on the index of a shard and the node
+     * @return the decision cache for this allocation
+     */
+    public IndexLevelDecisionCache indexLevelDecisionCache() {
+        return indexLevelDecisionCache;
+    }
+
     /**
      * Get routing table of current nodes
      * @return current routing table
@@ -113,6 +113,20 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         balancer.balance();
     }
 
+    /**
+     * Assigns the unassigned shards and moves the shards that can't remain on their nodes like {@link #allocate}, but doesn't
+     * rebalance the cluster, which the {@link DesiredBalanceShardsAllocator} does in the background instead.
+     */
+    void allocateWithoutRebalancing(RoutingAllocation allocation) {
+        if (allocation.routingNodes().size() == 0) {
+            failAllocationOfNewPrimaries(allocation);
+            return;
+        }
+        final Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold);
+        balancer.allocateUnassigned();
+        balancer.moveShards();
+    }
+
     @Override
     public ShardAllocationDecision decideShardAllocation(final ShardRouting shard, final RoutingAllocation allocation) {
         Balancer balancer = new Balancer(logger, allocation, weightFunction, threshold);
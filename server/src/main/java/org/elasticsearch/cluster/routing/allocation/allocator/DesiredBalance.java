@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The desired balance of the cluster, i.e. the nodes that should eventually hold the copies of each shard, as computed by the
+ * {@link DesiredBalanceComputer}.
+ */
+public final class DesiredBalance {
+
+    public static final DesiredBalance INITIAL = new DesiredBalance(-1, Map.of());
+
+    private final long lastComputedInputIndex;
+    private final Map<ShardId, Set<String>> assignments;
+
+    /**
+     * @param lastComputedInputIndex the index of the {@link DesiredBalanceInput} that this balance was computed from
+     * @param assignments            the ids of the nodes that should hold the copies of each shard
+     */
+    public DesiredBalance(long lastComputedInputIndex, Map<ShardId, Set<String>> assignments) {
+        this.lastComputedInputIndex = lastComputedInputIndex;
+        this.assignments = assignments;
+    }
+
+    public long getLastComputedInputIndex() {
+        return lastComputedInputIndex;
+    }
+
+    /**
+     * Returns the ids of the nodes that should hold the copies of the given shard, which is empty if the desired balance doesn't
+     * know about this shard yet or if its copies can't be assigned anywhere.
+     */
+    public Set<String> getAssignment(ShardId shardId) {
+        return assignments.getOrDefault(shardId, Set.of());
+    }
+
+    public Map<ShardId, Set<String>> getAssignments() {
+        return assignments;
+    }
+
+    /**
+     * Whether the two balances assign the shards to the same nodes, regardless of the input they were computed from.
+     */
+    public static boolean hasChanges(DesiredBalance a, DesiredBalance b) {
+        return a.assignments.equals(b.assignments) == false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DesiredBalance that = (DesiredBalance) o;
+        return lastComputedInputIndex == that.lastComputedInputIndex && assignments.equals(that.assignments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastComputedInputIndex, assignments);
+    }
+
+    @Override
+    public String toString() {
+        return "DesiredBalance{lastComputedInputIndex=" + lastComputedInputIndex + ", assignments=" + assignments.size() + " shards}";
+    }
+}
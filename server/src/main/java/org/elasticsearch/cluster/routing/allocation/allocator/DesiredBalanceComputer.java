@@ -0,0 +1,172 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.UnassignedInfo.AllocationStatus;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the {@link DesiredBalance} of the cluster by simulating the allocation of all shards with the {@link BalancedShardsAllocator}
+ * on a copy of the routing nodes, as if every recovery completed instantly, until the balancer has nothing left to move. The
+ * simulation starts from the previous desired balance so that the computed balance stays stable while the cluster converges towards
+ * it.
+ */
+public class DesiredBalanceComputer {
+
+    private static final Logger logger = LogManager.getLogger(DesiredBalanceComputer.class);
+
+    /**
+     * Bounds the number of rounds of the simulation in case the balancer never stops moving shards, which would be a bug.
+     */
+    static final int MAX_ITERATIONS = 1000;
+
+    private final BalancedShardsAllocator delegateAllocator;
+
+    public DesiredBalanceComputer(BalancedShardsAllocator delegateAllocator) {
+        this.delegateAllocator = delegateAllocator;
+    }
+
+    public DesiredBalance compute(DesiredBalance previousDesiredBalance, DesiredBalanceInput input) {
+        final RoutingAllocation allocation = input.newSimulation();
+        final RoutingNodes routingNodes = allocation.routingNodes();
+
+        // don't assign the shards that the real allocation ignored, e.g. because their existing copies are still being fetched
+        final Set<ShardId> ignoredPrimaries = new HashSet<>();
+        final Set<ShardId> ignoredReplicas = new HashSet<>();
+        for (ShardRouting shardRouting : input.ignoredShards()) {
+            (shardRouting.primary() ? ignoredPrimaries : ignoredReplicas).add(shardRouting.shardId());
+        }
+
+        ignoreShards(allocation, ignoredPrimaries, ignoredReplicas);
+        startInitializingShards(allocation);
+        moveTowardsDesiredBalance(allocation, previousDesiredBalance);
+
+        int iterations = 0;
+        while (true) {
+            startInitializingShards(allocation);
+            // the shards that the balancer ignored because of throttling may be allocatable now
+            routingNodes.unassigned().resetIgnored();
+            ignoreShards(allocation, ignoredPrimaries, ignoredReplicas);
+            delegateAllocator.allocate(allocation);
+            iterations++;
+            if (routingNodes.hasInactiveShards() == false) {
+                break;
+            }
+            if (iterations >= MAX_ITERATIONS) {
+                logger.warn("desired balance computation for [{}] did not converge after [{}] iterations", input, iterations);
+                break;
+            }
+        }
+        logger.trace("desired balance computation for [{}] converged after [{}] iterations", input, iterations);
+
+        final Map<ShardId, Set<String>> assignments = new HashMap<>();
+        for (RoutingNode routingNode : routingNodes) {
+            for (ShardRouting shardRouting : routingNode) {
+                if (shardRouting.assignedToNode()) {
+                    // relocation sources are only left over if the simulation didn't converge, their targets are the desired nodes
+                    final String nodeId = shardRouting.relocating() ? shardRouting.relocatingNodeId() : shardRouting.currentNodeId();
+                    assignments.computeIfAbsent(shardRouting.shardId(), k -> new HashSet<>()).add(nodeId);
+                }
+            }
+        }
+        return new DesiredBalance(input.index(), assignments);
+    }
+
+    private static void ignoreShards(RoutingAllocation allocation, Set<ShardId> ignoredPrimaries, Set<ShardId> ignoredReplicas) {
+        if (ignoredPrimaries.isEmpty() && ignoredReplicas.isEmpty()) {
+            return;
+        }
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        for (final RoutingNodes.UnassignedShards.UnassignedIterator iterator = routingNodes.unassigned().iterator(); iterator.hasNext(); ) {
+            final ShardRouting shardRouting = iterator.next();
+            if ((shardRouting.primary() ? ignoredPrimaries : ignoredReplicas).contains(shardRouting.shardId())) {
+                iterator.removeAndIgnore(AllocationStatus.NO_ATTEMPT, allocation.changes());
+            }
+        }
+    }
+
+    /**
+     * Completes all ongoing recoveries of the simulation. Replicas are started first because starting a primary relocation target
+     * reinitializes the replicas that are recovering from it.
+     */
+    private static void startInitializingShards(RoutingAllocation allocation) {
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        final List<ShardRouting> initializingShards = new ArrayList<>(routingNodes.shardsWithState(ShardRoutingState.INITIALIZING));
+        initializingShards.sort(Comparator.comparing(ShardRouting::primary));
+        for (ShardRouting initializingShard : initializingShards) {
+            routingNodes.startShard(logger, initializingShard, allocation.changes());
+        }
+    }
+
+    /**
+     * Moves the shards of the simulation to the nodes of the previous desired balance wherever the deciders still allow it, ignoring
+     * throttling since the simulated recoveries complete instantly.
+     */
+    private static void moveTowardsDesiredBalance(RoutingAllocation allocation, DesiredBalance desiredBalance) {
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        // the primaries must be active before their replicas can be assigned
+        for (boolean primaries : new boolean[] { true, false }) {
+            for (final RoutingNodes.UnassignedShards.UnassignedIterator iterator = routingNodes.unassigned().iterator();
+                 iterator.hasNext(); ) {
+                final ShardRouting shardRouting = iterator.next();
+                if (shardRouting.primary() != primaries) {
+                    continue;
+                }
+                final String nodeId = findTargetNode(allocation, shardRouting, desiredBalance.getAssignment(shardRouting.shardId()));
+                if (nodeId != null) {
+                    iterator.initialize(nodeId, null, getExpectedShardSize(allocation, shardRouting), allocation.changes());
+                }
+            }
+            startInitializingShards(allocation);
+        }
+        for (ShardRouting shardRouting : routingNodes.shardsWithState(ShardRoutingState.STARTED)) {
+            final Set<String> desiredNodeIds = desiredBalance.getAssignment(shardRouting.shardId());
+            if (desiredNodeIds.isEmpty() || desiredNodeIds.contains(shardRouting.currentNodeId())) {
+                continue;
+            }
+            final String nodeId = findTargetNode(allocation, shardRouting, desiredNodeIds);
+            if (nodeId != null) {
+                routingNodes.relocateShard(shardRouting, nodeId, getExpectedShardSize(allocation, shardRouting), allocation.changes());
+            }
+        }
+    }
+
+    private static String findTargetNode(RoutingAllocation allocation, ShardRouting shardRouting, Set<String> desiredNodeIds) {
+        for (String nodeId : desiredNodeIds) {
+            final RoutingNode routingNode = allocation.routingNodes().node(nodeId);
+            if (routingNode != null && routingNode.getByShardId(shardRouting.shardId()) == null
+                && allocation.deciders().canAllocate(shardRouting, routingNode, allocation).type() != Decision.Type.NO) {
+                return nodeId;
+            }
+        }
+        return null;
+    }
+
+    static long getExpectedShardSize(RoutingAllocation allocation, ShardRouting shardRouting) {
+        return DiskThresholdDecider.getExpectedShardSize(shardRouting, ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE,
+            allocation.clusterInfo(), allocation.snapshotShardSizeInfo(), allocation.metadata(), allocation.routingTable());
+    }
+}
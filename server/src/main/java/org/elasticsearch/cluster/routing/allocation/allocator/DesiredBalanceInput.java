@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
+
+import java.util.List;
+
+/**
+ * An immutable snapshot of a {@link RoutingAllocation} from which the {@link DesiredBalanceComputer} computes a {@link DesiredBalance}
+ * away from the thread that took it.
+ */
+public final class DesiredBalanceInput {
+
+    private final long index;
+    private final ClusterState clusterState;
+    private final AllocationDeciders deciders;
+    private final ClusterInfo clusterInfo;
+    private final SnapshotShardSizeInfo snapshotShardSizeInfo;
+    private final long currentNanoTime;
+    private final List<ShardRouting> ignoredShards;
+
+    private DesiredBalanceInput(long index, ClusterState clusterState, AllocationDeciders deciders, ClusterInfo clusterInfo,
+                                SnapshotShardSizeInfo snapshotShardSizeInfo, long currentNanoTime, List<ShardRouting> ignoredShards) {
+        this.index = index;
+        this.clusterState = clusterState;
+        this.deciders = deciders;
+        this.clusterInfo = clusterInfo;
+        this.snapshotShardSizeInfo = snapshotShardSizeInfo;
+        this.currentNanoTime = currentNanoTime;
+        this.ignoredShards = ignoredShards;
+    }
+
+    /**
+     * Takes a snapshot of the given allocation, including the changes that were made to its routing nodes so far. The shards that
+     * were ignored so far, e.g. because the {@link org.elasticsearch.cluster.routing.allocation.ExistingShardsAllocator} is still
+     * fetching their data, are remembered so that the computation doesn't assign them either.
+     *
+     * @param index a number that increases with every input, used to tell which input a {@link DesiredBalance} was computed from
+     */
+    public static DesiredBalanceInput create(long index, RoutingAllocation allocation) {
+        final RoutingNodes routingNodes = allocation.routingNodes();
+        final RoutingTable routingTable = new RoutingTable.Builder().updateNodes(allocation.routingTable().version(), routingNodes).build();
+        final ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT)
+            .metadata(allocation.metadata())
+            .routingTable(routingTable)
+            .nodes(allocation.nodes())
+            .customs(allocation.getCustoms())
+            .build();
+        return new DesiredBalanceInput(index, clusterState, allocation.deciders(), allocation.clusterInfo(),
+            allocation.snapshotShardSizeInfo(), allocation.getCurrentNanoTime(), List.copyOf(routingNodes.unassigned().ignored()));
+    }
+
+    public long index() {
+        return index;
+    }
+
+    /**
+     * Creates a new allocation on mutable routing nodes that are built from this snapshot, on which the computation can simulate the
+     * allocation of shards.
+     */
+    RoutingAllocation newSimulation() {
+        final RoutingNodes routingNodes = new RoutingNodes(clusterState, false);
+        return new RoutingAllocation(deciders, routingNodes, clusterState, clusterInfo, snapshotShardSizeInfo, currentNanoTime);
+    }
+
+    List<ShardRouting> ignoredShards() {
+        return ignoredShards;
+    }
+
+    @Override
+    public String toString() {
+        return "DesiredBalanceInput{index=" + index + ", routingTableVersion=" + clusterState.routingTable().version() + "}";
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.UnassignedInfo.AllocationStatus;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+
+import java.util.Set;
+
+/**
+ * Makes the routing changes that bring the cluster closer to its {@link DesiredBalance}, as far as the deciders allow it right now:
+ * assigns the unassigned shards to their desired nodes, and relocates the shards that aren't on one of their desired nodes. This
+ * only iterates over the shards once and only consults the deciders for the shards that are not where they should be, so it is
+ * cheap enough to run on every reroute.
+ */
+final class DesiredBalanceReconciler {
+
+    private static final Logger logger = LogManager.getLogger(DesiredBalanceReconciler.class);
+
+    private final DesiredBalance desiredBalance;
+    private final RoutingAllocation allocation;
+    private final RoutingNodes routingNodes;
+
+    DesiredBalanceReconciler(DesiredBalance desiredBalance, RoutingAllocation allocation) {
+        this.desiredBalance = desiredBalance;
+        this.allocation = allocation;
+        this.routingNodes = allocation.routingNodes();
+    }
+
+    void run() {
+        if (desiredBalance.getAssignments().isEmpty()) {
+            return;
+        }
+        // the primaries must be active before their replicas can be assigned, so assigning the primaries first avoids a reroute
+        allocateUnassigned(true);
+        allocateUnassigned(false);
+        moveShards();
+    }
+
+    private void allocateUnassigned(boolean primaries) {
+        for (final RoutingNodes.UnassignedShards.UnassignedIterator iterator = routingNodes.unassigned().iterator(); iterator.hasNext(); ) {
+            final ShardRouting shardRouting = iterator.next();
+            if (shardRouting.primary() != primaries) {
+                continue;
+            }
+            final Set<String> desiredNodeIds = desiredBalance.getAssignment(shardRouting.shardId());
+            boolean throttled = false;
+            boolean assigned = false;
+            for (String nodeId : desiredNodeIds) {
+                final RoutingNode routingNode = routingNodes.node(nodeId);
+                if (routingNode == null || routingNode.getByShardId(shardRouting.shardId()) != null) {
+                    continue;
+                }
+                final Decision decision = allocation.deciders().canAllocate(shardRouting, routingNode, allocation);
+                if (decision.type() == Decision.Type.YES) {
+                    logger.trace("assigning [{}] to its desired node [{}]", shardRouting, nodeId);
+                    iterator.initialize(nodeId, null, DesiredBalanceComputer.getExpectedShardSize(allocation, shardRouting),
+                        allocation.changes());
+                    assigned = true;
+                    break;
+                } else if (decision.type() == Decision.Type.THROTTLE) {
+                    throttled = true;
+                }
+            }
+            if (assigned == false && throttled) {
+                // wait for the desired node rather than letting the balancer assign the shard elsewhere and moving it later
+                iterator.removeAndIgnore(AllocationStatus.DECIDERS_THROTTLED, allocation.changes());
+            }
+        }
+    }
+
+    private void moveShards() {
+        for (ShardRouting shardRouting : routingNodes.shardsWithState(ShardRoutingState.STARTED)) {
+            final Set<String> desiredNodeIds = desiredBalance.getAssignment(shardRouting.shardId());
+            if (desiredNodeIds.isEmpty() || desiredNodeIds.contains(shardRouting.currentNodeId())) {
+                continue;
+            }
+            final RoutingNode currentNode = routingNodes.node(shardRouting.currentNodeId());
+            final boolean canRemain = allocation.deciders().canRemain(shardRouting, currentNode, allocation).type() != Decision.Type.NO;
+            if (canRemain && allocation.deciders().canRebalance(shardRouting, allocation).type() != Decision.Type.YES) {
+                continue;
+            }
+            for (String nodeId : desiredNodeIds) {
+                final RoutingNode routingNode = routingNodes.node(nodeId);
+                if (routingNode == null || routingNode.getByShardId(shardRouting.shardId()) != null) {
+                    continue;
+                }
+                if (allocation.deciders().canAllocate(shardRouting, routingNode, allocation).type() == Decision.Type.YES) {
+                    logger.trace("relocating [{}] to its desired node [{}]", shardRouting, nodeId);
+                    routingNodes.relocateShard(shardRouting, nodeId, DesiredBalanceComputer.getExpectedShardSize(allocation, shardRouting),
+                        allocation.changes());
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.routing.RerouteService;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.ShardAllocationDecision;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ShardsAllocator} that keeps the expensive balancing of the cluster off the master's cluster state update thread. Every
+ * reroute takes a snapshot of the allocation and hands it to the {@link DesiredBalanceComputer}, which computes the
+ * {@link DesiredBalance} on a background thread with the {@link BalancedShardsAllocator}. The reroute itself only makes the moves
+ * towards the last computed desired balance, and reroutes again once the computation finds a different balance.
+ * <p>
+ * The shards that the desired balance doesn't know about yet, e.g. the shards of a new index, are assigned by the balancer as usual,
+ * and the shards that can't remain on their nodes are moved by the balancer if their desired nodes can't take them, but the balancer
+ * never rebalances the cluster on the cluster state update thread.
+ */
+public class DesiredBalanceShardsAllocator implements ShardsAllocator {
+
+    private static final Logger logger = LogManager.getLogger(DesiredBalanceShardsAllocator.class);
+
+    private final BalancedShardsAllocator delegateAllocator;
+    private final DesiredBalanceComputer desiredBalanceComputer;
+    private final Executor executor;
+    private final Supplier<RerouteService> rerouteServiceSupplier;
+
+    private final AtomicLong inputIndex = new AtomicLong();
+    private final AtomicReference<DesiredBalanceInput> pendingInput = new AtomicReference<>();
+    private volatile DesiredBalance currentDesiredBalance = DesiredBalance.INITIAL;
+
+    public DesiredBalanceShardsAllocator(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool,
+                                         Supplier<RerouteService> rerouteServiceSupplier) {
+        this(new BalancedShardsAllocator(settings, clusterSettings), threadPool.generic(), rerouteServiceSupplier);
+    }
+
+    /**
+     * @param executor the executor that computes the desired balance, which runs at most one computation at a time
+     */
+    public DesiredBalanceShardsAllocator(BalancedShardsAllocator delegateAllocator, Executor executor,
+                                         Supplier<RerouteService> rerouteServiceSupplier) {
+        this.delegateAllocator = delegateAllocator;
+        this.desiredBalanceComputer = new DesiredBalanceComputer(delegateAllocator);
+        this.executor = executor;
+        this.rerouteServiceSupplier = rerouteServiceSupplier;
+    }
+
+    @Override
+    public void allocate(RoutingAllocation allocation) {
+        if (allocation.routingNodes().size() == 0) {
+            // fails the allocation of new primaries, there is nothing to balance
+            delegateAllocator.allocate(allocation);
+            return;
+        }
+        onNewInput(DesiredBalanceInput.create(inputIndex.incrementAndGet(), allocation));
+        new DesiredBalanceReconciler(currentDesiredBalance, allocation).run();
+        delegateAllocator.allocateWithoutRebalancing(allocation);
+    }
+
+    @Override
+    public ShardAllocationDecision decideShardAllocation(ShardRouting shard, RoutingAllocation allocation) {
+        return delegateAllocator.decideShardAllocation(shard, allocation);
+    }
+
+    /**
+     * Returns the last computed desired balance.
+     */
+    public DesiredBalance getCurrentDesiredBalance() {
+        return currentDesiredBalance;
+    }
+
+    /**
+     * Schedules the computation of the desired balance for the given input, unless a computation is already scheduled or running, in
+     * which case that computation picks up the latest input once it completes. At most one computation runs at a time, and the
+     * inputs that are superseded before their computation starts are skipped.
+     */
+    private void onNewInput(DesiredBalanceInput input) {
+        if (pendingInput.getAndSet(input) == null) {
+            executor.execute(new ComputeDesiredBalance());
+        }
+    }
+
+    private class ComputeDesiredBalance extends AbstractRunnable {
+
+        private DesiredBalanceInput input;
+
+        @Override
+        protected void doRun() {
+            input = pendingInput.get();
+            assert input != null;
+            final DesiredBalance previousDesiredBalance = currentDesiredBalance;
+            final DesiredBalance newDesiredBalance = desiredBalanceComputer.compute(previousDesiredBalance, input);
+            currentDesiredBalance = newDesiredBalance;
+            if (DesiredBalance.hasChanges(previousDesiredBalance, newDesiredBalance)) {
+                logger.debug("desired balance changed, computed from [{}]", input);
+                rerouteServiceSupplier.get().reroute("desired balance changed", Priority.NORMAL, ActionListener.wrap(
+                    r -> logger.trace("reroute after desired balance change completed"),
+                    e -> logger.debug("reroute after desired balance change failed", e)));
+            }
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            logger.warn(new ParameterizedMessage("failed to compute the desired balance for [{}]", input), e);
+        }
+
+        @Override
+        public void onAfter() {
+            // compute again if a newer input arrived in the meantime
+            if (input != null && pendingInput.compareAndSet(input, null) == false) {
+                executor.execute(new ComputeDesiredBalance());
+            }
+        }
+    }
+}
@@ -104,4 +104,15 @@ public abstract class AllocationDecider {
             return decision;
         }
     }
+
+    /**
+     * Returns whether the decisions of {@link #canAllocate(ShardRouting, RoutingNode, RoutingAllocation)} and
+     * {@link #canRemain(ShardRouting, RoutingNode, RoutingAllocation)} for the given shard depend only on its index and the node, and
+     * neither on the shard itself nor on where any shards are allocated. If so then the decisions are computed once per index and node
+     * and reused for the other shards of the index for the rest of the {@link RoutingAllocation}, unless debugging decisions. The
+     * default is {@code false}.
+     */
+    public boolean hasIndexLevelDecisions(ShardRouting shardRouting, RoutingAllocation allocation) {
+        return false;
+    }
 }
@@ -57,9 +57,13 @@ public class AllocationDeciders extends AllocationDecider {
         if (allocation.shouldIgnoreShardForNode(shardRouting.shardId(), node.nodeId())) {
             return Decision.NO;
         }
+        // explanations must show the reasons of every decision, which are not kept in the cache
+        final IndexLevelDecisionCache decisionCache = allocation.debugDecision() ? null : allocation.indexLevelDecisionCache();
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+            Decision decision = decisionCache != null && allocationDecider.hasIndexLevelDecisions(shardRouting, allocation)
+                ? decisionCache.canAllocate(allocationDecider, shardRouting, node, allocation)
+                : allocationDecider.canAllocate(shardRouting, node, allocation);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -87,9 +91,12 @@ public class AllocationDeciders extends AllocationDecider {
             }
             return Decision.NO;
         }
+        final IndexLevelDecisionCache decisionCache = allocation.debugDecision() ? null : allocation.indexLevelDecisionCache();
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
-            Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+            Decision decision = decisionCache != null && allocationDecider.hasIndexLevelDecisions(shardRouting, allocation)
+                ? decisionCache.canRemain(allocationDecider, shardRouting, node, allocation)
+                : allocationDecider.canRemain(shardRouting, node, allocation);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -112,6 +112,12 @@ public class FilterAllocationDecider extends AllocationDecider {
         return shouldFilter(shardRouting, node.node(), allocation);
     }
 
+    @Override
+    public boolean hasIndexLevelDecisions(ShardRouting shardRouting, RoutingAllocation allocation) {
+        // the initial recovery filters only apply to the unassigned shards of a shrunken index
+        return shardRouting.unassigned() == false || shardRouting.recoverySource().getType() != RecoverySource.Type.LOCAL_SHARDS;
+    }
+
     @Override
     public Decision shouldAutoExpandToNode(IndexMetadata indexMetadata, DiscoveryNode node, RoutingAllocation allocation) {
         Decision decision = shouldClusterFilter(node, allocation);
@@ -0,0 +1,78 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.index.Index;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Caches the decisions of the {@link AllocationDecider}s whose decisions for a shard only depend on its index and the node, see
+ * {@link AllocationDecider#hasIndexLevelDecisions}, for the lifetime of a single {@link RoutingAllocation}. The balancer asks for the
+ * decisions of every shard on every node, so this saves re-evaluating these deciders for all the other shards of the same index.
+ */
+public final class IndexLevelDecisionCache {
+
+    private final Map<Key, Decision> canAllocateDecisions = new HashMap<>();
+    private final Map<Key, Decision> canRemainDecisions = new HashMap<>();
+
+    Decision canAllocate(AllocationDecider decider, ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        final Key key = new Key(decider, shardRouting.index(), node.nodeId());
+        Decision decision = canAllocateDecisions.get(key);
+        if (decision == null) {
+            decision = decider.canAllocate(shardRouting, node, allocation);
+            canAllocateDecisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    Decision canRemain(AllocationDecider decider, ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+        final Key key = new Key(decider, shardRouting.index(), node.nodeId());
+        Decision decision = canRemainDecisions.get(key);
+        if (decision == null) {
+            decision = decider.canRemain(shardRouting, node, allocation);
+            canRemainDecisions.put(key, decision);
+        }
+        return decision;
+    }
+
+    private static final class Key {
+        private final AllocationDecider decider;
+        private final Index index;
+        private final String nodeId;
+
+        Key(AllocationDecider decider, Index index, String nodeId) {
+            this.decider = decider;
+            this.index = index;
+            this.nodeId = nodeId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return decider == key.decider && index.equals(key.index) && nodeId.equals(key.nodeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(decider), index, nodeId);
+        }
+    }
+}
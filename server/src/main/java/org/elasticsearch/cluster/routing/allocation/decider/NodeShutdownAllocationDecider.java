@@ -78,6 +78,12 @@ public class NodeShutdownAllocationDecider extends AllocationDecider {
         return this.canAllocate(shardRouting, node, allocation);
     }
 
+    @Override
+    public boolean hasIndexLevelDecisions(ShardRouting shardRouting, RoutingAllocation allocation) {
+        // the decisions only depend on whether the node is shutting down
+        return true;
+    }
+
     /**
      * Prevents indices from being auto-expanded to nodes which are in the process of shutting down, regardless of whether they're shutting
      * down for restart or removal.
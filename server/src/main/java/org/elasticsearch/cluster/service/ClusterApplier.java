@@ -28,6 +28,11 @@ public interface ClusterApplier {
      */
     void onNewClusterState(String source, Supplier<ClusterState> clusterStateSupplier, ClusterApplyListener listener);
 
+    /**
+     * @return the cumulative time that the steps of applying cluster states took on this node
+     */
+    ClusterApplierRecordingService.Stats getStats();
+
     /**
      * Listener for results of cluster state application
      */
@@ -0,0 +1,209 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.metrics.MeanMetric;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps track of the cumulative time that the steps of applying cluster states took on this node, e.g. connecting to the nodes,
+ * running each {@link org.elasticsearch.cluster.ClusterStateApplier} and notifying each
+ * {@link org.elasticsearch.cluster.ClusterStateListener}, so that slow components can be spotted in the node stats.
+ */
+public final class ClusterApplierRecordingService {
+
+    private final Map<String, MeanMetric> recordedActions = new HashMap<>();
+    private final Set<String> componentActions = new HashSet<>();
+
+    synchronized Stats getStats() {
+        final Map<String, Recording> recordings = new LinkedHashMap<>();
+        recordedActions.entrySet()
+            .stream()
+            .sorted(Comparator.<Map.Entry<String, MeanMetric>>comparingLong(e -> e.getValue().sum()).reversed())
+            .forEach(e -> recordings.put(e.getKey(), new Recording(e.getValue().count(), e.getValue().sum())));
+        return new Stats(recordings);
+    }
+
+    synchronized void updateStats(Recorder recorder) {
+        for (Tuple<String, Long> entry : recorder.recordings) {
+            recordedActions.computeIfAbsent(entry.v1(), key -> new MeanMetric()).inc(entry.v2());
+        }
+        // every registered applier and listener runs on each cluster state update, so those that did not run were removed. Other
+        // steps, such as applying settings, only run on some updates and are always kept.
+        for (Iterator<String> iterator = componentActions.iterator(); iterator.hasNext(); ) {
+            final String action = iterator.next();
+            if (recorder.componentActions.contains(action) == false) {
+                iterator.remove();
+                recordedActions.remove(action);
+            }
+        }
+        componentActions.addAll(recorder.componentActions);
+    }
+
+    /**
+     * Records the time that each step of the application of a single cluster state took, both in the {@link StopWatch} that is used
+     * for logging slow cluster state applications and in the recordings that are added to the stats once the application completes.
+     */
+    static final class Recorder {
+
+        private final StopWatch stopWatch;
+        private final LongSupplier currentTimeSupplier;
+        private final List<Tuple<String, Long>> recordings = new ArrayList<>();
+        private final Set<String> componentActions = new HashSet<>();
+
+        Recorder(StopWatch stopWatch, LongSupplier currentTimeSupplier) {
+            this.stopWatch = stopWatch;
+            this.currentTimeSupplier = currentTimeSupplier;
+        }
+
+        /**
+         * Records a step that belongs to an applier or listener. These run on every cluster state update, so the recordings of a
+         * step that no longer runs are dropped from the stats.
+         */
+        Releasable recordComponent(String action) {
+            componentActions.add(action);
+            return record(action);
+        }
+
+        Releasable record(String action) {
+            final Releasable stopWatchTiming = stopWatch.timing(action);
+            final long startTimeMillis = currentTimeSupplier.getAsLong();
+            return () -> {
+                stopWatchTiming.close();
+                recordings.add(Tuple.tuple(action, Math.max(0L, currentTimeSupplier.getAsLong() - startTimeMillis)));
+            };
+        }
+    }
+
+    public static class Stats implements Writeable, ToXContentFragment {
+
+        private final Map<String, Recording> recordings;
+
+        public Stats(Map<String, Recording> recordings) {
+            this.recordings = recordings;
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            this(in.readOrderedMap(StreamInput::readString, Recording::new));
+        }
+
+        public Map<String, Recording> getRecordings() {
+            return recordings;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeMap(recordings, StreamOutput::writeString, (stream, recording) -> recording.writeTo(stream));
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("cluster_applier_stats");
+            builder.startArray("recordings");
+            for (Map.Entry<String, Recording> entry : recordings.entrySet()) {
+                builder.startObject();
+                builder.field("name", entry.getKey());
+                builder.field("cumulative_execution_count", entry.getValue().count);
+                builder.humanReadableField("cumulative_execution_time_millis", "cumulative_execution_time",
+                    TimeValue.timeValueMillis(entry.getValue().sum));
+                builder.endObject();
+            }
+            builder.endArray();
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Stats stats = (Stats) o;
+            return Objects.equals(recordings, stats.recordings);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(recordings);
+        }
+    }
+
+    public static class Recording implements Writeable {
+
+        private final long count;
+        private final long sum;
+
+        public Recording(long count, long sum) {
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public Recording(StreamInput in) throws IOException {
+            this(in.readVLong(), in.readVLong());
+        }
+
+        /**
+         * @return the number of cluster states during whose application this step ran
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the cumulative time in milliseconds that this step took
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(sum);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Recording recording = (Recording) o;
+            return count == recording.count && sum == recording.sum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, sum);
+        }
+
+        @Override
+        public String toString() {
+            return "Recording{count=" + count + ", sum=" + sum + '}';
+        }
+    }
+}
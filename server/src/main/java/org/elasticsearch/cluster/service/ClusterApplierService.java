@@ -86,6 +86,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private NodeConnectionsService nodeConnectionsService;
 
+    private final ClusterApplierRecordingService recordingService = new ClusterApplierRecordingService();
+
     public ClusterApplierService(String nodeName, Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
         this.clusterSettings = clusterSettings;
         this.threadPool = threadPool;
@@ -294,6 +296,11 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         runOnApplierThread(source, clusterStateConsumer, listener, Priority.HIGH);
     }
 
+    @Override
+    public ClusterApplierRecordingService.Stats getStats() {
+        return recordingService.getStats();
+    }
+
     public ThreadPool threadPool() {
         return threadPool;
     }
@@ -376,6 +383,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
         long startTimeMS = currentTimeInMillis();
         final StopWatch stopWatch = new StopWatch();
+        final ClusterApplierRecordingService.Recorder recorder = new ClusterApplierRecordingService.Recorder(stopWatch,
+            this::currentTimeInMillis);
         final ClusterState newClusterState;
         try {
             try (Releasable ignored = stopWatch.timing("running task [" + task.source + ']')) {
@@ -404,7 +413,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
                 logger.debug("cluster state updated, version [{}], source [{}]", newClusterState.version(), task.source);
             }
             try {
-                applyChanges(task, previousClusterState, newClusterState, stopWatch);
+                applyChanges(task, previousClusterState, newClusterState, recorder);
+                recordingService.updateStats(recorder);
                 TimeValue executionTime = TimeValue.timeValueMillis(Math.max(0, currentTimeInMillis() - startTimeMS));
                 logger.debug("processing [{}]: took [{}] done applying updated cluster state (version: {}, uuid: {})", task.source,
                     executionTime, newClusterState.version(),
@@ -430,7 +440,8 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
     }
 
-    private void applyChanges(UpdateTask task, ClusterState previousClusterState, ClusterState newClusterState, StopWatch stopWatch) {
+    private void applyChanges(UpdateTask task, ClusterState previousClusterState, ClusterState newClusterState,
+                              ClusterApplierRecordingService.Recorder recorder) {
         ClusterChangedEvent clusterChangedEvent = new ClusterChangedEvent(task.source, newClusterState, previousClusterState);
         // new cluster state, notify all listeners
         final DiscoveryNodes.Delta nodesDelta = clusterChangedEvent.nodesDelta();
@@ -443,7 +454,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
 
         logger.trace("connecting to nodes of cluster state with version {}", newClusterState.version());
-        try (Releasable ignored = stopWatch.timing("connecting to new nodes")) {
+        try (Releasable ignored = recorder.record("connecting to new nodes")) {
             connectToNodesAndWait(newClusterState);
         }
 
@@ -451,20 +462,20 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         if (clusterChangedEvent.state().blocks().disableStatePersistence() == false && clusterChangedEvent.metadataChanged()) {
             logger.debug("applying settings from cluster state with version {}", newClusterState.version());
             final Settings incomingSettings = clusterChangedEvent.state().metadata().settings();
-            try (Releasable ignored = stopWatch.timing("applying settings")) {
+            try (Releasable ignored = recorder.record("applying settings")) {
                 clusterSettings.applySettings(incomingSettings);
             }
         }
 
         logger.debug("apply cluster state with version {}", newClusterState.version());
-        callClusterStateAppliers(clusterChangedEvent, stopWatch);
+        callClusterStateAppliers(clusterChangedEvent, recorder);
 
         nodeConnectionsService.disconnectFromNodesExcept(newClusterState.nodes());
 
         logger.debug("set locally applied cluster state to version {}", newClusterState.version());
         state.set(newClusterState);
 
-        callClusterStateListeners(clusterChangedEvent, stopWatch);
+        callClusterStateListeners(clusterChangedEvent, recorder);
     }
 
     protected void connectToNodesAndWait(ClusterState newClusterState) {
@@ -479,33 +490,33 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
     }
 
-    private void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
-        callClusterStateAppliers(clusterChangedEvent, stopWatch, highPriorityStateAppliers);
-        callClusterStateAppliers(clusterChangedEvent, stopWatch, normalPriorityStateAppliers);
-        callClusterStateAppliers(clusterChangedEvent, stopWatch, lowPriorityStateAppliers);
+    private void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent, ClusterApplierRecordingService.Recorder recorder) {
+        callClusterStateAppliers(clusterChangedEvent, recorder, highPriorityStateAppliers);
+        callClusterStateAppliers(clusterChangedEvent, recorder, normalPriorityStateAppliers);
+        callClusterStateAppliers(clusterChangedEvent, recorder, lowPriorityStateAppliers);
     }
 
-    private static void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch,
+    private static void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent, ClusterApplierRecordingService.Recorder recorder,
                                                  Collection<ClusterStateApplier> clusterStateAppliers) {
         for (ClusterStateApplier applier : clusterStateAppliers) {
             logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
-            try (Releasable ignored = stopWatch.timing("running applier [" + applier + "]")) {
+            try (Releasable ignored = recorder.recordComponent("running applier [" + applier + "]")) {
                 applier.applyClusterState(clusterChangedEvent);
             }
         }
     }
 
-    private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch) {
-        callClusterStateListener(clusterChangedEvent, stopWatch, clusterStateListeners);
-        callClusterStateListener(clusterChangedEvent, stopWatch, timeoutClusterStateListeners.keySet());
+    private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent, ClusterApplierRecordingService.Recorder recorder) {
+        callClusterStateListener(clusterChangedEvent, recorder, clusterStateListeners);
+        callClusterStateListener(clusterChangedEvent, recorder, timeoutClusterStateListeners.keySet());
     }
 
-    private void callClusterStateListener(ClusterChangedEvent clusterChangedEvent, StopWatch stopWatch,
+    private void callClusterStateListener(ClusterChangedEvent clusterChangedEvent, ClusterApplierRecordingService.Recorder recorder,
                                           Collection<? extends ClusterStateListener> listeners) {
         for (ClusterStateListener listener : listeners) {
             try {
                 logger.trace("calling [{}] with change to version [{}]", listener, clusterChangedEvent.state().version());
-                try (Releasable ignored = stopWatch.timing("notifying listener [" + listener + "]")) {
+                try (Releasable ignored = recorder.recordComponent("notifying listener [" + listener + "]")) {
                     listener.clusterChanged(clusterChangedEvent);
                 }
             } catch (Exception ex) {
@@ -30,6 +30,7 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
@@ -66,6 +67,23 @@ public class MasterService extends AbstractLifecycleComponent {
         Setting.positiveTimeSetting("cluster.service.slow_master_task_logging_threshold", TimeValue.timeValueSeconds(10),
             Setting.Property.Dynamic, Setting.Property.NodeScope);
 
+    /**
+     * The maximum number of tasks with the same executor that are executed together in a single cluster state update. Tasks that are
+     * left over wait behind the tasks of other executors with the same priority, so that a flood of tasks of one kind does not keep the
+     * other kinds waiting until it has drained completely.
+     */
+    public static final Setting<Integer> MASTER_SERVICE_MAX_TASK_BATCH_SIZE_SETTING =
+        Setting.intSetting("cluster.service.max_master_task_batch_size", 10000, 1, Setting.Property.Dynamic, Setting.Property.NodeScope);
+
+    /**
+     * The maximum number of batches of tasks that run in a row while tasks with a lower priority are waiting, after which the oldest of
+     * these waiting tasks runs first, see {@link TaskBatcher#starvationLimit()}. Defaults to {@code 0}, which runs tasks in strict
+     * priority order as callers such as node joins and shard failures expect, so that for instance a flood of shard-started tasks may
+     * keep tasks with a normal priority waiting until it has drained.
+     */
+    public static final Setting<Integer> MASTER_SERVICE_STARVATION_LIMIT_SETTING =
+        Setting.intSetting("cluster.service.master_task_starvation_limit", 0, 0, Setting.Property.Dynamic, Setting.Property.NodeScope);
+
     static final String MASTER_UPDATE_THREAD_NAME = "masterService#updateTask";
 
     ClusterStatePublisher clusterStatePublisher;
@@ -76,6 +94,12 @@ public class MasterService extends AbstractLifecycleComponent {
 
     private volatile TimeValue slowTaskLoggingThreshold;
 
+    private volatile int maxTaskBatchSize;
+
+    private volatile int starvationLimit;
+
+    private final MasterTaskQueueRecordingService queueRecordingService = new MasterTaskQueueRecordingService();
+
     protected final ThreadPool threadPool;
 
     private volatile PrioritizedEsThreadPoolExecutor threadPoolExecutor;
@@ -87,6 +111,12 @@ public class MasterService extends AbstractLifecycleComponent {
         this.slowTaskLoggingThreshold = MASTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
         clusterSettings.addSettingsUpdateConsumer(MASTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING, this::setSlowTaskLoggingThreshold);
 
+        this.maxTaskBatchSize = MASTER_SERVICE_MAX_TASK_BATCH_SIZE_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(MASTER_SERVICE_MAX_TASK_BATCH_SIZE_SETTING, this::setMaxTaskBatchSize);
+
+        this.starvationLimit = MASTER_SERVICE_STARVATION_LIMIT_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(MASTER_SERVICE_STARVATION_LIMIT_SETTING, this::setStarvationLimit);
+
         this.threadPool = threadPool;
     }
 
@@ -94,6 +124,14 @@ public class MasterService extends AbstractLifecycleComponent {
         this.slowTaskLoggingThreshold = slowTaskLoggingThreshold;
     }
 
+    private void setMaxTaskBatchSize(int maxTaskBatchSize) {
+        this.maxTaskBatchSize = maxTaskBatchSize;
+    }
+
+    private void setStarvationLimit(int starvationLimit) {
+        this.starvationLimit = starvationLimit;
+    }
+
     public synchronized void setClusterStatePublisher(ClusterStatePublisher publisher) {
         clusterStatePublisher = publisher;
     }
@@ -133,10 +171,22 @@ public class MasterService extends AbstractLifecycleComponent {
                         new ProcessClusterEventTimeoutException(timeout, task.source))));
         }
 
+        @Override
+        protected int maxBatchSize() {
+            return maxTaskBatchSize;
+        }
+
+        @Override
+        protected int starvationLimit() {
+            return starvationLimit;
+        }
+
         @Override
         protected void run(Object batchingKey, List<? extends BatchedTask> tasks, String tasksSummary) {
             ClusterStateTaskExecutor<Object> taskExecutor = (ClusterStateTaskExecutor<Object>) batchingKey;
             List<UpdateTask> updateTasks = (List<UpdateTask>) tasks;
+            queueRecordingService.recordBatch(
+                updateTasks.stream().map(task -> Tuple.tuple(task.priority(), task.getAgeInMillis())).collect(Collectors.toList()));
             runTasks(new TaskInputs(taskExecutor, updateTasks, tasksSummary));
         }
 
@@ -463,6 +513,13 @@ public class MasterService extends AbstractLifecycleComponent {
         return threadPoolExecutor.getNumberOfPendingTasks();
     }
 
+    /**
+     * Returns the statistics about the batches of tasks that were executed, and how long their tasks waited, by priority.
+     */
+    public MasterTaskQueueRecordingService.Stats getQueueStats() {
+        return queueRecordingService.getStats();
+    }
+
     /**
      * Returns the maximum wait time for tasks in the queue
      *
@@ -0,0 +1,234 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps track of how long the tasks of each priority waited in the queue of the {@link MasterService} and how large the batches were
+ * that they were executed in, so that starvation of lower-priority tasks can be spotted in the node stats and the pending cluster tasks.
+ */
+public final class MasterTaskQueueRecordingService {
+
+    private final Map<Priority, Recorder> recorders = new EnumMap<>(Priority.class);
+
+    synchronized Stats getStats() {
+        final Map<Priority, QueueStats> queueStats = new EnumMap<>(Priority.class);
+        recorders.forEach((priority, recorder) -> queueStats.put(priority, recorder.toStats()));
+        return new Stats(queueStats);
+    }
+
+    /**
+     * Records a batch of tasks that is about to be executed. The batch is accounted for under the highest priority of its tasks, since
+     * that is the priority which it was dequeued with, whereas the queue time of each task is accounted for under its own priority.
+     */
+    synchronized void recordBatch(List<Tuple<Priority, Long>> queueTimesMillis) {
+        Priority batchPriority = null;
+        for (Tuple<Priority, Long> queueTime : queueTimesMillis) {
+            final Recorder recorder = recorders.computeIfAbsent(queueTime.v1(), p -> new Recorder());
+            recorder.tasks += 1;
+            recorder.cumulativeQueueTimeMillis += Math.max(0L, queueTime.v2());
+            recorder.maxQueueTimeMillis = Math.max(recorder.maxQueueTimeMillis, queueTime.v2());
+            if (batchPriority == null || batchPriority.after(queueTime.v1())) {
+                batchPriority = queueTime.v1();
+            }
+        }
+        if (batchPriority != null) {
+            final Recorder recorder = recorders.get(batchPriority);
+            recorder.batches += 1;
+            recorder.maxBatchSize = Math.max(recorder.maxBatchSize, queueTimesMillis.size());
+        }
+    }
+
+    private static final class Recorder {
+        private long batches;
+        private long tasks;
+        private long maxBatchSize;
+        private long cumulativeQueueTimeMillis;
+        private long maxQueueTimeMillis;
+
+        QueueStats toStats() {
+            return new QueueStats(batches, tasks, maxBatchSize, cumulativeQueueTimeMillis, maxQueueTimeMillis);
+        }
+    }
+
+    public static class Stats implements Writeable, ToXContentFragment {
+
+        private final Map<Priority, QueueStats> queueStats;
+
+        public Stats(Map<Priority, QueueStats> queueStats) {
+            // keep the queues ordered by priority
+            final Map<Priority, QueueStats> sortedQueueStats = new EnumMap<>(Priority.class);
+            sortedQueueStats.putAll(queueStats);
+            this.queueStats = Collections.unmodifiableMap(sortedQueueStats);
+        }
+
+        public Stats(StreamInput in) throws IOException {
+            this(readQueueStats(in));
+        }
+
+        private static Map<Priority, QueueStats> readQueueStats(StreamInput in) throws IOException {
+            final Map<Priority, QueueStats> queueStats = new EnumMap<>(Priority.class);
+            final int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                queueStats.put(Priority.readFrom(in), new QueueStats(in));
+            }
+            return queueStats;
+        }
+
+        public Map<Priority, QueueStats> getQueueStats() {
+            return queueStats;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(queueStats.size());
+            for (Map.Entry<Priority, QueueStats> entry : queueStats.entrySet()) {
+                Priority.writeTo(entry.getKey(), out);
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject("master_task_queues");
+            for (Map.Entry<Priority, QueueStats> entry : queueStats.entrySet()) {
+                builder.startObject(entry.getKey().name().toLowerCase(Locale.ROOT));
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Stats stats = (Stats) o;
+            return Objects.equals(queueStats, stats.queueStats);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(queueStats);
+        }
+    }
+
+    public static class QueueStats implements Writeable, ToXContentFragment {
+
+        private final long batches;
+        private final long tasks;
+        private final long maxBatchSize;
+        private final long cumulativeQueueTimeMillis;
+        private final long maxQueueTimeMillis;
+
+        public QueueStats(long batches, long tasks, long maxBatchSize, long cumulativeQueueTimeMillis, long maxQueueTimeMillis) {
+            this.batches = batches;
+            this.tasks = tasks;
+            this.maxBatchSize = maxBatchSize;
+            this.cumulativeQueueTimeMillis = cumulativeQueueTimeMillis;
+            this.maxQueueTimeMillis = maxQueueTimeMillis;
+        }
+
+        public QueueStats(StreamInput in) throws IOException {
+            this(in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong());
+        }
+
+        /**
+         * @return the number of batches that were dequeued with this priority
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return the number of tasks of this priority that were executed
+         */
+        public long getTasks() {
+            return tasks;
+        }
+
+        /**
+         * @return the largest number of tasks in a batch that was dequeued with this priority
+         */
+        public long getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        /**
+         * @return the cumulative time in milliseconds that the tasks of this priority spent in the queue
+         */
+        public long getCumulativeQueueTimeMillis() {
+            return cumulativeQueueTimeMillis;
+        }
+
+        /**
+         * @return the longest time in milliseconds that a task of this priority spent in the queue
+         */
+        public long getMaxQueueTimeMillis() {
+            return maxQueueTimeMillis;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(batches);
+            out.writeVLong(tasks);
+            out.writeVLong(maxBatchSize);
+            out.writeVLong(cumulativeQueueTimeMillis);
+            out.writeVLong(maxQueueTimeMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field("batches", batches);
+            builder.field("tasks", tasks);
+            builder.field("max_batch_size", maxBatchSize);
+            builder.humanReadableField("cumulative_queue_time_millis", "cumulative_queue_time",
+                TimeValue.timeValueMillis(cumulativeQueueTimeMillis));
+            builder.humanReadableField("max_queue_time_millis", "max_queue_time", TimeValue.timeValueMillis(maxQueueTimeMillis));
+            return builder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            QueueStats that = (QueueStats) o;
+            return batches == that.batches && tasks == that.tasks && maxBatchSize == that.maxBatchSize
+                && cumulativeQueueTimeMillis == that.cumulativeQueueTimeMillis && maxQueueTimeMillis == that.maxQueueTimeMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(batches, tasks, maxBatchSize, cumulativeQueueTimeMillis, maxQueueTimeMillis);
+        }
+
+        @Override
+        public String toString() {
+            return "QueueStats{batches=" + batches + ", tasks=" + tasks + ", maxBatchSize=" + maxBatchSize
+                + ", cumulativeQueueTimeMillis=" + cumulativeQueueTimeMillis + ", maxQueueTimeMillis=" + maxQueueTimeMillis + '}';
+        }
+    }
+}
@@ -17,8 +17,10 @@ import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -36,10 +38,18 @@ public abstract class TaskBatcher {
     private final PrioritizedEsThreadPoolExecutor threadExecutor;
     // package visible for tests
     final Map<Object, LinkedHashSet<BatchedTask>> tasksPerBatchingKey = new HashMap<>();
+    // the pending tasks of each priority in submission order, so that the longest waiting task of a priority is the first one,
+    // guarded by tasksPerBatchingKey
+    private final Map<Priority, LinkedHashSet<BatchedTask>> tasksPerPriority = new EnumMap<>(Priority.class);
+    // the number of batches that ran in a row while tasks with a lower priority were waiting, guarded by tasksPerBatchingKey
+    private int batchesAheadOfLowerPriorities;
 
     public TaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
         this.logger = logger;
         this.threadExecutor = threadExecutor;
+        for (Priority priority : Priority.values()) {
+            tasksPerPriority.put(priority, new LinkedHashSet<>());
+        }
     }
 
     public void submitTasks(List<? extends BatchedTask> tasks, @Nullable TimeValue timeout) throws EsRejectedExecutionException {
@@ -67,6 +77,10 @@ public abstract class TaskBatcher {
                         Collections.singletonList(existing)) + "] with source [" + duplicateTask.source + "] is already queued");
                 }
             }
+            for (BatchedTask task : tasks) {
+                task.submission = firstTask;
+                tasksPerPriority.get(task.priority()).add(task);
+            }
             existingTasks.addAll(tasks);
         }
 
@@ -98,6 +112,9 @@ public abstract class TaskBatcher {
                         tasksPerBatchingKey.remove(batchingKey);
                     }
                 }
+                for (BatchedTask task : toRemove) {
+                    tasksPerPriority.get(task.priority()).remove(task);
+                }
             }
             onTimeout(toRemove, timeout);
         }
@@ -109,7 +126,90 @@ public abstract class TaskBatcher {
      */
     protected abstract void onTimeout(List<? extends BatchedTask> tasks, TimeValue timeout);
 
+    /**
+     * The maximum number of tasks to execute in a single batch. Tasks that were submitted together are never split across batches, and
+     * the submission that triggered the batch is always part of it, so a batch may exceed this limit if a single submission does.
+     */
+    protected int maxBatchSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * The maximum number of batches that run in a row while tasks with a lower priority are waiting. Once this limit is exceeded, the
+     * batch of the oldest of these waiting tasks runs before the next batch, so that a flood of higher-priority tasks delays the
+     * lower-priority tasks by a bounded number of batches rather than starving them. Apart from that, tasks run in priority order, and
+     * tasks with {@link Priority#IMMEDIATE} priority are never delayed. {@code 0} means that tasks always run in priority order.
+     */
+    protected int starvationLimit() {
+        return 0;
+    }
+
     void runIfNotProcessed(BatchedTask updateTask) {
+        if (updateTask.processed.get() == false) {
+            final BatchedTask starvingTask = pollStarvingTask(updateTask);
+            if (starvingTask != null) {
+                logger.debug("running {} with priority [{}] ahead of {} with priority [{}] after [{}] batches with higher priorities",
+                    starvingTask, starvingTask.priority(), updateTask, updateTask.priority(), starvationLimit());
+                runBatch(starvingTask);
+            }
+            runBatch(updateTask);
+        }
+    }
+
+    /**
+     * Counts the batch of the given task towards the starvation limit, see {@link #starvationLimit()}.
+     *
+     * @return the oldest waiting task with a lower priority than the given task if its batch should run first, otherwise {@code null}
+     */
+    @Nullable
+    private BatchedTask pollStarvingTask(BatchedTask updateTask) {
+        final int starvationLimit = starvationLimit();
+        if (starvationLimit <= 0 || updateTask.priority() == Priority.IMMEDIATE) {
+            return null;
+        }
+        synchronized (tasksPerBatchingKey) {
+            if (batchesAheadOfLowerPriorities < starvationLimit) {
+                if (findOldestTaskAfter(updateTask.priority(), false) == null) {
+                    batchesAheadOfLowerPriorities = 0;
+                } else {
+                    batchesAheadOfLowerPriorities++;
+                }
+                return null;
+            }
+            batchesAheadOfLowerPriorities = 0;
+            return findOldestTaskAfter(updateTask.priority(), true);
+        }
+    }
+
+    /**
+     * Finds the oldest waiting task with a lower priority than the given one, or just any such task unless {@code oldest} is set. Only
+     * looks at the longest waiting task of each priority, so this does not depend on the number of pending tasks.
+     */
+    @Nullable
+    private BatchedTask findOldestTaskAfter(Priority priority, boolean oldest) {
+        assert Thread.holdsLock(tasksPerBatchingKey);
+        BatchedTask oldestTask = null;
+        for (Map.Entry<Priority, LinkedHashSet<BatchedTask>> entry : tasksPerPriority.entrySet()) {
+            if (entry.getKey().after(priority) == false) {
+                continue;
+            }
+            for (BatchedTask task : entry.getValue()) {
+                // tasks that timed out are marked as processed before they are removed
+                if (task.processed.get() == false) {
+                    if (oldest == false) {
+                        return task;
+                    }
+                    if (oldestTask == null || task.getCreationDateInNanos() - oldestTask.getCreationDateInNanos() < 0) {
+                        oldestTask = task;
+                    }
+                    break;
+                }
+            }
+        }
+        return oldestTask;
+    }
+
+    private void runBatch(BatchedTask updateTask) {
         // if this task is already processed, it shouldn't execute other tasks with same batching key that arrived later,
         // to give other tasks with different batching key a chance to execute.
         if (updateTask.processed.get() == false) {
@@ -118,7 +218,23 @@ public abstract class TaskBatcher {
             synchronized (tasksPerBatchingKey) {
                 LinkedHashSet<BatchedTask> pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
                 if (pending != null) {
-                    for (BatchedTask task : pending) {
+                    final int maxBatchSize = maxBatchSize();
+                    BatchedTask submission = null;
+                    boolean includeSubmission = false;
+                    for (Iterator<BatchedTask> iterator = pending.iterator(); iterator.hasNext(); ) {
+                        final BatchedTask task = iterator.next();
+                        if (task.submission != submission) {
+                            // the tasks of a submission are adjacent, decide once per submission whether it fits into this batch
+                            submission = task.submission;
+                            includeSubmission = submission == updateTask.submission || toExecute.size() < maxBatchSize;
+                        }
+                        if (includeSubmission == false) {
+                            // the first task of the left-over submission is still queued in the executor and will pick it up later,
+                            // behind the tasks with other batching keys and the same priority that were submitted in the meantime
+                            continue;
+                        }
+                        iterator.remove();
+                        tasksPerPriority.get(task.priority()).remove(task);
                         if (task.processed.getAndSet(true) == false) {
                             logger.trace("will process {}", task);
                             toExecute.add(task);
@@ -127,6 +243,9 @@ public abstract class TaskBatcher {
                             logger.trace("skipping {}, already processed", task);
                         }
                     }
+                    if (pending.isEmpty() == false) {
+                        tasksPerBatchingKey.put(updateTask.batchingKey, pending);
+                    }
                 }
             }
 
@@ -165,6 +284,11 @@ public abstract class TaskBatcher {
          * the task object that is wrapped
          */
         protected final Object task;
+        /**
+         * the first task of the {@link #submitTasks} call that submitted this task, used to keep the tasks that were submitted together
+         * in the same batch
+         */
+        private BatchedTask submission;
 
         protected BatchedTask(Priority priority, String source, Object batchingKey, Object task) {
             super(priority, source);
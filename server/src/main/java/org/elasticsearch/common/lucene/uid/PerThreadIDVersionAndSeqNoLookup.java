@@ -46,6 +46,9 @@ final class PerThreadIDVersionAndSeqNoLookup {
     /** terms enum for uid field */
     final String uidField;
     private final TermsEnum termsEnum;
+    /** smallest and largest uid of the segment, used to skip seeking the terms dictionary for ids outside of this range */
+    private final BytesRef minId;
+    private final BytesRef maxId;
 
     /** Reused for iteration (when the term exists) */
     private PostingsEnum docsEnum;
@@ -70,8 +73,12 @@ final class PerThreadIDVersionAndSeqNoLookup {
                     "_soft_deletes [" + softDeletesDV + "], _tombstone [" + tombstoneDV + "]");
             }
             termsEnum = null;
+            minId = null;
+            maxId = null;
         } else {
             termsEnum = terms.iterator();
+            minId = BytesRef.deepCopyOf(terms.getMin());
+            maxId = BytesRef.deepCopyOf(terms.getMax());
         }
         if (reader.getNumericDocValues(VersionFieldMapper.NAME) == null) {
             throw new IllegalArgumentException("reader misses the [" + VersionFieldMapper.NAME + "] field; _uid terms [" + terms + "]");
@@ -110,13 +117,27 @@ final class PerThreadIDVersionAndSeqNoLookup {
         }
     }
 
+    /**
+     * Returns whether the given id falls between the smallest and largest id of this segment, i.e. if this segment may contain it.
+     */
+    boolean mayContain(BytesRef id) {
+        return termsEnum != null && id.compareTo(minId) >= 0 && id.compareTo(maxId) <= 0;
+    }
+
+    /**
+     * Returns whether the range of ids between {@code from} and {@code to}, both inclusive, overlaps with the ids of this segment.
+     */
+    boolean overlaps(BytesRef from, BytesRef to) {
+        return termsEnum != null && from.compareTo(maxId) <= 0 && to.compareTo(minId) >= 0;
+    }
+
     /**
      * returns the internal lucene doc id for the given id bytes.
      * {@link DocIdSetIterator#NO_MORE_DOCS} is returned if not found
      * */
     private int getDocID(BytesRef id, LeafReaderContext context) throws IOException {
         // termsEnum can possibly be null here if this leaf contains only no-ops.
-        if (termsEnum != null && termsEnum.seekExact(id)) {
+        if (mayContain(id) && termsEnum.seekExact(id)) {
             final Bits liveDocs = context.reader().getLiveDocs();
             int docID = DocIdSetIterator.NO_MORE_DOCS;
             // there may be more than one matching docID, in the case of nested docs, so we want the last one:
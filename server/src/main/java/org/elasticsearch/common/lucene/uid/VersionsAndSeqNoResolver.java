@@ -12,10 +12,12 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentMap;
@@ -134,6 +136,49 @@ public final class VersionsAndSeqNoResolver {
         return null;
     }
 
+    /**
+     * Load the internal doc IDs and versions of several uids at once. The uids must be sorted and unique so that every segment's terms
+     * dictionary is visited in order, which lets the terms enum reuse the blocks it already loaded for the previous uid, and segments
+     * whose range of uids does not overlap with the batch are skipped entirely. Returns an array that has the same length as the given
+     * uids and holds null for every uid that wasn't found.
+     */
+    public static DocIdAndVersion[] loadDocIdAndVersions(IndexReader reader, String uidField, BytesRef[] sortedUids,
+                                                         boolean loadSeqNo) throws IOException {
+        assert assertSortedAndUnique(sortedUids);
+        final DocIdAndVersion[] results = new DocIdAndVersion[sortedUids.length];
+        if (sortedUids.length == 0) {
+            return results;
+        }
+        final PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, uidField);
+        final List<LeafReaderContext> leaves = reader.leaves();
+        int remaining = sortedUids.length;
+        // iterate backwards to optimize for the frequently updated documents
+        // which are likely to be in the last segments
+        for (int i = leaves.size() - 1; i >= 0 && remaining > 0; i--) {
+            final LeafReaderContext leaf = leaves.get(i);
+            final PerThreadIDVersionAndSeqNoLookup lookup = lookups[leaf.ord];
+            if (lookup.overlaps(sortedUids[0], sortedUids[sortedUids.length - 1]) == false) {
+                continue;
+            }
+            for (int j = 0; j < sortedUids.length; j++) {
+                if (results[j] == null && lookup.mayContain(sortedUids[j])) {
+                    results[j] = lookup.lookupVersion(sortedUids[j], loadSeqNo, leaf);
+                    if (results[j] != null) {
+                        remaining--;
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static boolean assertSortedAndUnique(BytesRef[] uids) {
+        for (int i = 1; i < uids.length; i++) {
+            assert uids[i - 1].compareTo(uids[i]) < 0 : "uids must be sorted and unique but got " + Arrays.toString(uids);
+        }
+        return true;
+    }
+
     /**
      * Loads the internal docId and sequence number of the latest copy for a given uid from the provided reader.
      * The result is either null or the live and latest version of the given uid.
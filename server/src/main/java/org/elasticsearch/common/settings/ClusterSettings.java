@@ -61,12 +61,15 @@ import org.elasticsearch.discovery.SeedHostsResolver;
 import org.elasticsearch.discovery.SettingsBasedSeedHostsProvider;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.gateway.GatewayAllocator;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.gateway.PersistedClusterStateService;
 import org.elasticsearch.http.HttpTransportSettings;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.merge.MergeBudget;
+import org.elasticsearch.index.query.CoordinatorFieldRangeCache;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
@@ -85,7 +88,9 @@ import org.elasticsearch.monitor.jvm.JvmService;
 import org.elasticsearch.monitor.os.OsService;
 import org.elasticsearch.monitor.process.ProcessService;
 import org.elasticsearch.node.Node;
+import org.elasticsearch.node.NodeLoadSampler;
 import org.elasticsearch.node.NodeRoleSettings;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.persistent.PersistentTasksClusterService;
 import org.elasticsearch.persistent.decider.EnableAssignmentDecider;
 import org.elasticsearch.plugins.PluginsService;
@@ -234,7 +239,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
             GatewayService.EXPECTED_DATA_NODES_SETTING,
             GatewayService.RECOVER_AFTER_DATA_NODES_SETTING,
             GatewayService.RECOVER_AFTER_TIME_SETTING,
+            GatewayAllocator.MAX_SHARDS_PER_FETCH_BATCH_SETTING,
             PersistedClusterStateService.SLOW_WRITE_LOGGING_THRESHOLD,
+            PersistedClusterStateService.WRITE_AHEAD_LOG_ENABLED_SETTING,
             NetworkModule.HTTP_DEFAULT_TYPE_SETTING,
             NetworkModule.TRANSPORT_DEFAULT_TYPE_SETTING,
             NetworkModule.HTTP_TYPE_SETTING,
@@ -287,6 +294,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
             ClusterApplierService.CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
             ClusterService.USER_DEFINED_METADATA,
             MasterService.MASTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
+            MasterService.MASTER_SERVICE_MAX_TASK_BATCH_SIZE_SETTING,
+            MasterService.MASTER_SERVICE_STARVATION_LIMIT_SETTING,
             SearchService.DEFAULT_SEARCH_TIMEOUT_SETTING,
             SearchService.DEFAULT_ALLOW_PARTIAL_SEARCH_RESULTS,
             TransportSearchAction.SHARD_COUNT_LIMIT_SETTING,
@@ -396,8 +405,11 @@ public final class ClusterSettings extends AbstractScopedSettings {
             SearchService.ALLOW_EXPENSIVE_QUERIES,
             MultiBucketConsumerService.MAX_BUCKET_SETTING,
             SearchService.LOW_LEVEL_CANCELLATION_SETTING,
+            SearchService.QUERY_COALESCING_ENABLED_SETTING,
+            SearchService.QUERY_COALESCING_WINDOW_SETTING,
             SearchService.MAX_OPEN_SCROLL_CONTEXT,
             SearchService.ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER,
+            CoordinatorFieldRangeCache.CACHE_SIZE_SETTING,
             Node.WRITE_PORTS_FILE_SETTING,
             Node.NODE_NAME_SETTING,
             Node.NODE_ATTRIBUTES,
@@ -438,6 +450,10 @@ public final class ClusterSettings extends AbstractScopedSettings {
             IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
             IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
             IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+            MergeBudget.LARGE_MERGE_SIZE_SETTING,
+            MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING,
+            MergeBudget.SEARCH_QUEUE_THRESHOLD_SETTING,
+            MergeBudget.MAX_WAIT_TIME_SETTING,
             ResourceWatcherService.ENABLED,
             ResourceWatcherService.RELOAD_INTERVAL_HIGH,
             ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
@@ -448,6 +464,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
             FastVectorHighlighter.SETTING_TV_HIGHLIGHT_MULTI_VALUE,
             Node.BREAKER_TYPE_KEY,
             OperationRouting.USE_ADAPTIVE_REPLICA_SELECTION_SETTING,
+            ResponseCollectorService.RANKING_SETTING,
+            NodeLoadSampler.SAMPLING_INTERVAL_SETTING,
             IndexGraveyard.SETTING_MAX_TOMBSTONES,
             PersistentTasksClusterService.CLUSTER_TASKS_ALLOCATION_RECHECK_INTERVAL_SETTING,
             EnableAssignmentDecider.CLUSTER_TASKS_ALLOCATION_ENABLE_SETTING,
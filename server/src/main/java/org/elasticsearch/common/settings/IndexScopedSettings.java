@@ -100,10 +100,13 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexSortConfig.INDEX_SORT_MISSING_SETTING,
             IndexSortConfig.INDEX_SORT_MODE_SETTING,
             IndexSettings.INDEX_TRANSLOG_DURABILITY_SETTING,
+            IndexSettings.INDEX_TRANSLOG_ENABLED_SETTING,
             IndexSettings.INDEX_WARMER_ENABLED_SETTING,
             IndexSettings.INDEX_REFRESH_INTERVAL_SETTING,
             IndexSettings.MAX_RESULT_WINDOW_SETTING,
             IndexSettings.MAX_INNER_RESULT_WINDOW_SETTING,
+            IndexSettings.FETCH_CONCURRENT_MIN_HITS_SETTING,
+            IndexSettings.COORDINATOR_RANGE_FIELDS_SETTING,
             IndexSettings.MAX_TOKEN_COUNT_SETTING,
             IndexSettings.MAX_DOCVALUE_FIELDS_SEARCH_SETTING,
             IndexSettings.MAX_SCRIPT_FIELDS_SETTING,
@@ -150,6 +153,7 @@ public final class IndexScopedSettings extends AbstractScopedSettings {
             IndexModule.INDEX_STORE_PRE_LOAD_SETTING,
             IndexModule.INDEX_RECOVERY_TYPE_SETTING,
             IndexModule.INDEX_QUERY_CACHE_ENABLED_SETTING,
+            IndexModule.INDEX_QUERY_CACHE_POLICY_SETTING,
             FsDirectoryFactory.INDEX_LOCK_FACTOR_SETTING,
             EngineConfig.INDEX_CODEC_SETTING,
             IndexMetadata.SETTING_WAIT_FOR_ACTIVE_SHARDS,
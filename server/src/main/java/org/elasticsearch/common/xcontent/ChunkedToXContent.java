@@ -0,0 +1,24 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.xcontent;
+
+import java.util.Iterator;
+
+/**
+ * Objects that can render themselves as a sequence of {@link ToXContent} chunks, so that large responses can be serialized a few
+ * chunks at a time instead of all at once. Rendering all chunks in order into the same builder must produce a complete object, the
+ * same as the one rendered by {@link ToXContent#toXContent} if the object implements it.
+ */
+public interface ChunkedToXContent {
+
+    /**
+     * Returns the chunks to render in order. Every chunk is rendered with the params of the request.
+     */
+    Iterator<? extends ToXContent> toXContentChunked();
+}
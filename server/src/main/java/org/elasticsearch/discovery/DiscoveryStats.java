@@ -8,6 +8,9 @@
 
 package org.elasticsearch.discovery;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService;
+import org.elasticsearch.cluster.service.MasterTaskQueueRecordingService;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -22,21 +25,38 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
 
     private final PendingClusterStateStats queueStats;
     private final PublishClusterStateStats publishStats;
+    private final ClusterApplierRecordingService.Stats applierRecordingStats;
+    private final MasterTaskQueueRecordingService.Stats masterTaskQueueStats;
 
-    public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats) {
+    public DiscoveryStats(PendingClusterStateStats queueStats, PublishClusterStateStats publishStats,
+                          ClusterApplierRecordingService.Stats applierRecordingStats,
+                          MasterTaskQueueRecordingService.Stats masterTaskQueueStats) {
         this.queueStats = queueStats;
         this.publishStats = publishStats;
+        this.applierRecordingStats = applierRecordingStats;
+        this.masterTaskQueueStats = masterTaskQueueStats;
     }
 
     public DiscoveryStats(StreamInput in) throws IOException {
         queueStats = in.readOptionalWriteable(PendingClusterStateStats::new);
         publishStats = in.readOptionalWriteable(PublishClusterStateStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            applierRecordingStats = in.readOptionalWriteable(ClusterApplierRecordingService.Stats::new);
+            masterTaskQueueStats = in.readOptionalWriteable(MasterTaskQueueRecordingService.Stats::new);
+        } else {
+            applierRecordingStats = null;
+            masterTaskQueueStats = null;
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeOptionalWriteable(queueStats);
         out.writeOptionalWriteable(publishStats);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(applierRecordingStats);
+            out.writeOptionalWriteable(masterTaskQueueStats);
+        }
     }
 
     @Override
@@ -48,6 +68,12 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
         if (publishStats != null) {
             publishStats.toXContent(builder, params);
         }
+        if (applierRecordingStats != null) {
+            applierRecordingStats.toXContent(builder, params);
+        }
+        if (masterTaskQueueStats != null) {
+            masterTaskQueueStats.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -63,4 +89,12 @@ public class DiscoveryStats implements Writeable, ToXContentFragment {
     public PublishClusterStateStats getPublishStats() {
         return publishStats;
     }
+
+    public ClusterApplierRecordingService.Stats getApplierRecordingStats() {
+        return applierRecordingStats;
+    }
+
+    public MasterTaskQueueRecordingService.Stats getMasterTaskQueueStats() {
+        return masterTaskQueueStats;
+    }
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.gateway;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.core.internal.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the updates to the persisted cluster state which may not yet be committed to the Lucene index of the
+ * {@link PersistedClusterStateService}. Appending an entry and syncing it makes an accepted cluster state durable without waiting for a
+ * (much more expensive) Lucene commit.
+ * <p>
+ * The log is split into generations, each stored in its own file, so that the generations whose entries have all been committed to the
+ * Lucene index can be deleted while new entries are appended to the current generation. Each entry is framed by its length and a checksum
+ * of both its length and its content so that an entry which was only partially written at the end of the log, and therefore never
+ * acknowledged, is ignored when reading the log back. A crash during an append may also leave the file extended with zeros, which do not
+ * form a valid entry either and are ignored too.
+ * <p>
+ * Not thread-safe, callers must synchronize access.
+ */
+final class ClusterStateWriteAheadLog implements Closeable {
+
+    static final String FILE_PREFIX = "cluster-state-wal-";
+    static final String FILE_SUFFIX = ".log";
+
+    private static final int HEADER_MAGIC = 0x3fd76c17;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    // an entry holds at least a term and a version, each taking at least one byte as a vlong, and an end marker
+    static final int MIN_ENTRY_LENGTH = 3;
+
+    private final Path directory;
+    private long generation;
+    private FileChannel channel;
+
+    private ClusterStateWriteAheadLog(Path directory, long generation) throws IOException {
+        this.directory = directory;
+        this.generation = generation;
+        this.channel = createGeneration(directory, generation);
+    }
+
+    /**
+     * Deletes any existing log in the given directory, whose entries must all have been committed to the Lucene index, and starts a
+     * new one.
+     */
+    static ClusterStateWriteAheadLog createNew(Path directory) throws IOException {
+        final List<Long> existingGenerations = findGenerations(directory);
+        final long generation = existingGenerations.isEmpty() ? 0L : existingGenerations.get(existingGenerations.size() - 1) + 1;
+        deleteAll(directory);
+        return new ClusterStateWriteAheadLog(directory, generation);
+    }
+
+    /**
+     * Deletes the log in the given directory, for instance because its entries were all committed to the Lucene index.
+     */
+    static void deleteAll(Path directory) throws IOException {
+        for (long generation : findGenerations(directory)) {
+            Files.deleteIfExists(generationPath(directory, generation));
+        }
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Appends the given entry to the current generation. The entry is only durable once {@link #sync()} returns.
+     */
+    void append(BytesReference entry) throws IOException {
+        assert entry.length() >= MIN_ENTRY_LENGTH : entry.length();
+        final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).putInt(0, entry.length());
+        final CRC32 checksum = new CRC32();
+        checksum.update(length.array(), 0, Integer.BYTES);
+        Channels.writeToChannel(length, channel);
+        final BytesRefIterator iterator = entry.iterator();
+        BytesRef bytesRef;
+        while ((bytesRef = iterator.next()) != null) {
+            checksum.update(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+            Channels.writeToChannel(bytesRef.bytes, bytesRef.offset, bytesRef.length, channel);
+        }
+        Channels.writeToChannel(ByteBuffer.allocate(Long.BYTES).putLong(0, checksum.getValue()), channel);
+    }
+
+    void sync() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Starts a new generation, so that the entries appended so far can be deleted with {@link #deleteGenerationsBefore} once they are
+     * committed to the Lucene index.
+     */
+    void rollGeneration() throws IOException {
+        final FileChannel newChannel = createGeneration(directory, generation + 1);
+        final FileChannel previousChannel = channel;
+        channel = newChannel;
+        generation += 1;
+        previousChannel.close();
+    }
+
+    void deleteGenerationsBefore(long generation) throws IOException {
+        for (long existingGeneration : findGenerations(directory)) {
+            if (existingGeneration < generation) {
+                Files.deleteIfExists(generationPath(directory, existingGeneration));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads the entries of the log in the given directory, in the order in which they were appended.
+     */
+    static List<BytesReference> readEntries(Path directory) throws IOException {
+        final List<BytesReference> entries = new ArrayList<>();
+        final List<Long> generations = findGenerations(directory);
+        for (int i = 0; i < generations.size(); i++) {
+            final Path path = generationPath(directory, generations.get(i));
+            // only the last generation can end with a partially written entry, the earlier ones were complete when it was created
+            final boolean lastGeneration = i == generations.size() - 1;
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.remaining() < HEADER_SIZE || isZeroFilled(buffer, 0)) {
+                // the creation of the last generation may not have completed, in which case nothing was appended to it
+                if (lastGeneration) {
+                    break;
+                }
+                throw new CorruptStateException("truncated header in [" + path + "]");
+            }
+            final int magic = buffer.getInt();
+            final int formatVersion = buffer.getInt();
+            if (magic != HEADER_MAGIC || formatVersion != FORMAT_VERSION) {
+                throw new CorruptStateException("unexpected header [" + magic + "/" + formatVersion + "] in [" + path + "]");
+            }
+            while (buffer.hasRemaining()) {
+                final int start = buffer.position();
+                if (buffer.remaining() < Integer.BYTES) {
+                    if (lastGeneration) {
+                        break;
+                    }
+                    throw new CorruptStateException("truncated entry at [" + start + "] in [" + path + "]");
+                }
+                final int length = buffer.getInt();
+                if (length < MIN_ENTRY_LENGTH) {
+                    // an invalid length at the end of the last generation is the start of an entry that was not written completely
+                    if (lastGeneration && isZeroFilled(buffer, start)) {
+                        break;
+                    }
+                    throw new CorruptStateException("invalid length [" + length + "] of entry at [" + start + "] in [" + path + "]");
+                }
+                if (buffer.remaining() < (long) length + Long.BYTES) {
+                    if (lastGeneration) {
+                        break;
+                    }
+                    throw new CorruptStateException("truncated entry at [" + start + "] in [" + path + "]");
+                }
+                final int offset = buffer.position();
+                final CRC32 checksum = new CRC32();
+                checksum.update(buffer.array(), start, Integer.BYTES + length);
+                buffer.position(offset + length);
+                if (checksum.getValue() != buffer.getLong()) {
+                    // likewise a mismatching checksum, as long as nothing but the zeros of an extended file follows it
+                    if (lastGeneration && isZeroFilled(buffer, buffer.position())) {
+                        break;
+                    }
+                    throw new CorruptStateException("checksum mismatch for entry at [" + start + "] in [" + path + "]");
+                }
+                entries.add(new BytesArray(buffer.array(), offset, length));
+            }
+        }
+        return entries;
+    }
+
+    private static boolean isZeroFilled(ByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static FileChannel createGeneration(Path directory, long generation) throws IOException {
+        final FileChannel channel = FileChannel.open(generationPath(directory, generation),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        boolean success = false;
+        try {
+            Channels.writeToChannel(ByteBuffer.allocate(HEADER_SIZE).putInt(HEADER_MAGIC).putInt(FORMAT_VERSION).flip(), channel);
+            channel.force(false);
+            // the new file must exist after a crash once an entry appended to it was synced
+            IOUtils.fsync(directory, true);
+            success = true;
+            return channel;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(channel);
+            }
+        }
+    }
+
+    private static Path generationPath(Path directory, long generation) {
+        return directory.resolve(FILE_PREFIX + generation + FILE_SUFFIX);
+    }
+
+    private static List<Long> findGenerations(Path directory) throws IOException {
+        final List<Long> generations = new ArrayList<>();
+        if (Files.exists(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+                for (Path path : stream) {
+                    final String fileName = path.getFileName().toString();
+                    generations.add(Long.parseLong(
+                        fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length())));
+                }
+            }
+        }
+        generations.sort(Long::compare);
+        return generations;
+    }
+}
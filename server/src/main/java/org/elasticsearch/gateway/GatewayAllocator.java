@@ -13,7 +13,9 @@ import com.carrotsearch.hppc.cursors.ObjectObjectCursor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.nodes.BaseNodeResponse;
 import org.elasticsearch.action.support.nodes.BaseNodesResponse;
 import org.elasticsearch.client.node.NodeClient;
@@ -29,16 +31,31 @@ import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.gateway.AsyncShardFetch.Lister;
 import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodeGatewayStartedShards;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodesGatewayStartedShards;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShardsBatch.NodeGatewayStartedShardsBatch;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShardsBatch.NodesGatewayStartedShardsBatch;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadata;
 import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadata.NodeStoreFilesMetadata;
-
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadata.NodesStoreFilesMetadata;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadata.StoreFilesMetadata;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadataBatch;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadataBatch.NodeStoreFilesMetadataBatch;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadataBatch.NodesStoreFilesMetadataBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
@@ -48,9 +65,17 @@ public class GatewayAllocator implements ExistingShardsAllocator {
 
     public static final String ALLOCATOR_NAME = "gateway_allocator";
 
+    /**
+     * The maximum number of shards that a single batched request asks a node about when fetching shard data. Allocation rounds that need
+     * the data of more shards send several requests to each node, which the node handles in parallel.
+     */
+    public static final Setting<Integer> MAX_SHARDS_PER_FETCH_BATCH_SETTING =
+        Setting.intSetting("gateway.shard_fetch.max_batch_size", 100, 1, Setting.Property.NodeScope);
+
     private static final Logger logger = LogManager.getLogger(GatewayAllocator.class);
 
     private final RerouteService rerouteService;
+    private final NodeClient client;
 
     private final PrimaryShardAllocator primaryShardAllocator;
     private final ReplicaShardAllocator replicaShardAllocator;
@@ -61,11 +86,19 @@ public class GatewayAllocator implements ExistingShardsAllocator {
         asyncFetchStore = ConcurrentCollections.newConcurrentMap();
     private Set<String> lastSeenEphemeralIds = Collections.emptySet();
 
+    // shard fetches that were requested during the current allocation round, sent in batches once the primaries of the round have been
+    // processed or at the end of the round, see flushPendingStartedShardsFetches and flushPendingShardStoreFetches
+    private final List<PendingShardFetch<NodeGatewayStartedShards>> pendingStartedShardsFetches = new ArrayList<>();
+    private final List<PendingShardFetch<NodeStoreFilesMetadata>> pendingShardStoreFetches = new ArrayList<>();
+    private final int maxShardsPerFetchBatch;
+
     @Inject
-    public GatewayAllocator(RerouteService rerouteService, NodeClient client) {
+    public GatewayAllocator(Settings settings, RerouteService rerouteService, NodeClient client) {
         this.rerouteService = rerouteService;
-        this.primaryShardAllocator = new InternalPrimaryShardAllocator(client);
-        this.replicaShardAllocator = new InternalReplicaShardAllocator(client);
+        this.client = client;
+        this.maxShardsPerFetchBatch = MAX_SHARDS_PER_FETCH_BATCH_SETTING.get(settings);
+        this.primaryShardAllocator = new InternalPrimaryShardAllocator();
+        this.replicaShardAllocator = new InternalReplicaShardAllocator();
     }
 
     @Override
@@ -74,11 +107,15 @@ public class GatewayAllocator implements ExistingShardsAllocator {
         asyncFetchStarted.clear();
         Releasables.close(asyncFetchStore.values());
         asyncFetchStore.clear();
+        drain(pendingStartedShardsFetches);
+        drain(pendingShardStoreFetches);
     }
 
     // for tests
     protected GatewayAllocator() {
         this.rerouteService = null;
+        this.client = null;
+        this.maxShardsPerFetchBatch = MAX_SHARDS_PER_FETCH_BATCH_SETTING.getDefault(Settings.EMPTY);
         this.primaryShardAllocator = null;
         this.replicaShardAllocator = null;
     }
@@ -121,12 +158,20 @@ public class GatewayAllocator implements ExistingShardsAllocator {
     @Override
     public void afterPrimariesBeforeReplicas(RoutingAllocation allocation) {
         assert replicaShardAllocator != null;
+        flushPendingStartedShardsFetches(allocation.nodes());
         if (allocation.routingNodes().hasInactiveShards()) {
             // cancel existing recoveries if we have a better match
             replicaShardAllocator.processExistingRecoveries(allocation);
         }
     }
 
+    @Override
+    public void afterAllocation(RoutingAllocation allocation) {
+        // also sends the started shards fetches if allocating the primaries failed and afterPrimariesBeforeReplicas was skipped
+        flushPendingStartedShardsFetches(allocation.nodes());
+        flushPendingShardStoreFetches(allocation.nodes());
+    }
+
     @Override
     public void allocateUnassigned(ShardRouting shardRouting, final RoutingAllocation allocation,
                                    UnassignedAllocationHandler unassignedAllocationHandler) {
@@ -155,10 +200,18 @@ public class GatewayAllocator implements ExistingShardsAllocator {
         assert routingAllocation.debugDecision();
         if (unassignedShard.primary()) {
             assert primaryShardAllocator != null;
-            return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            try {
+                return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            } finally {
+                flushPendingStartedShardsFetches(routingAllocation.nodes());
+            }
         } else {
             assert replicaShardAllocator != null;
-            return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            try {
+                return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            } finally {
+                flushPendingShardStoreFetches(routingAllocation.nodes());
+            }
         }
     }
 
@@ -199,6 +252,178 @@ public class GatewayAllocator implements ExistingShardsAllocator {
         return false;
     }
 
+    /**
+     * Sends the started shards fetches that were requested since the last flush. Rather than sending a request per shard to every node,
+     * which after a full cluster restart means as many requests as there are shards times nodes, the fetches that ask the same nodes
+     * (normally all of them, since the first fetch of each shard asks every data node) are combined into batched requests per node.
+     */
+    private void flushPendingStartedShardsFetches(DiscoveryNodes nodes) {
+        final List<PendingShardFetch<NodeGatewayStartedShards>> fetches = drain(pendingStartedShardsFetches);
+        if (fetches.isEmpty()) {
+            return;
+        }
+        assert client != null;
+
+        if (nodes.getMinNodeVersion().before(Version.V_8_0_0)) {
+            // older nodes do not know the batched action
+            for (PendingShardFetch<NodeGatewayStartedShards> fetch : fetches) {
+                var request = new TransportNodesListGatewayStartedShards.Request(fetch.shardId, fetch.customDataPath, fetch.nodes);
+                client.executeLocally(TransportNodesListGatewayStartedShards.TYPE, request,
+                    ActionListener.wrap(fetch.listener::onResponse, fetch.listener::onFailure));
+            }
+            return;
+        }
+
+        for (List<PendingShardFetch<NodeGatewayStartedShards>> batch : toBatches(fetches, maxShardsPerFetchBatch)) {
+            final Map<ShardId, String> shards = shardsOf(batch);
+            final DiscoveryNode[] batchNodes = batch.get(0).nodes;
+            logger.trace("fetching [shard_started] for [{}] shards from {}", shards.size(), Arrays.toString(batchNodes));
+            var request = new TransportNodesListGatewayStartedShardsBatch.Request(shards, batchNodes);
+            client.executeLocally(TransportNodesListGatewayStartedShardsBatch.TYPE, request, ActionListener.wrap(response -> {
+                for (PendingShardFetch<NodeGatewayStartedShards> fetch : batch) {
+                    fetch.listener.onResponse(toStartedShardsResponse(fetch.shardId, response));
+                }
+            }, e -> {
+                for (PendingShardFetch<NodeGatewayStartedShards> fetch : batch) {
+                    fetch.listener.onFailure(e);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Sends the shard store fetches that were requested since the last flush, combining them into batched requests per node like
+     * {@link #flushPendingStartedShardsFetches}. Once the primaries have started after a full cluster restart, the replicas of all of
+     * them need their store files listed in the same few allocation rounds.
+     */
+    private void flushPendingShardStoreFetches(DiscoveryNodes nodes) {
+        final List<PendingShardFetch<NodeStoreFilesMetadata>> fetches = drain(pendingShardStoreFetches);
+        if (fetches.isEmpty()) {
+            return;
+        }
+        assert client != null;
+
+        if (nodes.getMinNodeVersion().before(Version.V_8_0_0)) {
+            // older nodes do not know the batched action
+            for (PendingShardFetch<NodeStoreFilesMetadata> fetch : fetches) {
+                var request = new TransportNodesListShardStoreMetadata.Request(fetch.shardId, fetch.customDataPath, fetch.nodes);
+                client.executeLocally(TransportNodesListShardStoreMetadata.TYPE, request,
+                    ActionListener.wrap(fetch.listener::onResponse, fetch.listener::onFailure));
+            }
+            return;
+        }
+
+        for (List<PendingShardFetch<NodeStoreFilesMetadata>> batch : toBatches(fetches, maxShardsPerFetchBatch)) {
+            final Map<ShardId, String> shards = shardsOf(batch);
+            final DiscoveryNode[] batchNodes = batch.get(0).nodes;
+            logger.trace("fetching [shard_store] for [{}] shards from {}", shards.size(), Arrays.toString(batchNodes));
+            var request = new TransportNodesListShardStoreMetadataBatch.Request(shards, batchNodes);
+            client.executeLocally(TransportNodesListShardStoreMetadataBatch.TYPE, request, ActionListener.wrap(response -> {
+                for (PendingShardFetch<NodeStoreFilesMetadata> fetch : batch) {
+                    fetch.listener.onResponse(toShardStoreResponse(fetch.shardId, response));
+                }
+            }, e -> {
+                for (PendingShardFetch<NodeStoreFilesMetadata> fetch : batch) {
+                    fetch.listener.onFailure(e);
+                }
+            }));
+        }
+    }
+
+    private static <T> List<T> drain(List<T> pending) {
+        synchronized (pending) {
+            final List<T> drained = new ArrayList<>(pending);
+            pending.clear();
+            return drained;
+        }
+    }
+
+    /**
+     * Groups the given fetches into batches of fetches that ask the same nodes. Each batch holds at most {@code maxBatchSize} fetches, so
+     * that a large allocation round turns into several requests per node which the node handles in parallel on its fetch thread pool,
+     * rather than into a single request that it works through on a single thread.
+     */
+    static <T extends BaseNodeResponse> List<List<PendingShardFetch<T>>> toBatches(List<PendingShardFetch<T>> fetches, int maxBatchSize) {
+        final Map<Set<DiscoveryNode>, List<PendingShardFetch<T>>> fetchesByNodes = new LinkedHashMap<>();
+        for (PendingShardFetch<T> fetch : fetches) {
+            fetchesByNodes.computeIfAbsent(Set.of(fetch.nodes), k -> new ArrayList<>()).add(fetch);
+        }
+        final List<List<PendingShardFetch<T>>> batches = new ArrayList<>();
+        for (List<PendingShardFetch<T>> sameNodesFetches : fetchesByNodes.values()) {
+            for (int from = 0; from < sameNodesFetches.size(); from += maxBatchSize) {
+                batches.add(sameNodesFetches.subList(from, Math.min(from + maxBatchSize, sameNodesFetches.size())));
+            }
+        }
+        return batches;
+    }
+
+    private static Map<ShardId, String> shardsOf(List<? extends PendingShardFetch<?>> batch) {
+        final Map<ShardId, String> shards = new HashMap<>(batch.size());
+        for (PendingShardFetch<?> fetch : batch) {
+            shards.put(fetch.shardId, fetch.customDataPath);
+        }
+        return shards;
+    }
+
+    /**
+     * Extracts the responses for a single shard from the response to a batched fetch, in the form of the response to a single shard fetch.
+     */
+    private static NodesGatewayStartedShards toStartedShardsResponse(ShardId shardId, NodesGatewayStartedShardsBatch response) {
+        final List<NodeGatewayStartedShards> responses = new ArrayList<>(response.getNodes().size());
+        final List<FailedNodeException> failures = new ArrayList<>(response.failures());
+        for (NodeGatewayStartedShardsBatch nodeResponse : response.getNodes()) {
+            final NodeGatewayStartedShards startedShards = nodeResponse.getStartedShards().get(shardId);
+            if (startedShards != null) {
+                responses.add(startedShards);
+            } else {
+                final Exception failure = nodeResponse.getFailures().get(shardId);
+                assert failure != null : "no response and no failure for " + shardId + " from " + nodeResponse.getNode();
+                failures.add(new FailedNodeException(nodeResponse.getNode().getId(), "failed to list started shards of " + shardId,
+                    failure));
+            }
+        }
+        return new NodesGatewayStartedShards(response.getClusterName(), responses, failures);
+    }
+
+    /**
+     * Extracts the responses for a single shard from the response to a batched fetch, in the form of the response to a single shard fetch.
+     */
+    private static NodesStoreFilesMetadata toShardStoreResponse(ShardId shardId, NodesStoreFilesMetadataBatch response) {
+        final List<NodeStoreFilesMetadata> responses = new ArrayList<>(response.getNodes().size());
+        final List<FailedNodeException> failures = new ArrayList<>(response.failures());
+        for (NodeStoreFilesMetadataBatch nodeResponse : response.getNodes()) {
+            final StoreFilesMetadata storeFiles = nodeResponse.getStoreFiles().get(shardId);
+            if (storeFiles != null) {
+                responses.add(new NodeStoreFilesMetadata(nodeResponse.getNode(), storeFiles));
+            } else {
+                final Exception failure = nodeResponse.getFailures().get(shardId);
+                assert failure != null : "no response and no failure for " + shardId + " from " + nodeResponse.getNode();
+                failures.add(new FailedNodeException(nodeResponse.getNode().getId(), "failed to list store files of " + shardId,
+                    failure));
+            }
+        }
+        return new NodesStoreFilesMetadata(response.getClusterName(), responses, failures);
+    }
+
+    static final class PendingShardFetch<T extends BaseNodeResponse> {
+
+        private final ShardId shardId;
+        private final String customDataPath;
+        private final DiscoveryNode[] nodes;
+        private final ActionListener<BaseNodesResponse<T>> listener;
+
+        PendingShardFetch(ShardId shardId, String customDataPath, DiscoveryNode[] nodes, ActionListener<BaseNodesResponse<T>> listener) {
+            this.shardId = shardId;
+            this.customDataPath = customDataPath;
+            this.nodes = nodes;
+            this.listener = listener;
+        }
+
+        ShardId shardId() {
+            return shardId;
+        }
+    }
+
     class InternalAsyncFetch<T extends BaseNodeResponse> extends AsyncShardFetch<T> {
 
         InternalAsyncFetch(Logger logger, String type, ShardId shardId, String customDataPath,
@@ -218,12 +443,6 @@ public class GatewayAllocator implements ExistingShardsAllocator {
 
     class InternalPrimaryShardAllocator extends PrimaryShardAllocator {
 
-        private final NodeClient client;
-
-        InternalPrimaryShardAllocator(NodeClient client) {
-            this.client = client;
-        }
-
         @Override
         protected AsyncShardFetch.FetchResult<NodeGatewayStartedShards> fetchData(ShardRouting shard, RoutingAllocation allocation) {
             // explicitely type lister, some IDEs (Eclipse) are not able to correctly infer the function type
@@ -244,20 +463,15 @@ public class GatewayAllocator implements ExistingShardsAllocator {
 
         private void listStartedShards(ShardId shardId, String customDataPath, DiscoveryNode[] nodes,
                                        ActionListener<BaseNodesResponse<NodeGatewayStartedShards>> listener) {
-            var request = new TransportNodesListGatewayStartedShards.Request(shardId, customDataPath, nodes);
-            client.executeLocally(TransportNodesListGatewayStartedShards.TYPE, request,
-                ActionListener.wrap(listener::onResponse, listener::onFailure));
+            // sent once the primaries of this allocation round have been processed, see flushPendingStartedShardsFetches
+            synchronized (pendingStartedShardsFetches) {
+                pendingStartedShardsFetches.add(new PendingShardFetch<>(shardId, customDataPath, nodes, listener));
+            }
         }
     }
 
     class InternalReplicaShardAllocator extends ReplicaShardAllocator {
 
-        private final NodeClient client;
-
-        InternalReplicaShardAllocator(NodeClient client) {
-            this.client = client;
-        }
-
         @Override
         protected AsyncShardFetch.FetchResult<NodeStoreFilesMetadata> fetchData(ShardRouting shard, RoutingAllocation allocation) {
             // explicitly type lister, some IDEs (Eclipse) are not able to correctly infer the function type
@@ -275,9 +489,10 @@ public class GatewayAllocator implements ExistingShardsAllocator {
 
         private void listStoreFilesMetadata(ShardId shardId, String customDataPath, DiscoveryNode[] nodes,
                                             ActionListener<BaseNodesResponse<NodeStoreFilesMetadata>> listener) {
-            var request = new TransportNodesListShardStoreMetadata.Request(shardId, customDataPath, nodes);
-            client.executeLocally(TransportNodesListShardStoreMetadata.TYPE, request,
-                ActionListener.wrap(listener::onResponse, listener::onFailure));
+            // sent at the end of this allocation round, see flushPendingShardStoreFetches
+            synchronized (pendingShardStoreFetches) {
+                pendingShardStoreFetches.add(new PendingShardFetch<>(shardId, customDataPath, nodes, listener));
+            }
         }
 
         @Override
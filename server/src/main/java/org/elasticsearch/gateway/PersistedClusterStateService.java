@@ -40,32 +40,46 @@ import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.CheckedFunction;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.RecyclingBytesStreamOutput;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
 import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.EsThreadPoolExecutor;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentParserUtils;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.NodeMetadata;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.Closeable;
 import java.io.IOError;
@@ -78,6 +92,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.IntPredicate;
 import java.util.function.LongSupplier;
@@ -88,12 +103,17 @@ import java.util.function.Supplier;
  * to record the last-accepted cluster state during publication. The metadata is written incrementally where possible, leaving alone any
  * documents that have not changed. The index has the following fields:
  *
- * +------------------------------+-----------------------------+----------------------------------------------+
- * | "type" (string field)        | "index_uuid" (string field) | "data" (stored binary field in SMILE format) |
- * +------------------------------+-----------------------------+----------------------------------------------+
- * | GLOBAL_TYPE_NAME == "global" | (omitted)                   | Global metadata                              |
- * | INDEX_TYPE_NAME  == "index"  | Index UUID                  | Index metadata                               |
- * +------------------------------+-----------------------------+----------------------------------------------+
+ * +--------------------------------+-----------------------------+-------------------------------+--------------------------------------+
+ * | "type" (string field)          | "index_uuid" (string field) | "mapping_hash" (string field) | "data" (stored binary, SMILE format) |
+ * +--------------------------------+-----------------------------+-------------------------------+--------------------------------------+
+ * | GLOBAL_TYPE_NAME  == "global"  | (omitted)                   | (omitted)                     | Global metadata                      |
+ * | INDEX_TYPE_NAME   == "index"   | Index UUID                  | (omitted)                     | Index metadata                       |
+ * | MAPPING_TYPE_NAME == "mapping" | (omitted)                   | Mapping hash                  | Mapping shared by indices            |
+ * +--------------------------------+-----------------------------+-------------------------------+--------------------------------------+
+ *
+ * Each distinct mapping is stored once, in a document identified by the {@link MappingMetadata#getSha256() hash} of its content, and the
+ * index metadata documents refer to their mappings by this hash. Index metadata documents written by earlier versions contain their
+ * mappings in full, which is also supported when loading the metadata.
  *
  * Additionally each commit has the following user data:
  *
@@ -107,6 +127,12 @@ import java.util.function.Supplier;
  * +---------------------------+-------------------------+-------------------------------------------------------------------------------+
  *
  * (the last-accepted term is recorded in Metadata → CoordinationMetadata so does not need repeating here)
+ *
+ * If {@link #WRITE_AHEAD_LOG_ENABLED_SETTING} is set then, apart from the first state written by a {@link Writer}, the document updates
+ * for each state are not applied to the index directly. Instead they are appended to a {@link ClusterStateWriteAheadLog}, which is
+ * fsynced, and a background thread applies the latest state to the index and commits it, after which the log entries it covers are
+ * deleted. Loading the on-disk state replays any remaining log entries on top of the last commit, so the persisted state is the same as
+ * if every state had been committed to the index straight away.
  */
 public class PersistedClusterStateService {
     private static final Logger logger = LogManager.getLogger(PersistedClusterStateService.class);
@@ -119,18 +145,40 @@ public class PersistedClusterStateService {
     private static final String GLOBAL_TYPE_NAME = "global";
     private static final String INDEX_TYPE_NAME = "index";
     private static final String INDEX_UUID_FIELD_NAME = "index_uuid";
+    private static final String MAPPING_TYPE_NAME = "mapping";
+    private static final String MAPPING_HASH_FIELD_NAME = "mapping_hash";
+    private static final String MAPPING_CONTENT_FIELD_NAME = "content";
     private static final int COMMIT_DATA_SIZE = 4;
 
+    // operations of the entries of the write-ahead log, each of which mirrors a document update of the index
+    private static final byte WAL_END = 0;
+    private static final byte WAL_DELETE_ALL = 1;
+    private static final byte WAL_UPDATE_GLOBAL = 2;
+    private static final byte WAL_UPDATE_INDEX = 3;
+    private static final byte WAL_DELETE_INDEX = 4;
+    private static final byte WAL_UPDATE_MAPPING = 5;
+    private static final byte WAL_DELETE_MAPPING = 6;
+
+    static final String COMMIT_THREAD_NAME = "PersistedClusterStateService#commitTask";
+
     public static final String METADATA_DIRECTORY_NAME = MetadataStateFormat.STATE_DIR_NAME;
 
     public static final Setting<TimeValue> SLOW_WRITE_LOGGING_THRESHOLD = Setting.timeSetting("gateway.slow_write_logging_threshold",
         TimeValue.timeValueSeconds(10), TimeValue.ZERO, Setting.Property.NodeScope, Setting.Property.Dynamic);
 
+    /**
+     * Whether to make accepted cluster states durable by appending them to a write-ahead log, leaving the commits of the Lucene index to
+     * a background thread, so that the time to persist a cluster state during publication does not depend on the time the commit takes.
+     */
+    public static final Setting<Boolean> WRITE_AHEAD_LOG_ENABLED_SETTING = Setting.boolSetting("gateway.write_ahead_log.enabled", false,
+        Setting.Property.NodeScope);
+
     private final Path dataPath;
     private final String nodeId;
     private final NamedXContentRegistry namedXContentRegistry;
     private final BigArrays bigArrays;
     private final LongSupplier relativeTimeMillisSupplier;
+    private final boolean writeAheadLogEnabled;
 
     private volatile TimeValue slowWriteLoggingThreshold;
 
@@ -147,6 +195,7 @@ public class PersistedClusterStateService {
         this.namedXContentRegistry = namedXContentRegistry;
         this.bigArrays = bigArrays;
         this.relativeTimeMillisSupplier = relativeTimeMillisSupplier;
+        this.writeAheadLogEnabled = clusterSettings.get(WRITE_AHEAD_LOG_ENABLED_SETTING);
         this.slowWriteLoggingThreshold = clusterSettings.get(SLOW_WRITE_LOGGING_THRESHOLD);
         clusterSettings.addSettingsUpdateConsumer(SLOW_WRITE_LOGGING_THRESHOLD, this::setSlowWriteLoggingThreshold);
     }
@@ -165,9 +214,10 @@ public class PersistedClusterStateService {
     public Writer createWriter() throws IOException {
         final List<MetadataIndexWriter> metadataIndexWriters = new ArrayList<>();
         final List<Closeable> closeables = new ArrayList<>();
+        final Path indexPath = dataPath.resolve(METADATA_DIRECTORY_NAME);
         boolean success = false;
         try {
-            final Directory directory = createDirectory(dataPath.resolve(METADATA_DIRECTORY_NAME));
+            final Directory directory = createDirectory(indexPath);
             closeables.add(directory);
 
             final IndexWriter indexWriter = createIndexWriter(directory, false);
@@ -179,7 +229,8 @@ public class PersistedClusterStateService {
                 IOUtils.closeWhileHandlingException(closeables);
             }
         }
-        return new Writer(metadataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold);
+        return new Writer(metadataIndexWriters, nodeId, bigArrays, relativeTimeMillisSupplier, () -> slowWriteLoggingThreshold,
+            indexPath, writeAheadLogEnabled);
     }
 
     private static IndexWriter createIndexWriter(Directory directory, boolean openExisting) throws IOException {
@@ -202,6 +253,7 @@ public class PersistedClusterStateService {
      */
     public static void delete(Path dataPath) throws IOException {
         Lucene.cleanLuceneIndex(new NIOFSDirectory(dataPath.resolve(METADATA_DIRECTORY_NAME)));
+        ClusterStateWriteAheadLog.deleteAll(dataPath.resolve(METADATA_DIRECTORY_NAME));
     }
 
     // exposed for tests
@@ -314,34 +366,38 @@ public class PersistedClusterStateService {
         final IndexSearcher searcher = new IndexSearcher(reader);
         searcher.setQueryCache(null);
 
-        final SetOnce<Metadata.Builder> builderReference = new SetOnce<>();
+        final Map<String, MappingMetadata> mappingsByHash = new HashMap<>();
+        consumeFromType(searcher, MAPPING_TYPE_NAME, bytes ->
+        {
+            final MappingMetadata mappingMetadata = readMappingMetadata(bytes);
+            logger.trace("found mapping metadata with hash [{}]", mappingMetadata.getSha256());
+            mappingsByHash.putIfAbsent(mappingMetadata.getSha256(), mappingMetadata);
+        });
+
+        final SetOnce<Metadata> globalMetadataReference = new SetOnce<>();
         consumeFromType(searcher, GLOBAL_TYPE_NAME, bytes ->
         {
-            final Metadata metadata = Metadata.Builder.fromXContent(XContentFactory.xContent(XContentType.SMILE)
-                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length));
+            final Metadata metadata = readGlobalMetadata(bytes);
             logger.trace("found global metadata with last-accepted term [{}]", metadata.coordinationMetadata().term());
-            if (builderReference.get() != null) {
+            if (globalMetadataReference.get() != null) {
                 throw new IllegalStateException("duplicate global metadata found in [" + dataPath + "]");
             }
-            builderReference.set(Metadata.builder(metadata));
+            globalMetadataReference.set(metadata);
         });
-
-        final Metadata.Builder builder = builderReference.get();
-        if (builder == null) {
+        Metadata globalMetadata = globalMetadataReference.get();
+        if (globalMetadata == null) {
             throw new IllegalStateException("no global metadata found in [" + dataPath + "]");
         }
 
         logger.trace("got global metadata, now reading index metadata");
-        final Set<String> indexUUIDs = new HashSet<>();
+        final Map<String, IndexMetadata> indexMetadataByUUID = new HashMap<>();
         consumeFromType(searcher, INDEX_TYPE_NAME, bytes ->
         {
-            final IndexMetadata indexMetadata = IndexMetadata.fromXContent(XContentFactory.xContent(XContentType.SMILE)
-                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length));
+            final IndexMetadata indexMetadata = readIndexMetadata(bytes, mappingsByHash);
             logger.trace("found index metadata for {}", indexMetadata.getIndex());
-            if (indexUUIDs.add(indexMetadata.getIndexUUID()) == false) {
+            if (indexMetadataByUUID.putIfAbsent(indexMetadata.getIndexUUID(), indexMetadata) != null) {
                 throw new IllegalStateException("duplicate metadata found for " + indexMetadata.getIndex() + " in [" + dataPath + "]");
             }
-            builder.put(indexMetadata, false);
         });
 
         final Map<String, String> userData = reader.getIndexCommit().getUserData();
@@ -351,8 +407,82 @@ public class PersistedClusterStateService {
         assert userData.get(LAST_ACCEPTED_VERSION_KEY) != null;
         assert userData.get(NODE_ID_KEY) != null;
         assert userData.get(NODE_VERSION_KEY) != null;
-        return new OnDiskState(userData.get(NODE_ID_KEY), dataPath, Long.parseLong(userData.get(CURRENT_TERM_KEY)),
-            Long.parseLong(userData.get(LAST_ACCEPTED_VERSION_KEY)), builder.build());
+        long currentTerm = Long.parseLong(userData.get(CURRENT_TERM_KEY));
+        long lastAcceptedVersion = Long.parseLong(userData.get(LAST_ACCEPTED_VERSION_KEY));
+
+        // Replay the updates that were appended to the write-ahead log but may not have been committed to the index yet. An update
+        // consists of document replacements and deletions, so replaying updates that were already committed yields the same state.
+        for (BytesReference entry : ClusterStateWriteAheadLog.readEntries(dataPath.resolve(METADATA_DIRECTORY_NAME))) {
+            try (StreamInput in = entry.streamInput()) {
+                currentTerm = in.readVLong();
+                lastAcceptedVersion = in.readVLong();
+                logger.trace("replaying write-ahead log entry for term [{}] and version [{}]", currentTerm, lastAcceptedVersion);
+                byte operation;
+                while ((operation = in.readByte()) != WAL_END) {
+                    switch (operation) {
+                        case WAL_DELETE_ALL:
+                            mappingsByHash.clear();
+                            globalMetadata = null;
+                            indexMetadataByUUID.clear();
+                            break;
+                        case WAL_UPDATE_GLOBAL:
+                            globalMetadata = readGlobalMetadata(in.readBytesRef());
+                            break;
+                        case WAL_UPDATE_INDEX:
+                            final String indexUUID = in.readString();
+                            indexMetadataByUUID.put(indexUUID, readIndexMetadata(in.readBytesRef(), mappingsByHash));
+                            break;
+                        case WAL_DELETE_INDEX:
+                            indexMetadataByUUID.remove(in.readString());
+                            break;
+                        case WAL_UPDATE_MAPPING:
+                            final String hash = in.readString();
+                            mappingsByHash.put(hash, readMappingMetadata(in.readBytesRef()));
+                            break;
+                        case WAL_DELETE_MAPPING:
+                            mappingsByHash.remove(in.readString());
+                            break;
+                        default:
+                            throw new CorruptStateException("unknown write-ahead log operation [" + operation + "] in [" + dataPath + "]");
+                    }
+                }
+            }
+        }
+
+        if (globalMetadata == null) {
+            throw new CorruptStateException("no global metadata found after replaying the write-ahead log in [" + dataPath + "]");
+        }
+        final Metadata.Builder builder = Metadata.builder(globalMetadata);
+        for (IndexMetadata indexMetadata : indexMetadataByUUID.values()) {
+            builder.put(indexMetadata, false);
+        }
+        return new OnDiskState(userData.get(NODE_ID_KEY), dataPath, currentTerm, lastAcceptedVersion, builder.build());
+    }
+
+    private Metadata readGlobalMetadata(BytesRef bytes) throws IOException {
+        return Metadata.Builder.fromXContent(XContentFactory.xContent(XContentType.SMILE)
+            .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length));
+    }
+
+    private IndexMetadata readIndexMetadata(BytesRef bytes, Map<String, MappingMetadata> mappingsByHash) throws IOException {
+        return IndexMetadata.Builder.fromXContent(XContentFactory.xContent(XContentType.SMILE)
+            .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length),
+            mappingsByHash);
+    }
+
+    private MappingMetadata readMappingMetadata(BytesRef bytes) throws IOException {
+        return readMappingMetadata(XContentFactory.xContent(XContentType.SMILE)
+            .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.bytes, bytes.offset, bytes.length));
+    }
+
+    private static MappingMetadata readMappingMetadata(XContentParser parser) throws IOException {
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.FIELD_NAME, parser.nextToken(), parser);
+        if (MAPPING_CONTENT_FIELD_NAME.equals(parser.currentName()) == false) {
+            throw new IllegalStateException("unexpected field [" + parser.currentName() + "] in mapping metadata");
+        }
+        XContentParserUtils.ensureExpectedToken(XContentParser.Token.VALUE_EMBEDDED_OBJECT, parser.nextToken(), parser);
+        return new MappingMetadata(new CompressedXContent(parser.binaryValue()));
     }
 
     private static void consumeFromType(IndexSearcher indexSearcher, String type,
@@ -383,17 +513,39 @@ public class PersistedClusterStateService {
     private static final ToXContent.Params FORMAT_PARAMS;
 
     static {
-        Map<String, String> params = new HashMap<>(2);
+        Map<String, String> params = new HashMap<>(3);
         params.put("binary", "true");
         params.put(Metadata.CONTEXT_MODE_PARAM, Metadata.CONTEXT_MODE_GATEWAY);
+        params.put(IndexMetadata.DEDUPLICATED_MAPPINGS_PARAM, "true");
         FORMAT_PARAMS = new ToXContent.MapParams(params);
     }
 
+    /**
+     * Receives the document updates that bring the persisted metadata in line with a new cluster state, either applying them to the Lucene
+     * index directly or recording them in an entry of the write-ahead log.
+     */
+    private abstract static class MetadataDocumentWriter {
+
+        abstract void deleteAll() throws IOException;
+
+        abstract void updateIndexMetadataDocument(Document indexMetadataDocument, Index index) throws IOException;
+
+        abstract void updateGlobalMetadata(Document globalMetadataDocument) throws IOException;
+
+        abstract void deleteIndexMetadata(String indexUUID) throws IOException;
+
+        abstract void updateMappingMetadata(Document mappingMetadataDocument, String hash) throws IOException;
+
+        abstract void deleteMappingMetadata(String hash) throws IOException;
+
+        abstract void flush() throws IOException;
+    }
+
     /**
      * Encapsulates a single {@link IndexWriter} with its {@link Directory} for ease of closing, and a {@link Logger}. There is one of these
      * for each data path.
      */
-    private static class MetadataIndexWriter implements Closeable {
+    private static class MetadataIndexWriter extends MetadataDocumentWriter implements Closeable {
 
         private final Logger logger;
         private final Directory directory;
@@ -425,6 +577,16 @@ public class PersistedClusterStateService {
             indexWriter.deleteDocuments(new Term(INDEX_UUID_FIELD_NAME, indexUUID));
         }
 
+        void updateMappingMetadata(Document mappingMetadataDocument, String hash) throws IOException {
+            this.logger.trace("updating mapping metadata for [{}]", hash);
+            indexWriter.updateDocument(new Term(MAPPING_HASH_FIELD_NAME, hash), mappingMetadataDocument);
+        }
+
+        void deleteMappingMetadata(String hash) throws IOException {
+            this.logger.trace("removing mapping metadata for [{}]", hash);
+            indexWriter.deleteDocuments(new Term(MAPPING_HASH_FIELD_NAME, hash));
+        }
+
         void flush() throws IOException {
             this.logger.trace("flushing");
             this.indexWriter.flush();
@@ -450,6 +612,73 @@ public class PersistedClusterStateService {
         }
     }
 
+    /**
+     * Records the document updates for a single cluster state as an entry of the {@link ClusterStateWriteAheadLog}, in the format that
+     * {@link #loadOnDiskState} replays. Only the stored data of each document is recorded since the other fields are derived from it.
+     */
+    private static class WriteAheadLogEntry extends MetadataDocumentWriter implements Releasable {
+
+        private final ReleasableBytesStreamOutput output;
+
+        WriteAheadLogEntry(BigArrays bigArrays, long currentTerm, long lastAcceptedVersion) throws IOException {
+            output = new ReleasableBytesStreamOutput(bigArrays);
+            output.writeVLong(currentTerm);
+            output.writeVLong(lastAcceptedVersion);
+        }
+
+        @Override
+        void deleteAll() throws IOException {
+            output.writeByte(WAL_DELETE_ALL);
+        }
+
+        @Override
+        void updateIndexMetadataDocument(Document indexMetadataDocument, Index index) throws IOException {
+            output.writeByte(WAL_UPDATE_INDEX);
+            output.writeString(index.getUUID());
+            output.writeBytesRef(indexMetadataDocument.getBinaryValue(DATA_FIELD_NAME));
+        }
+
+        @Override
+        void updateGlobalMetadata(Document globalMetadataDocument) throws IOException {
+            output.writeByte(WAL_UPDATE_GLOBAL);
+            output.writeBytesRef(globalMetadataDocument.getBinaryValue(DATA_FIELD_NAME));
+        }
+
+        @Override
+        void deleteIndexMetadata(String indexUUID) throws IOException {
+            output.writeByte(WAL_DELETE_INDEX);
+            output.writeString(indexUUID);
+        }
+
+        @Override
+        void updateMappingMetadata(Document mappingMetadataDocument, String hash) throws IOException {
+            output.writeByte(WAL_UPDATE_MAPPING);
+            output.writeString(hash);
+            output.writeBytesRef(mappingMetadataDocument.getBinaryValue(DATA_FIELD_NAME));
+        }
+
+        @Override
+        void deleteMappingMetadata(String hash) throws IOException {
+            output.writeByte(WAL_DELETE_MAPPING);
+            output.writeString(hash);
+        }
+
+        @Override
+        void flush() {
+            // the entry is appended to the log as a whole once complete
+        }
+
+        BytesReference finish() throws IOException {
+            output.writeByte(WAL_END);
+            return output.bytes();
+        }
+
+        @Override
+        public void close() {
+            output.close();
+        }
+    }
+
     public static class Writer implements Closeable {
 
         private final List<MetadataIndexWriter> metadataIndexWriters;
@@ -458,20 +687,41 @@ public class PersistedClusterStateService {
         private final LongSupplier relativeTimeMillisSupplier;
         private final Supplier<TimeValue> slowWriteLoggingThresholdSupplier;
 
+        private final Path indexPath;
+        private final boolean writeAheadLogEnabled;
+
         boolean fullStateWritten = false;
         private final AtomicBoolean closed = new AtomicBoolean();
 
         // The size of the document buffer that was used for the last write operation, used as a hint for allocating the buffer for the
-        // next one.
-        private int documentBufferUsed;
+        // next one. Also updated by the background commits when using the write-ahead log.
+        private volatile int documentBufferUsed;
+
+        // Guards the write-ahead log and the state that the next background commit writes to the index.
+        private final Object mutex = new Object();
+        @Nullable // until the first full state is written, or if not using the write-ahead log
+        private ClusterStateWriteAheadLog writeAheadLog;
+        @Nullable // until the first full state is written, or if not using the write-ahead log
+        private EsThreadPoolExecutor commitExecutor;
+        private boolean commitScheduled;
+        private long termToCommit;
+        private long versionToCommit;
+        private Metadata metadataToCommit;
+
+        // The metadata in the last commit of the index, only accessed by the background commits once using the write-ahead log.
+        private Metadata committedMetadata;
+        private volatile Thread commitThread;
 
         private Writer(List<MetadataIndexWriter> metadataIndexWriters, String nodeId, BigArrays bigArrays,
-                       LongSupplier relativeTimeMillisSupplier, Supplier<TimeValue> slowWriteLoggingThresholdSupplier) {
+                       LongSupplier relativeTimeMillisSupplier, Supplier<TimeValue> slowWriteLoggingThresholdSupplier,
+                       Path indexPath, boolean writeAheadLogEnabled) {
             this.metadataIndexWriters = metadataIndexWriters;
             this.nodeId = nodeId;
             this.bigArrays = bigArrays;
             this.relativeTimeMillisSupplier = relativeTimeMillisSupplier;
             this.slowWriteLoggingThresholdSupplier = slowWriteLoggingThresholdSupplier;
+            this.indexPath = indexPath;
+            this.writeAheadLogEnabled = writeAheadLogEnabled;
         }
 
         private void ensureOpen() {
@@ -502,8 +752,18 @@ public class PersistedClusterStateService {
             ensureOpen();
             try {
                 final long startTimeMillis = relativeTimeMillisSupplier.getAsLong();
-                final WriterStats stats = overwriteMetadata(clusterState.metadata());
-                commit(currentTerm, clusterState.version());
+                final WriterStats stats;
+                if (writeAheadLog != null) {
+                    stats = appendToWriteAheadLog(currentTerm, clusterState.version(), clusterState.metadata(),
+                        entries -> overwriteMetadata(clusterState.metadata(), entries));
+                } else {
+                    stats = overwriteMetadata(clusterState.metadata(), metadataIndexWriters);
+                    commit(currentTerm, clusterState.version());
+                    if (fullStateWritten == false) {
+                        // this commit covers any entries left in the write-ahead log, which were replayed when loading the state
+                        startWriteAheadLog(clusterState.metadata());
+                    }
+                }
                 fullStateWritten = true;
                 final long durationMillis = relativeTimeMillisSupplier.getAsLong() - startTimeMillis;
                 final TimeValue finalSlowWriteLoggingThreshold = slowWriteLoggingThresholdSupplier.get();
@@ -531,8 +791,14 @@ public class PersistedClusterStateService {
 
             try {
                 final long startTimeMillis = relativeTimeMillisSupplier.getAsLong();
-                final WriterStats stats = updateMetadata(previousClusterState.metadata(), clusterState.metadata());
-                commit(currentTerm, clusterState.version());
+                final WriterStats stats;
+                if (writeAheadLog != null) {
+                    stats = appendToWriteAheadLog(currentTerm, clusterState.version(), clusterState.metadata(),
+                        entries -> updateMetadata(previousClusterState.metadata(), clusterState.metadata(), entries));
+                } else {
+                    stats = updateMetadata(previousClusterState.metadata(), clusterState.metadata(), metadataIndexWriters);
+                    commit(currentTerm, clusterState.version());
+                }
                 final long durationMillis = relativeTimeMillisSupplier.getAsLong() - startTimeMillis;
                 final TimeValue finalSlowWriteLoggingThreshold = slowWriteLoggingThresholdSupplier.get();
                 if (durationMillis >= finalSlowWriteLoggingThreshold.getMillis()) {
@@ -563,7 +829,8 @@ public class PersistedClusterStateService {
          * Update the persisted metadata to match the given cluster state by removing any stale or unnecessary documents and adding any
          * updated documents.
          */
-        private WriterStats updateMetadata(Metadata previouslyWrittenMetadata, Metadata metadata) throws IOException {
+        private WriterStats updateMetadata(Metadata previouslyWrittenMetadata, Metadata metadata,
+                                           List<? extends MetadataDocumentWriter> documentWriters) throws IOException {
             assert previouslyWrittenMetadata.coordinationMetadata().term() == metadata.coordinationMetadata().term();
             logger.trace("currentTerm [{}] matches previous currentTerm, writing changes only",
                 metadata.coordinationMetadata().term());
@@ -573,8 +840,24 @@ public class PersistedClusterStateService {
                 final boolean updateGlobalMeta = Metadata.isGlobalStateEquals(previouslyWrittenMetadata, metadata) == false;
                 if (updateGlobalMeta) {
                     final Document globalMetadataDocument = makeGlobalMetadataDocument(metadata, documentBuffer);
-                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                        metadataIndexWriter.updateGlobalMetadata(globalMetadataDocument);
+                    for (MetadataDocumentWriter documentWriter : documentWriters) {
+                        documentWriter.updateGlobalMetadata(globalMetadataDocument);
+                    }
+                }
+
+                // write the mappings that the updated indices may refer to before removing the ones that are no longer used
+                final ImmutableOpenMap<String, MappingMetadata> previousMappingsByHash = previouslyWrittenMetadata.getMappingsByHash();
+                for (ObjectCursor<MappingMetadata> cursor : metadata.getMappingsByHash().values()) {
+                    final MappingMetadata mappingMetadata = cursor.value;
+                    if (previousMappingsByHash.containsKey(mappingMetadata.getSha256()) == false) {
+                        addMappingMetadata(mappingMetadata, documentBuffer, documentWriters);
+                    }
+                }
+                for (ObjectCursor<String> cursor : previousMappingsByHash.keys()) {
+                    if (metadata.getMappingsByHash().containsKey(cursor.value) == false) {
+                        for (MetadataDocumentWriter documentWriter : documentWriters) {
+                            documentWriter.deleteMappingMetadata(cursor.value);
+                        }
                     }
                 }
 
@@ -596,8 +879,8 @@ public class PersistedClusterStateService {
                                 indexMetadata.getIndex(), previousVersion, indexMetadata.getVersion());
                         numIndicesUpdated++;
                         final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
-                        for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                            metadataIndexWriter.updateIndexMetadataDocument(indexMetadataDocument, indexMetadata.getIndex());
+                        for (MetadataDocumentWriter documentWriter : documentWriters) {
+                            documentWriter.updateIndexMetadataDocument(indexMetadataDocument, indexMetadata.getIndex());
                         }
                     } else {
                         numIndicesUnchanged++;
@@ -609,15 +892,15 @@ public class PersistedClusterStateService {
                 documentBufferUsed = documentBuffer.getMaxUsed();
 
                 for (String removedIndexUUID : indexMetadataVersionByUUID.keySet()) {
-                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                        metadataIndexWriter.deleteIndexMetadata(removedIndexUUID);
+                    for (MetadataDocumentWriter documentWriter : documentWriters) {
+                        documentWriter.deleteIndexMetadata(removedIndexUUID);
                     }
                 }
 
                 // Flush, to try and expose a failure (e.g. out of disk space) before committing, because we can handle a failure here more
                 // gracefully than one that occurs during the commit process.
-                for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                    metadataIndexWriter.flush();
+                for (MetadataDocumentWriter documentWriter : documentWriters) {
+                    documentWriter.flush();
                 }
 
                 return new WriterStats(updateGlobalMeta, numIndicesUpdated, numIndicesUnchanged);
@@ -627,29 +910,34 @@ public class PersistedClusterStateService {
         /**
          * Update the persisted metadata to match the given cluster state by removing all existing documents and then adding new documents.
          */
-        private WriterStats overwriteMetadata(Metadata metadata) throws IOException {
-            for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                metadataIndexWriter.deleteAll();
+        private WriterStats overwriteMetadata(Metadata metadata, List<? extends MetadataDocumentWriter> documentWriters)
+                throws IOException {
+            for (MetadataDocumentWriter documentWriter : documentWriters) {
+                documentWriter.deleteAll();
             }
-            return addMetadata(metadata);
+            return addMetadata(metadata, documentWriters);
         }
 
         /**
          * Add documents for the metadata of the given cluster state, assuming that there are currently no documents.
          */
-        private WriterStats addMetadata(Metadata metadata) throws IOException {
+        private WriterStats addMetadata(Metadata metadata, List<? extends MetadataDocumentWriter> documentWriters) throws IOException {
             try (DocumentBuffer documentBuffer = allocateBuffer()) {
 
                 final Document globalMetadataDocument = makeGlobalMetadataDocument(metadata, documentBuffer);
-                for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                    metadataIndexWriter.updateGlobalMetadata(globalMetadataDocument);
+                for (MetadataDocumentWriter documentWriter : documentWriters) {
+                    documentWriter.updateGlobalMetadata(globalMetadataDocument);
+                }
+
+                for (ObjectCursor<MappingMetadata> cursor : metadata.getMappingsByHash().values()) {
+                    addMappingMetadata(cursor.value, documentBuffer, documentWriters);
                 }
 
                 for (ObjectCursor<IndexMetadata> cursor : metadata.indices().values()) {
                     final IndexMetadata indexMetadata = cursor.value;
                     final Document indexMetadataDocument = makeIndexMetadataDocument(indexMetadata, documentBuffer);
-                    for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                        metadataIndexWriter.updateIndexMetadataDocument(indexMetadataDocument, indexMetadata.getIndex());
+                    for (MetadataDocumentWriter documentWriter : documentWriters) {
+                        documentWriter.updateIndexMetadataDocument(indexMetadataDocument, indexMetadata.getIndex());
                     }
                 }
 
@@ -657,14 +945,22 @@ public class PersistedClusterStateService {
 
                 // Flush, to try and expose a failure (e.g. out of disk space) before committing, because we can handle a failure here more
                 // gracefully than one that occurs during the commit process.
-                for (MetadataIndexWriter metadataIndexWriter : metadataIndexWriters) {
-                    metadataIndexWriter.flush();
+                for (MetadataDocumentWriter documentWriter : documentWriters) {
+                    documentWriter.flush();
                 }
 
                 return new WriterStats(true, metadata.indices().size(), 0);
             }
         }
 
+        private void addMappingMetadata(MappingMetadata mappingMetadata, DocumentBuffer documentBuffer,
+                                        List<? extends MetadataDocumentWriter> documentWriters) throws IOException {
+            final Document mappingMetadataDocument = makeMappingMetadataDocument(mappingMetadata, documentBuffer);
+            for (MetadataDocumentWriter documentWriter : documentWriters) {
+                documentWriter.updateMappingMetadata(mappingMetadataDocument, mappingMetadata.getSha256());
+            }
+        }
+
         private DocumentBuffer allocateBuffer() {
             // heuristics for picking the initial buffer size based on the buffer we needed last time: try and fit within a single page,
             // but if we needed more than a single page last time then allow a bit more space to try and avoid needing to grow the buffer
@@ -676,7 +972,140 @@ public class PersistedClusterStateService {
         public void writeIncrementalTermUpdateAndCommit(long currentTerm, long lastAcceptedVersion) throws IOException {
             ensureOpen();
             ensureFullStateWritten();
+            if (writeAheadLog != null) {
+                appendToWriteAheadLog(currentTerm, lastAcceptedVersion, null, entries -> null);
+            } else {
+                commit(currentTerm, lastAcceptedVersion);
+            }
+        }
+
+        /**
+         * Starts using the write-ahead log for the states written after the given metadata, which was just committed, if enabled. Deletes
+         * any existing log otherwise, since its entries are all covered by this commit and must not be replayed on top of later commits.
+         */
+        private void startWriteAheadLog(Metadata metadata) throws IOException {
+            if (writeAheadLogEnabled == false) {
+                ClusterStateWriteAheadLog.deleteAll(indexPath);
+                return;
+            }
+            committedMetadata = metadata;
+            metadataToCommit = metadata;
+            commitExecutor = EsExecutors.newFixed(COMMIT_THREAD_NAME, 1, 1, EsExecutors.daemonThreadFactory(COMMIT_THREAD_NAME),
+                new ThreadContext(Settings.EMPTY), false);
+            synchronized (mutex) {
+                writeAheadLog = ClusterStateWriteAheadLog.createNew(indexPath);
+            }
+        }
+
+        /**
+         * Appends the document updates for the given state to the write-ahead log and syncs it, which makes the state durable, and then
+         * schedules a background commit of the latest state to the index unless one is already pending.
+         *
+         * @param metadata the metadata of the state, or {@code null} if only the current term changed.
+         */
+        private WriterStats appendToWriteAheadLog(long currentTerm, long lastAcceptedVersion, @Nullable Metadata metadata,
+                                                  CheckedFunction<List<WriteAheadLogEntry>, WriterStats, IOException> writeEntry)
+            throws IOException {
+            try (WriteAheadLogEntry entry = new WriteAheadLogEntry(bigArrays, currentTerm, lastAcceptedVersion)) {
+                final WriterStats stats = writeEntry.apply(List.of(entry));
+                final BytesReference bytes = entry.finish();
+                boolean appended = false;
+                try {
+                    synchronized (mutex) {
+                        ensureOpen();
+                        writeAheadLog.append(bytes);
+                        appended = true;
+                        writeAheadLog.sync();
+                        termToCommit = currentTerm;
+                        versionToCommit = lastAcceptedVersion;
+                        if (metadata != null) {
+                            metadataToCommit = metadata;
+                        }
+                        if (commitScheduled == false) {
+                            commitScheduled = true;
+                            commitExecutor.execute(new AbstractRunnable() {
+                                @Override
+                                protected void doRun() throws IOException {
+                                    commitInBackground();
+                                }
+
+                                @Override
+                                public void onFailure(Exception e) {
+                                    if (closed.get()) {
+                                        logger.debug("cluster state writer closed while committing in the background", e);
+                                        return;
+                                    }
+                                    logger.warn("failed to commit cluster state in the background, closing cluster state writer", e);
+                                    try {
+                                        close();
+                                    } catch (Exception e2) {
+                                        logger.warn("failed on closing cluster state writer", e2);
+                                    }
+                                }
+
+                                @Override
+                                public void onRejection(Exception e) {
+                                    // the executor is only shut down on close, the entry is in the log for the next writer to commit
+                                    logger.debug("cluster state writer closed before committing in the background", e);
+                                }
+                            });
+                        }
+                    }
+                } catch (IOException e) {
+                    // the log must not be appended to after a failure since it would then contain a partially-written entry that is not
+                    // its last one, so close this writer and leave it to the next one to commit the full state and start a new log
+                    try {
+                        close();
+                    } catch (Exception e2) {
+                        logger.warn("failed on closing cluster state writer", e2);
+                        e.addSuppressed(e2);
+                    }
+                    if (appended) {
+                        // Like a failed commit, a failed fsync leaves us not knowing whether the entry is on disk or not. It's safest to
+                        // fail the whole node and retry from the beginning.
+                        throw new IOError(e);
+                    }
+                    throw e;
+                }
+                return stats;
+            }
+        }
+
+        private void commitInBackground() throws IOException {
+            commitThread = Thread.currentThread();
+            final long currentTerm;
+            final long lastAcceptedVersion;
+            final Metadata metadata;
+            final long generation;
+            synchronized (mutex) {
+                if (closed.get()) {
+                    return;
+                }
+                commitScheduled = false;
+                currentTerm = termToCommit;
+                lastAcceptedVersion = versionToCommit;
+                metadata = metadataToCommit;
+                // entries appended from now on may not be covered by this commit, so they go into a new generation
+                writeAheadLog.rollGeneration();
+                generation = writeAheadLog.getGeneration();
+            }
+
+            final long startTimeMillis = relativeTimeMillisSupplier.getAsLong();
+            if (committedMetadata.coordinationMetadata().term() == metadata.coordinationMetadata().term()) {
+                updateMetadata(committedMetadata, metadata, metadataIndexWriters);
+            } else {
+                overwriteMetadata(metadata, metadataIndexWriters);
+            }
             commit(currentTerm, lastAcceptedVersion);
+            committedMetadata = metadata;
+
+            synchronized (mutex) {
+                if (closed.get() == false) {
+                    writeAheadLog.deleteGenerationsBefore(generation);
+                }
+            }
+            logger.debug("committing cluster state version [{}] in term [{}] in the background took [{}ms]",
+                lastAcceptedVersion, currentTerm, relativeTimeMillisSupplier.getAsLong() - startTimeMillis);
         }
 
         void commit(long currentTerm, long lastAcceptedVersion) throws IOException {
@@ -719,7 +1148,17 @@ public class PersistedClusterStateService {
         public void close() throws IOException {
             logger.trace("closing PersistedClusterStateService.Writer");
             if (closed.compareAndSet(false, true)) {
-                IOUtils.close(metadataIndexWriters);
+                if (commitExecutor != null) {
+                    commitExecutor.shutdown();
+                    if (Thread.currentThread() != commitThread) {
+                        // let an ongoing background commit finish with the index writers before closing them
+                        ThreadPool.terminate(commitExecutor, 10, TimeUnit.SECONDS);
+                    }
+                }
+                synchronized (mutex) {
+                    // under the mutex, since an append that started before this writer was closed may still be in progress
+                    IOUtils.close(writeAheadLog, () -> IOUtils.close(metadataIndexWriters));
+                }
             }
         }
 
@@ -743,6 +1182,13 @@ public class PersistedClusterStateService {
             return indexMetadataDocument;
         }
 
+        private Document makeMappingMetadataDocument(MappingMetadata mappingMetadata, DocumentBuffer documentBuffer) throws IOException {
+            final Document mappingMetadataDocument = makeDocument(MAPPING_TYPE_NAME,
+                (builder, params) -> builder.field(MAPPING_CONTENT_FIELD_NAME, mappingMetadata.source().compressed()), documentBuffer);
+            mappingMetadataDocument.add(new StringField(MAPPING_HASH_FIELD_NAME, mappingMetadata.getSha256(), Field.Store.NO));
+            return mappingMetadataDocument;
+        }
+
         private Document makeGlobalMetadataDocument(Metadata metadata, DocumentBuffer documentBuffer) throws IOException {
             return makeDocument(GLOBAL_TYPE_NAME, metadata, documentBuffer);
         }
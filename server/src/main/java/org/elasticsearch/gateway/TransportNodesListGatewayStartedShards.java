@@ -8,6 +8,7 @@
 
 package org.elasticsearch.gateway;
 
+import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
@@ -95,58 +96,69 @@ public class TransportNodesListGatewayStartedShards extends
     @Override
     protected NodeGatewayStartedShards nodeOperation(NodeRequest request, Task task) {
         try {
-            final ShardId shardId = request.getShardId();
-            logger.trace("{} loading local shard state info", shardId);
-            ShardStateMetadata shardStateMetadata = ShardStateMetadata.FORMAT.loadLatestState(logger, namedXContentRegistry,
-                nodeEnv.availableShardPath(request.shardId));
-            if (shardStateMetadata != null) {
-                if (indicesService.getShardOrNull(shardId) == null) {
-                    final String customDataPath;
-                    if (request.getCustomDataPath() != null) {
-                        customDataPath = request.getCustomDataPath();
+            return getShardInfoOnLocalNode(logger, request.getShardId(), request.getCustomDataPath(), namedXContentRegistry, nodeEnv,
+                indicesService, clusterService, settings);
+        } catch (Exception e) {
+            throw new ElasticsearchException("failed to load started shards", e);
+        }
+    }
+
+    /**
+     * Loads the shard state metadata of the given shard from this node's disk and, if the shard is not open on this node, validates that
+     * its index files are openable. Shared by the single-shard and the batched variants of this action.
+     */
+    static NodeGatewayStartedShards getShardInfoOnLocalNode(Logger logger, ShardId shardId, @Nullable String requestCustomDataPath,
+                                                            NamedXContentRegistry namedXContentRegistry, NodeEnvironment nodeEnv,
+                                                            IndicesService indicesService, ClusterService clusterService,
+                                                            Settings settings) throws IOException {
+        logger.trace("{} loading local shard state info", shardId);
+        ShardStateMetadata shardStateMetadata = ShardStateMetadata.FORMAT.loadLatestState(logger, namedXContentRegistry,
+            nodeEnv.availableShardPath(shardId));
+        if (shardStateMetadata != null) {
+            if (indicesService.getShardOrNull(shardId) == null) {
+                final String customDataPath;
+                if (requestCustomDataPath != null) {
+                    customDataPath = requestCustomDataPath;
+                } else {
+                    // TODO: Fallback for BWC with older ES versions. Remove once request.getCustomDataPath() always returns non-null
+                    final IndexMetadata metadata = clusterService.state().metadata().index(shardId.getIndex());
+                    if (metadata != null) {
+                        customDataPath = new IndexSettings(metadata, settings).customDataPath();
                     } else {
-                        // TODO: Fallback for BWC with older ES versions. Remove once request.getCustomDataPath() always returns non-null
-                        final IndexMetadata metadata = clusterService.state().metadata().index(shardId.getIndex());
-                        if (metadata != null) {
-                            customDataPath = new IndexSettings(metadata, settings).customDataPath();
-                        } else {
-                            logger.trace("{} node doesn't have meta data for the requests index", shardId);
-                            throw new ElasticsearchException("node doesn't have meta data for index " + shardId.getIndex());
-                        }
+                        logger.trace("{} node doesn't have meta data for the requests index", shardId);
+                        throw new ElasticsearchException("node doesn't have meta data for index " + shardId.getIndex());
                     }
-                    // we don't have an open shard on the store, validate the files on disk are openable
-                    ShardPath shardPath = null;
-                    try {
-                        shardPath = ShardPath.loadShardPath(logger, nodeEnv, shardId, customDataPath);
-                        if (shardPath == null) {
-                            throw new IllegalStateException(shardId + " no shard path found");
-                        }
-                        Store.tryOpenIndex(shardPath.resolveIndex(), shardId, nodeEnv::shardLock, logger);
-                    } catch (Exception exception) {
-                        final ShardPath finalShardPath = shardPath;
-                        logger.trace(() -> new ParameterizedMessage(
-                                "{} can't open index for shard [{}] in path [{}]",
-                                shardId,
-                                shardStateMetadata,
-                                (finalShardPath != null) ? finalShardPath.resolveIndex() : ""),
-                            exception);
-                        String allocationId = shardStateMetadata.allocationId != null ?
-                            shardStateMetadata.allocationId.getId() : null;
-                        return new NodeGatewayStartedShards(clusterService.localNode(), allocationId, shardStateMetadata.primary,
-                            exception);
+                }
+                // we don't have an open shard on the store, validate the files on disk are openable
+                ShardPath shardPath = null;
+                try {
+                    shardPath = ShardPath.loadShardPath(logger, nodeEnv, shardId, customDataPath);
+                    if (shardPath == null) {
+                        throw new IllegalStateException(shardId + " no shard path found");
                     }
+                    Store.tryOpenIndex(shardPath.resolveIndex(), shardId, nodeEnv::shardLock, logger);
+                } catch (Exception exception) {
+                    final ShardPath finalShardPath = shardPath;
+                    logger.trace(() -> new ParameterizedMessage(
+                            "{} can't open index for shard [{}] in path [{}]",
+                            shardId,
+                            shardStateMetadata,
+                            (finalShardPath != null) ? finalShardPath.resolveIndex() : ""),
+                        exception);
+                    String allocationId = shardStateMetadata.allocationId != null ?
+                        shardStateMetadata.allocationId.getId() : null;
+                    return new NodeGatewayStartedShards(clusterService.localNode(), allocationId, shardStateMetadata.primary,
+                        exception);
                 }
-
-                logger.debug("{} shard state info found: [{}]", shardId, shardStateMetadata);
-                String allocationId = shardStateMetadata.allocationId != null ?
-                    shardStateMetadata.allocationId.getId() : null;
-                return new NodeGatewayStartedShards(clusterService.localNode(), allocationId, shardStateMetadata.primary);
             }
-            logger.trace("{} no local shard info found", shardId);
-            return new NodeGatewayStartedShards(clusterService.localNode(), null, false);
-        } catch (Exception e) {
-            throw new ElasticsearchException("failed to load started shards", e);
+
+            logger.debug("{} shard state info found: [{}]", shardId, shardStateMetadata);
+            String allocationId = shardStateMetadata.allocationId != null ?
+                shardStateMetadata.allocationId.getId() : null;
+            return new NodeGatewayStartedShards(clusterService.localNode(), allocationId, shardStateMetadata.primary);
         }
+        logger.trace("{} no local shard info found", shardId);
+        return new NodeGatewayStartedShards(clusterService.localNode(), null, false);
     }
 
     public static class Request extends BaseNodesRequest<Request> {
@@ -0,0 +1,228 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodeGatewayStartedShards;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Batched variant of {@link TransportNodesListGatewayStartedShards} which lists the shard versions of many shards with a single request
+ * to each node. After a full cluster restart the {@link GatewayAllocator} needs this information for every primary, and asking each
+ * node about many of them at once avoids sending (and holding the results of) a separate request per shard and node. The allocator caps
+ * the number of shards per request, see {@link GatewayAllocator#MAX_SHARDS_PER_FETCH_BATCH_SETTING}, so that a node works through a
+ * large round on several threads of its fetch thread pool.
+ */
+public class TransportNodesListGatewayStartedShardsBatch extends
+    TransportNodesAction<TransportNodesListGatewayStartedShardsBatch.Request,
+        TransportNodesListGatewayStartedShardsBatch.NodesGatewayStartedShardsBatch,
+        TransportNodesListGatewayStartedShardsBatch.NodeRequest,
+        TransportNodesListGatewayStartedShardsBatch.NodeGatewayStartedShardsBatch> {
+
+    public static final String ACTION_NAME = "internal:gateway/local/started_shards_batch";
+    public static final ActionType<NodesGatewayStartedShardsBatch> TYPE =
+        new ActionType<>(ACTION_NAME, NodesGatewayStartedShardsBatch::new);
+
+    private final Settings settings;
+    private final NodeEnvironment nodeEnv;
+    private final IndicesService indicesService;
+    private final NamedXContentRegistry namedXContentRegistry;
+
+    @Inject
+    public TransportNodesListGatewayStartedShardsBatch(Settings settings, ThreadPool threadPool, ClusterService clusterService,
+                                                       TransportService transportService, ActionFilters actionFilters,
+                                                       NodeEnvironment env, IndicesService indicesService,
+                                                       NamedXContentRegistry namedXContentRegistry) {
+        super(ACTION_NAME, threadPool, clusterService, transportService, actionFilters,
+            Request::new, NodeRequest::new, ThreadPool.Names.FETCH_SHARD_STARTED, NodeGatewayStartedShardsBatch.class);
+        this.settings = settings;
+        this.nodeEnv = env;
+        this.indicesService = indicesService;
+        this.namedXContentRegistry = namedXContentRegistry;
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(Request request) {
+        return new NodeRequest(request);
+    }
+
+    @Override
+    protected NodeGatewayStartedShardsBatch newNodeResponse(StreamInput in) throws IOException {
+        return new NodeGatewayStartedShardsBatch(in);
+    }
+
+    @Override
+    protected NodesGatewayStartedShardsBatch newResponse(Request request, List<NodeGatewayStartedShardsBatch> responses,
+                                                         List<FailedNodeException> failures) {
+        return new NodesGatewayStartedShardsBatch(clusterService.getClusterName(), responses, failures);
+    }
+
+    @Override
+    protected NodeGatewayStartedShardsBatch nodeOperation(NodeRequest request, Task task) {
+        final Map<ShardId, NodeGatewayStartedShards> startedShards = new HashMap<>();
+        final Map<ShardId, Exception> failures = new HashMap<>();
+        for (Map.Entry<ShardId, String> shard : request.getShards().entrySet()) {
+            try {
+                startedShards.put(shard.getKey(), TransportNodesListGatewayStartedShards.getShardInfoOnLocalNode(logger, shard.getKey(),
+                    shard.getValue(), namedXContentRegistry, nodeEnv, indicesService, clusterService, settings));
+            } catch (Exception e) {
+                // fail only this shard rather than the whole batch, like a failure of the single-shard action only affects its shard
+                failures.put(shard.getKey(), new ElasticsearchException("failed to load started shards", e));
+            }
+        }
+        return new NodeGatewayStartedShardsBatch(clusterService.localNode(), startedShards, failures);
+    }
+
+    public static class Request extends BaseNodesRequest<Request> {
+
+        private final Map<ShardId, String> shards;
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            shards = in.readMap(ShardId::new, StreamInput::readString);
+        }
+
+        /**
+         * @param shards the shards to list, mapped to their custom data paths (an empty string if no custom data path is used)
+         */
+        public Request(Map<ShardId, String> shards, DiscoveryNode[] nodes) {
+            super(nodes);
+            this.shards = Objects.requireNonNull(shards);
+        }
+
+        public Map<ShardId, String> getShards() {
+            return shards;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeMap(shards, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeString);
+        }
+    }
+
+    public static class NodesGatewayStartedShardsBatch extends BaseNodesResponse<NodeGatewayStartedShardsBatch> {
+
+        public NodesGatewayStartedShardsBatch(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        public NodesGatewayStartedShardsBatch(ClusterName clusterName, List<NodeGatewayStartedShardsBatch> nodes,
+                                              List<FailedNodeException> failures) {
+            super(clusterName, nodes, failures);
+        }
+
+        @Override
+        protected List<NodeGatewayStartedShardsBatch> readNodesFrom(StreamInput in) throws IOException {
+            return in.readList(NodeGatewayStartedShardsBatch::new);
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<NodeGatewayStartedShardsBatch> nodes) throws IOException {
+            out.writeList(nodes);
+        }
+    }
+
+    public static class NodeRequest extends TransportRequest {
+
+        private final Map<ShardId, String> shards;
+
+        public NodeRequest(StreamInput in) throws IOException {
+            super(in);
+            shards = in.readMap(ShardId::new, StreamInput::readString);
+        }
+
+        public NodeRequest(Request request) {
+            this.shards = Objects.requireNonNull(request.getShards());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeMap(shards, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeString);
+        }
+
+        public Map<ShardId, String> getShards() {
+            return shards;
+        }
+    }
+
+    public static class NodeGatewayStartedShardsBatch extends BaseNodeResponse {
+
+        private final Map<ShardId, NodeGatewayStartedShards> startedShards;
+        private final Map<ShardId, Exception> failures;
+
+        public NodeGatewayStartedShardsBatch(StreamInput in) throws IOException {
+            super(in);
+            // the per-shard responses are written without repeating this node
+            startedShards = in.readMap(ShardId::new, i -> new NodeGatewayStartedShards(getNode(), i.readOptionalString(),
+                i.readBoolean(), i.readException()));
+            failures = in.readMap(ShardId::new, StreamInput::readException);
+        }
+
+        public NodeGatewayStartedShardsBatch(DiscoveryNode node, Map<ShardId, NodeGatewayStartedShards> startedShards,
+                                             Map<ShardId, Exception> failures) {
+            super(node);
+            this.startedShards = startedShards;
+            this.failures = failures;
+        }
+
+        /**
+         * @return the shard versions that were found on this node, per requested shard that could be listed
+         */
+        public Map<ShardId, NodeGatewayStartedShards> getStartedShards() {
+            return startedShards;
+        }
+
+        /**
+         * @return the failures to list the shard versions of the requested shards that could not be listed
+         */
+        public Map<ShardId, Exception> getFailures() {
+            return failures;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeMap(startedShards, (o, shardId) -> shardId.writeTo(o), (o, startedShard) -> {
+                o.writeOptionalString(startedShard.allocationId());
+                o.writeBoolean(startedShard.primary());
+                o.writeException(startedShard.storeException());
+            });
+            out.writeMap(failures, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeException);
+        }
+    }
+}
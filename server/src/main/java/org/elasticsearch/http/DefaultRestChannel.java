@@ -20,6 +20,7 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.rest.AbstractRestChannel;
+import org.elasticsearch.rest.ChunkedRestResponse;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -86,23 +87,30 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         String opaque = null;
         String contentLength = null;
         try {
-            final BytesReference content = restResponse.content();
-            if (content instanceof Releasable) {
-                toClose.add((Releasable) content);
-            }
-            toClose.add(this::releaseOutputBuffer);
-
-            BytesReference finalContent = content;
-            try {
-                if (request.method() == RestRequest.Method.HEAD) {
-                    finalContent = BytesArray.EMPTY;
+            final boolean chunked = restResponse instanceof ChunkedRestResponse && canSendChunks();
+            final HttpResponse httpResponse;
+            if (chunked) {
+                toClose.add(this::releaseOutputBuffer);
+                httpResponse = httpRequest.createResponse(restResponse.status(), (ChunkedRestResponse) restResponse);
+            } else {
+                final BytesReference content = restResponse.content();
+                if (content instanceof Releasable) {
+                    toClose.add((Releasable) content);
+                }
+                toClose.add(this::releaseOutputBuffer);
+
+                BytesReference finalContent = content;
+                try {
+                    if (request.method() == RestRequest.Method.HEAD) {
+                        finalContent = BytesArray.EMPTY;
+                    }
+                } catch (IllegalArgumentException ignored) {
+                    assert restResponse.status() == RestStatus.METHOD_NOT_ALLOWED :
+                        "request HTTP method is unsupported but HTTP status is not METHOD_NOT_ALLOWED(405)";
                 }
-            } catch (IllegalArgumentException ignored) {
-                assert restResponse.status() == RestStatus.METHOD_NOT_ALLOWED :
-                    "request HTTP method is unsupported but HTTP status is not METHOD_NOT_ALLOWED(405)";
-            }
 
-            final HttpResponse httpResponse = httpRequest.createResponse(restResponse.status(), finalContent);
+                httpResponse = httpRequest.createResponse(restResponse.status(), finalContent);
+            }
 
             corsHandler.setCorsResponseHeaders(httpRequest, httpResponse);
 
@@ -117,13 +125,24 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
 
             // If our response doesn't specify a content-type header, set one
             setHeaderField(httpResponse, CONTENT_TYPE, restResponse.contentType(), false);
-            // If our response has no content-length, calculate and set one
-            contentLength = String.valueOf(restResponse.content().length());
-            setHeaderField(httpResponse, CONTENT_LENGTH, contentLength, false);
+            if (chunked == false) {
+                // If our response has no content-length, calculate and set one
+                contentLength = String.valueOf(restResponse.content().length());
+                setHeaderField(httpResponse, CONTENT_LENGTH, contentLength, false);
+            }
 
             addCookies(httpResponse);
 
-            ActionListener<Void> listener = ActionListener.wrap(() -> Releasables.close(toClose));
+            final ActionListener<Void> listener;
+            if (chunked) {
+                // the status and headers were sent already if a chunk cannot be sent, so the connection has to be closed
+                listener = ActionListener.wrap(r -> Releasables.close(toClose), e -> {
+                    CloseableChannel.closeChannel(httpChannel);
+                    Releasables.close(toClose);
+                });
+            } else {
+                listener = ActionListener.wrap(() -> Releasables.close(toClose));
+            }
             httpChannel.sendResponse(httpResponse, listener);
             success = true;
         } finally {
@@ -136,6 +155,16 @@ public class DefaultRestChannel extends AbstractRestChannel implements RestChann
         }
     }
 
+    /**
+     * Returns whether the body of a response can be sent in chunks, which HTTP/1.0 does not support and which makes no sense if the
+     * response has no body.
+     */
+    private boolean canSendChunks() {
+        return httpRequest.supportsChunkedResponses()
+            && httpRequest.protocolVersion() == HttpRequest.HttpVersion.HTTP_1_1
+            && request.method() != RestRequest.Method.HEAD;
+    }
+
     private void setHeaderField(HttpResponse response, String headerField, String value) {
         setHeaderField(response, headerField, value, true);
     }
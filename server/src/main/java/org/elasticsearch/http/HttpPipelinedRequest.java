@@ -9,6 +9,7 @@
 package org.elasticsearch.http;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.rest.ChunkedRestResponse;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -65,6 +66,16 @@ public class HttpPipelinedRequest implements HttpRequest, HttpPipelinedMessage {
         return new HttpPipelinedResponse(sequence, delegate.createResponse(status, content));
     }
 
+    @Override
+    public boolean supportsChunkedResponses() {
+        return delegate.supportsChunkedResponses();
+    }
+
+    @Override
+    public HttpPipelinedResponse createResponse(RestStatus status, ChunkedRestResponse response) {
+        return new HttpPipelinedResponse(sequence, delegate.createResponse(status, response));
+    }
+
     @Override
     public void release() {
         delegate.release();
@@ -10,6 +10,7 @@ package org.elasticsearch.http;
 
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.rest.ChunkedRestResponse;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestStatus;
 
@@ -75,6 +76,22 @@ public interface HttpRequest {
      */
     HttpResponse createResponse(RestStatus status, BytesReference content);
 
+    /**
+     * Returns whether responses to this request can be sent in chunks, see {@link #createResponse(RestStatus, ChunkedRestResponse)}.
+     */
+    default boolean supportsChunkedResponses() {
+        return false;
+    }
+
+    /**
+     * Create an http response from this request and the supplied status and content that is sent in chunks. Only called if
+     * {@link #supportsChunkedResponses()} returns {@code true}, implementations that do not support chunked responses create a response
+     * with the whole content.
+     */
+    default HttpResponse createResponse(RestStatus status, ChunkedRestResponse response) {
+        return createResponse(status, response.content());
+    }
+
     @Nullable
     Exception getInboundException();
 
@@ -64,6 +64,14 @@ public final class IndexSettings {
     public static final Setting<Translog.Durability> INDEX_TRANSLOG_DURABILITY_SETTING =
         Setting.enumSetting(Translog.Durability.class, "index.translog.durability", Translog.Durability.REQUEST,
             Property.Dynamic, Property.IndexScope);
+    /**
+     * Whether operations are written to the translog. Indices that disable the translog are meant for append-only data whose
+     * durability is provided by an external write-ahead log: operations are only durable once they are part of a Lucene commit, and
+     * after a crash a shard holds exactly the operations of its last commit, so the producer must replay from its own offsets.
+     * Peer recoveries of such indices are always file-based since the history of the copies may diverge above the last commit.
+     */
+    public static final Setting<Boolean> INDEX_TRANSLOG_ENABLED_SETTING =
+        Setting.boolSetting("index.translog.enabled", true, Property.IndexScope, Property.Final);
     public static final Setting<Boolean> INDEX_WARMER_ENABLED_SETTING =
         Setting.boolSetting("index.warmer.enabled", true, Property.Dynamic, Property.IndexScope);
     public static final Setting<String> INDEX_CHECK_ON_STARTUP =
@@ -105,6 +113,22 @@ public final class IndexSettings {
     public static final Setting<Integer> MAX_SCRIPT_FIELDS_SETTING =
         Setting.intSetting("index.max_script_fields", 32, 0, Property.Dynamic, Property.IndexScope);
 
+    /**
+     * Index setting describing the minimum number of hits a shard needs to fetch before the hits of different segments are fetched
+     * concurrently on the search thread pool. Defaults to {@code 0} which fetches all hits on a single thread.
+     */
+    public static final Setting<Integer> FETCH_CONCURRENT_MIN_HITS_SETTING =
+        Setting.intSetting("index.search.fetch.concurrent_min_hits", 0, 0, Property.Dynamic, Property.IndexScope);
+
+    /**
+     * The date fields whose per-shard range of values is reported to coordinating nodes in can_match responses while the index is
+     * write-blocked. Coordinating nodes cache these ranges and skip shards that cannot match a range query on these fields without a
+     * can_match round trip.
+     */
+    public static final Setting<List<String>> COORDINATOR_RANGE_FIELDS_SETTING =
+        Setting.listSetting("index.search.coordinator_range_fields", Collections.emptyList(), Function.identity(),
+            Property.Dynamic, Property.IndexScope);
+
     /**
      * A setting describing the maximum number of tokens that can be
      * produced using _analyze API. The default maximum of 10000 is defensive
@@ -331,6 +355,7 @@ public final class IndexSettings {
     private final boolean queryStringAllowLeadingWildcard;
     private final boolean defaultAllowUnmappedFields;
     private volatile Translog.Durability durability;
+    private final boolean translogEnabled;
     private volatile TimeValue syncInterval;
     private volatile TimeValue refreshInterval;
     private volatile ByteSizeValue flushThresholdSize;
@@ -365,6 +390,7 @@ public final class IndexSettings {
     private volatile int maxRescoreWindow;
     private volatile int maxDocvalueFields;
     private volatile int maxScriptFields;
+    private volatile int fetchConcurrentMinHits;
     private volatile int maxTokenCount;
     private volatile int maxNgramDiff;
     private volatile int maxShingleDiff;
@@ -478,6 +504,11 @@ public final class IndexSettings {
         gcDeletesInMillis = scopedSettings.get(INDEX_GC_DELETES_SETTING).getMillis();
         softDeleteEnabled = scopedSettings.get(INDEX_SOFT_DELETES_SETTING);
         assert softDeleteEnabled || version.before(Version.V_8_0_0) : "soft deletes must be enabled in version " + version;
+        translogEnabled = scopedSettings.get(INDEX_TRANSLOG_ENABLED_SETTING);
+        if (translogEnabled == false && softDeleteEnabled == false) {
+            throw new IllegalArgumentException("[" + INDEX_TRANSLOG_ENABLED_SETTING.getKey() + "] can only be disabled on indices with ["
+                + INDEX_SOFT_DELETES_SETTING.getKey() + "] enabled");
+        }
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
@@ -486,6 +517,7 @@ public final class IndexSettings {
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
         maxDocvalueFields = scopedSettings.get(MAX_DOCVALUE_FIELDS_SEARCH_SETTING);
         maxScriptFields = scopedSettings.get(MAX_SCRIPT_FIELDS_SETTING);
+        fetchConcurrentMinHits = scopedSettings.get(FETCH_CONCURRENT_MIN_HITS_SETTING);
         maxTokenCount = scopedSettings.get(MAX_TOKEN_COUNT_SETTING);
         maxNgramDiff = scopedSettings.get(MAX_NGRAM_DIFF_SETTING);
         maxShingleDiff = scopedSettings.get(MAX_SHINGLE_DIFF_SETTING);
@@ -530,6 +562,7 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_RESCORE_WINDOW_SETTING, this::setMaxRescoreWindow);
         scopedSettings.addSettingsUpdateConsumer(MAX_DOCVALUE_FIELDS_SEARCH_SETTING, this::setMaxDocvalueFields);
         scopedSettings.addSettingsUpdateConsumer(MAX_SCRIPT_FIELDS_SETTING, this::setMaxScriptFields);
+        scopedSettings.addSettingsUpdateConsumer(FETCH_CONCURRENT_MIN_HITS_SETTING, this::setFetchConcurrentMinHits);
         scopedSettings.addSettingsUpdateConsumer(MAX_TOKEN_COUNT_SETTING, this::setMaxTokenCount);
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
         scopedSettings.addSettingsUpdateConsumer(MAX_SHINGLE_DIFF_SETTING, this::setMaxShingleDiff);
@@ -711,6 +744,13 @@ public final class IndexSettings {
         this.durability = durability;
     }
 
+    /**
+     * Returns <code>true</code> if operations are written to the translog, see {@link #INDEX_TRANSLOG_ENABLED_SETTING}.
+     */
+    public boolean isTranslogEnabled() {
+        return translogEnabled;
+    }
+
     /**
      * Returns true if index warmers are enabled, otherwise <code>false</code>
      */
@@ -864,6 +904,18 @@ public final class IndexSettings {
         this.maxScriptFields = maxScriptFields;
     }
 
+    /**
+     * Returns the minimum number of hits a shard needs to fetch before hits are fetched concurrently, or {@code 0} if hits are
+     * always fetched on a single thread.
+     */
+    public int getFetchConcurrentMinHits() {
+        return this.fetchConcurrentMinHits;
+    }
+
+    private void setFetchConcurrentMinHits(int fetchConcurrentMinHits) {
+        this.fetchConcurrentMinHits = fetchConcurrentMinHits;
+    }
+
     /**
      * Returns the GC deletes cycle in milliseconds.
      */
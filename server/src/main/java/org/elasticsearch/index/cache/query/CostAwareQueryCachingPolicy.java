@@ -0,0 +1,146 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@link UsageTrackingQueryCachingPolicy} that also takes into account what caching a query cost in the past. Whenever the query
+ * cache builds a doc id set for a query, the time spent building it and the memory the set uses are recorded. The ratio of the two
+ * is the time saved by every future hit per byte of cache held, which also captures the density of the set: sparse sets are small,
+ * dense sets are stored as bitsets that cost one bit per document of the segment. Queries with a high ratio are admitted after two
+ * uses, while queries that are cheap to re-evaluate compared to the memory they would hold need twice the usual number of uses.
+ * <p>
+ * Until a query is cached for the first time, its cost is estimated from its first evaluation that missed the cache, using the time
+ * it took to create its scorer and the size of the set that caching its matches would take. Queries that do their work lazily, while
+ * their matches are iterated, look cheaper than they are to this estimate, so it may only make a query count as expensive and is
+ * replaced by the actual cost once the query is cached. Queries without any cost are admitted like with the
+ * {@link UsageTrackingQueryCachingPolicy}.
+ */
+public final class CostAwareQueryCachingPolicy extends UsageTrackingQueryCachingPolicy {
+
+    /** Build time per byte of cached doc id set above which a query is admitted after two uses */
+    static final double EXPENSIVE_NANOS_PER_BYTE = 100;
+    /** Build time per byte of cached doc id set below which a query needs twice the usual number of uses */
+    static final double CHEAP_NANOS_PER_BYTE = 5;
+
+    /** Same as the number of recently used queries tracked by {@link UsageTrackingQueryCachingPolicy} */
+    private static final int MAX_TRACKED_QUERIES = 256;
+
+    private final Map<Query, BuildCost> buildCosts = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Query, BuildCost> eldest) {
+            return size() > MAX_TRACKED_QUERIES;
+        }
+    };
+
+    /**
+     * Records that the query cache built a doc id set for the given query.
+     *
+     * @param query             the cached query
+     * @param buildTimeInNanos  the time it took to evaluate the query and build the set
+     * @param ramBytesUsed      the memory used by the cached set
+     */
+    public synchronized void onCache(Query query, long buildTimeInNanos, long ramBytesUsed) {
+        BuildCost buildCost = buildCosts.get(query);
+        if (buildCost == null || buildCost.estimated) {
+            buildCost = new BuildCost(false);
+            buildCosts.put(query, buildCost);
+        }
+        buildCost.add(buildTimeInNanos, ramBytesUsed);
+    }
+
+    /**
+     * Returns whether the cost of the given query is unknown, in which case its next evaluation that misses the cache should be reported
+     * to {@link #onUncachedEvaluation}.
+     */
+    public synchronized boolean needsCostEstimate(Query query) {
+        return buildCosts.containsKey(query) == false;
+    }
+
+    /**
+     * Records that the given query was evaluated on a segment without being cached, which seeds its cost unless it is known already.
+     *
+     * @param query             the evaluated query
+     * @param evaluationNanos   the time it took to create the scorer of the query
+     * @param matches           the estimated number of documents that the query matches on the segment
+     * @param maxDoc            the number of documents of the segment
+     */
+    public synchronized void onUncachedEvaluation(Query query, long evaluationNanos, long matches, int maxDoc) {
+        if (buildCosts.containsKey(query) == false) {
+            final BuildCost buildCost = new BuildCost(true);
+            buildCost.add(evaluationNanos, estimateRamBytesUsed(matches, maxDoc));
+            buildCosts.put(query, buildCost);
+        }
+    }
+
+    /**
+     * Estimates the memory of the doc id set that the query cache would build for a query with the given number of matches, which is
+     * a bitset if the query matches at least 1% of the documents of the segment, and a roaring doc id set with two bytes per match
+     * otherwise.
+     */
+    static long estimateRamBytesUsed(long matches, int maxDoc) {
+        if (matches * 100 >= maxDoc) {
+            return Math.max(1L, ((maxDoc + 63L) / 64) * Long.BYTES);
+        }
+        return Math.max(1L, 2 * matches);
+    }
+
+    /**
+     * Returns the average build time per byte of cached doc id set for the given query, or {@code -1} if its cost is unknown.
+     */
+    synchronized double buildNanosPerByte(Query query) {
+        final BuildCost buildCost = buildCosts.get(query);
+        return buildCost == null ? -1 : buildCost.nanosPerByte();
+    }
+
+    private synchronized BuildCost buildCost(Query query) {
+        return buildCosts.get(query);
+    }
+
+    @Override
+    protected int minFrequencyToCache(Query query) {
+        final int minFrequency = super.minFrequencyToCache(query);
+        final BuildCost buildCost = buildCost(query);
+        if (buildCost == null) {
+            return minFrequency;
+        }
+        final double nanosPerByte = buildCost.nanosPerByte();
+        if (nanosPerByte >= EXPENSIVE_NANOS_PER_BYTE) {
+            return Math.min(2, minFrequency);
+        } else if (buildCost.estimated == false && nanosPerByte < CHEAP_NANOS_PER_BYTE) {
+            return 2 * minFrequency;
+        }
+        return minFrequency;
+    }
+
+    private static final class BuildCost {
+        // whether the cost is estimated from an evaluation that did not cache the query
+        private final boolean estimated;
+        private long buildTimeInNanos;
+        private long ramBytesUsed;
+
+        BuildCost(boolean estimated) {
+            this.estimated = estimated;
+        }
+
+        void add(long buildTimeInNanos, long ramBytesUsed) {
+            this.buildTimeInNanos += buildTimeInNanos;
+            this.ramBytesUsed += ramBytesUsed;
+        }
+
+        double nanosPerByte() {
+            return (double) buildTimeInNanos / Math.max(1L, ramBytesUsed);
+        }
+    }
+}
@@ -11,6 +11,7 @@ package org.elasticsearch.index.cache.query;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -20,6 +21,9 @@ import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class QueryCacheStats implements Writeable, ToXContentFragment {
 
@@ -30,6 +34,7 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
     private long missCount;
     private long cacheCount;
     private long cacheSize;
+    private final Map<String, QueryTypeCacheStats> queryTypes = new TreeMap<>();
 
     public QueryCacheStats() {
     }
@@ -40,14 +45,25 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            queryTypes.putAll(in.readMap(StreamInput::readString, QueryTypeCacheStats::new));
+        }
     }
 
     public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize) {
+        this(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, Collections.emptyMap());
+    }
+
+    public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize,
+                           Map<String, QueryTypeCacheStats> queryTypes) {
         this.ramBytesUsed = ramBytesUsed;
         this.hitCount = hitCount;
         this.missCount = missCount;
         this.cacheCount = cacheCount;
         this.cacheSize = cacheSize;
+        for (Map.Entry<String, QueryTypeCacheStats> entry : queryTypes.entrySet()) {
+            this.queryTypes.computeIfAbsent(entry.getKey(), k -> new QueryTypeCacheStats()).add(entry.getValue());
+        }
     }
 
     public void add(QueryCacheStats stats) {
@@ -56,6 +72,9 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        for (Map.Entry<String, QueryTypeCacheStats> entry : stats.queryTypes.entrySet()) {
+            queryTypes.computeIfAbsent(entry.getKey(), k -> new QueryTypeCacheStats()).add(entry.getValue());
+        }
     }
 
     public long getMemorySizeInBytes() {
@@ -108,6 +127,13 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         return cacheCount - cacheSize;
     }
 
+    /**
+     * The statistics of the cached queries broken down by query type, keyed by the simple class name of the queries.
+     */
+    public Map<String, QueryTypeCacheStats> getQueryTypes() {
+        return Collections.unmodifiableMap(queryTypes);
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeLong(ramBytesUsed);
@@ -115,6 +141,9 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeMap(queryTypes, StreamOutput::writeString, (o, stats) -> stats.writeTo(o));
+        }
     }
 
     @Override
@@ -127,6 +156,15 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.CACHE_SIZE, getCacheSize());
         builder.field(Fields.CACHE_COUNT, getCacheCount());
         builder.field(Fields.EVICTIONS, getEvictions());
+        if (queryTypes.isEmpty() == false) {
+            builder.startObject(Fields.QUERY_TYPES);
+            for (Map.Entry<String, QueryTypeCacheStats> entry : queryTypes.entrySet()) {
+                builder.startObject(entry.getKey());
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
@@ -141,6 +179,7 @@ public class QueryCacheStats implements Writeable, ToXContentFragment {
         static final String CACHE_SIZE = "cache_size";
         static final String CACHE_COUNT = "cache_count";
         static final String EVICTIONS = "evictions";
+        static final String QUERY_TYPES = "query_types";
     }
 
 }
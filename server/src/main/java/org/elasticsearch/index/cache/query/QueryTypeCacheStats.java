@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Query cache statistics of all queries of the same type, e.g. all {@code TermInSetQuery} instances.
+ */
+public class QueryTypeCacheStats implements Writeable, ToXContentFragment {
+
+    private long hitCount;
+    private long missCount;
+    private long cacheCount;
+    private long buildTimeInNanos;
+
+    public QueryTypeCacheStats() {
+    }
+
+    public QueryTypeCacheStats(StreamInput in) throws IOException {
+        hitCount = in.readVLong();
+        missCount = in.readVLong();
+        cacheCount = in.readVLong();
+        buildTimeInNanos = in.readVLong();
+    }
+
+    public QueryTypeCacheStats(long hitCount, long missCount, long cacheCount, long buildTimeInNanos) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.cacheCount = cacheCount;
+        this.buildTimeInNanos = buildTimeInNanos;
+    }
+
+    public void add(QueryTypeCacheStats stats) {
+        hitCount += stats.hitCount;
+        missCount += stats.missCount;
+        cacheCount += stats.cacheCount;
+        buildTimeInNanos += stats.buildTimeInNanos;
+    }
+
+    /**
+     * The number of lookups of queries of this type that found a cached doc id set.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The number of lookups of queries of this type that did not find a cached doc id set.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The number of doc id sets that have been cached for queries of this type.
+     */
+    public long getCacheCount() {
+        return cacheCount;
+    }
+
+    /**
+     * The total time spent building the doc id sets that have been cached for queries of this type.
+     */
+    public TimeValue getBuildTime() {
+        return TimeValue.timeValueNanos(buildTimeInNanos);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(hitCount);
+        out.writeVLong(missCount);
+        out.writeVLong(cacheCount);
+        out.writeVLong(buildTimeInNanos);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, ToXContent.Params params) throws IOException {
+        builder.field(Fields.HIT_COUNT, hitCount);
+        builder.field(Fields.MISS_COUNT, missCount);
+        builder.field(Fields.CACHE_COUNT, cacheCount);
+        builder.humanReadableField(Fields.BUILD_TIME_IN_MILLIS, Fields.BUILD_TIME, getBuildTime());
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        QueryTypeCacheStats that = (QueryTypeCacheStats) o;
+        return hitCount == that.hitCount && missCount == that.missCount && cacheCount == that.cacheCount
+            && buildTimeInNanos == that.buildTimeInNanos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hitCount, missCount, cacheCount, buildTimeInNanos);
+    }
+
+    static final class Fields {
+        static final String HIT_COUNT = "hit_count";
+        static final String MISS_COUNT = "miss_count";
+        static final String CACHE_COUNT = "cache_count";
+        static final String BUILD_TIME = "build_time";
+        static final String BUILD_TIME_IN_MILLIS = "build_time_in_millis";
+    }
+}
@@ -20,36 +20,48 @@ import org.elasticsearch.index.translog.TranslogDeletionPolicy;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * An {@link IndexDeletionPolicy} that coordinates between Lucene's commits and the retention of translog generation files,
  * making sure that all translog files that are needed to recover from the Lucene commit are not deleted.
  * <p>
  * In particular, this policy will delete index commits whose max sequence number is at most
- * the current global checkpoint except the index commit which has the highest max sequence number among those.
+ * the current global checkpoint except the index commit which has the highest max sequence number among those, and the index commits
+ * whose searcher id is retained, see {@link ReadOnlyEngine#generateSearcherId(SegmentInfos)}.
  */
 public class CombinedDeletionPolicy extends IndexDeletionPolicy {
     private final Logger logger;
     private final TranslogDeletionPolicy translogDeletionPolicy;
     private final SoftDeletesPolicy softDeletesPolicy;
     private final LongSupplier globalCheckpointSupplier;
+    private final Supplier<Set<String>> retainedSearcherIdsSupplier;
     private final ObjectIntHashMap<IndexCommit> snapshottedCommits; // Number of snapshots held against each commit point.
     private volatile IndexCommit safeCommit; // the most recent safe commit point - its max_seqno at most the persisted global checkpoint.
     private volatile long maxSeqNoOfNextSafeCommit;
     private volatile IndexCommit lastCommit; // the most recent commit point
     private volatile SafeCommitInfo safeCommitInfo = SafeCommitInfo.EMPTY;
+    private List<IndexCommit> keptCommits = List.of(); // all the commit points that were not deleted
 
     CombinedDeletionPolicy(Logger logger, TranslogDeletionPolicy translogDeletionPolicy,
                            SoftDeletesPolicy softDeletesPolicy, LongSupplier globalCheckpointSupplier) {
+        this(logger, translogDeletionPolicy, softDeletesPolicy, globalCheckpointSupplier, Set::of);
+    }
+
+    CombinedDeletionPolicy(Logger logger, TranslogDeletionPolicy translogDeletionPolicy, SoftDeletesPolicy softDeletesPolicy,
+                           LongSupplier globalCheckpointSupplier, Supplier<Set<String>> retainedSearcherIdsSupplier) {
         this.logger = logger;
         this.translogDeletionPolicy = translogDeletionPolicy;
         this.softDeletesPolicy = softDeletesPolicy;
         this.globalCheckpointSupplier = globalCheckpointSupplier;
+        this.retainedSearcherIdsSupplier = retainedSearcherIdsSupplier;
         this.snapshottedCommits = new ObjectIntHashMap<>();
     }
 
@@ -68,16 +80,23 @@ public class CombinedDeletionPolicy extends IndexDeletionPolicy {
     @Override
     public void onCommit(List<? extends IndexCommit> commits) throws IOException {
         final IndexCommit safeCommit;
+        final Set<String> retainedSearcherIds = retainedSearcherIdsSupplier.get();
         synchronized (this) {
             final int keptPosition = indexOfKeptCommits(commits, globalCheckpointSupplier.getAsLong());
             this.safeCommitInfo = SafeCommitInfo.EMPTY;
             this.lastCommit = commits.get(commits.size() - 1);
             this.safeCommit = commits.get(keptPosition);
+            final List<IndexCommit> keptCommits = new ArrayList<>(commits.size() - keptPosition);
             for (int i = 0; i < keptPosition; i++) {
-                if (snapshottedCommits.containsKey(commits.get(i)) == false) {
-                    deleteCommit(commits.get(i));
+                final IndexCommit commit = commits.get(i);
+                if (snapshottedCommits.containsKey(commit) == false && isRetained(commit, retainedSearcherIds) == false) {
+                    deleteCommit(commit);
+                } else {
+                    keptCommits.add(commit);
                 }
             }
+            keptCommits.addAll(commits.subList(keptPosition, commits.size()));
+            this.keptCommits = keptCommits;
             updateRetentionPolicy();
             if (keptPosition == commits.size() - 1) {
                 this.maxSeqNoOfNextSafeCommit = Long.MAX_VALUE;
@@ -120,6 +139,18 @@ public class CombinedDeletionPolicy extends IndexDeletionPolicy {
         return SegmentInfos.readCommit(indexCommit.getDirectory(), indexCommit.getSegmentsFileName()).totalMaxDoc();
     }
 
+    private boolean isRetained(IndexCommit commit, Set<String> retainedSearcherIds) throws IOException {
+        if (retainedSearcherIds.isEmpty()) {
+            return false;
+        }
+        final String searcherId = getSearcherIdOfCommit(commit);
+        return searcherId != null && retainedSearcherIds.contains(searcherId);
+    }
+
+    protected String getSearcherIdOfCommit(IndexCommit indexCommit) throws IOException {
+        return ReadOnlyEngine.generateSearcherId(SegmentInfos.readCommit(indexCommit.getDirectory(), indexCommit.getSegmentsFileName()));
+    }
+
     SafeCommitInfo getSafeCommitInfo() {
         return safeCommitInfo;
     }
@@ -138,6 +169,22 @@ public class CombinedDeletionPolicy extends IndexDeletionPolicy {
         return new SnapshotIndexCommit(snapshotting);
     }
 
+    /**
+     * Captures the commit point with the given searcher id, whose index files won't be released until the commit reference is closed.
+     *
+     * @return the captured commit point, or {@code null} if no commit point has this searcher id
+     */
+    synchronized IndexCommit acquireIndexCommit(String searcherId) throws IOException {
+        assert lastCommit != null : "Last commit is not initialized yet";
+        for (IndexCommit commit : keptCommits) {
+            if (searcherId.equals(getSearcherIdOfCommit(commit))) {
+                snapshottedCommits.addTo(commit, 1); // increase refCount
+                return new SnapshotIndexCommit(commit);
+            }
+        }
+        return null;
+    }
+
     /**
      * Releases an index commit that acquired by {@link #acquireIndexCommit(boolean)}.
      *
@@ -13,6 +13,7 @@ import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
 import org.apache.lucene.index.OneMergeHelper;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
@@ -23,6 +24,7 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.MergeSchedulerConfig;
+import org.elasticsearch.index.merge.MergeBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.merge.OnGoingMerge;
 import org.elasticsearch.index.shard.ShardId;
@@ -34,7 +36,7 @@ import java.util.Set;
 
 /**
  * An extension to the {@link ConcurrentMergeScheduler} that provides tracking on merge times, total
- * and current merges.
+ * and current merges, and that makes large merges wait for the node's {@link MergeBudget}.
  */
 class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
 
@@ -50,13 +52,19 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
     private final CounterMetric totalMergeStoppedTime = new CounterMetric();
     private final CounterMetric totalMergeThrottledTime = new CounterMetric();
+    private final CounterMetric totalMergeBudgetWaitTime = new CounterMetric();
+    private final CounterMetric currentLargeMerges = new CounterMetric();
+    private final CounterMetric currentBudgetWaitingMerges = new CounterMetric();
 
     private final Set<OnGoingMerge> onGoingMerges = ConcurrentCollections.newConcurrentSet();
     private final Set<OnGoingMerge> readOnlyOnGoingMerges = Collections.unmodifiableSet(onGoingMerges);
     private final MergeSchedulerConfig config;
+    private final MergeBudget mergeBudget;
+    private volatile boolean abortWaitingMerges;
 
-    ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
+    ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings, MergeBudget mergeBudget) {
         this.config = indexSettings.getMergeSchedulerConfig();
+        this.mergeBudget = mergeBudget;
         this.shardId = shardId;
         this.indexSettings = indexSettings.getSettings();
         this.logger = Loggers.getLogger(getClass(), shardId);
@@ -86,7 +94,25 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         }
         try {
             beforeMerge(onGoingMerge);
-            super.doMerge(mergeSource, merge);
+            if (mergeBudget.isLargeMerge(totalSizeInBytes)) {
+                final Releasable slot;
+                final long budgetWaitStartNS = System.nanoTime();
+                currentBudgetWaitingMerges.inc();
+                try {
+                    slot = mergeBudget.acquire(totalSizeInBytes, () -> abortWaitingMerges || merge.isAborted());
+                } finally {
+                    currentBudgetWaitingMerges.dec();
+                    totalMergeBudgetWaitTime.inc(TimeValue.nsecToMSec(System.nanoTime() - budgetWaitStartNS));
+                }
+                currentLargeMerges.inc();
+                try (slot) {
+                    super.doMerge(mergeSource, merge);
+                } finally {
+                    currentLargeMerges.dec();
+                }
+            } else {
+                super.doMerge(mergeSource, merge);
+            }
         } finally {
             long tookMS = TimeValue.nsecToMSec(System.nanoTime() - timeNS);
 
@@ -132,6 +158,15 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
         }
     }
 
+    /**
+     * Makes the merges of this shard that wait for a slot of the node's {@link MergeBudget} stop waiting, so that closing the index
+     * writer, which aborts these merges and waits for them to return, does not have to wait for a large merge of another shard.
+     */
+    void abortWaitingMerges() {
+        abortWaitingMerges = true;
+        mergeBudget.onMergesAborted();
+    }
+
     /**
      * A callback allowing for custom logic before an actual merge starts.
      */
@@ -169,7 +204,10 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
                 currentMerges.count(), currentMergesNumDocs.count(), currentMergesSizeInBytes.count(),
                 totalMergeStoppedTime.count(),
                 totalMergeThrottledTime.count(),
-                config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY);
+                config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY,
+                totalMergeBudgetWaitTime.count(),
+                currentLargeMerges.count(),
+                currentBudgetWaitingMerges.count());
         return mergeStats;
     }
 
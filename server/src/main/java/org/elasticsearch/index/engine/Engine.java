@@ -27,6 +27,7 @@ import org.apache.lucene.search.similarities.Similarity;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.index.IndexRequest;
@@ -68,6 +69,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -586,6 +588,13 @@ public abstract class Engine implements Closeable {
     public abstract GetResult get(Get get, MappingLookup mappingLookup, DocumentParser documentParser,
                                   Function<Engine.Searcher, Engine.Searcher> searcherWrapper);
 
+    /**
+     * Hints the engine that operations on the documents with the given uids are about to be executed, so that it can resolve their
+     * current versions in a single pass rather than one lookup per operation. Engines are free to ignore this hint.
+     */
+    public void prefetchDocVersions(Collection<BytesRef> uids) throws IOException {
+    }
+
     /**
      * Acquires a point-in-time reader that can be used to create {@link Engine.Searcher}s on demand.
      */
@@ -643,6 +652,18 @@ public abstract class Engine implements Closeable {
         }
     }
 
+    /**
+     * Acquires a point-in-time reader on an index commit, which is retained for as long as the reader is open. If the given searcher id
+     * is {@code null} then the engine is flushed and the reader is opened on the last commit, otherwise it is opened on the commit with
+     * this searcher id. Readers on an index commit have the searcher id of this commit, see {@link SearcherSupplier#getSearcherId()},
+     * unless the commit has segments that were written before segments had ids.
+     *
+     * @return the reader, or {@code null} if this engine does not hold a commit with the given searcher id
+     */
+    @Nullable
+    public abstract SearcherSupplier acquireSearcherSupplierOnCommit(Function<Searcher, Searcher> wrapper,
+                                                                     @Nullable String searcherId) throws EngineException;
+
     public final Searcher acquireSearcher(String source) throws EngineException {
         return acquireSearcher(source, SearcherScope.EXTERNAL);
     }
@@ -23,6 +23,7 @@ import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.SegmentCommitInfo;
 import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.ShuffleForcedMergePolicy;
+import org.apache.lucene.index.SoftDeletesDirectoryReaderWrapper;
 import org.apache.lucene.index.SoftDeletesRetentionMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
@@ -69,9 +70,11 @@ import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.merge.MergeBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.merge.OnGoingMerge;
 import org.elasticsearch.index.seqno.LocalCheckpointTracker;
+import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.SeqNoStats;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
@@ -86,7 +89,9 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -98,6 +103,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.BiConsumer;
@@ -177,6 +183,20 @@ public class InternalEngine extends Engine {
 
     private final int maxDocs;
 
+    /**
+     * Whether operations are written to the translog, see {@link IndexSettings#INDEX_TRANSLOG_ENABLED_SETTING}. If not, operations are
+     * only persisted once a Lucene commit contains them, see {@link #commitIndexWriter}, and the size of the operations since the last
+     * commit is tracked in {@link #uncommittedBytesWithoutTranslog} to trigger periodic flushes in place of the uncommitted translog size.
+     */
+    private final boolean translogEnabled;
+    private final AtomicLong uncommittedBytesWithoutTranslog = new AtomicLong();
+
+    /**
+     * The current versions of documents that were looked up ahead of a bulk request by {@link #prefetchDocVersions(Collection)}. They
+     * are only used for as long as the internal reader they were loaded from is still the current one.
+     */
+    private final AtomicReference<PrefetchedDocVersions> prefetchedDocVersions = new AtomicReference<>();
+
     @Nullable
     private final String historyUUID;
 
@@ -193,6 +213,7 @@ public class InternalEngine extends Engine {
     InternalEngine(EngineConfig engineConfig, int maxDocs, BiFunction<Long, Long, LocalCheckpointTracker> localCheckpointTrackerSupplier) {
         super(engineConfig);
         this.maxDocs = maxDocs;
+        this.translogEnabled = engineConfig.getIndexSettings().isTranslogEnabled();
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -203,7 +224,8 @@ public class InternalEngine extends Engine {
         boolean success = false;
         try {
             this.lastDeleteVersionPruneTimeMSec = engineConfig.getThreadPool().relativeTimeInMillis();
-            mergeScheduler = scheduler = new EngineMergeScheduler(engineConfig.getShardId(), engineConfig.getIndexSettings());
+            mergeScheduler = scheduler = new EngineMergeScheduler(engineConfig.getShardId(), engineConfig.getIndexSettings(),
+                engineConfig.getMergeBudget());
             throttle = new IndexThrottle();
             try {
                 store.trimUnsafeCommits(config().getTranslogConfig().getTranslogPath());
@@ -218,8 +240,9 @@ public class InternalEngine extends Engine {
                 assert translog.getGeneration() != null;
                 this.translog = translog;
                 this.softDeletesPolicy = newSoftDeletesPolicy();
-                this.combinedDeletionPolicy =
-                    new CombinedDeletionPolicy(logger, translogDeletionPolicy, softDeletesPolicy, translog::getLastSyncedGlobalCheckpoint);
+                this.combinedDeletionPolicy = new CombinedDeletionPolicy(logger, translogDeletionPolicy, softDeletesPolicy,
+                    translog::getLastSyncedGlobalCheckpoint,
+                    () -> ReplicationTracker.getPointInTimeSearcherIds(engineConfig.retentionLeasesSupplier().get()));
                 this.localCheckpointTracker = createLocalCheckpointTracker(localCheckpointTrackerSupplier);
                 writer = createWriter();
                 bootstrapAppendOnlyInfoFromWriter(writer);
@@ -743,12 +766,8 @@ public class InternalEngine extends Engine {
         VersionValue versionValue = getVersionFromMap(op.uid().bytes());
         if (versionValue == null) {
             assert incrementIndexVersionLookup(); // used for asserting in tests
-            final VersionsAndSeqNoResolver.DocIdAndVersion docIdAndVersion;
             try (Searcher searcher = acquireSearcher("load_version", SearcherScope.INTERNAL)) {
-                 docIdAndVersion = VersionsAndSeqNoResolver.loadDocIdAndVersion(searcher.getIndexReader(), op.uid(), loadSeqNo);
-            }
-            if (docIdAndVersion != null) {
-                versionValue = new IndexVersionValue(null, docIdAndVersion.version, docIdAndVersion.seqNo, docIdAndVersion.primaryTerm);
+                versionValue = loadDocVersionFromIndex(searcher.getIndexReader(), op.uid(), loadSeqNo);
             }
         } else if (engineConfig.isEnableGcDeletes() && versionValue.isDelete() &&
             (engineConfig.getThreadPool().relativeTimeInMillis() - ((DeleteVersionValue)versionValue).time) > getGcDeletesInMillis()) {
@@ -757,7 +776,65 @@ public class InternalEngine extends Engine {
         return versionValue;
     }
 
+    private VersionValue loadDocVersionFromIndex(IndexReader reader, Term uid, boolean loadSeqNo) throws IOException {
+        final PrefetchedDocVersions prefetched = prefetchedDocVersions.get();
+        if (prefetched != null) {
+            if (prefetched.readerKey == reader.getReaderCacheHelper().getKey()) {
+                if (prefetched.versions.containsKey(uid.bytes())) {
+                    return prefetched.versions.get(uid.bytes());
+                }
+            } else {
+                // the reader was refreshed since the versions were loaded, so they may be stale by now
+                prefetchedDocVersions.compareAndSet(prefetched, null);
+            }
+        }
+        final VersionsAndSeqNoResolver.DocIdAndVersion docIdAndVersion =
+            VersionsAndSeqNoResolver.loadDocIdAndVersion(reader, uid, loadSeqNo);
+        if (docIdAndVersion == null) {
+            return null;
+        }
+        return new IndexVersionValue(null, docIdAndVersion.version, docIdAndVersion.seqNo, docIdAndVersion.primaryTerm);
+    }
+
+    @Override
+    public void prefetchDocVersions(Collection<BytesRef> uids) throws IOException {
+        final BytesRef[] sortedUids = uids.stream().sorted().distinct().toArray(BytesRef[]::new);
+        if (sortedUids.length == 0) {
+            return;
+        }
+        // make sure that looking up the versions from the version map won't trigger a refresh that would invalidate the prefetched ones
+        enforceSafeVersionMapAccess();
+        try (Searcher searcher = acquireSearcher("prefetch_versions", SearcherScope.INTERNAL)) {
+            final IndexReader reader = searcher.getIndexReader();
+            final VersionsAndSeqNoResolver.DocIdAndVersion[] docIdAndVersions =
+                VersionsAndSeqNoResolver.loadDocIdAndVersions(reader, IdFieldMapper.NAME, sortedUids, true);
+            final Map<BytesRef, VersionValue> versions = new HashMap<>(sortedUids.length);
+            for (int i = 0; i < sortedUids.length; i++) {
+                final VersionsAndSeqNoResolver.DocIdAndVersion docIdAndVersion = docIdAndVersions[i];
+                versions.put(sortedUids[i], docIdAndVersion == null ? null :
+                    new IndexVersionValue(null, docIdAndVersion.version, docIdAndVersion.seqNo, docIdAndVersion.primaryTerm));
+            }
+            prefetchedDocVersions.set(new PrefetchedDocVersions(reader.getReaderCacheHelper().getKey(), versions));
+        }
+    }
+
+    private static final class PrefetchedDocVersions {
+        private final IndexReader.CacheKey readerKey;
+        /** the current version of each prefetched uid, or null if the uid was not found */
+        private final Map<BytesRef, VersionValue> versions;
+
+        PrefetchedDocVersions(IndexReader.CacheKey readerKey, Map<BytesRef, VersionValue> versions) {
+            this.readerKey = readerKey;
+            this.versions = versions;
+        }
+    }
+
     private VersionValue getVersionFromMap(BytesRef id) {
+        enforceSafeVersionMapAccess();
+        return versionMap.getUnderLock(id);
+    }
+
+    private void enforceSafeVersionMapAccess() {
         if (versionMap.isUnsafe()) {
             synchronized (versionMap) {
                 // we are switching from an unsafe map to a safe map. This might happen concurrently
@@ -769,7 +846,6 @@ public class InternalEngine extends Engine {
                 versionMap.enforceSafeAccess();
             }
         }
-        return versionMap.getUnderLock(id);
     }
 
     private boolean canOptimizeAddDocument(Index index) {
@@ -913,7 +989,7 @@ public class InternalEngine extends Engine {
                 if (index.origin().isFromTranslog() == false) {
                     final Translog.Location location;
                     if (indexResult.getResultType() == Result.Type.SUCCESS) {
-                        location = translog.add(new Translog.Index(index, indexResult));
+                        location = addToTranslog(new Translog.Index(index, indexResult), index.estimatedSizeInBytes());
                     } else if (indexResult.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
                         // if we have document failure, record it as a no-op in the translog and Lucene with the generated seq_no
                         final NoOp noOp = new NoOp(indexResult.getSeqNo(), index.primaryTerm(), index.origin(),
@@ -931,9 +1007,13 @@ public class InternalEngine extends Engine {
                 }
                 localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
                 if (indexResult.getTranslogLocation() == null) {
-                    // the op is coming from the translog (and is hence persisted already) or it does not have a sequence number
-                    assert index.origin().isFromTranslog() || indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
-                    localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
+                    // the op is coming from the translog (and is hence persisted already) or it does not have a sequence number, or
+                    // the translog is disabled and the op is only persisted by the next commit, see #commitIndexWriter
+                    assert index.origin().isFromTranslog() || indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO
+                        || translogEnabled == false;
+                    if (translogEnabled) {
+                        localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
+                    }
                 }
                 indexResult.setTook(System.nanoTime() - index.startTime());
                 indexResult.freeze();
@@ -1292,14 +1372,18 @@ public class InternalEngine extends Engine {
                 }
             }
             if (delete.origin().isFromTranslog() == false && deleteResult.getResultType() == Result.Type.SUCCESS) {
-                final Translog.Location location = translog.add(new Translog.Delete(delete, deleteResult));
+                final Translog.Location location = addToTranslog(new Translog.Delete(delete, deleteResult), delete.estimatedSizeInBytes());
                 deleteResult.setTranslogLocation(location);
             }
             localCheckpointTracker.markSeqNoAsProcessed(deleteResult.getSeqNo());
             if (deleteResult.getTranslogLocation() == null) {
-                // the op is coming from the translog (and is hence persisted already) or does not have a sequence number (version conflict)
-                assert delete.origin().isFromTranslog() || deleteResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
-                localCheckpointTracker.markSeqNoAsPersisted(deleteResult.getSeqNo());
+                // the op is coming from the translog (and is hence persisted already) or does not have a sequence number (version
+                // conflict), or the translog is disabled and the op is only persisted by the next commit, see #commitIndexWriter
+                assert delete.origin().isFromTranslog() || deleteResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO
+                    || translogEnabled == false;
+                if (translogEnabled) {
+                    localCheckpointTracker.markSeqNoAsPersisted(deleteResult.getSeqNo());
+                }
             }
             deleteResult.setTook(System.nanoTime() - delete.startTime());
             deleteResult.freeze();
@@ -1572,15 +1656,20 @@ public class InternalEngine extends Engine {
                 }
                 noOpResult = new NoOpResult(noOp.primaryTerm(), noOp.seqNo());
                 if (noOp.origin().isFromTranslog() == false && noOpResult.getResultType() == Result.Type.SUCCESS) {
-                    final Translog.Location location = translog.add(new Translog.NoOp(noOp.seqNo(), noOp.primaryTerm(), noOp.reason()));
+                    final Translog.Location location =
+                        addToTranslog(new Translog.NoOp(noOp.seqNo(), noOp.primaryTerm(), noOp.reason()), noOp.estimatedSizeInBytes());
                     noOpResult.setTranslogLocation(location);
                 }
             }
             localCheckpointTracker.markSeqNoAsProcessed(noOpResult.getSeqNo());
             if (noOpResult.getTranslogLocation() == null) {
-                // the op is coming from the translog (and is hence persisted already) or it does not have a sequence number
-                assert noOp.origin().isFromTranslog() || noOpResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
-                localCheckpointTracker.markSeqNoAsPersisted(noOpResult.getSeqNo());
+                // the op is coming from the translog (and is hence persisted already) or it does not have a sequence number, or
+                // the translog is disabled and the op is only persisted by the next commit, see #commitIndexWriter
+                assert noOp.origin().isFromTranslog() || noOpResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO
+                    || translogEnabled == false;
+                if (translogEnabled) {
+                    localCheckpointTracker.markSeqNoAsPersisted(noOpResult.getSeqNo());
+                }
             }
             noOpResult.setTook(System.nanoTime() - noOp.startTime());
             noOpResult.freeze();
@@ -1663,12 +1752,27 @@ public class InternalEngine extends Engine {
         refresh("write indexing buffer", SearcherScope.INTERNAL, false);
     }
 
+    /**
+     * Adds the given operation to the translog and returns its location, or returns {@code null} without writing anything if the
+     * translog is disabled for this index.
+     */
+    private Translog.Location addToTranslog(Translog.Operation operation, long estimatedSizeInBytes) throws IOException {
+        if (translogEnabled) {
+            return translog.add(operation);
+        }
+        uncommittedBytesWithoutTranslog.addAndGet(estimatedSizeInBytes);
+        return null;
+    }
+
     @Override
     public boolean shouldPeriodicallyFlush() {
         ensureOpen();
         if (shouldPeriodicallyFlushAfterBigMerge.get()) {
             return true;
         }
+        if (translogEnabled == false) {
+            return uncommittedBytesWithoutTranslog.get() >= config().getIndexSettings().getFlushThresholdSize().getBytes();
+        }
         final long localCheckpointOfLastCommit =
             Long.parseLong(lastCommittedSegmentInfos.userData.get(SequenceNumbers.LOCAL_CHECKPOINT_KEY));
         final long translogGenerationOfLastCommit =
@@ -1956,6 +2060,69 @@ public class InternalEngine extends Engine {
         return new Engine.IndexCommitRef(safeCommit, () -> releaseIndexCommit(safeCommit));
     }
 
+    @Override
+    public SearcherSupplier acquireSearcherSupplierOnCommit(Function<Searcher, Searcher> wrapper,
+                                                            @Nullable String searcherId) throws EngineException {
+        final IndexCommit commit;
+        if (searcherId == null) {
+            flush(false, true);
+            commit = combinedDeletionPolicy.acquireIndexCommit(false);
+        } else {
+            try {
+                commit = combinedDeletionPolicy.acquireIndexCommit(searcherId);
+            } catch (IOException e) {
+                throw new EngineException(shardId, "failed to find index commit with searcher id [" + searcherId + "]", e);
+            }
+            if (commit == null) {
+                return null;
+            }
+        }
+        if (store.tryIncRef() == false) {
+            IOUtils.closeWhileHandlingException(() -> releaseIndexCommit(commit));
+            throw new AlreadyClosedException(shardId + " store is closed", failedEngine.get());
+        }
+        ElasticsearchDirectoryReader reader = null;
+        boolean success = false;
+        try {
+            final String commitSearcherId =
+                ReadOnlyEngine.generateSearcherId(SegmentInfos.readCommit(store.directory(), commit.getSegmentsFileName()));
+            // unlike the readers that are opened from the index writer, readers that are opened from a commit ignore soft deletes
+            reader = ElasticsearchDirectoryReader.wrap(
+                new SoftDeletesDirectoryReaderWrapper(DirectoryReader.open(commit), Lucene.SOFT_DELETES_FIELD), shardId);
+            final ElasticsearchDirectoryReader commitReader = reader;
+            final SearcherSupplier searcherSupplier = new SearcherSupplier(wrapper) {
+                @Override
+                protected Searcher acquireSearcherInternal(String source) {
+                    return new Searcher(source, commitReader, engineConfig.getSimilarity(), engineConfig.getQueryCache(),
+                        engineConfig.getQueryCachingPolicy(), () -> {});
+                }
+
+                @Override
+                protected void doClose() {
+                    try {
+                        IOUtils.close(commitReader, () -> releaseIndexCommit(commit), store::decRef);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("failed to close reader on index commit", e);
+                    }
+                }
+
+                @Override
+                public String getSearcherId() {
+                    return commitSearcherId;
+                }
+            };
+            success = true;
+            return searcherSupplier;
+        } catch (IOException e) {
+            maybeFailEngine("acquire_reader_on_commit", e);
+            throw new EngineException(shardId, "failed to open reader on index commit", e);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(reader, () -> releaseIndexCommit(commit), store::decRef);
+            }
+        }
+    }
+
     private void releaseIndexCommit(IndexCommit snapshot) throws IOException {
         // Revisit the deletion policy if we can clean up the snapshotting commit.
         if (combinedDeletionPolicy.releaseCommit(snapshot)) {
@@ -2089,6 +2256,7 @@ public class InternalEngine extends Engine {
                 }
                 // no need to commit in this case!, we snapshot before we close the shard, so translog and all sync'ed
                 logger.trace("rollback indexWriter");
+                mergeScheduler.abortWaitingMerges();
                 try {
                     indexWriter.rollback();
                 } catch (AlreadyClosedException ex) {
@@ -2249,8 +2417,8 @@ public class InternalEngine extends Engine {
         private final AtomicInteger numMergesInFlight = new AtomicInteger(0);
         private final AtomicBoolean isThrottling = new AtomicBoolean();
 
-        EngineMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
-            super(shardId, indexSettings);
+        EngineMergeScheduler(ShardId shardId, IndexSettings indexSettings, MergeBudget mergeBudget) {
+            super(shardId, indexSettings, mergeBudget);
         }
 
         @Override
@@ -2357,7 +2525,13 @@ public class InternalEngine extends Engine {
                 return commitData.entrySet().iterator();
             });
             shouldPeriodicallyFlushAfterBigMerge.set(false);
+            final long uncommittedBytes = uncommittedBytesWithoutTranslog.get();
             writer.commit();
+            uncommittedBytesWithoutTranslog.addAndGet(-uncommittedBytes);
+            if (translogEnabled == false) {
+                // without a translog the operations only become durable now, up to the local checkpoint recorded in the commit
+                localCheckpointTracker.fastForwardPersistedSeqNo(localCheckpoint);
+            }
         } catch (final Exception ex) {
             try {
                 failEngine("lucene commit failed", ex);
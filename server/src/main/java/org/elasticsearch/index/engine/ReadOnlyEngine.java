@@ -21,6 +21,7 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.Lock;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -584,6 +585,16 @@ public class ReadOnlyEngine extends Engine {
         };
     }
 
+    @Override
+    public SearcherSupplier acquireSearcherSupplierOnCommit(Function<Searcher, Searcher> wrapper,
+                                                            @Nullable String searcherId) throws EngineException {
+        // a read-only engine only ever searches its single commit
+        if (searcherId != null && searcherId.equals(commitId) == false) {
+            return null;
+        }
+        return acquireSearcherSupplier(wrapper, SearcherScope.EXTERNAL);
+    }
+
     public final String getCommitId() {
         return commitId;
     }
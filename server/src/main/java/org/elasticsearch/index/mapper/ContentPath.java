@@ -55,6 +55,10 @@ public final class ContentPath {
     }
 
     public String pathAsText(String name) {
+        if (index <= offset) {
+            // most fields of a document are at the root, which doesn't need to copy the name
+            return name;
+        }
         sb.setLength(0);
         for (int i = offset; i < index; i++) {
             sb.append(path[i]).append(DELIMITER);
@@ -835,7 +835,14 @@ public final class DocumentParser {
                                     ObjectMapper objectMapper,
                                     String fieldName,
                                     String[] subfields) {
-        String fieldPath = context.path().pathAsText(fieldName);
+        return getMapper(context, objectMapper, fieldName, context.path().pathAsText(fieldName), subfields);
+    }
+
+    private static Mapper getMapper(final ParseContext context,
+                                    ObjectMapper objectMapper,
+                                    String fieldName,
+                                    String fieldPath,
+                                    String[] subfields) {
         // Check if mapper is a metadata mapper first
         Mapper mapper = context.getMetadataMapper(fieldPath);
         if (mapper != null) {
@@ -865,14 +872,14 @@ public final class DocumentParser {
                                         ObjectMapper objectMapper,
                                         String fieldName,
                                         String[] subfields) {
-        Mapper mapper = getMapper(context, objectMapper, fieldName, subfields);
+        String fieldPath = context.path().pathAsText(fieldName);
+        Mapper mapper = getMapper(context, objectMapper, fieldName, fieldPath, subfields);
         if (mapper != null) {
             return mapper;
         }
         // concrete fields take precedence over runtime fields when parsing documents
         // if a leaf field is not mapped, and is defined as a runtime field, then we
         // don't create a dynamic mapping for it and don't index it.
-        String fieldPath = context.path().pathAsText(fieldName);
         RuntimeField runtimeField = context.root().getRuntimeField(fieldPath);
         if (runtimeField != null) {
             return new NoOpFieldMapper(subfields[subfields.length - 1], runtimeField.asMappedFieldType().name());
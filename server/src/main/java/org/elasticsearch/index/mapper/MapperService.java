@@ -186,6 +186,13 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         if (newMappingMetadata != null) {
             String type = newMappingMetadata.type();
             CompressedXContent incomingMappingSource = newMappingMetadata.source();
+            DocumentMapper currentMapper = this.mapper;
+            if (currentMapper != null && incomingMappingSource.equals(currentMapper.mappingSource())) {
+                // the mapping version changed but the content did not, so the current mapper can be reused without parsing again
+                logger.trace("[{}] reusing current mapping for identical mapping version [{}]", index(),
+                    newIndexMetadata.getMappingVersion());
+                return;
+            }
             Mapping incomingMapping = parseMapping(type, incomingMappingSource);
             DocumentMapper previousMapper;
             synchronized (this) {
@@ -0,0 +1,215 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.merge;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+/**
+ * Limits how many large merges of all shards on the node may run concurrently. This is a concurrency limiter only: it does not meter
+ * the bytes that merges read or write, which is left to the auto-throttling of the merge schedulers. Small merges always run straight
+ * away, but large merges need to acquire one of a limited number of slots before they start. The number of slots shrinks to a single
+ * one while searches are queueing up on the node, and waiting merges are admitted smallest first.
+ * <p>
+ * The limit is off by default, i.e. {@link #MAX_CONCURRENT_LARGE_MERGES_SETTING} is {@code -1}, in which case large merges are only
+ * counted but never wait.
+ * <p>
+ * Waiting merges are woken up whenever a large merge completes, the settings change or merges get aborted, and never poll. In
+ * particular the search load is only re-evaluated on these events: there is always a running large merge while others are waiting, so
+ * the waiting merges see a drop of the search load at the latest once that merge completes. A merge never waits for longer than
+ * {@link #MAX_WAIT_TIME_SETTING} though, after which it starts regardless of the limit, so that a merge that runs for a long time
+ * cannot hold up the merges of all other shards on the node.
+ */
+public final class MergeBudget {
+
+    public static final Setting<ByteSizeValue> LARGE_MERGE_SIZE_SETTING =
+        Setting.byteSizeSetting("indices.merge.budget.large_merge_size", new ByteSizeValue(256, ByteSizeUnit.MB),
+            Property.NodeScope, Property.Dynamic);
+    public static final Setting<Integer> MAX_CONCURRENT_LARGE_MERGES_SETTING =
+        Setting.intSetting("indices.merge.budget.max_concurrent_large_merges", -1, -1, value -> {
+            if (value == 0) {
+                throw new IllegalArgumentException("[indices.merge.budget.max_concurrent_large_merges] must be -1 or at least 1 but was 0");
+            }
+        }, Property.NodeScope, Property.Dynamic);
+    public static final Setting<Integer> SEARCH_QUEUE_THRESHOLD_SETTING =
+        Setting.intSetting("indices.merge.budget.search_queue_threshold", 1, 0, Property.NodeScope, Property.Dynamic);
+    public static final Setting<TimeValue> MAX_WAIT_TIME_SETTING =
+        Setting.timeSetting("indices.merge.budget.max_wait_time", TimeValue.timeValueMinutes(30), TimeValue.ZERO,
+            Property.NodeScope, Property.Dynamic);
+
+    /**
+     * A budget that admits every merge immediately.
+     */
+    public static final MergeBudget UNBOUNDED = new MergeBudget(Long.MAX_VALUE, -1, 0, () -> 0);
+
+    private final IntSupplier searchQueueSize;
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    private volatile long largeMergeSizeInBytes;
+    private volatile int maxConcurrentLargeMerges;
+    private volatile int searchQueueThreshold;
+    private volatile long maxWaitTimeInNanos;
+    private long nextWaiterId;
+    private int runningLargeMerges;
+
+    public MergeBudget(Settings settings, ClusterSettings clusterSettings, IntSupplier searchQueueSize) {
+        this(LARGE_MERGE_SIZE_SETTING.get(settings).getBytes(), MAX_CONCURRENT_LARGE_MERGES_SETTING.get(settings),
+            SEARCH_QUEUE_THRESHOLD_SETTING.get(settings), MAX_WAIT_TIME_SETTING.get(settings), searchQueueSize);
+        clusterSettings.addSettingsUpdateConsumer(LARGE_MERGE_SIZE_SETTING, v -> this.largeMergeSizeInBytes = v.getBytes());
+        clusterSettings.addSettingsUpdateConsumer(MAX_CONCURRENT_LARGE_MERGES_SETTING, this::setMaxConcurrentLargeMerges);
+        clusterSettings.addSettingsUpdateConsumer(SEARCH_QUEUE_THRESHOLD_SETTING, this::setSearchQueueThreshold);
+        clusterSettings.addSettingsUpdateConsumer(MAX_WAIT_TIME_SETTING, this::setMaxWaitTime);
+    }
+
+    MergeBudget(long largeMergeSizeInBytes, int maxConcurrentLargeMerges, int searchQueueThreshold, IntSupplier searchQueueSize) {
+        this(largeMergeSizeInBytes, maxConcurrentLargeMerges, searchQueueThreshold, MAX_WAIT_TIME_SETTING.getDefault(Settings.EMPTY),
+            searchQueueSize);
+    }
+
+    MergeBudget(long largeMergeSizeInBytes, int maxConcurrentLargeMerges, int searchQueueThreshold, TimeValue maxWaitTime,
+                IntSupplier searchQueueSize) {
+        assert maxConcurrentLargeMerges == -1 || maxConcurrentLargeMerges >= 1 : maxConcurrentLargeMerges;
+        this.largeMergeSizeInBytes = largeMergeSizeInBytes;
+        this.maxConcurrentLargeMerges = maxConcurrentLargeMerges;
+        this.searchQueueThreshold = searchQueueThreshold;
+        this.maxWaitTimeInNanos = maxWaitTime.nanos();
+        this.searchQueueSize = searchQueueSize;
+    }
+
+    private synchronized void setMaxConcurrentLargeMerges(int maxConcurrentLargeMerges) {
+        this.maxConcurrentLargeMerges = maxConcurrentLargeMerges;
+        notifyAll();
+    }
+
+    private synchronized void setSearchQueueThreshold(int searchQueueThreshold) {
+        this.searchQueueThreshold = searchQueueThreshold;
+        notifyAll();
+    }
+
+    private synchronized void setMaxWaitTime(TimeValue maxWaitTime) {
+        this.maxWaitTimeInNanos = maxWaitTime.nanos();
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of large merges that may currently run concurrently on this node. This is {@link Integer#MAX_VALUE} if the
+     * limit is off, a single one while searches are queueing up, and {@link #MAX_CONCURRENT_LARGE_MERGES_SETTING} otherwise. It is
+     * never below one, since the setting only accepts {@code -1} or positive values.
+     */
+    int availableLargeMergeSlots() {
+        final int maxConcurrent = maxConcurrentLargeMerges;
+        if (maxConcurrent == -1) {
+            return Integer.MAX_VALUE;
+        }
+        final int threshold = searchQueueThreshold;
+        if (threshold > 0 && searchQueueSize.getAsInt() >= threshold) {
+            return 1;
+        }
+        return maxConcurrent;
+    }
+
+    /**
+     * Returns whether a merge of the given size is a large merge that needs to {@link #acquire} a slot before it starts.
+     */
+    public boolean isLargeMerge(long mergeSizeInBytes) {
+        return mergeSizeInBytes >= largeMergeSizeInBytes;
+    }
+
+    /**
+     * Blocks the calling merge thread until a large merge of the given size may start. The returned {@link Releasable} must be closed
+     * once the merge completed. Stops waiting and admits the merge if it gets aborted in the meantime, e.g. because the shard is closing,
+     * if the calling thread is interrupted, or once it waited for {@link #MAX_WAIT_TIME_SETTING}. Whoever aborts a waiting merge must call
+     * {@link #onMergesAborted()} afterwards.
+     *
+     * @param mergeSizeInBytes the total size of the segments to merge
+     * @param aborted          whether the merge was aborted
+     */
+    public synchronized Releasable acquire(long mergeSizeInBytes, BooleanSupplier aborted) {
+        final Waiter waiter = new Waiter(mergeSizeInBytes, nextWaiterId++);
+        final long startNanos = System.nanoTime();
+        waiters.add(waiter);
+        try {
+            while (waiters.peek() != waiter || runningLargeMerges >= availableLargeMergeSlots()) {
+                if (aborted.getAsBoolean()) {
+                    break;
+                }
+                // re-read on every iteration since the setting may change while waiting
+                final long remainingNanos = maxWaitTimeInNanos - (System.nanoTime() - startNanos);
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            waiters.remove(waiter);
+            // the next waiter may be admitted as well
+            notifyAll();
+        }
+        runningLargeMerges++;
+        return this::releaseLargeMerge;
+    }
+
+    private synchronized void releaseLargeMerge() {
+        assert runningLargeMerges > 0 : runningLargeMerges;
+        runningLargeMerges--;
+        notifyAll();
+    }
+
+    /**
+     * Wakes up all waiting merges so that they re-check whether they were aborted.
+     */
+    public synchronized void onMergesAborted() {
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of large merges that are currently running on this node.
+     */
+    public synchronized int getRunningLargeMerges() {
+        return runningLargeMerges;
+    }
+
+    /**
+     * Returns the number of large merges that are currently waiting for a slot on this node.
+     */
+    public synchronized int getWaitingLargeMerges() {
+        return waiters.size();
+    }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        private final long sizeInBytes;
+        private final long id;
+
+        Waiter(long sizeInBytes, long id) {
+            this.sizeInBytes = sizeInBytes;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            final int cmp = Long.compare(sizeInBytes, other.sizeInBytes);
+            return cmp != 0 ? cmp : Long.compare(id, other.id);
+        }
+    }
+}
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.merge;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -36,6 +37,15 @@ public class MergeStats implements Writeable, ToXContentFragment {
 
     private long totalBytesPerSecAutoThrottle;
 
+    /** Total millis that large merges waited for a slot in the node's {@link MergeBudget}. */
+    private long totalBudgetWaitTimeInMillis;
+
+    /** Number of large merges that are currently running, having acquired a slot in the node's {@link MergeBudget}. */
+    private long currentLarge;
+
+    /** Number of large merges that are currently waiting for a slot in the node's {@link MergeBudget}. */
+    private long currentBudgetWaiting;
+
     public MergeStats() {
 
     }
@@ -52,11 +62,17 @@ public class MergeStats implements Writeable, ToXContentFragment {
         totalStoppedTimeInMillis = in.readVLong();
         totalThrottledTimeInMillis = in.readVLong();
         totalBytesPerSecAutoThrottle = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            totalBudgetWaitTimeInMillis = in.readVLong();
+            currentLarge = in.readVLong();
+            currentBudgetWaiting = in.readVLong();
+        }
     }
 
     public void add(long totalMerges, long totalMergeTime, long totalNumDocs, long totalSizeInBytes,
                         long currentMerges, long currentNumDocs, long currentSizeInBytes,
-                        long stoppedTimeMillis, long throttledTimeMillis, double mbPerSecAutoThrottle) {
+                        long stoppedTimeMillis, long throttledTimeMillis, double mbPerSecAutoThrottle, long budgetWaitTimeMillis,
+                        long currentLargeMerges, long currentBudgetWaitingMerges) {
         this.total += totalMerges;
         this.totalTimeInMillis += totalMergeTime;
         this.totalNumDocs += totalNumDocs;
@@ -66,6 +82,9 @@ public class MergeStats implements Writeable, ToXContentFragment {
         this.currentSizeInBytes += currentSizeInBytes;
         this.totalStoppedTimeInMillis += stoppedTimeMillis;
         this.totalThrottledTimeInMillis += throttledTimeMillis;
+        this.totalBudgetWaitTimeInMillis += budgetWaitTimeMillis;
+        this.currentLarge += currentLargeMerges;
+        this.currentBudgetWaiting += currentBudgetWaitingMerges;
         long bytesPerSecAutoThrottle = (long) (mbPerSecAutoThrottle * 1024 * 1024);
         if (this.totalBytesPerSecAutoThrottle == Long.MAX_VALUE || bytesPerSecAutoThrottle == Long.MAX_VALUE) {
             this.totalBytesPerSecAutoThrottle = Long.MAX_VALUE;
@@ -81,6 +100,8 @@ public class MergeStats implements Writeable, ToXContentFragment {
         this.current += mergeStats.current;
         this.currentNumDocs += mergeStats.currentNumDocs;
         this.currentSizeInBytes += mergeStats.currentSizeInBytes;
+        this.currentLarge += mergeStats.currentLarge;
+        this.currentBudgetWaiting += mergeStats.currentBudgetWaiting;
 
         addTotals(mergeStats);
     }
@@ -95,6 +116,7 @@ public class MergeStats implements Writeable, ToXContentFragment {
         this.totalSizeInBytes += mergeStats.totalSizeInBytes;
         this.totalStoppedTimeInMillis += mergeStats.totalStoppedTimeInMillis;
         this.totalThrottledTimeInMillis += mergeStats.totalThrottledTimeInMillis;
+        this.totalBudgetWaitTimeInMillis += mergeStats.totalBudgetWaitTimeInMillis;
         if (this.totalBytesPerSecAutoThrottle == Long.MAX_VALUE || mergeStats.totalBytesPerSecAutoThrottle == Long.MAX_VALUE) {
             this.totalBytesPerSecAutoThrottle = Long.MAX_VALUE;
         } else {
@@ -144,6 +166,20 @@ public class MergeStats implements Writeable, ToXContentFragment {
         return new TimeValue(totalThrottledTimeInMillis);
     }
 
+    /**
+     * The total time large merges waited for the node's merge budget before they could start.
+     */
+    public long getTotalBudgetWaitTimeInMillis() {
+        return this.totalBudgetWaitTimeInMillis;
+    }
+
+    /**
+     * The total time large merges waited for the node's merge budget before they could start.
+     */
+    public TimeValue getTotalBudgetWaitTime() {
+        return new TimeValue(totalBudgetWaitTimeInMillis);
+    }
+
     /**
      * The total time merges have been executed.
      */
@@ -186,18 +222,35 @@ public class MergeStats implements Writeable, ToXContentFragment {
         return new ByteSizeValue(currentSizeInBytes);
     }
 
+    /**
+     * The number of large merges that are currently running, having acquired a slot in the node's merge budget.
+     */
+    public long getCurrentLarge() {
+        return this.currentLarge;
+    }
+
+    /**
+     * The number of large merges that are currently waiting for a slot in the node's merge budget.
+     */
+    public long getCurrentBudgetWaiting() {
+        return this.currentBudgetWaiting;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.MERGES);
         builder.field(Fields.CURRENT, current);
         builder.field(Fields.CURRENT_DOCS, currentNumDocs);
         builder.humanReadableField(Fields.CURRENT_SIZE_IN_BYTES, Fields.CURRENT_SIZE, getCurrentSize());
+        builder.field(Fields.CURRENT_LARGE, currentLarge);
+        builder.field(Fields.CURRENT_BUDGET_WAITING, currentBudgetWaiting);
         builder.field(Fields.TOTAL, total);
         builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, getTotalTime());
         builder.field(Fields.TOTAL_DOCS, totalNumDocs);
         builder.humanReadableField(Fields.TOTAL_SIZE_IN_BYTES, Fields.TOTAL_SIZE, getTotalSize());
         builder.humanReadableField(Fields.TOTAL_STOPPED_TIME_IN_MILLIS, Fields.TOTAL_STOPPED_TIME, getTotalStoppedTime());
         builder.humanReadableField(Fields.TOTAL_THROTTLED_TIME_IN_MILLIS, Fields.TOTAL_THROTTLED_TIME, getTotalThrottledTime());
+        builder.humanReadableField(Fields.TOTAL_BUDGET_WAIT_TIME_IN_MILLIS, Fields.TOTAL_BUDGET_WAIT_TIME, getTotalBudgetWaitTime());
         if (builder.humanReadable() && totalBytesPerSecAutoThrottle != -1) {
             builder.field(Fields.TOTAL_THROTTLE_BYTES_PER_SEC).value(new ByteSizeValue(totalBytesPerSecAutoThrottle).toString());
         }
@@ -212,6 +265,8 @@ public class MergeStats implements Writeable, ToXContentFragment {
         static final String CURRENT_DOCS = "current_docs";
         static final String CURRENT_SIZE = "current_size";
         static final String CURRENT_SIZE_IN_BYTES = "current_size_in_bytes";
+        static final String CURRENT_LARGE = "current_large";
+        static final String CURRENT_BUDGET_WAITING = "current_budget_waiting";
         static final String TOTAL = "total";
         static final String TOTAL_TIME = "total_time";
         static final String TOTAL_TIME_IN_MILLIS = "total_time_in_millis";
@@ -219,6 +274,8 @@ public class MergeStats implements Writeable, ToXContentFragment {
         static final String TOTAL_STOPPED_TIME_IN_MILLIS = "total_stopped_time_in_millis";
         static final String TOTAL_THROTTLED_TIME = "total_throttled_time";
         static final String TOTAL_THROTTLED_TIME_IN_MILLIS = "total_throttled_time_in_millis";
+        static final String TOTAL_BUDGET_WAIT_TIME = "total_budget_wait_time";
+        static final String TOTAL_BUDGET_WAIT_TIME_IN_MILLIS = "total_budget_wait_time_in_millis";
         static final String TOTAL_DOCS = "total_docs";
         static final String TOTAL_SIZE = "total_size";
         static final String TOTAL_SIZE_IN_BYTES = "total_size_in_bytes";
@@ -239,5 +296,10 @@ public class MergeStats implements Writeable, ToXContentFragment {
         out.writeVLong(totalStoppedTimeInMillis);
         out.writeVLong(totalThrottledTimeInMillis);
         out.writeVLong(totalBytesPerSecAutoThrottle);
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeVLong(totalBudgetWaitTimeInMillis);
+            out.writeVLong(currentLarge);
+            out.writeVLong(currentBudgetWaiting);
+        }
     }
 }
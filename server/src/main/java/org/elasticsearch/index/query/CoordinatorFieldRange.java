@@ -0,0 +1,98 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The range of values of a date field in a single shard, along with the resolution and format of the field so that range queries on
+ * this field can be evaluated by coordinating nodes that don't know the mappings of the index.
+ * See {@link IndexSettings#COORDINATOR_RANGE_FIELDS_SETTING}.
+ */
+public final class CoordinatorFieldRange implements Writeable {
+
+    private final String field;
+    private final DateFieldMapper.Resolution resolution;
+    private final String format;
+    private final Locale locale;
+    private final ShardLongFieldRange range;
+    private DateFieldMapper.DateFieldType fieldType;
+
+    public CoordinatorFieldRange(DateFieldMapper.DateFieldType fieldType, ShardLongFieldRange range) {
+        this.field = fieldType.name();
+        this.resolution = fieldType.resolution();
+        this.format = fieldType.dateTimeFormatter().pattern();
+        this.locale = fieldType.dateTimeFormatter().locale();
+        this.range = range;
+        this.fieldType = fieldType;
+    }
+
+    public CoordinatorFieldRange(StreamInput in) throws IOException {
+        field = in.readString();
+        resolution = in.readEnum(DateFieldMapper.Resolution.class);
+        format = in.readString();
+        locale = Locale.forLanguageTag(in.readString());
+        range = ShardLongFieldRange.readFrom(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(field);
+        out.writeEnum(resolution);
+        out.writeString(format);
+        out.writeString(locale.toLanguageTag());
+        range.writeTo(out);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Returns the range of values of the field in the shard, {@link ShardLongFieldRange#EMPTY} if the shard has no values.
+     */
+    public ShardLongFieldRange getRange() {
+        return range;
+    }
+
+    /**
+     * Returns a field type that parses range query bounds like the mapped field.
+     */
+    public synchronized DateFieldMapper.DateFieldType getFieldType() {
+        if (fieldType == null) {
+            fieldType = new DateFieldMapper.DateFieldType(field, resolution, DateFormatter.forPattern(format).withLocale(locale));
+        }
+        return fieldType;
+    }
+
+    /**
+     * Returns the fields whose ranges shards of the provided index report to coordinating nodes. Ranges are only reported and
+     * used while the index is write-blocked, since documents that are added later may fall outside of them.
+     */
+    public static List<String> getCoordinatorRangeFields(IndexMetadata indexMetadata) {
+        final Settings settings = indexMetadata.getSettings();
+        final boolean writeBlocked = IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(settings)
+            || IndexMetadata.INDEX_READ_ONLY_SETTING.get(settings)
+            || IndexMetadata.INDEX_BLOCKS_READ_ONLY_ALLOW_DELETE_SETTING.get(settings);
+        return writeBlocked ? IndexSettings.COORDINATOR_RANGE_FIELDS_SETTING.get(settings) : Collections.emptyList();
+    }
+}
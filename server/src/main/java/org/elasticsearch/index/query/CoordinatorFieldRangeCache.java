@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.query;
+
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.List;
+
+/**
+ * Caches on coordinating nodes the ranges of date fields that shards reported in their can_match responses, see
+ * {@link CoordinatorFieldRange}. Cached ranges are only returned while the index is write-blocked and its settings did not change
+ * since the ranges were cached, which guarantees that no document was added to the shards in the meantime.
+ */
+public final class CoordinatorFieldRangeCache {
+
+    public static final Setting<Integer> CACHE_SIZE_SETTING =
+        Setting.intSetting("search.can_match.field_range_cache.size", 10_000, 0, Property.NodeScope);
+
+    private final Cache<ShardId, Entry> cache;
+
+    public CoordinatorFieldRangeCache(Settings settings) {
+        this.cache = CacheBuilder.<ShardId, Entry>builder().setMaximumWeight(CACHE_SIZE_SETTING.get(settings)).build();
+    }
+
+    /**
+     * Caches the field ranges that a shard of the provided index reported.
+     */
+    public void put(ShardId shardId, @Nullable IndexMetadata indexMetadata, List<CoordinatorFieldRange> fieldRanges) {
+        if (indexMetadata == null || fieldRanges.isEmpty() || CoordinatorFieldRange.getCoordinatorRangeFields(indexMetadata).isEmpty()) {
+            return;
+        }
+        cache.put(shardId, new Entry(indexMetadata.getSettingsVersion(), fieldRanges));
+    }
+
+    /**
+     * Returns the cached field ranges of the shard if they are still valid for the provided index, {@code null} otherwise.
+     */
+    @Nullable
+    public List<CoordinatorFieldRange> get(ShardId shardId, @Nullable IndexMetadata indexMetadata) {
+        final Entry entry = cache.get(shardId);
+        if (entry == null) {
+            return null;
+        }
+        if (indexMetadata == null
+                || indexMetadata.getSettingsVersion() != entry.settingsVersion
+                || CoordinatorFieldRange.getCoordinatorRangeFields(indexMetadata).isEmpty()) {
+            cache.invalidate(shardId, entry);
+            return null;
+        }
+        return entry.fieldRanges;
+    }
+
+    /**
+     * Returns the number of shards whose field ranges are cached.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    private static final class Entry {
+        private final long settingsVersion;
+        private final List<CoordinatorFieldRange> fieldRanges;
+
+        Entry(long settingsVersion, List<CoordinatorFieldRange> fieldRanges) {
+            this.settingsVersion = settingsVersion;
+            this.fieldRanges = fieldRanges;
+        }
+    }
+}
@@ -16,7 +16,12 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.LongSupplier;
 
 /**
@@ -24,12 +29,14 @@ import java.util.function.LongSupplier;
  * Instances of this object rely on information stored in the {@code IndexMetadata} for certain indices.
  * Right now this context object is able to rewrite range queries that include a known timestamp field
  * (i.e. the timestamp field for DataStreams) into a MatchNoneQueryBuilder and skip the shards that
- * don't hold queried data. See IndexMetadata#getTimestampRange() for more details
+ * don't hold queried data. See IndexMetadata#getTimestampRange() for more details.
+ * It can also rewrite range queries on date fields whose range of values in a single shard was cached by
+ * the coordinating node, see {@link CoordinatorFieldRange}.
  */
 public class CoordinatorRewriteContext extends QueryRewriteContext {
     private final Index index;
-    private IndexLongFieldRange indexLongFieldRange;
-    private final DateFieldMapper.DateFieldType timestampFieldType;
+    private final Map<String, DateFieldMapper.DateFieldType> fieldTypes;
+    private final Map<String, long[]> fieldRanges;
 
     public CoordinatorRewriteContext(NamedXContentRegistry xContentRegistry,
                                      NamedWriteableRegistry writeableRegistry,
@@ -40,29 +47,53 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
                                      DateFieldMapper.DateFieldType timestampFieldType) {
         super(xContentRegistry, writeableRegistry, client, nowInMillis);
         this.index = index;
-        this.indexLongFieldRange = indexLongFieldRange;
-        this.timestampFieldType = timestampFieldType;
+        this.fieldTypes = Collections.singletonMap(timestampFieldType.name(), timestampFieldType);
+        if (indexLongFieldRange.isComplete() && indexLongFieldRange != IndexLongFieldRange.EMPTY) {
+            this.fieldRanges = Collections.singletonMap(timestampFieldType.name(),
+                new long[] { indexLongFieldRange.getMin(), indexLongFieldRange.getMax() });
+        } else {
+            this.fieldRanges = Collections.emptyMap();
+        }
     }
 
-    long getMinTimestamp() {
-        return indexLongFieldRange.getMin();
+    public CoordinatorRewriteContext(NamedXContentRegistry xContentRegistry,
+                                     NamedWriteableRegistry writeableRegistry,
+                                     Client client,
+                                     LongSupplier nowInMillis,
+                                     Index index,
+                                     Collection<CoordinatorFieldRange> shardFieldRanges) {
+        super(xContentRegistry, writeableRegistry, client, nowInMillis);
+        this.index = index;
+        this.fieldTypes = new HashMap<>();
+        this.fieldRanges = new HashMap<>();
+        for (CoordinatorFieldRange shardFieldRange : shardFieldRanges) {
+            fieldTypes.put(shardFieldRange.getField(), shardFieldRange.getFieldType());
+            final ShardLongFieldRange range = shardFieldRange.getRange();
+            if (range != ShardLongFieldRange.EMPTY) {
+                assert range != ShardLongFieldRange.UNKNOWN : "unknown ranges must not be used to rewrite queries";
+                fieldRanges.put(shardFieldRange.getField(), new long[] { range.getMin(), range.getMax() });
+            }
+        }
+    }
+
+    long getMin(String fieldName) {
+        return fieldRanges.get(fieldName)[0];
     }
 
-    long getMaxTimestamp() {
-        return indexLongFieldRange.getMax();
+    long getMax(String fieldName) {
+        return fieldRanges.get(fieldName)[1];
     }
 
-    boolean hasTimestampData() {
-        return indexLongFieldRange.isComplete() && indexLongFieldRange != IndexLongFieldRange.EMPTY;
+    /**
+     * Returns whether the given field has any value in the index or shard that this context rewrites queries for.
+     */
+    boolean hasData(String fieldName) {
+        return fieldRanges.containsKey(fieldName);
     }
 
     @Nullable
     public MappedFieldType getFieldType(String fieldName) {
-        if (fieldName.equals(timestampFieldType.name()) == false) {
-            return null;
-        }
-
-        return timestampFieldType;
+        return fieldTypes.get(fieldName);
     }
 
     @Override
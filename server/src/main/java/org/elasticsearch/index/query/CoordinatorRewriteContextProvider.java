@@ -17,7 +17,9 @@ import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardId;
 
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -29,6 +31,8 @@ public class CoordinatorRewriteContextProvider {
     private final LongSupplier nowInMillis;
     private final Supplier<ClusterState> clusterStateSupplier;
     private final Function<Index, DateFieldMapper.DateFieldType> mappingSupplier;
+    @Nullable
+    private final CoordinatorFieldRangeCache fieldRangeCache;
 
     public CoordinatorRewriteContextProvider(NamedXContentRegistry xContentRegistry,
                                              NamedWriteableRegistry writeableRegistry,
@@ -36,12 +40,23 @@ public class CoordinatorRewriteContextProvider {
                                              LongSupplier nowInMillis,
                                              Supplier<ClusterState> clusterStateSupplier,
                                              Function<Index, DateFieldMapper.DateFieldType> mappingSupplier) {
+        this(xContentRegistry, writeableRegistry, client, nowInMillis, clusterStateSupplier, mappingSupplier, null);
+    }
+
+    public CoordinatorRewriteContextProvider(NamedXContentRegistry xContentRegistry,
+                                             NamedWriteableRegistry writeableRegistry,
+                                             Client client,
+                                             LongSupplier nowInMillis,
+                                             Supplier<ClusterState> clusterStateSupplier,
+                                             Function<Index, DateFieldMapper.DateFieldType> mappingSupplier,
+                                             @Nullable CoordinatorFieldRangeCache fieldRangeCache) {
         this.xContentRegistry = xContentRegistry;
         this.writeableRegistry = writeableRegistry;
         this.client = client;
         this.nowInMillis = nowInMillis;
         this.clusterStateSupplier = clusterStateSupplier;
         this.mappingSupplier = mappingSupplier;
+        this.fieldRangeCache = fieldRangeCache;
     }
 
     @Nullable
@@ -69,4 +84,36 @@ public class CoordinatorRewriteContextProvider {
             dateFieldType
         );
     }
+
+    /**
+     * Returns a context that rewrites queries using the field ranges that were cached for the given shard, or {@code null} if there
+     * are no valid cached ranges.
+     */
+    @Nullable
+    public CoordinatorRewriteContext getCachedFieldRangesRewriteContext(ShardId shardId) {
+        if (fieldRangeCache == null) {
+            return null;
+        }
+        final IndexMetadata indexMetadata = clusterStateSupplier.get().metadata().index(shardId.getIndex());
+        final List<CoordinatorFieldRange> fieldRanges = fieldRangeCache.get(shardId, indexMetadata);
+        if (fieldRanges == null) {
+            return null;
+        }
+        return new CoordinatorRewriteContext(xContentRegistry,
+            writeableRegistry,
+            client,
+            nowInMillis,
+            shardId.getIndex(),
+            fieldRanges
+        );
+    }
+
+    /**
+     * Caches the field ranges that the given shard reported in its can_match response.
+     */
+    public void onShardFieldRanges(ShardId shardId, List<CoordinatorFieldRange> fieldRanges) {
+        if (fieldRangeCache != null && fieldRanges.isEmpty() == false) {
+            fieldRangeCache.put(shardId, clusterStateSupplier.get().metadata().index(shardId.getIndex()), fieldRanges);
+        }
+    }
 }
@@ -423,11 +423,11 @@ public class RangeQueryBuilder extends AbstractQueryBuilder<RangeQueryBuilder> i
             final MappedFieldType fieldType = coordinatorRewriteContext.getFieldType(fieldName);
             if (fieldType instanceof DateFieldMapper.DateFieldType) {
                 final DateFieldMapper.DateFieldType dateFieldType = (DateFieldMapper.DateFieldType) fieldType;
-                if (coordinatorRewriteContext.hasTimestampData() == false) {
+                if (coordinatorRewriteContext.hasData(fieldName) == false) {
                     return MappedFieldType.Relation.DISJOINT;
                 }
-                long minTimestamp = coordinatorRewriteContext.getMinTimestamp();
-                long maxTimestamp = coordinatorRewriteContext.getMaxTimestamp();
+                long minTimestamp = coordinatorRewriteContext.getMin(fieldName);
+                long maxTimestamp = coordinatorRewriteContext.getMax(fieldName);
                 DateMathParser dateMathParser = getForceDateParser();
                 return dateFieldType.isFieldWithinQuery(minTimestamp, maxTimestamp, from, to, includeLower,
                     includeUpper, timeZone, dateMathParser, queryRewriteContext);
@@ -405,6 +405,15 @@ public class SearchExecutionContext extends QueryRewriteContext {
         };
     }
 
+    /**
+     * Return the index-time analyzer of a field
+     * @param field                     the name of the field
+     * @param unindexedFieldAnalyzer    a function that builds an analyzer for unindexed fields
+     */
+    public NamedAnalyzer getIndexAnalyzer(String field, Function<String, NamedAnalyzer> unindexedFieldAnalyzer) {
+        return mappingLookup.indexAnalyzer(field, unindexedFieldAnalyzer);
+    }
+
     public ValuesSourceRegistry getValuesSourceRegistry() {
         return valuesSourceRegistry;
     }
@@ -108,6 +108,27 @@ public class LocalCheckpointTracker {
         markSeqNo(seqNo, persistedCheckpoint, persistedSeqNo);
     }
 
+    /**
+     * Moves the persisted checkpoint forward to the provided sequence number, for instance because all operations up to it were made
+     * durable by a Lucene commit rather than by the translog. All these operations must have been processed already.
+     *
+     * @param seqNo the sequence number up to which all operations are persisted
+     */
+    public synchronized void fastForwardPersistedSeqNo(final long seqNo) {
+        assert seqNo <= processedCheckpoint.get() : "persisted [" + seqNo + "] above processed checkpoint [" + processedCheckpoint + "]";
+        if (seqNo <= persistedCheckpoint.get()) {
+            return;
+        }
+        // the bit sets whose sequence numbers are all covered by the new checkpoint are not needed any more
+        final long bitSetKey = getBitSetKey(seqNo);
+        persistedSeqNo.removeAll(key -> key < bitSetKey || (key == bitSetKey && seqNo == lastSeqNoInBitSet(bitSetKey)));
+        persistedCheckpoint.set(seqNo);
+        final CountedBitSet bitSet = persistedSeqNo.get(getBitSetKey(seqNo + 1));
+        if (bitSet != null && bitSet.get(seqNoToBitSetOffset(seqNo + 1))) {
+            updateCheckpoint(persistedCheckpoint, persistedSeqNo);
+        }
+    }
+
     private void markSeqNo(final long seqNo, final AtomicLong checkPoint, final LongObjectHashMap<CountedBitSet> bitSetMap) {
         assert Thread.holdsLock(this);
         // make sure we track highest seen sequence number
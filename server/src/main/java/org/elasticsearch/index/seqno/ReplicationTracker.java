@@ -541,6 +541,36 @@ public class ReplicationTracker extends AbstractIndexShardComponent implements L
             .collect(Collectors.toUnmodifiableList());
     }
 
+    /**
+     * Source for retention leases that retain the index commit of a persistent point in time, so that the shard copies that hold this
+     * commit can reopen it after they restart. See {@link ReplicationTracker#getPointInTimeRetentionLeaseId}.
+     */
+    public static final String POINT_IN_TIME_RETENTION_LEASE_SOURCE = "point in time";
+
+    /**
+     * Retaining sequence number of the retention leases of persistent points in time. These leases retain their index commit by its
+     * searcher id, see {@link #getPointInTimeSearcherIds}, and the index commit doesn't need any operation history, so they retain none.
+     */
+    public static final long POINT_IN_TIME_RETAINING_SEQUENCE_NUMBER = Long.MAX_VALUE;
+
+    /**
+     * Id for the retention lease of the reader context with the given session id and id, which searches the index commit with the given
+     * searcher id.
+     */
+    public static String getPointInTimeRetentionLeaseId(String sessionId, long contextId, String searcherId) {
+        return "point_in_time/" + sessionId + "/" + contextId + "/" + searcherId;
+    }
+
+    /**
+     * Returns the searcher ids of the index commits that the given point-in-time retention leases retain.
+     */
+    public static Set<String> getPointInTimeSearcherIds(RetentionLeases retentionLeases) {
+        return retentionLeases.leases().stream()
+            .filter(lease -> POINT_IN_TIME_RETENTION_LEASE_SOURCE.equals(lease.source()))
+            .map(lease -> lease.id().substring(lease.id().lastIndexOf('/') + 1))
+            .collect(Collectors.toUnmodifiableSet());
+    }
+
     /**
      * Advance the peer-recovery retention leases for all assigned shard copies to discard history below the corresponding global
      * checkpoint, and renew any leases that are approaching expiry.
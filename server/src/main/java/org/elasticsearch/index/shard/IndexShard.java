@@ -80,6 +80,7 @@ import org.elasticsearch.index.bulk.stats.BulkStats;
 import org.elasticsearch.index.bulk.stats.ShardBulkStats;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
@@ -108,6 +109,7 @@ import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.merge.MergeBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.recovery.RecoveryStats;
 import org.elasticsearch.index.refresh.RefreshStats;
@@ -152,6 +154,7 @@ import java.io.PrintStream;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
@@ -216,6 +219,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final PendingReplicationActions pendingReplicationActions;
     private final ReplicationTracker replicationTracker;
     private final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier;
+    private final MergeBudget mergeBudget;
 
     protected volatile ShardRouting shardRouting;
     protected volatile IndexShardState state;
@@ -297,7 +301,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             final Runnable globalCheckpointSyncer,
             final RetentionLeaseSyncer retentionLeaseSyncer,
             final CircuitBreakerService circuitBreakerService,
-            final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier) throws IOException {
+            final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
+            final MergeBudget mergeBudget) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -308,6 +313,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Objects.requireNonNull(store, "Store must be provided to the index shard");
         this.engineFactory = Objects.requireNonNull(engineFactory);
         this.snapshotCommitSupplier = Objects.requireNonNull(snapshotCommitSupplier);
+        this.mergeBudget = Objects.requireNonNull(mergeBudget);
         this.store = store;
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
@@ -368,6 +374,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                     return true;
                 }
             };
+        } else if (IndexModule.INDEX_QUERY_CACHE_POLICY_SETTING.get(settings) == IndexModule.QueryCachingPolicyType.COST_AWARE) {
+            cachingPolicy = new CostAwareQueryCachingPolicy();
         } else {
             cachingPolicy = new UsageTrackingQueryCachingPolicy();
         }
@@ -980,6 +988,15 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return result;
     }
 
+    /**
+     * Resolves the current versions of the documents with the given ids in one go ahead of executing primary operations on them,
+     * see {@link Engine#prefetchDocVersions(Collection)}.
+     */
+    public void prefetchDocVersions(Collection<String> ids) throws IOException {
+        ensureWriteAllowed(Engine.Operation.Origin.PRIMARY);
+        getEngine().prefetchDocVersions(ids.stream().map(Uid::encodeId).collect(Collectors.toList()));
+    }
+
     public Engine.GetResult get(Engine.Get get) {
         readAllowed();
         MappingLookup mappingLookup = mapperService.mappingLookup();
@@ -1273,6 +1290,20 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return engine.acquireSearcherSupplier(this::wrapSearcher, scope);
     }
 
+    /**
+     * Acquires a point-in-time reader on an index commit, see {@link Engine#acquireSearcherSupplierOnCommit(Function, String)}.
+     *
+     * @param searcherId the searcher id of the commit, or {@code null} to flush and open the reader on the last commit
+     * @return the reader, or {@code null} if this shard copy does not hold a commit with the given searcher id
+     */
+    @Nullable
+    public Engine.SearcherSupplier acquireSearcherSupplierOnCommit(@Nullable String searcherId) {
+        readAllowed();
+        markSearcherAccessed();
+        final Engine engine = getEngine();
+        return engine.acquireSearcherSupplierOnCommit(this::wrapSearcher, searcherId);
+    }
+
     public Engine.Searcher acquireSearcher(String source) {
         return acquireSearcher(source, Engine.SearcherScope.EXTERNAL);
     }
@@ -2860,7 +2891,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 globalCheckpointSupplier,
                 replicationTracker::getRetentionLeases,
                 this::getOperationPrimaryTerm,
-                snapshotCommitSupplier);
+                snapshotCommitSupplier,
+                mergeBudget);
     }
 
     /**
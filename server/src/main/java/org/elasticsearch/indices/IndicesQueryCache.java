@@ -22,11 +22,14 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.Weight;
 import org.elasticsearch.common.lucene.ShardCoreKeyMap;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.cache.query.CostAwareQueryCachingPolicy;
 import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.cache.query.QueryTypeCacheStats;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.io.Closeable;
@@ -37,6 +40,7 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 
 public class IndicesQueryCache implements QueryCache, Closeable {
@@ -63,6 +67,12 @@ public class IndicesQueryCache implements QueryCache, Closeable {
     // See onDocIdSetEviction for more info
     private final Map<Object, StatsAndCount> stats2 = Collections.synchronizedMap(new IdentityHashMap<>());
 
+    // The doc id set that is being built by the current thread, if any. Doc id sets are built and
+    // put into the cache on the thread that asked for the scorer, which is how onDocIdSetCache
+    // can attribute the memory of a new cache entry to the query that is being evaluated, and onMiss
+    // can tell that the query is about to be evaluated without a cache entry.
+    private final ThreadLocal<CacheBuild> currentBuild = new ThreadLocal<>();
+
     public IndicesQueryCache(Settings settings) {
         final ByteSizeValue size = INDICES_CACHE_QUERY_SIZE_SETTING.get(settings);
         final int count = INDICES_CACHE_QUERY_COUNT_SETTING.get(settings);
@@ -116,16 +126,18 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
-        return new CachingWeightWrapper(in);
+        return new CachingWeightWrapper(in, policy instanceof CostAwareQueryCachingPolicy ? (CostAwareQueryCachingPolicy) policy : null);
     }
 
     private class CachingWeightWrapper extends Weight {
 
         private final Weight in;
+        private final CostAwareQueryCachingPolicy costAwarePolicy;
 
-        protected CachingWeightWrapper(Weight in) {
+        protected CachingWeightWrapper(Weight in, CostAwareQueryCachingPolicy costAwarePolicy) {
             super(in.getQuery());
             this.in = in;
+            this.costAwarePolicy = costAwarePolicy;
         }
 
         @Override
@@ -142,25 +154,115 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         @Override
         public Scorer scorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorer(context);
+            final CacheBuild build = startBuild();
+            Scorer scorer = null;
+            try {
+                scorer = in.scorer(context);
+                return scorer;
+            } finally {
+                final Scorer s = scorer;
+                finishBuild(build, context, s == null ? null : () -> s.iterator().cost());
+            }
         }
 
         @Override
         public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.scorerSupplier(context);
+            final ScorerSupplier supplier;
+            final CacheBuild build = startBuild();
+            try {
+                supplier = in.scorerSupplier(context);
+            } finally {
+                finishBuild(build, context, null);
+            }
+            if (supplier == null) {
+                return null;
+            }
+            // the cache may defer building the doc id set until the scorer is pulled, which is also when an uncached query gets evaluated
+            final boolean missed = build.missed && build.cached == false;
+            return new ScorerSupplier() {
+                @Override
+                public Scorer get(long leadCost) throws IOException {
+                    final CacheBuild build = startBuild();
+                    build.missed = missed;
+                    try {
+                        return supplier.get(leadCost);
+                    } finally {
+                        finishBuild(build, context, supplier::cost);
+                    }
+                }
+
+                @Override
+                public long cost() {
+                    return supplier.cost();
+                }
+            };
         }
 
         @Override
         public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
             shardKeyMap.add(context.reader());
-            return in.bulkScorer(context);
+            final CacheBuild build = startBuild();
+            BulkScorer bulkScorer = null;
+            try {
+                bulkScorer = in.bulkScorer(context);
+                return bulkScorer;
+            } finally {
+                final BulkScorer s = bulkScorer;
+                finishBuild(build, context, s == null ? null : s::cost);
+            }
         }
 
         @Override
         public boolean isCacheable(LeafReaderContext ctx) {
             return in.isCacheable(ctx);
         }
+
+        private CacheBuild startBuild() {
+            final CacheBuild build = new CacheBuild(currentBuild.get());
+            currentBuild.set(build);
+            return build;
+        }
+
+        /**
+         * Records the outcome of a call to the wrapped weight. {@code matches} estimates the number of documents that the query matches
+         * on the segment, or is {@code null} if the call did not evaluate the query.
+         */
+        private void finishBuild(CacheBuild build, LeafReaderContext context, LongSupplier matches) {
+            currentBuild.set(build.parent);
+            if (build.cached == false) {
+                if (build.missed && matches != null && costAwarePolicy != null && costAwarePolicy.needsCostEstimate(getQuery())) {
+                    // seed the cost of queries that were not cached yet, so that expensive ones do not need many uses to get cached
+                    final long evaluationNanos = System.nanoTime() - build.startTimeInNanos;
+                    costAwarePolicy.onUncachedEvaluation(getQuery(), evaluationNanos, matches.getAsLong(), context.reader().maxDoc());
+                }
+            } else {
+                final long buildTimeInNanos = System.nanoTime() - build.startTimeInNanos;
+                final ShardId shardId = shardKeyMap.getShardId(context.reader().getCoreCacheHelper().getKey());
+                // the shard may have been closed while building the cache entry, in which case its stats are gone for good
+                final Stats stats = shardId == null ? null : shardStats.get(shardId);
+                if (stats != null) {
+                    final QueryTypeStats queryTypeStats = stats.getQueryTypeStats(getQuery());
+                    queryTypeStats.cacheCount.inc();
+                    queryTypeStats.buildTimeInNanos.inc(buildTimeInNanos);
+                }
+                if (costAwarePolicy != null) {
+                    costAwarePolicy.onCache(getQuery(), buildTimeInNanos, build.ramBytesUsed);
+                }
+            }
+        }
+    }
+
+    private static final class CacheBuild {
+        final CacheBuild parent;
+        final long startTimeInNanos = System.nanoTime();
+        boolean missed;
+        boolean cached;
+        long ramBytesUsed;
+
+        CacheBuild(CacheBuild parent) {
+            this.parent = parent;
+        }
     }
 
     /** Clear all entries that belong to the given index. */
@@ -199,13 +301,22 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         volatile long missCount;
         volatile long cacheCount;
         volatile long cacheSize;
+        final Map<String, QueryTypeStats> queryTypes = new ConcurrentHashMap<>();
 
         Stats(ShardId shardId) {
             this.shardId = shardId;
         }
 
+        QueryTypeStats getQueryTypeStats(Query query) {
+            return queryTypes.computeIfAbsent(query.getClass().getSimpleName(), k -> new QueryTypeStats());
+        }
+
         QueryCacheStats toQueryCacheStats() {
-            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+            final Map<String, QueryTypeCacheStats> queryTypeCacheStats = new HashMap<>();
+            for (Map.Entry<String, QueryTypeStats> entry : queryTypes.entrySet()) {
+                queryTypeCacheStats.put(entry.getKey(), entry.getValue().toQueryTypeCacheStats());
+            }
+            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, queryTypeCacheStats);
         }
 
         @Override
@@ -215,6 +326,17 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         }
     }
 
+    private static class QueryTypeStats {
+        final CounterMetric hitCount = new CounterMetric();
+        final CounterMetric missCount = new CounterMetric();
+        final CounterMetric cacheCount = new CounterMetric();
+        final CounterMetric buildTimeInNanos = new CounterMetric();
+
+        QueryTypeCacheStats toQueryTypeCacheStats() {
+            return new QueryTypeCacheStats(hitCount.count(), missCount.count(), cacheCount.count(), buildTimeInNanos.count());
+        }
+    }
+
     private static class StatsAndCount {
         volatile int count;
         final Stats stats;
@@ -262,12 +384,8 @@ public class IndicesQueryCache implements QueryCache, Closeable {
 
         private Stats getOrCreateStats(Object coreKey) {
             final ShardId shardId = shardKeyMap.getShardId(coreKey);
-            Stats stats = shardStats.get(shardId);
-            if (stats == null) {
-                stats = new Stats(shardId);
-                shardStats.put(shardId, stats);
-            }
-            return stats;
+            // stats may also be created by weights that record how long it took to build a cache entry, outside of the cache lock
+            return shardStats.computeIfAbsent(shardId, Stats::new);
         }
 
         // It's ok to not protect these callbacks by a lock since it is
@@ -304,6 +422,12 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             shardStats.cacheCount += 1;
             shardStats.ramBytesUsed += ramBytesUsed;
 
+            final CacheBuild build = currentBuild.get();
+            if (build != null) {
+                build.cached = true;
+                build.ramBytesUsed += ramBytesUsed;
+            }
+
             StatsAndCount statsAndCount = stats2.get(readerCoreKey);
             if (statsAndCount == null) {
                 statsAndCount = new StatsAndCount(shardStats);
@@ -340,6 +464,7 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             super.onHit(readerCoreKey, filter);
             final Stats shardStats = getStats(readerCoreKey);
             shardStats.hitCount += 1;
+            shardStats.getQueryTypeStats(filter).hitCount.inc();
         }
 
         @Override
@@ -347,6 +472,12 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             super.onMiss(readerCoreKey, filter);
             final Stats shardStats = getOrCreateStats(readerCoreKey);
             shardStats.missCount += 1;
+            shardStats.getQueryTypeStats(filter).missCount.inc();
+
+            final CacheBuild build = currentBuild.get();
+            if (build != null) {
+                build.missed = true;
+            }
         }
     }
 }
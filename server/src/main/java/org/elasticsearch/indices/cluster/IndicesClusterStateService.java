@@ -23,9 +23,9 @@ import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.RecoverySource.Type;
-import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -70,8 +70,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -110,6 +110,12 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     private final RetentionLeaseSyncer retentionLeaseSyncer;
     private final NodeClient client;
 
+    // the shards that the last applied cluster state assigns to this node, maintained from the indices that changed in each cluster
+    // state rather than building the routing nodes of the whole routing table
+    private final Map<Index, Map<ShardId, ShardRouting>> localShards = new HashMap<>();
+    // the last cluster state that this service applied, or null if the next cluster state must be applied in full
+    private ClusterState lastAppliedState;
+
     @Inject
     public IndicesClusterStateService(
             final Settings settings,
@@ -191,6 +197,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     @Override
     public synchronized void applyClusterState(final ClusterChangedEvent event) {
         if (lifecycle.started() == false) {
+            lastAppliedState = null;
             return;
         }
 
@@ -204,24 +211,129 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                 // also cleans shards
                 indicesService.removeIndex(indexService.index(), NO_LONGER_ASSIGNED, "cleaning index (disabled block persistence)");
             }
+            lastAppliedState = null;
             return;
         }
 
+        // only the indices whose metadata or routing changed need to be visited, unless the last cluster state wasn't applied
+        final Set<Index> changedIndices = requiresFullApplication(event) ? null : event.changedIndices();
+        updateLocalShards(state, changedIndices);
+        lastAppliedState = state;
+
         updateFailedShardsCache(state);
 
         deleteIndices(event); // also deletes shards of deleted indices
 
-        removeIndices(event); // also removes shards of removed indices
+        removeIndices(event, changedIndices); // also removes shards of removed indices
 
-        failMissingShards(state);
+        failMissingShards(state, changedIndices);
 
-        removeShards(state);   // removes any local shards that doesn't match what the master expects
+        removeShards(changedIndices);   // removes any local shards that doesn't match what the master expects
 
-        updateIndices(event); // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        updateIndices(event, changedIndices); // can also fail shards, but these are then guaranteed to be in failedShardsCache
 
-        createIndices(state);
+        createIndices(state, changedIndices);
+
+        createOrUpdateShards(state, changedIndices);
+    }
 
-        createOrUpdateShards(state);
+    /**
+     * Returns whether all indices and shards must be checked against the new cluster state rather than only the changed ones. This is
+     * the case if the previous cluster state wasn't applied by this service, and if the nodes of the cluster changed, since a
+     * shard recovery may be waiting for its source node to join, and a new master may not have received the shard state updates
+     * that this node sent to the previous master.
+     */
+    private boolean requiresFullApplication(ClusterChangedEvent event) {
+        return event.previousState() != lastAppliedState || event.nodesDelta().hasChanges() || event.isNewCluster();
+    }
+
+    /**
+     * Updates the shards that are assigned to this node, including the targets of the shards that relocate to this node, for the
+     * given changed indices, or for all indices if {@code changedIndices} is {@code null}.
+     */
+    private void updateLocalShards(ClusterState state, @Nullable Set<Index> changedIndices) {
+        final String localNodeId = state.nodes().getLocalNodeId();
+        final RoutingTable routingTable = state.routingTable();
+        if (changedIndices == null) {
+            localShards.clear();
+            for (IndexRoutingTable indexRoutingTable : routingTable) {
+                addLocalShards(localNodeId, indexRoutingTable);
+            }
+        } else {
+            for (Index index : changedIndices) {
+                localShards.remove(index);
+                if (routingTable.hasIndex(index)) {
+                    addLocalShards(localNodeId, routingTable.index(index));
+                }
+            }
+        }
+    }
+
+    private void addLocalShards(String localNodeId, IndexRoutingTable indexRoutingTable) {
+        Map<ShardId, ShardRouting> shards = null;
+        for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
+            for (ShardRouting shardRouting : indexShardRoutingTable) {
+                final ShardRouting localShard;
+                if (localNodeId.equals(shardRouting.currentNodeId())) {
+                    localShard = shardRouting;
+                } else if (shardRouting.relocating() && localNodeId.equals(shardRouting.relocatingNodeId())) {
+                    localShard = shardRouting.getTargetRelocatingShard();
+                } else {
+                    continue;
+                }
+                if (shards == null) {
+                    shards = new LinkedHashMap<>();
+                    localShards.put(indexRoutingTable.getIndex(), shards);
+                }
+                shards.put(localShard.shardId(), localShard);
+            }
+        }
+    }
+
+    @Nullable
+    private ShardRouting getLocalShard(ShardId shardId) {
+        final Map<ShardId, ShardRouting> shards = localShards.get(shardId.getIndex());
+        return shards == null ? null : shards.get(shardId);
+    }
+
+    /**
+     * Returns the local shards of the given changed indices, or all local shards if {@code changedIndices} is {@code null}.
+     */
+    private List<ShardRouting> localShardsToVisit(@Nullable Set<Index> changedIndices) {
+        final List<ShardRouting> shards = new ArrayList<>();
+        if (changedIndices == null) {
+            for (Map<ShardId, ShardRouting> indexShards : localShards.values()) {
+                shards.addAll(indexShards.values());
+            }
+        } else {
+            for (Index index : changedIndices) {
+                final Map<ShardId, ShardRouting> indexShards = localShards.get(index);
+                if (indexShards != null) {
+                    shards.addAll(indexShards.values());
+                }
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the allocated indices of the given changed indices, or all allocated indices if {@code changedIndices} is {@code null}.
+     */
+    private List<AllocatedIndex<? extends Shard>> indicesToVisit(@Nullable Set<Index> changedIndices) {
+        final List<AllocatedIndex<? extends Shard>> indices = new ArrayList<>();
+        if (changedIndices == null) {
+            for (AllocatedIndex<? extends Shard> indexService : indicesService) {
+                indices.add(indexService);
+            }
+        } else {
+            for (Index index : changedIndices) {
+                final AllocatedIndex<? extends Shard> indexService = indicesService.indexService(index);
+                if (indexService != null) {
+                    indices.add(indexService);
+                }
+            }
+        }
+        return indices;
     }
 
     /**
@@ -232,18 +344,12 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * @param state new cluster state
      */
     private void updateFailedShardsCache(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-        if (localRoutingNode == null) {
-            failedShardsCache.clear();
-            return;
-        }
-
         DiscoveryNode masterNode = state.nodes().getMasterNode();
 
         // remove items from cache which are not in our routing table anymore and resend failures that have not executed on master yet
         for (Iterator<Map.Entry<ShardId, ShardRouting>> iterator = failedShardsCache.entrySet().iterator(); iterator.hasNext(); ) {
             ShardRouting failedShardRouting = iterator.next().getValue();
-            ShardRouting matchedRouting = localRoutingNode.getByShardId(failedShardRouting.shardId());
+            ShardRouting matchedRouting = getLocalShard(failedShardRouting.shardId());
             if (matchedRouting == null || matchedRouting.isSameAllocation(failedShardRouting) == false) {
                 iterator.remove();
             } else {
@@ -350,21 +456,14 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * {@link org.elasticsearch.indices.store.IndicesStore}).
      *
      * @param event the cluster changed event
+     * @param changedIndices the indices to visit, or {@code null} to visit all indices
      */
-    private void removeIndices(final ClusterChangedEvent event) {
+    private void removeIndices(final ClusterChangedEvent event, @Nullable final Set<Index> changedIndices) {
         final ClusterState state = event.state();
         final String localNodeId = state.nodes().getLocalNodeId();
         assert localNodeId != null;
 
-        final Set<Index> indicesWithShards = new HashSet<>();
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
-        if (localRoutingNode != null) { // null e.g. if we are not a data node
-            for (ShardRouting shardRouting : localRoutingNode) {
-                indicesWithShards.add(shardRouting.index());
-            }
-        }
-
-        for (AllocatedIndex<? extends Shard> indexService : indicesService) {
+        for (AllocatedIndex<? extends Shard> indexService : indicesToVisit(changedIndices)) {
             final Index index = indexService.index();
             final IndexMetadata indexMetadata = state.metadata().index(index);
             final IndexMetadata existingMetadata = indexService.getIndexSettings().getIndexMetadata();
@@ -372,7 +471,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
             AllocatedIndices.IndexRemovalReason reason = null;
             if (indexMetadata != null && indexMetadata.getState() != existingMetadata.getState()) {
                 reason = indexMetadata.getState() == IndexMetadata.State.CLOSE ? CLOSED : REOPENED;
-            } else if (indicesWithShards.contains(index) == false) {
+            } else if (localShards.containsKey(index) == false) {
                 // if the cluster change indicates a brand new cluster, we only want
                 // to remove the in-memory structures for the index and not delete the
                 // contents on disk because the index will later be re-imported as a
@@ -394,13 +493,10 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Notifies master about shards that don't exist but are supposed to be active on this node.
      *
      * @param state new cluster state
+     * @param changedIndices the indices to visit, or {@code null} to visit all indices
      */
-    private void failMissingShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-        if (localRoutingNode == null) {
-            return;
-        }
-        for (final ShardRouting shardRouting : localRoutingNode) {
+    private void failMissingShards(final ClusterState state, @Nullable final Set<Index> changedIndices) {
+        for (final ShardRouting shardRouting : localShardsToVisit(changedIndices)) {
             ShardId shardId = shardRouting.shardId();
             if (shardRouting.initializing() == false &&
                 failedShardsCache.containsKey(shardId) == false &&
@@ -416,19 +512,15 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
      * Removes shards that are currently loaded by indicesService but have disappeared from the routing table of the current node.
      * This method does not delete the shard data.
      *
-     * @param state new cluster state
+     * @param changedIndices the indices to visit, or {@code null} to visit all indices
      */
-    private void removeShards(final ClusterState state) {
-        final String localNodeId = state.nodes().getLocalNodeId();
-        assert localNodeId != null;
-
-        // remove shards based on routing nodes (no deletion of data)
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
-        for (AllocatedIndex<? extends Shard> indexService : indicesService) {
+    private void removeShards(@Nullable final Set<Index> changedIndices) {
+        // remove shards based on the local shards of the routing table (no deletion of data)
+        for (AllocatedIndex<? extends Shard> indexService : indicesToVisit(changedIndices)) {
             for (Shard shard : indexService) {
                 ShardRouting currentRoutingEntry = shard.routingEntry();
                 ShardId shardId = currentRoutingEntry.shardId();
-                ShardRouting newShardRouting = localRoutingNode == null ? null : localRoutingNode.getByShardId(shardId);
+                ShardRouting newShardRouting = getLocalShard(shardId);
                 if (newShardRouting == null) {
                     // we can just remove the shard without cleaning it locally, since we will clean it in IndicesStore
                     // once all shards are allocated
@@ -455,15 +547,11 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createIndices(final ClusterState state) {
+    private void createIndices(final ClusterState state, @Nullable final Set<Index> changedIndices) {
         // we only create indices for shards that are allocated
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-        if (localRoutingNode == null) {
-            return;
-        }
         // create map of indices to create with shards to fail if index creation fails
         final Map<Index, List<ShardRouting>> indicesToCreate = new HashMap<>();
-        for (ShardRouting shardRouting : localRoutingNode) {
+        for (ShardRouting shardRouting : localShardsToVisit(changedIndices)) {
             if (failedShardsCache.containsKey(shardRouting.shardId()) == false) {
                 final Index index = shardRouting.index();
                 if (indicesService.indexService(index) == null) {
@@ -496,12 +584,12 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void updateIndices(ClusterChangedEvent event) {
+    private void updateIndices(ClusterChangedEvent event, @Nullable Set<Index> changedIndices) {
         if (event.metadataChanged() == false) {
             return;
         }
         final ClusterState state = event.state();
-        for (AllocatedIndex<? extends Shard> indexService : indicesService) {
+        for (AllocatedIndex<? extends Shard> indexService : indicesToVisit(changedIndices)) {
             final Index index = indexService.index();
             final IndexMetadata currentIndexMetadata = indexService.getIndexSettings().getIndexMetadata();
             final IndexMetadata newIndexMetadata = state.metadata().index(index);
@@ -523,10 +611,10 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                     indicesService.removeIndex(indexService.index(), FAILURE, "removing index (" + reason + ")");
 
                     // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-                    if (localRoutingNode != null) {
-                        for (final ShardRouting shardRouting : localRoutingNode) {
-                            if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
+                    final Map<ShardId, ShardRouting> indexShards = localShards.get(index);
+                    if (indexShards != null) {
+                        for (final ShardRouting shardRouting : indexShards.values()) {
+                            if (failedShardsCache.containsKey(shardRouting.shardId()) == false) {
                                 sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
                             }
                         }
@@ -536,16 +624,11 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         }
     }
 
-    private void createOrUpdateShards(final ClusterState state) {
-        RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-        if (localRoutingNode == null) {
-            return;
-        }
-
+    private void createOrUpdateShards(final ClusterState state, @Nullable final Set<Index> changedIndices) {
         DiscoveryNodes nodes = state.nodes();
         RoutingTable routingTable = state.routingTable();
 
-        for (final ShardRouting shardRouting : localRoutingNode) {
+        for (final ShardRouting shardRouting : localShardsToVisit(changedIndices)) {
             ShardId shardId = shardRouting.shardId();
             if (failedShardsCache.containsKey(shardId) == false) {
                 AllocatedIndex<? extends Shard> indexService = indicesService.indexService(shardId.getIndex());
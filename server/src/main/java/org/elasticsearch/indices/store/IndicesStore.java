@@ -20,7 +20,6 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.IndexRoutingTable;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
-import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -32,6 +31,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
@@ -54,6 +54,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -79,6 +80,10 @@ public class IndicesStore implements ClusterStateListener, Closeable {
     // Cache successful shard deletion checks to prevent unnecessary file system lookups
     private final Set<ShardId> folderNotFoundCache = new HashSet<>();
 
+    // Shards whose deletion check was inconclusive and must be checked again on the next routing change, even if their routing didn't
+    // change
+    private final Set<ShardId> shardsToRecheck = ConcurrentCollections.newConcurrentSet();
+
     private final TimeValue deleteShardTimeout;
 
     @Inject
@@ -124,43 +129,64 @@ public class IndicesStore implements ClusterStateListener, Closeable {
         // - removing shard data of deleted indices is handled by IndicesClusterStateService
         // - closed indices don't need to be removed from the cache but we do it anyway for code simplicity
         folderNotFoundCache.removeIf(shardId -> routingTable.hasIndex(shardId.getIndex()) == false);
-        // remove entries from cache which are allocated to this node
+
+        // a shard copy can only become deletable if its routing changed, so only the changed shards are checked, along with the
+        // shards whose earlier check was inconclusive; all shards are checked if the nodes changed, since the checks depend on them
         final String localNodeId = event.state().nodes().getLocalNodeId();
-        RoutingNode localRoutingNode = event.state().getRoutingNodes().node(localNodeId);
-        if (localRoutingNode != null) {
-            for (ShardRouting routing : localRoutingNode) {
-                folderNotFoundCache.remove(routing.shardId());
+        final List<IndexShardRoutingTable> shardsToCheck = new ArrayList<>();
+        if (event.nodesChanged() || event.isNewCluster() || event.previousState().blocks().disableStatePersistence()) {
+            shardsToRecheck.clear();
+            for (IndexRoutingTable indexRoutingTable : routingTable) {
+                for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
+                    shardsToCheck.add(indexShardRoutingTable);
+                }
+            }
+        } else {
+            final Set<ShardId> shardIds = new HashSet<>(event.changedShards());
+            for (Iterator<ShardId> iterator = shardsToRecheck.iterator(); iterator.hasNext(); ) {
+                shardIds.add(iterator.next());
+                iterator.remove();
+            }
+            for (ShardId shardId : shardIds) {
+                final IndexShardRoutingTable indexShardRoutingTable = routingTable.shardRoutingTableOrNull(shardId);
+                if (indexShardRoutingTable != null) {
+                    shardsToCheck.add(indexShardRoutingTable);
+                }
             }
         }
 
-        for (IndexRoutingTable indexRoutingTable : routingTable) {
+        for (IndexShardRoutingTable indexShardRoutingTable : shardsToCheck) {
+            ShardId shardId = indexShardRoutingTable.shardId();
+            // remove entries from cache which are allocated to this node
+            for (ShardRouting shardRouting : indexShardRoutingTable) {
+                if (localNodeId.equals(shardRouting.currentNodeId()) || localNodeId.equals(shardRouting.relocatingNodeId())) {
+                    folderNotFoundCache.remove(shardId);
+                }
+            }
             // Note, closed indices will not have any routing information, so won't be deleted
-            for (IndexShardRoutingTable indexShardRoutingTable : indexRoutingTable) {
-                ShardId shardId = indexShardRoutingTable.shardId();
-                if (folderNotFoundCache.contains(shardId) == false && shardCanBeDeleted(localNodeId, indexShardRoutingTable)) {
-                    IndexService indexService = indicesService.indexService(indexRoutingTable.getIndex());
-                    final IndexSettings indexSettings;
-                    if (indexService == null) {
-                        IndexMetadata indexMetadata = event.state().getMetadata().getIndexSafe(indexRoutingTable.getIndex());
-                        indexSettings = new IndexSettings(indexMetadata, settings);
-                    } else {
-                        indexSettings = indexService.getIndexSettings();
-                    }
-                    IndicesService.ShardDeletionCheckResult shardDeletionCheckResult =
-                        indicesService.canDeleteShardContent(shardId, indexSettings);
-                    switch (shardDeletionCheckResult) {
-                        case FOLDER_FOUND_CAN_DELETE:
-                            deleteShardIfExistElseWhere(event.state(), indexShardRoutingTable);
-                            break;
-                        case NO_FOLDER_FOUND:
-                            folderNotFoundCache.add(shardId);
-                            break;
-                        case STILL_ALLOCATED:
-                            // nothing to do
-                            break;
-                        default:
-                            assert false : "unknown shard deletion check result: " + shardDeletionCheckResult;
-                    }
+            if (folderNotFoundCache.contains(shardId) == false && shardCanBeDeleted(localNodeId, indexShardRoutingTable)) {
+                IndexService indexService = indicesService.indexService(shardId.getIndex());
+                final IndexSettings indexSettings;
+                if (indexService == null) {
+                    IndexMetadata indexMetadata = event.state().getMetadata().getIndexSafe(shardId.getIndex());
+                    indexSettings = new IndexSettings(indexMetadata, settings);
+                } else {
+                    indexSettings = indexService.getIndexSettings();
+                }
+                IndicesService.ShardDeletionCheckResult shardDeletionCheckResult =
+                    indicesService.canDeleteShardContent(shardId, indexSettings);
+                switch (shardDeletionCheckResult) {
+                    case FOLDER_FOUND_CAN_DELETE:
+                        deleteShardIfExistElseWhere(event.state(), indexShardRoutingTable);
+                        break;
+                    case NO_FOLDER_FOUND:
+                        folderNotFoundCache.add(shardId);
+                        break;
+                    case STILL_ALLOCATED:
+                        shardsToRecheck.add(shardId);
+                        break;
+                    default:
+                        assert false : "unknown shard deletion check result: " + shardDeletionCheckResult;
                 }
             }
         }
@@ -253,6 +279,7 @@ public class IndicesStore implements ClusterStateListener, Closeable {
             if (activeCopies.get() != expectedActiveCopies) {
                 logger.trace("not deleting shard {}, expected {} active copies, but only {} found active copies",
                     shardId, expectedActiveCopies, activeCopies.get());
+                shardsToRecheck.add(shardId);
                 return;
             }
 
@@ -260,6 +287,7 @@ public class IndicesStore implements ClusterStateListener, Closeable {
             if (clusterStateVersion != latestClusterState.getVersion()) {
                 logger.trace("not deleting shard {}, the latest cluster state version[{}] is not equal to cluster state " +
                     "before shard active api call [{}]", shardId, latestClusterState.getVersion(), clusterStateVersion);
+                shardsToRecheck.add(shardId);
                 return;
             }
 
@@ -268,6 +296,7 @@ public class IndicesStore implements ClusterStateListener, Closeable {
                     if (clusterStateVersion != currentState.getVersion()) {
                         logger.trace("not deleting shard {}, the update task state version[{}] is not equal to cluster state before " +
                             "shard active api call [{}]", shardId, currentState.getVersion(), clusterStateVersion);
+                        shardsToRecheck.add(shardId);
                         return;
                     }
                     try {
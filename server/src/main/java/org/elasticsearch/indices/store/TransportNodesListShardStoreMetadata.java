@@ -8,6 +8,7 @@
 
 package org.elasticsearch.indices.store;
 
+import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.ActionType;
@@ -94,14 +95,20 @@ public class TransportNodesListShardStoreMetadata extends TransportNodesAction<T
     @Override
     protected NodeStoreFilesMetadata nodeOperation(NodeRequest request, Task task) {
         try {
-            return new NodeStoreFilesMetadata(clusterService.localNode(), listStoreMetadata(request));
+            return new NodeStoreFilesMetadata(clusterService.localNode(), listStoreMetadata(logger, request.getShardId(),
+                request.getCustomDataPath(), indicesService, clusterService, nodeEnv, settings));
         } catch (IOException e) {
             throw new ElasticsearchException("Failed to list store metadata for shard [" + request.shardId + "]", e);
         }
     }
 
-    private StoreFilesMetadata listStoreMetadata(NodeRequest request) throws IOException {
-        final ShardId shardId = request.getShardId();
+    /**
+     * Lists the store files of the given shard on this node, taking them from the open shard if there is one. Shared by the single-shard
+     * and the batched variants of this action.
+     */
+    static StoreFilesMetadata listStoreMetadata(Logger logger, ShardId shardId, @Nullable String requestCustomDataPath,
+                                                IndicesService indicesService, ClusterService clusterService, NodeEnvironment nodeEnv,
+                                                Settings settings) throws IOException {
         logger.trace("listing store meta data for {}", shardId);
         long startTimeNS = System.nanoTime();
         boolean exists = false;
@@ -125,8 +132,8 @@ public class TransportNodesListShardStoreMetadata extends TransportNodesAction<T
                 }
             }
             final String customDataPath;
-            if (request.getCustomDataPath() != null) {
-                customDataPath = request.getCustomDataPath();
+            if (requestCustomDataPath != null) {
+                customDataPath = requestCustomDataPath;
             } else {
                 // TODO: Fallback for BWC with older ES versions. Remove this once request.getCustomDataPath() always returns non-null
                 if (indexService != null) {
@@ -0,0 +1,223 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.store;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionType;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesRequest;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.action.support.nodes.TransportNodesAction;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadata.StoreFilesMetadata;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Batched variant of {@link TransportNodesListShardStoreMetadata} which lists the store files of many shards with a single request to
+ * each node. After a full cluster restart the replicas of all shards become allocatable at about the same time once their primaries have
+ * started, so the {@link org.elasticsearch.gateway.GatewayAllocator} needs the store files of every replica in the same few allocation
+ * rounds.
+ */
+public class TransportNodesListShardStoreMetadataBatch extends
+    TransportNodesAction<TransportNodesListShardStoreMetadataBatch.Request,
+        TransportNodesListShardStoreMetadataBatch.NodesStoreFilesMetadataBatch,
+        TransportNodesListShardStoreMetadataBatch.NodeRequest,
+        TransportNodesListShardStoreMetadataBatch.NodeStoreFilesMetadataBatch> {
+
+    public static final String ACTION_NAME = "internal:cluster/nodes/indices/shard/store_batch";
+    public static final ActionType<NodesStoreFilesMetadataBatch> TYPE =
+        new ActionType<>(ACTION_NAME, NodesStoreFilesMetadataBatch::new);
+
+    private final Settings settings;
+    private final IndicesService indicesService;
+    private final NodeEnvironment nodeEnv;
+
+    @Inject
+    public TransportNodesListShardStoreMetadataBatch(Settings settings, ThreadPool threadPool, ClusterService clusterService,
+                                                     TransportService transportService, IndicesService indicesService,
+                                                     NodeEnvironment nodeEnv, ActionFilters actionFilters) {
+        super(ACTION_NAME, threadPool, clusterService, transportService, actionFilters,
+            Request::new, NodeRequest::new, ThreadPool.Names.FETCH_SHARD_STORE, NodeStoreFilesMetadataBatch.class);
+        this.settings = settings;
+        this.indicesService = indicesService;
+        this.nodeEnv = nodeEnv;
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(Request request) {
+        return new NodeRequest(request);
+    }
+
+    @Override
+    protected NodeStoreFilesMetadataBatch newNodeResponse(StreamInput in) throws IOException {
+        return new NodeStoreFilesMetadataBatch(in);
+    }
+
+    @Override
+    protected NodesStoreFilesMetadataBatch newResponse(Request request, List<NodeStoreFilesMetadataBatch> responses,
+                                                       List<FailedNodeException> failures) {
+        return new NodesStoreFilesMetadataBatch(clusterService.getClusterName(), responses, failures);
+    }
+
+    @Override
+    protected NodeStoreFilesMetadataBatch nodeOperation(NodeRequest request, Task task) {
+        final Map<ShardId, StoreFilesMetadata> storeFiles = new HashMap<>();
+        final Map<ShardId, Exception> failures = new HashMap<>();
+        for (Map.Entry<ShardId, String> shard : request.getShards().entrySet()) {
+            try {
+                storeFiles.put(shard.getKey(), TransportNodesListShardStoreMetadata.listStoreMetadata(logger, shard.getKey(),
+                    shard.getValue(), indicesService, clusterService, nodeEnv, settings));
+            } catch (Exception e) {
+                // fail only this shard rather than the whole batch, like a failure of the single-shard action only affects its shard
+                failures.put(shard.getKey(),
+                    new ElasticsearchException("Failed to list store metadata for shard [" + shard.getKey() + "]", e));
+            }
+        }
+        return new NodeStoreFilesMetadataBatch(clusterService.localNode(), storeFiles, failures);
+    }
+
+    public static class Request extends BaseNodesRequest<Request> {
+
+        private final Map<ShardId, String> shards;
+
+        public Request(StreamInput in) throws IOException {
+            super(in);
+            shards = in.readMap(ShardId::new, StreamInput::readString);
+        }
+
+        /**
+         * @param shards the shards to list, mapped to their custom data paths (an empty string if no custom data path is used)
+         */
+        public Request(Map<ShardId, String> shards, DiscoveryNode[] nodes) {
+            super(nodes);
+            this.shards = Objects.requireNonNull(shards);
+        }
+
+        public Map<ShardId, String> getShards() {
+            return shards;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeMap(shards, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeString);
+        }
+    }
+
+    public static class NodesStoreFilesMetadataBatch extends BaseNodesResponse<NodeStoreFilesMetadataBatch> {
+
+        public NodesStoreFilesMetadataBatch(StreamInput in) throws IOException {
+            super(in);
+        }
+
+        public NodesStoreFilesMetadataBatch(ClusterName clusterName, List<NodeStoreFilesMetadataBatch> nodes,
+                                            List<FailedNodeException> failures) {
+            super(clusterName, nodes, failures);
+        }
+
+        @Override
+        protected List<NodeStoreFilesMetadataBatch> readNodesFrom(StreamInput in) throws IOException {
+            return in.readList(NodeStoreFilesMetadataBatch::new);
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<NodeStoreFilesMetadataBatch> nodes) throws IOException {
+            out.writeList(nodes);
+        }
+    }
+
+    public static class NodeRequest extends TransportRequest {
+
+        private final Map<ShardId, String> shards;
+
+        public NodeRequest(StreamInput in) throws IOException {
+            super(in);
+            shards = in.readMap(ShardId::new, StreamInput::readString);
+        }
+
+        public NodeRequest(Request request) {
+            this.shards = Objects.requireNonNull(request.getShards());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeMap(shards, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeString);
+        }
+
+        public Map<ShardId, String> getShards() {
+            return shards;
+        }
+    }
+
+    public static class NodeStoreFilesMetadataBatch extends BaseNodeResponse {
+
+        private final Map<ShardId, StoreFilesMetadata> storeFiles;
+        private final Map<ShardId, Exception> failures;
+
+        public NodeStoreFilesMetadataBatch(StreamInput in) throws IOException {
+            super(in);
+            // the store files metadata carries its shard id already
+            final List<StoreFilesMetadata> storeFilesList = in.readList(StoreFilesMetadata::new);
+            storeFiles = new HashMap<>(storeFilesList.size());
+            for (StoreFilesMetadata storeFilesMetadata : storeFilesList) {
+                storeFiles.put(storeFilesMetadata.shardId(), storeFilesMetadata);
+            }
+            failures = in.readMap(ShardId::new, StreamInput::readException);
+        }
+
+        public NodeStoreFilesMetadataBatch(DiscoveryNode node, Map<ShardId, StoreFilesMetadata> storeFiles,
+                                           Map<ShardId, Exception> failures) {
+            super(node);
+            this.storeFiles = storeFiles;
+            this.failures = failures;
+        }
+
+        /**
+         * @return the store files that were found on this node, per requested shard that could be listed
+         */
+        public Map<ShardId, StoreFilesMetadata> getStoreFiles() {
+            return storeFiles;
+        }
+
+        /**
+         * @return the failures to list the store files of the requested shards that could not be listed
+         */
+        public Map<ShardId, Exception> getFailures() {
+            return failures;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeCollection(storeFiles.values());
+            out.writeMap(failures, (o, shardId) -> shardId.writeTo(o), StreamOutput::writeException);
+        }
+    }
+}
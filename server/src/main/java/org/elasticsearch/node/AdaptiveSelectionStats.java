@@ -26,7 +26,7 @@ import java.util.stream.Collectors;
 
 /**
  * Class representing statistics about adaptive replica selection. This includes
- * EWMA of queue size, service time, and response time, as well as outgoing
+ * EWMA of queue size, service time, response time and node load, as well as outgoing
  * searches to each node and the "rank" based on the ARS formula.
  */
 public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
@@ -70,6 +70,15 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
                     builder.field("avg_response_time", new TimeValue((long) stats.responseTime, TimeUnit.NANOSECONDS).toString());
                 }
                 builder.field("avg_response_time_ns", (long) stats.responseTime);
+                if (stats.gcOverhead >= 0) {
+                    builder.field("avg_gc_overhead_percent", stats.gcOverhead);
+                }
+                if (stats.cpuPercent >= 0) {
+                    builder.field("avg_cpu_percent", stats.cpuPercent);
+                }
+                if (stats.searchRejections >= 0) {
+                    builder.field("avg_search_rejections", stats.searchRejections);
+                }
                 builder.field("rank", String.format(Locale.ROOT, "%.1f", stats.rank(outgoingSearches)));
             }
             builder.endObject();
@@ -0,0 +1,109 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.XRejectedExecutionHandler;
+import org.elasticsearch.monitor.process.ProcessProbe;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically samples the load of the local node into {@link NodeLoadStats}, which query results carry back to the coordinating
+ * nodes for adaptive replica selection. Sampling is cheap but not free, so it runs on a fixed interval rather than for every search.
+ */
+public final class NodeLoadSampler implements Runnable {
+
+    public static final Setting<TimeValue> SAMPLING_INTERVAL_SETTING = Setting.timeSetting("search.node_load.sampling_interval",
+        TimeValue.timeValueSeconds(1), TimeValue.timeValueMillis(100), Property.NodeScope);
+
+    private final LongSupplier gcTimeMillis;
+    private final IntSupplier cpuPercent;
+    private final LongSupplier searchRejections;
+    private final LongSupplier relativeTimeMillis;
+
+    private long lastGcTimeMillis;
+    private long lastSearchRejections;
+    private long lastTimeMillis;
+    private volatile NodeLoadStats current;
+
+    public NodeLoadSampler(ThreadPool threadPool) {
+        this(NodeLoadSampler::totalGcTimeMillis, () -> ProcessProbe.getInstance().getProcessCpuPercent(),
+            () -> rejectedExecutions(threadPool.executor(ThreadPool.Names.SEARCH)), threadPool::relativeTimeInMillis);
+    }
+
+    NodeLoadSampler(LongSupplier gcTimeMillis, IntSupplier cpuPercent, LongSupplier searchRejections, LongSupplier relativeTimeMillis) {
+        this.gcTimeMillis = gcTimeMillis;
+        this.cpuPercent = cpuPercent;
+        this.searchRejections = searchRejections;
+        this.relativeTimeMillis = relativeTimeMillis;
+        this.lastGcTimeMillis = gcTimeMillis.getAsLong();
+        this.lastSearchRejections = searchRejections.getAsLong();
+        this.lastTimeMillis = relativeTimeMillis.getAsLong();
+    }
+
+    /**
+     * Returns the load of the node during the last sampling interval, or {@code null} if the node was not sampled yet.
+     */
+    @Nullable
+    public NodeLoadStats current() {
+        return current;
+    }
+
+    @Override
+    public synchronized void run() {
+        final long timeMillis = relativeTimeMillis.getAsLong();
+        final long elapsedMillis = timeMillis - lastTimeMillis;
+        if (elapsedMillis <= 0) {
+            return;
+        }
+        final long gcTime = gcTimeMillis.getAsLong();
+        final long rejections = searchRejections.getAsLong();
+        final int gcOverheadPercent = gcTime < 0 || lastGcTimeMillis < 0
+            ? -1
+            : (int) Math.min(100, (100 * (gcTime - lastGcTimeMillis)) / elapsedMillis);
+        final long newRejections = rejections < 0 || lastSearchRejections < 0 ? -1 : rejections - lastSearchRejections;
+        current = new NodeLoadStats(gcOverheadPercent, cpuPercent.getAsInt(), newRejections);
+        lastGcTimeMillis = gcTime;
+        lastSearchRejections = rejections;
+        lastTimeMillis = timeMillis;
+    }
+
+    private static long totalGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long time = gc.getCollectionTime();
+            if (time < 0) {
+                return -1;
+            }
+            total += time;
+        }
+        return total;
+    }
+
+    private static long rejectedExecutions(ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            RejectedExecutionHandler rejectedExecutionHandler = ((ThreadPoolExecutor) executor).getRejectedExecutionHandler();
+            if (rejectedExecutionHandler instanceof XRejectedExecutionHandler) {
+                return ((XRejectedExecutionHandler) rejectedExecutionHandler).rejected();
+            }
+        }
+        return -1;
+    }
+}
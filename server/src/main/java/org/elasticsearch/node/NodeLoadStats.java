@@ -0,0 +1,86 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Signals about the load of a node that are piggybacked on its query results, so that adaptive replica selection can steer searches
+ * away from nodes that are slowed down by garbage collections, a saturated CPU or rejected searches before their search queue grows.
+ * Each signal covers the last sampling interval of the {@link NodeLoadSampler} of the node, and is {@code -1} if it is not available.
+ */
+public final class NodeLoadStats implements Writeable {
+
+    private final int gcOverheadPercent;
+    private final int cpuPercent;
+    private final long searchRejections;
+
+    public NodeLoadStats(int gcOverheadPercent, int cpuPercent, long searchRejections) {
+        this.gcOverheadPercent = gcOverheadPercent;
+        this.cpuPercent = cpuPercent;
+        this.searchRejections = searchRejections;
+    }
+
+    public NodeLoadStats(StreamInput in) throws IOException {
+        this.gcOverheadPercent = in.readInt();
+        this.cpuPercent = in.readInt();
+        this.searchRejections = in.readZLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeInt(gcOverheadPercent);
+        out.writeInt(cpuPercent);
+        out.writeZLong(searchRejections);
+    }
+
+    /**
+     * The percentage of the sampling interval that the JVM spent collecting garbage.
+     */
+    public int getGcOverheadPercent() {
+        return gcOverheadPercent;
+    }
+
+    /**
+     * The CPU usage of the process.
+     */
+    public int getCpuPercent() {
+        return cpuPercent;
+    }
+
+    /**
+     * The number of searches that the search thread pool rejected during the sampling interval.
+     */
+    public long getSearchRejections() {
+        return searchRejections;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NodeLoadStats that = (NodeLoadStats) o;
+        return gcOverheadPercent == that.gcOverheadPercent && cpuPercent == that.cpuPercent && searchRejections == that.searchRejections;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(gcOverheadPercent, cpuPercent, searchRejections);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeLoadStats{gc_overhead=" + gcOverheadPercent + "%, cpu=" + cpuPercent + "%, search_rejections=" + searchRejections + "}";
+    }
+}
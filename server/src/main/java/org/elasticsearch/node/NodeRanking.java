@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.node.ResponseCollectorService.ComputedNodeStats;
+
+/**
+ * Ranks the nodes that hold copies of a shard for adaptive replica selection, the copy on the node with the lowest rank is searched.
+ * The ranking that coordinating nodes use is selected with {@link ResponseCollectorService#RANKING_SETTING}.
+ */
+public interface NodeRanking {
+
+    /**
+     * The ranking formula from the C3 paper, which only considers the queue size, service time and response time of the nodes.
+     * https://www.usenix.org/system/files/conference/nsdi15/nsdi15-paper-suresh.pdf
+     */
+    NodeRanking C3 = new NodeRanking() {
+        @Override
+        public String name() {
+            return "c3";
+        }
+
+        @Override
+        public double rank(ComputedNodeStats stats, long outstandingRequests) {
+            return stats.c3Rank(outstandingRequests);
+        }
+    };
+
+    /**
+     * The C3 rank, scaled by the load of the nodes: a node that spends a fraction {@code g} of its time collecting garbage serves
+     * searches {@code 1 / (1 - g)} times slower, a node whose CPU is saturated beyond 80% is increasingly penalized up to a factor of
+     * two, and each search that a node rejected recently counts as much as doubling its rank. Nodes that don't report their load are
+     * ranked like {@link #C3} does.
+     */
+    NodeRanking C3_NODE_LOAD = new NodeRanking() {
+        @Override
+        public String name() {
+            return "c3_node_load";
+        }
+
+        @Override
+        public double rank(ComputedNodeStats stats, long outstandingRequests) {
+            double rank = stats.c3Rank(outstandingRequests);
+            if (stats.gcOverhead >= 0) {
+                rank /= 1 - Math.min(stats.gcOverhead, 90) / 100;
+            }
+            if (stats.cpuPercent > 80) {
+                rank *= 1 + (Math.min(stats.cpuPercent, 100) - 80) / 20;
+            }
+            if (stats.searchRejections > 0) {
+                rank *= 1 + stats.searchRejections;
+            }
+            return rank;
+        }
+    };
+
+    /**
+     * The name of the ranking, see {@link #fromName(String)}.
+     */
+    String name();
+
+    /**
+     * Ranks a node given its statistics and the number of searches that the coordinating node has outstanding on it.
+     */
+    double rank(ComputedNodeStats stats, long outstandingRequests);
+
+    static NodeRanking fromName(String name) {
+        if (C3.name().equals(name)) {
+            return C3;
+        } else if (C3_NODE_LOAD.name().equals(name)) {
+            return C3_NODE_LOAD;
+        }
+        throw new IllegalArgumentException("unknown adaptive replica selection ranking [" + name + "], must be one of ["
+            + C3.name() + ", " + C3_NODE_LOAD.name() + "]");
+    }
+}
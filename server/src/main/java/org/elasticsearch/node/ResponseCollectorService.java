@@ -8,14 +8,18 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
@@ -27,8 +31,8 @@ import java.util.concurrent.ConcurrentMap;
 
 /**
  * Collects statistics about queue size, response time, and service time of
- * tasks executed on each node, making the EWMA of the values available to the
- * coordinating node.
+ * tasks executed on each node, as well as the load that the nodes report,
+ * making the EWMA of the values available to the coordinating node.
  */
 public final class ResponseCollectorService implements ClusterStateListener {
 
@@ -37,10 +41,28 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public static final double ALPHA = 0.3;
 
+    /**
+     * The {@link NodeRanking} that adaptive replica selection ranks nodes with. Defaults to {@link NodeRanking#C3} so that replica
+     * selection only takes the reported node load into account if {@link NodeRanking#C3_NODE_LOAD} is chosen explicitly.
+     */
+    public static final Setting<NodeRanking> RANKING_SETTING = new Setting<>("cluster.routing.adaptive_replica_selection.ranking",
+        NodeRanking.C3.name(), NodeRanking::fromName, Property.Dynamic, Property.NodeScope);
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
 
+    private volatile NodeRanking ranking;
+
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
+        this.ranking = RANKING_SETTING.get(clusterService.getSettings());
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(RANKING_SETTING, this::setRanking);
+    }
+
+    /**
+     * Sets the ranking that nodes are ranked with from now on, which may be a custom one that is not registered by name.
+     */
+    public void setRanking(NodeRanking ranking) {
+        this.ranking = ranking;
     }
 
     @Override
@@ -57,26 +79,52 @@ public final class ResponseCollectorService implements ClusterStateListener {
     }
 
     public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos) {
+        addNodeStatistics(nodeId, queueSize, responseTimeNanos, avgServiceTimeNanos, null);
+    }
+
+    /**
+     * Adds the statistics of a response of the provided node, along with the load that the node reported if it did.
+     */
+    public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos,
+                                  @Nullable NodeLoadStats load) {
         nodeIdToStats.compute(nodeId, (id, ns) -> {
             if (ns == null) {
                 ExponentiallyWeightedMovingAverage queueEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
                 ExponentiallyWeightedMovingAverage responseEWMA = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
-                return new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
+                ns = new NodeStatistics(nodeId, queueEWMA, responseEWMA, avgServiceTimeNanos);
             } else {
                 ns.queueSize.addValue((double) queueSize);
                 ns.responseTime.addValue((double) responseTimeNanos);
                 ns.serviceTime = avgServiceTimeNanos;
-                return ns;
             }
+            if (load != null) {
+                ns.gcOverhead = addValue(ns.gcOverhead, load.getGcOverheadPercent());
+                ns.cpuPercent = addValue(ns.cpuPercent, load.getCpuPercent());
+                ns.searchRejections = addValue(ns.searchRejections, load.getSearchRejections());
+            }
+            return ns;
         });
     }
 
+    private static ExponentiallyWeightedMovingAverage addValue(@Nullable ExponentiallyWeightedMovingAverage ewma, double value) {
+        if (value < 0) {
+            // the node could not sample this value
+            return ewma;
+        }
+        if (ewma == null) {
+            return new ExponentiallyWeightedMovingAverage(ALPHA, value);
+        }
+        ewma.addValue(value);
+        return ewma;
+    }
+
     public Map<String, ComputedNodeStats> getAllNodeStatistics() {
         final int clientNum = nodeIdToStats.size();
+        final NodeRanking ranking = this.ranking;
         // Transform the mutable object internally used for accounting into the computed version
         Map<String, ComputedNodeStats> nodeStats = new HashMap<>(nodeIdToStats.size());
         nodeIdToStats.forEach((k, v) -> {
-            nodeStats.put(k, new ComputedNodeStats(clientNum, v));
+            nodeStats.put(k, new ComputedNodeStats(clientNum, v, ranking));
         });
         return nodeStats;
     }
@@ -92,13 +140,15 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public Optional<ComputedNodeStats> getNodeStatistics(final String nodeId) {
         final int clientNum = nodeIdToStats.size();
-        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(ns -> new ComputedNodeStats(clientNum, ns));
+        final NodeRanking ranking = this.ranking;
+        return Optional.ofNullable(nodeIdToStats.get(nodeId)).map(ns -> new ComputedNodeStats(clientNum, ns, ranking));
     }
 
     /**
      * Struct-like class encapsulating a point-in-time snapshot of a particular
      * node's statistics. This includes the EWMA of queue size, response time,
-     * and service time.
+     * and service time, and the EWMA of the load that the node reported, which
+     * is {@code -1} if the node did not report it.
      */
     public static class ComputedNodeStats implements Writeable {
         // We store timestamps with nanosecond precision, however, the
@@ -106,6 +156,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
         // the values so the times don't unduely weight the formula
         private final double FACTOR = 1000000.0;
         private final int clientNum;
+        private final NodeRanking ranking;
 
         private double cachedRank = 0;
 
@@ -113,18 +164,31 @@ public final class ResponseCollectorService implements ClusterStateListener {
         public final int queueSize;
         public final double responseTime;
         public final double serviceTime;
+        public final double gcOverhead;
+        public final double cpuPercent;
+        public final double searchRejections;
 
         public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime) {
+            this(nodeId, clientNum, queueSize, responseTime, serviceTime, -1, -1, -1, NodeRanking.C3);
+        }
+
+        public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime,
+                                 double gcOverhead, double cpuPercent, double searchRejections, NodeRanking ranking) {
             this.nodeId = nodeId;
             this.clientNum = clientNum;
             this.queueSize = queueSize;
             this.responseTime = responseTime;
             this.serviceTime = serviceTime;
+            this.gcOverhead = gcOverhead;
+            this.cpuPercent = cpuPercent;
+            this.searchRejections = searchRejections;
+            this.ranking = ranking;
         }
 
-        ComputedNodeStats(int clientNum, NodeStatistics nodeStats) {
+        ComputedNodeStats(int clientNum, NodeStatistics nodeStats, NodeRanking ranking) {
             this(nodeStats.nodeId, clientNum,
-                    (int) nodeStats.queueSize.getAverage(), nodeStats.responseTime.getAverage(), nodeStats.serviceTime);
+                    (int) nodeStats.queueSize.getAverage(), nodeStats.responseTime.getAverage(), nodeStats.serviceTime,
+                    average(nodeStats.gcOverhead), average(nodeStats.cpuPercent), average(nodeStats.searchRejections), ranking);
         }
 
         ComputedNodeStats(StreamInput in) throws IOException {
@@ -133,6 +197,17 @@ public final class ResponseCollectorService implements ClusterStateListener {
             this.queueSize = in.readInt();
             this.responseTime = in.readDouble();
             this.serviceTime = in.readDouble();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                this.gcOverhead = in.readDouble();
+                this.cpuPercent = in.readDouble();
+                this.searchRejections = in.readDouble();
+                this.ranking = readRanking(in.readString());
+            } else {
+                this.gcOverhead = -1;
+                this.cpuPercent = -1;
+                this.searchRejections = -1;
+                this.ranking = NodeRanking.C3;
+            }
         }
 
         @Override
@@ -142,13 +217,32 @@ public final class ResponseCollectorService implements ClusterStateListener {
             out.writeInt(this.queueSize);
             out.writeDouble(this.responseTime);
             out.writeDouble(this.serviceTime);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeDouble(this.gcOverhead);
+                out.writeDouble(this.cpuPercent);
+                out.writeDouble(this.searchRejections);
+                out.writeString(this.ranking.name());
+            }
+        }
+
+        private static double average(@Nullable ExponentiallyWeightedMovingAverage ewma) {
+            return ewma == null ? -1 : ewma.getAverage();
+        }
+
+        private static NodeRanking readRanking(String name) {
+            try {
+                return NodeRanking.fromName(name);
+            } catch (IllegalArgumentException e) {
+                // a ranking that is only known to the sending node, fall back to the default ranking
+                return NodeRanking.C3;
+            }
         }
 
         /**
          * Rank this copy of the data, according to the adaptive replica selection formula from the C3 paper
          * https://www.usenix.org/system/files/conference/nsdi15/nsdi15-paper-suresh.pdf
          */
-        private double innerRank(long outstandingRequests) {
+        public double c3Rank(long outstandingRequests) {
             // the concurrency compensation is defined as the number of
             // outstanding requests from the client to the node times the number
             // of clients in the system
@@ -172,9 +266,12 @@ public final class ResponseCollectorService implements ClusterStateListener {
             return rS - muBarSInverse + Math.pow(qHatS, queueAdjustmentFactor) * muBarSInverse;
         }
 
+        /**
+         * Rank this copy of the data with the {@link NodeRanking} of the coordinating node.
+         */
         public double rank(long outstandingRequests) {
             if (cachedRank == 0) {
-                cachedRank = innerRank(outstandingRequests);
+                cachedRank = ranking.rank(this, outstandingRequests);
             }
             return cachedRank;
         }
@@ -187,6 +284,9 @@ public final class ResponseCollectorService implements ClusterStateListener {
             sb.append(", queue: ").append(queueSize);
             sb.append(", response time: ").append(String.format(Locale.ROOT, "%.1f", responseTime));
             sb.append(", service time: ").append(String.format(Locale.ROOT, "%.1f", serviceTime));
+            sb.append(", gc overhead: ").append(String.format(Locale.ROOT, "%.1f", gcOverhead));
+            sb.append(", cpu: ").append(String.format(Locale.ROOT, "%.1f", cpuPercent));
+            sb.append(", search rejections: ").append(String.format(Locale.ROOT, "%.1f", searchRejections));
             sb.append(", rank: ").append(String.format(Locale.ROOT, "%.1f", rank(1)));
             sb.append(")");
             return sb.toString();
@@ -195,7 +295,7 @@ public final class ResponseCollectorService implements ClusterStateListener {
 
     /**
      * Class encapsulating a node's exponentially weighted queue size, response
-     * time, and service time, however, this class is private and intended only
+     * time, service time and load, however, this class is private and intended only
      * to be used for the internal accounting of {@code ResponseCollectorService}.
      */
     private static class NodeStatistics {
@@ -203,6 +303,10 @@ public final class ResponseCollectorService implements ClusterStateListener {
         final ExponentiallyWeightedMovingAverage queueSize;
         final ExponentiallyWeightedMovingAverage responseTime;
         double serviceTime;
+        // null until the node reported the value
+        ExponentiallyWeightedMovingAverage gcOverhead;
+        ExponentiallyWeightedMovingAverage cpuPercent;
+        ExponentiallyWeightedMovingAverage searchRejections;
 
         NodeStatistics(String nodeId,
                        ExponentiallyWeightedMovingAverage queueSizeEWMA,
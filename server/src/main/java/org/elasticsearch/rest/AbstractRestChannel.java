@@ -94,6 +94,16 @@ public abstract class AbstractRestChannel implements RestChannel {
     @Override
     public XContentBuilder newBuilder(@Nullable XContentType requestContentType, @Nullable XContentType responseContentType,
             boolean useFiltering) throws IOException {
+        return newBuilder(requestContentType, responseContentType, useFiltering, bytesOutput());
+    }
+
+    /**
+     * Creates a new {@link XContentBuilder} like {@link #newBuilder(XContentType, XContentType, boolean)} that writes to the given
+     * output stream.
+     */
+    @Override
+    public XContentBuilder newBuilder(@Nullable XContentType requestContentType, @Nullable XContentType responseContentType,
+            boolean useFiltering, OutputStream out) throws IOException {
 
         if (responseContentType == null) {
             if (Strings.hasText(format)) {
@@ -124,7 +134,7 @@ public abstract class AbstractRestChannel implements RestChannel {
             excludes = filters.stream().filter(EXCLUDE_FILTER).map(f -> f.substring(1)).collect(toSet());
         }
 
-        OutputStream unclosableOutputStream = Streams.flushOnCloseStream(bytesOutput());
+        OutputStream unclosableOutputStream = Streams.flushOnCloseStream(out);
 
         Map<String, String> parameters = request.getParsedAccept() != null ?
             request.getParsedAccept().getParameters() : Collections.emptyMap();
@@ -0,0 +1,68 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.util.PageCacheRecycler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A response whose body is serialized one chunk at a time while it is sent. Channels that cannot send the body in chunks get the whole
+ * body from {@link #content()}, which encodes all the chunks at once.
+ */
+public class ChunkedRestResponse extends RestResponse {
+
+    private final RestStatus status;
+    private final ChunkedRestResponseBody body;
+    private BytesReference content;
+
+    public ChunkedRestResponse(RestStatus status, ChunkedRestResponseBody body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    /**
+     * Returns the body to send in chunks. Must not be used once {@link #content()} was called.
+     */
+    public ChunkedRestResponseBody chunkedContent() {
+        assert content == null : "the body was already encoded";
+        return body;
+    }
+
+    @Override
+    public String contentType() {
+        return body.getResponseContentTypeString();
+    }
+
+    @Override
+    public synchronized BytesReference content() {
+        if (content == null) {
+            final List<BytesReference> chunks = new ArrayList<>();
+            try {
+                while (body.isDone() == false) {
+                    chunks.add(body.encodeChunk(PageCacheRecycler.BYTE_PAGE_SIZE));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            content = CompositeBytesReference.of(chunks.toArray(new BytesReference[0]));
+        }
+        return content;
+    }
+
+    @Override
+    public RestStatus status() {
+        return status;
+    }
+}
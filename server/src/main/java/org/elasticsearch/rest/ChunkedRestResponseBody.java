@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * The body of a {@link ChunkedRestResponse}, which is serialized one chunk at a time while it is sent, so that only the chunk that is
+ * being written to the network has to be held in memory.
+ */
+public interface ChunkedRestResponseBody {
+
+    /**
+     * Returns whether all the chunks of the body were encoded.
+     */
+    boolean isDone();
+
+    /**
+     * Encodes the next chunk of the body. The chunk is at least {@code sizeHint} bytes long unless it is the last one, and goes beyond
+     * it by no more than the size of a single chunk of the underlying content.
+     *
+     * @param sizeHint the number of bytes the chunk should hold
+     */
+    BytesReference encodeChunk(int sizeHint) throws IOException;
+
+    /**
+     * Returns the content type of the body.
+     */
+    String getResponseContentTypeString();
+
+    /**
+     * Creates a body that serializes the chunks of the given content with a builder of the given channel.
+     */
+    static ChunkedRestResponseBody fromXContent(ChunkedToXContent chunkedToXContent, ToXContent.Params params,
+                                                RestChannel channel) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        final XContentBuilder builder = channel.newBuilder(channel.request().getXContentType(), null, true, out);
+        final Iterator<? extends ToXContent> chunks = chunkedToXContent.toXContentChunked();
+        return new ChunkedRestResponseBody() {
+
+            private boolean done = false;
+
+            @Override
+            public boolean isDone() {
+                return done;
+            }
+
+            @Override
+            public BytesReference encodeChunk(int sizeHint) throws IOException {
+                assert done == false : "body was fully encoded already";
+                while (chunks.hasNext() && out.size() < sizeHint) {
+                    chunks.next().toXContent(builder, params);
+                    builder.flush();
+                }
+                if (chunks.hasNext() == false) {
+                    builder.close();
+                    done = true;
+                }
+                // copy the chunk so that the buffer can be reused for the next one
+                final BytesReference chunk = new BytesArray(BytesReference.toBytes(out.bytes()));
+                out.reset();
+                return chunk;
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return builder.getResponseContentTypeString();
+            }
+        };
+    }
+}
@@ -10,10 +10,12 @@ package org.elasticsearch.rest.action.search;
 
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.search.SearchAction;
 import org.elasticsearch.action.search.SearchContextId;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.Booleans;
@@ -27,6 +29,7 @@ import org.elasticsearch.rest.BaseRestHandler;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestActions;
 import org.elasticsearch.rest.action.RestCancellableNodeClient;
+import org.elasticsearch.rest.action.RestChunkedToXContentListener;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchService;
@@ -64,6 +67,10 @@ public class RestSearchAction extends BaseRestHandler {
      */
     public static final String TOTAL_HITS_AS_INT_PARAM = "rest_total_hits_as_int";
     public static final String TYPED_KEYS_PARAM = "typed_keys";
+    /**
+     * Indicates whether the response should be sent in chunks that are serialized while they are sent, rather than serialized at once.
+     */
+    public static final String CHUNKED_RESPONSE_PARAM = "chunked_response";
     private static final Set<String> RESPONSE_PARAMS;
 
     static {
@@ -112,9 +119,13 @@ public class RestSearchAction extends BaseRestHandler {
         request.withContentOrSourceParamParserOrNull(parser ->
             parseSearchRequest(searchRequest, request, parser, client.getNamedWriteableRegistry(), setSize));
 
+        final boolean chunkedResponse = request.paramAsBoolean(CHUNKED_RESPONSE_PARAM, false);
         return channel -> {
             RestCancellableNodeClient cancelClient = new RestCancellableNodeClient(client, request.getHttpChannel());
-            cancelClient.execute(SearchAction.INSTANCE, searchRequest, new RestStatusToXContentListener<>(channel));
+            final ActionListener<SearchResponse> listener = chunkedResponse
+                ? new RestChunkedToXContentListener<>(channel)
+                : new RestStatusToXContentListener<>(channel);
+            cancelClient.execute(SearchAction.INSTANCE, searchRequest, listener);
         };
     }
 
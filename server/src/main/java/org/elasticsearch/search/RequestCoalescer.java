@@ -0,0 +1,113 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ListenableFuture;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces identical requests so that only one of them does the actual work. The first request for a key runs the computation, and
+ * requests with the same key that arrive while it is running, or up to a configurable window after it completed, join it and receive
+ * its value instead of running the computation again. Joining requests are notified on the thread that completes the computation.
+ *
+ * A computation that fails, or that completes with a {@code null} value because its value cannot be shared, is not shared at all:
+ * every request that joined it runs its own fallback, so failures that are specific to the leading request, e.g. its cancellation,
+ * never leak to other requests.
+ */
+final class RequestCoalescer<K, V> {
+
+    private final ThreadPool threadPool;
+    private final Map<K, Flight> flights = ConcurrentCollections.newConcurrentMap();
+
+    RequestCoalescer(ThreadPool threadPool) {
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * Runs or joins the computation for the given key.
+     *
+     * @param key      the key identifying identical requests
+     * @param window   how long a completed computation may still be joined
+     * @param lead     runs the computation; must complete the given listener with the value to share, or with {@code null} if the
+     *                 value cannot be shared
+     * @param join     notified with the shared value if an identical computation was joined
+     * @param fallback runs the computation for this request alone if the joined computation failed or had no value to share
+     */
+    void execute(K key, TimeValue window, Consumer<ActionListener<V>> lead, Consumer<V> join, Runnable fallback) {
+        while (true) {
+            final Flight flight = flights.get(key);
+            if (flight == null) {
+                final Flight newFlight = new Flight(key, window);
+                if (flights.putIfAbsent(key, newFlight) == null) {
+                    lead.accept(newFlight);
+                    return;
+                }
+            } else if (flight.canJoin()) {
+                flight.future.addListener(ActionListener.wrap(value -> {
+                    if (value == null) {
+                        fallback.run();
+                    } else {
+                        join.accept(value);
+                    }
+                }, e -> fallback.run()), EsExecutors.DIRECT_EXECUTOR_SERVICE, threadPool.getThreadContext());
+                return;
+            } else {
+                flights.remove(key, flight);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of computations that can currently be joined.
+     */
+    int size() {
+        return flights.size();
+    }
+
+    private final class Flight implements ActionListener<V> {
+        private final K key;
+        private final TimeValue window;
+        private final ListenableFuture<V> future = new ListenableFuture<>();
+        private volatile long completedAtMillis = -1L;
+
+        Flight(K key, TimeValue window) {
+            this.key = key;
+            this.window = window;
+        }
+
+        boolean canJoin() {
+            final long completedAt = completedAtMillis;
+            return completedAt < 0 || threadPool.relativeTimeInMillis() - completedAt <= window.millis();
+        }
+
+        @Override
+        public void onResponse(V value) {
+            if (value != null && window.millis() > 0) {
+                completedAtMillis = threadPool.relativeTimeInMillis();
+                threadPool.schedule(() -> flights.remove(key, this), window, ThreadPool.Names.SAME);
+            } else {
+                flights.remove(key, this);
+            }
+            future.onResponse(value);
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            flights.remove(key, this);
+            future.onFailure(e);
+        }
+    }
+}
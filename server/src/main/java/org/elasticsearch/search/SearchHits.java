@@ -175,6 +175,17 @@ public final class SearchHits implements Writeable, ToXContentFragment, Iterable
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        startHitsXContent(builder, params);
+        for (SearchHit hit : hits) {
+            hit.toXContent(builder, params);
+        }
+        return endHitsXContent(builder);
+    }
+
+    /**
+     * Renders everything that comes before the hits themselves, so that the hits can be rendered one by one.
+     */
+    public XContentBuilder startHitsXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.HITS);
         boolean totalHitAsInt = params.paramAsBoolean(RestSearchAction.TOTAL_HITS_AS_INT_PARAM, false);
         if (totalHitAsInt) {
@@ -193,9 +204,13 @@ public final class SearchHits implements Writeable, ToXContentFragment, Iterable
         }
         builder.field(Fields.HITS);
         builder.startArray();
-        for (SearchHit hit : hits) {
-            hit.toXContent(builder, params);
-        }
+        return builder;
+    }
+
+    /**
+     * Renders everything that comes after the hits, see {@link #startHitsXContent}.
+     */
+    public XContentBuilder endHitsXContent(XContentBuilder builder) throws IOException {
         builder.endArray();
         builder.endObject();
         return builder;
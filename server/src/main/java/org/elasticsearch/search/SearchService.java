@@ -11,25 +11,37 @@ package org.elasticsearch.search;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.action.support.ContextPreservingActionListener;
 import org.elasticsearch.action.support.TransportActions;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -43,12 +55,16 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.CoordinatorFieldRange;
 import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
 import org.elasticsearch.index.query.InnerHitContextBuilder;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
@@ -57,14 +73,20 @@ import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.index.seqno.ReplicationTracker;
+import org.elasticsearch.index.seqno.RetentionLease;
+import org.elasticsearch.index.seqno.RetentionLeaseActions;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.indices.ExecutorSelector;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
+import org.elasticsearch.node.NodeLoadSampler;
 import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.script.FieldScript;
 import org.elasticsearch.script.ScriptService;
@@ -119,6 +141,7 @@ import org.elasticsearch.threadpool.ThreadPool.Names;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -130,6 +153,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.common.unit.TimeValue.timeValueHours;
 import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
@@ -172,6 +196,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * Enables coalescing of identical shard-level query phases: a size-0 request that is identical to one that is running on the same
+     * shard waits for its result instead of running the query again.
+     */
+    public static final Setting<Boolean> QUERY_COALESCING_ENABLED_SETTING =
+        Setting.boolSetting("search.query_coalescing.enabled", false, Property.Dynamic, Property.NodeScope);
+    /**
+     * How long the result of a coalesced query phase can still be handed to identical requests after it completed.
+     */
+    public static final Setting<TimeValue> QUERY_COALESCING_WINDOW_SETTING =
+        Setting.positiveTimeSetting("search.query_coalescing.window", TimeValue.ZERO, Property.Dynamic, Property.NodeScope);
+
     public static final int DEFAULT_SIZE = 10;
     public static final int DEFAULT_FROM = 0;
 
@@ -187,6 +223,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final ExecutorSelector executorSelector;
 
+    private final Client client;
+
     private final BigArrays bigArrays;
 
     private final DfsPhase dfsPhase = new DfsPhase();
@@ -209,8 +247,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile boolean queryCoalescingEnabled;
+
+    private volatile TimeValue queryCoalescingWindow;
+
+    private final RequestCoalescer<BytesReference, BytesReference> queryPhaseCoalescer;
+
     private final Cancellable keepAliveReaper;
 
+    private final Cancellable nodeLoadSampling;
+
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
@@ -220,10 +266,12 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     private final AtomicInteger openScrollContexts = new AtomicInteger();
     private final String sessionId = UUIDs.randomBase64UUID();
 
+    private final Set<String> pendingRetentionLeaseRenewals = ConcurrentCollections.newConcurrentSet();
+
     public SearchService(ClusterService clusterService, IndicesService indicesService,
                          ThreadPool threadPool, ScriptService scriptService, BigArrays bigArrays, FetchPhase fetchPhase,
                          ResponseCollectorService responseCollectorService, CircuitBreakerService circuitBreakerService,
-                         ExecutorSelector executorSelector) {
+                         ExecutorSelector executorSelector, Client client) {
         Settings settings = clusterService.getSettings();
         this.threadPool = threadPool;
         this.clusterService = clusterService;
@@ -231,11 +279,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.scriptService = scriptService;
         this.responseCollectorService = responseCollectorService;
         this.bigArrays = bigArrays;
-        this.queryPhase = new QueryPhase();
+        final NodeLoadSampler nodeLoadSampler = new NodeLoadSampler(threadPool);
+        this.queryPhase = new QueryPhase(nodeLoadSampler::current);
         this.fetchPhase = fetchPhase;
         this.multiBucketConsumerService = new MultiBucketConsumerService(clusterService, settings,
             circuitBreakerService.getBreaker(CircuitBreaker.REQUEST));
         this.executorSelector = executorSelector;
+        this.client = client;
+        this.queryPhaseCoalescer = new RequestCoalescer<>(threadPool);
 
         TimeValue keepAliveInterval = KEEPALIVE_INTERVAL_SETTING.get(settings);
         setKeepAlives(DEFAULT_KEEPALIVE_SETTING.get(settings), MAX_KEEPALIVE_SETTING.get(settings));
@@ -244,6 +295,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             this::setKeepAlives, this::validateKeepAlives);
 
         this.keepAliveReaper = threadPool.scheduleWithFixedDelay(new Reaper(), keepAliveInterval, Names.SAME);
+        this.nodeLoadSampling = threadPool.scheduleWithFixedDelay(nodeLoadSampler,
+            NodeLoadSampler.SAMPLING_INTERVAL_SETTING.get(settings), Names.SAME);
 
         defaultSearchTimeout = DEFAULT_SEARCH_TIMEOUT_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(DEFAULT_SEARCH_TIMEOUT_SETTING, this::setDefaultSearchTimeout);
@@ -261,6 +314,11 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        queryCoalescingEnabled = QUERY_COALESCING_ENABLED_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(QUERY_COALESCING_ENABLED_SETTING, this::setQueryCoalescingEnabled);
+        queryCoalescingWindow = QUERY_COALESCING_WINDOW_SETTING.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(QUERY_COALESCING_WINDOW_SETTING, this::setQueryCoalescingWindow);
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -297,6 +355,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.lowLevelCancellation = lowLevelCancellation;
     }
 
+    private void setQueryCoalescingEnabled(boolean queryCoalescingEnabled) {
+        this.queryCoalescingEnabled = queryCoalescingEnabled;
+    }
+
+    private void setQueryCoalescingWindow(TimeValue queryCoalescingWindow) {
+        this.queryCoalescingWindow = queryCoalescingWindow;
+    }
+
     private void setEnableRewriteAggsToFilterByFilter(boolean enableRewriteAggsToFilterByFilter) {
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
@@ -355,6 +421,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     protected void doClose() {
         doStop();
         keepAliveReaper.cancel();
+        nodeLoadSampling.cancel();
     }
 
     public void executeDfsPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
@@ -412,11 +479,93 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     return;
                 }
             }
-            // fork the execution in the search thread pool
-            runAsync(getExecutor(shard), () -> executeQueryPhase(orig, task), l);
+            final BytesReference coalescingKey;
+            try {
+                coalescingKey = queryCoalescingKey(orig);
+            } catch (Exception exc) {
+                l.onFailure(exc);
+                return;
+            }
+            if (coalescingKey == null) {
+                // fork the execution in the search thread pool
+                runAsync(getExecutor(shard), () -> executeQueryPhase(orig, task), l);
+            } else {
+                queryPhaseCoalescer.execute(coalescingKey, queryCoalescingWindow,
+                    flight -> runAsync(getExecutor(shard), () -> executeQueryPhase(orig, task), ActionListener.wrap(result -> {
+                        flight.onResponse(shareableQueryResult(result));
+                        l.onResponse(result);
+                    }, e -> {
+                        flight.onFailure(e);
+                        l.onFailure(e);
+                    })),
+                    sharedResult -> {
+                        final QuerySearchResult result;
+                        try {
+                            result = readSharedQueryResult(shard, orig, sharedResult);
+                        } catch (Exception exc) {
+                            l.onFailure(exc);
+                            return;
+                        }
+                        l.onResponse(result);
+                    },
+                    () -> runAsync(getExecutor(shard), () -> executeQueryPhase(orig, task), l));
+            }
         }));
     }
 
+    /**
+     * Returns the key under which identical query phases of the given request get coalesced, or {@code null} if the request must run
+     * on its own. Only size-0 requests qualify, since their results do not hold on to a reader context that a fetch phase would later
+     * use. Requests that opt out of the request cache are never coalesced, which also covers document and field level security since
+     * it disables the request cache.
+     */
+    private BytesReference queryCoalescingKey(ShardSearchRequest request) throws IOException {
+        if (queryCoalescingEnabled == false
+            || request.scroll() != null
+            || request.readerId() != null
+            || request.searchType() != SearchType.QUERY_THEN_FETCH
+            || request.numberOfShards() == 1
+            || Boolean.FALSE.equals(request.requestCache())) {
+            return null;
+        }
+        final SearchSourceBuilder source = request.source();
+        if (source == null || source.size() != 0 || source.profile()) {
+            return null;
+        }
+        return request.cacheKey();
+    }
+
+    /**
+     * Serializes the given result so that it can be handed to coalesced requests, or returns {@code null} if it cannot be shared.
+     */
+    private static BytesReference shareableQueryResult(SearchPhaseResult result) {
+        if (result instanceof QuerySearchResult == false) {
+            return null;
+        }
+        final QuerySearchResult queryResult = (QuerySearchResult) result;
+        if (queryResult.isNull() || queryResult.hasSearchContext() || queryResult.searchTimedOut()) {
+            return null;
+        }
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            queryResult.writeTo(out);
+            return out.bytes();
+        } catch (IOException e) {
+            logger.debug("failed to serialize query result for coalesced requests", e);
+            return null;
+        }
+    }
+
+    private QuerySearchResult readSharedQueryResult(IndexShard shard, ShardSearchRequest request, BytesReference sharedResult)
+        throws IOException {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(sharedResult.streamInput(), indicesService.getNamedWriteableRegistry())) {
+            final QuerySearchResult result = new QuerySearchResult(in);
+            result.setSearchShardTarget(new SearchShardTarget(clusterService.localNode().getId(), shard.shardId(),
+                request.getClusterAlias(), OriginalIndices.NONE));
+            result.setShardSearchRequest(request);
+            return result;
+        }
+    }
+
     private IndexShard getShard(ShardSearchRequest request) {
         final ShardSearchContextId contextId = request.readerId();
         if (contextId != null) {
@@ -471,7 +620,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     private QueryFetchSearchResult executeFetchPhase(ReaderContext reader, SearchContext context, long afterQueryTime) {
         try (SearchOperationListenerExecutor executor = new SearchOperationListenerExecutor(context, true, afterQueryTime)){
             shortcutDocIdsToLoad(context);
-            fetchPhase.execute(context);
+            fetchPhase.execute(context, getExecutor(reader.indexShard()));
             if (reader.singleSession()) {
                 freeReaderContext(reader.id());
             }
@@ -598,7 +747,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 searchContext.docIdsToLoad(request.docIds(), request.docIdsSize());
                 try (SearchOperationListenerExecutor executor =
                          new SearchOperationListenerExecutor(searchContext, true, System.nanoTime())) {
-                    fetchPhase.execute(searchContext);
+                    fetchPhase.execute(searchContext, getExecutor(readerContext.indexShard()));
                     if (readerContext.singleSession()) {
                         freeReaderContext(request.contextId());
                     }
@@ -638,6 +787,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             processFailure(reader, exc);
             throw exc;
         }
+        maybeRenewPointInTimeRetentionLease(reader);
         return reader;
     }
 
@@ -646,15 +796,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             try {
                 return findReaderContext(request.readerId(), request);
             } catch (SearchContextMissingException e) {
-                final String searcherId = request.readerId().getSearcherId();
-                if (searcherId == null) {
+                if (request.readerId().getSearcherId() == null) {
                     throw e;
                 }
                 final IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
                 final IndexShard shard = indexService.getShard(request.shardId().id());
-                final Engine.SearcherSupplier searcherSupplier = shard.acquireSearcherSupplier();
-                if (searcherId.equals(searcherSupplier.getSearcherId()) == false) {
-                    searcherSupplier.close();
+                final Engine.SearcherSupplier searcherSupplier = acquireSearcherSupplier(shard, request.readerId());
+                if (searcherSupplier == null) {
                     throw e;
                 }
                 return createAndPutReaderContext(request, indexService, shard, searcherSupplier, defaultKeepAlive);
@@ -668,6 +816,30 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * Acquires a reader with the searcher id of the given reader context id, which is either the current reader of the shard, or a
+     * reader on the index commit that is retained for a persistent point in time.
+     *
+     * @return the reader, or {@code null} if this shard copy has neither
+     */
+    @Nullable
+    private Engine.SearcherSupplier acquireSearcherSupplier(IndexShard shard, ShardSearchContextId readerId) {
+        final Engine.SearcherSupplier searcherSupplier = shard.acquireSearcherSupplier();
+        if (readerId.getSearcherId().equals(searcherSupplier.getSearcherId())) {
+            return searcherSupplier;
+        }
+        searcherSupplier.close();
+        final RetentionLease retentionLease = shard.getRetentionLeases().get(getPointInTimeRetentionLeaseId(readerId));
+        if (retentionLease == null) {
+            return null;
+        }
+        final Engine.SearcherSupplier commitSearcherSupplier = shard.acquireSearcherSupplierOnCommit(readerId.getSearcherId());
+        if (commitSearcherSupplier != null) {
+            maybeRenewPointInTimeRetentionLease(shard, retentionLease);
+        }
+        return commitSearcherSupplier;
+    }
+
     final ReaderContext createAndPutReaderContext(ShardSearchRequest request, IndexService indexService, IndexShard shard,
                                                   Engine.SearcherSupplier reader, long keepAliveInMillis) {
         ReaderContext readerContext = null;
@@ -721,30 +893,156 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
      * until the {@code keepAlive} elapsed unless it is manually released.
      */
     public void openReaderContext(ShardId shardId, TimeValue keepAlive, ActionListener<ShardSearchContextId> listener) {
+        openReaderContext(shardId, keepAlive, false, listener);
+    }
+
+    /**
+     * Opens the reader context for given shardId. The newly opened reader context will be keep
+     * until the {@code keepAlive} elapsed unless it is manually released. If {@code persistCommit} is set then the shard is flushed
+     * and the reader context is opened on the flushed commit, which a retention lease retains until the reader context is released,
+     * so that the shard copies that hold this commit can reopen it after they restart.
+     */
+    public void openReaderContext(ShardId shardId, TimeValue keepAlive, boolean persistCommit,
+                                  ActionListener<ShardSearchContextId> listener) {
         checkKeepAliveLimit(keepAlive.millis());
         final IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
         final IndexShard shard = indexService.getShard(shardId.id());
-        final SearchOperationListener searchOperationListener = shard.getSearchOperationListener();
         shard.awaitShardSearchActive(ignored -> {
-            Engine.SearcherSupplier searcherSupplier = null;
-            ReaderContext readerContext = null;
-            try {
-                searcherSupplier = shard.acquireSearcherSupplier();
-                final ShardSearchContextId id =
-                    new ShardSearchContextId(sessionId, idGenerator.incrementAndGet(), searcherSupplier.getSearcherId());
-                readerContext = new ReaderContext(id, indexService, shard, searcherSupplier, keepAlive.millis(), false);
-                final ReaderContext finalReaderContext = readerContext;
-                searcherSupplier = null; // transfer ownership to reader context
-                searchOperationListener.onNewReaderContext(readerContext);
-                readerContext.addOnClose(() -> searchOperationListener.onFreeReaderContext(finalReaderContext));
-                putReaderContext(readerContext);
-                readerContext = null;
+            if (persistCommit) {
+                // flushing and opening a reader on the flushed commit are too expensive for the calling thread
+                runAsync(getExecutor(shard), () -> shard.acquireSearcherSupplierOnCommit(null),
+                    listener.delegateFailure((l, searcherSupplier) ->
+                        putPointInTimeReaderContext(indexService, shard, searcherSupplier, keepAlive, true, l)));
+            } else {
+                final Engine.SearcherSupplier searcherSupplier;
+                try {
+                    searcherSupplier = shard.acquireSearcherSupplier();
+                } catch (Exception exc) {
+                    listener.onFailure(exc);
+                    return;
+                }
+                putPointInTimeReaderContext(indexService, shard, searcherSupplier, keepAlive, false, listener);
+            }
+        });
+    }
+
+    private void putPointInTimeReaderContext(IndexService indexService, IndexShard shard, Engine.SearcherSupplier searcherSupplier,
+                                             TimeValue keepAlive, boolean persistCommit, ActionListener<ShardSearchContextId> listener) {
+        final SearchOperationListener searchOperationListener = shard.getSearchOperationListener();
+        ReaderContext readerContext = null;
+        try {
+            final ShardSearchContextId id =
+                new ShardSearchContextId(sessionId, idGenerator.incrementAndGet(), searcherSupplier.getSearcherId());
+            // commits whose segments have no ids can't be found again, so they are not worth retaining
+            final boolean retainCommit = persistCommit && id.getSearcherId() != null;
+            readerContext = new ReaderContext(id, indexService, shard, searcherSupplier, keepAlive.millis(), false);
+            final ReaderContext finalReaderContext = readerContext;
+            searcherSupplier = null; // transfer ownership to reader context
+            searchOperationListener.onNewReaderContext(readerContext);
+            readerContext.addOnClose(() -> searchOperationListener.onFreeReaderContext(finalReaderContext));
+            putReaderContext(readerContext);
+            readerContext = null;
+            if (retainCommit) {
+                addPointInTimeRetentionLease(finalReaderContext, listener);
+            } else {
                 listener.onResponse(finalReaderContext.id());
-            } catch (Exception exc) {
-                Releasables.closeWhileHandlingException(searcherSupplier, readerContext);
-                listener.onFailure(exc);
+            }
+        } catch (Exception exc) {
+            Releasables.closeWhileHandlingException(searcherSupplier, readerContext);
+            listener.onFailure(exc);
+        }
+    }
+
+    private static String getPointInTimeRetentionLeaseId(ShardSearchContextId id) {
+        return ReplicationTracker.getPointInTimeRetentionLeaseId(id.getSessionId(), id.getId(), id.getSearcherId());
+    }
+
+    private void addPointInTimeRetentionLease(ReaderContext readerContext, ActionListener<ShardSearchContextId> listener) {
+        final ShardSearchContextId id = readerContext.id();
+        final ShardId shardId = readerContext.indexShard().shardId();
+        final String leaseId = getPointInTimeRetentionLeaseId(id);
+        readerContext.addOnClose(() -> {
+            // keep the lease if the reader context is only released because this node or shard copy is shutting down
+            if (lifecycle.started() && readerContext.indexShard().state() != IndexShardState.CLOSED) {
+                executeRetentionLeaseAction(RetentionLeaseActions.Remove.INSTANCE,
+                    new RetentionLeaseActions.RemoveRequest(shardId, leaseId), ActionListener.wrap(r -> {},
+                        e -> logger.debug(new ParameterizedMessage("failed to remove retention lease [{}]", leaseId), e)));
             }
         });
+        // the lease only pins the commit through its searcher id and retains no operation history
+        final RetentionLeaseActions.AddRequest request = new RetentionLeaseActions.AddRequest(shardId, leaseId,
+            ReplicationTracker.POINT_IN_TIME_RETAINING_SEQUENCE_NUMBER, ReplicationTracker.POINT_IN_TIME_RETENTION_LEASE_SOURCE);
+        executeRetentionLeaseAction(RetentionLeaseActions.Add.INSTANCE, request, ActionListener.wrap(
+                r -> listener.onResponse(id),
+                e -> {
+                    freeReaderContext(id);
+                    listener.onFailure(e);
+                }));
+    }
+
+    /**
+     * Renews the retention lease of the given reader context if it belongs to a persistent point in time. This is done whenever the
+     * reader context is used and periodically while it is kept alive, since the keep alive may be longer than the retention period.
+     */
+    private void maybeRenewPointInTimeRetentionLease(ReaderContext readerContext) {
+        if (readerContext.singleSession() || readerContext.id().getSearcherId() == null) {
+            return;
+        }
+        final IndexShard shard = readerContext.indexShard();
+        final RetentionLease retentionLease = shard.getRetentionLeases().get(getPointInTimeRetentionLeaseId(readerContext.id()));
+        if (retentionLease != null) {
+            maybeRenewPointInTimeRetentionLease(shard, retentionLease);
+        }
+    }
+
+    /**
+     * Renews the retention lease of a persistent point in time once half of its retention period has elapsed, so that the lease
+     * doesn't expire while the point in time is in use.
+     */
+    private void maybeRenewPointInTimeRetentionLease(IndexShard shard, RetentionLease retentionLease) {
+        final long renewalTimeMillis = threadPool.absoluteTimeInMillis() - shard.indexSettings().getRetentionLeaseMillis() / 2;
+        if (retentionLease.timestamp() > renewalTimeMillis || pendingRetentionLeaseRenewals.add(retentionLease.id()) == false) {
+            return;
+        }
+        executeRetentionLeaseAction(RetentionLeaseActions.Renew.INSTANCE, new RetentionLeaseActions.RenewRequest(shard.shardId(),
+            retentionLease.id(), retentionLease.retainingSequenceNumber(), retentionLease.source()), ActionListener.wrap(
+                r -> pendingRetentionLeaseRenewals.remove(retentionLease.id()),
+                e -> {
+                    pendingRetentionLeaseRenewals.remove(retentionLease.id());
+                    logger.debug(new ParameterizedMessage("failed to renew retention lease [{}]", retentionLease.id()), e);
+                }));
+    }
+
+    /**
+     * Removes the retention lease of a persistent point in time whose reader context was opened before this node restarted.
+     *
+     * @return whether such a retention lease was found
+     */
+    private boolean removePointInTimeRetentionLease(ShardSearchContextId id) {
+        final String leaseId = getPointInTimeRetentionLeaseId(id);
+        boolean found = false;
+        for (IndexService indexService : indicesService) {
+            for (IndexShard shard : indexService) {
+                if (shard.getRetentionLeases().contains(leaseId)) {
+                    found = true;
+                    executeRetentionLeaseAction(RetentionLeaseActions.Remove.INSTANCE,
+                        new RetentionLeaseActions.RemoveRequest(shard.shardId(), leaseId), ActionListener.wrap(r -> {},
+                            e -> logger.debug(new ParameterizedMessage("failed to remove retention lease [{}]", leaseId), e)));
+                }
+            }
+        }
+        return found;
+    }
+
+    private <Request extends ActionRequest> void executeRetentionLeaseAction(ActionType<ActionResponse.Empty> action, Request request,
+                                                                             ActionListener<ActionResponse.Empty> listener) {
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        final Supplier<ThreadContext.StoredContext> restorableContext = threadContext.newRestorableContext(false);
+        try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+            // the retention leases of persistent points in time are managed by the node, which must be authorized if security is enabled
+            threadContext.markAsSystemContext();
+            client.execute(action, request, new ContextPreservingActionListener<>(restorableContext, listener));
+        }
     }
 
     protected SearchContext createContext(ReaderContext readerContext,
@@ -840,6 +1138,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             try (ReaderContext context = removeReaderContext(contextId.getId())) {
                 return context != null;
             }
+        } else if (contextId.getSearcherId() != null) {
+            // a persistent point in time may have been opened before this node restarted
+            return removePointInTimeRetentionLease(contextId);
         }
         return false;
     }
@@ -1193,6 +1494,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 if (context.isExpired()) {
                     logger.debug("freeing search context [{}]", context.id());
                     freeReaderContext(context.id());
+                } else {
+                    maybeRenewPointInTimeRetentionLease(context);
                 }
             }
         }
@@ -1268,13 +1571,42 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 } else {
                     minMax = null;
                 }
-                return new CanMatchResponse(canMatch || hasRefreshPending, minMax);
+                final List<CoordinatorFieldRange> fieldRanges = request.readerId() == null
+                    ? getCoordinatorFieldRanges(indexService, canMatchSearcher)
+                    : Collections.emptyList();
+                return new CanMatchResponse(canMatch || hasRefreshPending, minMax, fieldRanges);
             }
         } finally {
             Releasables.close(releasable);
         }
     }
 
+    /**
+     * Returns the ranges of the fields that coordinating nodes may cache for this shard, which requires that the index is write-blocked
+     * and that the searcher sees all the documents of the shard.
+     */
+    private static List<CoordinatorFieldRange> getCoordinatorFieldRanges(IndexService indexService,
+                                                                         Engine.Searcher searcher) throws IOException {
+        final List<String> fields = CoordinatorFieldRange.getCoordinatorRangeFields(indexService.getMetadata());
+        if (fields.isEmpty() || searcher.getDirectoryReader().isCurrent() == false) {
+            return Collections.emptyList();
+        }
+        final List<CoordinatorFieldRange> fieldRanges = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            final MappedFieldType fieldType = indexService.mapperService().fieldType(field);
+            if (fieldType instanceof DateFieldMapper.DateFieldType == false || fieldType.isSearchable() == false) {
+                continue;
+            }
+            final byte[] minPackedValue = PointValues.getMinPackedValue(searcher.getIndexReader(), field);
+            final byte[] maxPackedValue = PointValues.getMaxPackedValue(searcher.getIndexReader(), field);
+            final ShardLongFieldRange range = minPackedValue == null || maxPackedValue == null
+                ? ShardLongFieldRange.EMPTY
+                : ShardLongFieldRange.of(LongPoint.decodeDimension(minPackedValue, 0), LongPoint.decodeDimension(maxPackedValue, 0));
+            fieldRanges.add(new CoordinatorFieldRange((DateFieldMapper.DateFieldType) fieldType, range));
+        }
+        return fieldRanges;
+    }
+
     public static boolean queryStillMatchesAfterRewrite(ShardSearchRequest request, QueryRewriteContext context) throws IOException {
         Rewriteable.rewrite(request.getRewriteable(), context, false);
         final boolean aliasFilterCanMatch = request.getAliasFilter()
@@ -1364,6 +1696,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final class CanMatchResponse extends SearchPhaseResult {
         private final boolean canMatch;
         private final MinAndMax<?> estimatedMinAndMax;
+        private final List<CoordinatorFieldRange> fieldRanges;
 
         public CanMatchResponse(StreamInput in) throws IOException {
             super(in);
@@ -1373,11 +1706,21 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             } else {
                 estimatedMinAndMax = null;
             }
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                fieldRanges = in.readList(CoordinatorFieldRange::new);
+            } else {
+                fieldRanges = Collections.emptyList();
+            }
         }
 
         public CanMatchResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax) {
+            this(canMatch, estimatedMinAndMax, Collections.emptyList());
+        }
+
+        public CanMatchResponse(boolean canMatch, MinAndMax<?> estimatedMinAndMax, List<CoordinatorFieldRange> fieldRanges) {
             this.canMatch = canMatch;
             this.estimatedMinAndMax = estimatedMinAndMax;
+            this.fieldRanges = fieldRanges;
         }
 
         @Override
@@ -1386,6 +1729,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             if (out.getVersion().onOrAfter(Version.V_7_6_0)) {
                 out.writeOptionalWriteable(estimatedMinAndMax);
             }
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeList(fieldRanges);
+            }
         }
 
         public boolean canMatch() {
@@ -1395,6 +1741,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         public MinAndMax<?> estimatedMinAndMax() {
             return estimatedMinAndMax;
         }
+
+        /**
+         * The ranges of the date fields that coordinating nodes may cache for this shard, see {@link CoordinatorFieldRange}.
+         */
+        public List<CoordinatorFieldRange> fieldRanges() {
+            return fieldRanges;
+        }
     }
 
     /**
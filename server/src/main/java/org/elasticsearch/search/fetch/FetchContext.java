@@ -9,6 +9,7 @@
 package org.elasticsearch.search.fetch;
 
 import org.apache.lucene.search.Query;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.SearchExtBuilder;
@@ -196,6 +197,13 @@ public class FetchContext {
         return searchContext.getSearchExecutionContext();
     }
 
+    /**
+     * The circuit breaker that accounts for memory that is held while hits are fetched
+     */
+    public CircuitBreaker breaker() {
+        return searchContext.readerContext().indexService().getBigArrays().breakerService().getBreaker(CircuitBreaker.REQUEST);
+    }
+
     /**
      * For a hit document that's being processed, return the source lookup representing the
      * root document. This method is used to pass down the root source when processing this
@@ -13,10 +13,13 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.CheckedBiConsumer;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.document.DocumentField;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
@@ -49,6 +52,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -69,6 +76,16 @@ public class FetchPhase {
     }
 
     public void execute(SearchContext context) {
+        execute(context, null);
+    }
+
+    /**
+     * Fetches the hits of the given context. If an executor is provided, the index allows it, and all sub-phase processors of the
+     * request {@link FetchSubPhaseProcessor#supportsConcurrentFetch() support it}, the hits of different segments are fetched
+     * concurrently on that executor, each segment with its own stored fields visitor and sub-phase processors. The calling thread
+     * takes part in fetching, so the fetch completes even if the executor does not run any of the forked tasks.
+     */
+    public void execute(SearchContext context, @Nullable Executor executor) {
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("{}", new SearchContextSourcePrinter(context));
         }
@@ -98,15 +115,57 @@ public class FetchPhase {
 
         SearchHit[] hits = new SearchHit[context.docIdsToLoadSize()];
 
-        List<FetchSubPhaseProcessor> processors = getProcessors(context.shardTarget(), fetchContext);
         NestedDocuments nestedDocuments = context.getSearchExecutionContext().getNestedDocuments();
 
+        List<FetchSubPhaseProcessor> processors = getProcessors(context.shardTarget(), fetchContext);
+        List<DocIdToIndex[]> segmentChunks = canFetchConcurrently(context, executor, processors)
+            ? splitBySegment(docs, context.searcher().getIndexReader().leaves())
+            : Collections.singletonList(docs);
+        if (segmentChunks.size() == 1) {
+            fetchChunk(context, docs, fieldsVisitor, processors, nestedDocuments, storedToRequestedFields, false, hits);
+        } else {
+            List<Runnable> chunks = new ArrayList<>(segmentChunks.size());
+            for (int i = 0; i < segmentChunks.size(); i++) {
+                DocIdToIndex[] chunkDocs = segmentChunks.get(i);
+                // stored fields visitors and sub-phase processors keep per-hit state, so every chunk but the first gets its own
+                // instances. They are created on the calling thread since creating the visitor may update the fetch source context.
+                FieldsVisitor chunkFieldsVisitor = i == 0 || fieldsVisitor == null
+                    ? fieldsVisitor
+                    : createStoredFieldsVisitor(context, new HashMap<>());
+                List<FetchSubPhaseProcessor> chunkProcessors = i == 0 ? processors : getProcessors(context.shardTarget(), fetchContext);
+                chunks.add(() -> fetchChunk(context, chunkDocs, chunkFieldsVisitor, chunkProcessors, nestedDocuments,
+                    storedToRequestedFields, true, hits));
+            }
+            runConcurrently(chunks, executor);
+        }
+        if (context.isCancelled()) {
+            throw new TaskCancelledException("cancelled");
+        }
+
+        TotalHits totalHits = context.queryResult().getTotalHits();
+        context.fetchResult().hits(new SearchHits(hits, totalHits, context.queryResult().getMaxScore()));
+
+    }
+
+    /**
+     * Fetches the given hits, which must be sorted by doc id, and stores them in {@code hits} at their original position. If
+     * {@code concurrent} is set then other chunks are fetched at the same time, so the search lookup that is shared by the whole
+     * request is left alone.
+     */
+    private void fetchChunk(SearchContext context,
+                            DocIdToIndex[] docs,
+                            FieldsVisitor fieldsVisitor,
+                            List<FetchSubPhaseProcessor> processors,
+                            NestedDocuments nestedDocuments,
+                            Map<String, Set<String>> storedToRequestedFields,
+                            boolean concurrent,
+                            SearchHit[] hits) {
         int currentReaderIndex = -1;
         LeafReaderContext currentReaderContext = null;
         LeafNestedDocuments leafNestedDocuments = null;
         CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader = null;
         boolean hasSequentialDocs = hasSequentialDocs(docs);
-        for (int index = 0; index < context.docIdsToLoadSize(); index++) {
+        for (int index = 0; index < docs.length; index++) {
             if (context.isCancelled()) {
                 throw new TaskCancelledException("cancelled");
             }
@@ -141,7 +200,8 @@ public class FetchPhase {
                     docId,
                     storedToRequestedFields,
                     currentReaderContext,
-                    fieldReader);
+                    fieldReader,
+                    concurrent);
                 for (FetchSubPhaseProcessor processor : processors) {
                     processor.process(hit);
                 }
@@ -150,13 +210,89 @@ public class FetchPhase {
                 throw new FetchPhaseExecutionException(context.shardTarget(), "Error running fetch phase for doc [" + docId + "]", e);
             }
         }
-        if (context.isCancelled()) {
-            throw new TaskCancelledException("cancelled");
+    }
+
+    /**
+     * Returns whether the hits of the given context may be fetched concurrently. Sub phases such as script fields, doc value fields,
+     * the {@code fields} option or inner hits may read values through the search lookup that is shared by the whole request, or keep
+     * state across hits, so requests using any of them are always fetched on a single thread, see
+     * {@link FetchSubPhaseProcessor#supportsConcurrentFetch()}.
+     */
+    private static boolean canFetchConcurrently(SearchContext context, Executor executor, List<FetchSubPhaseProcessor> processors) {
+        if (executor == null || context instanceof InnerHitsContext.InnerHitSubContext) {
+            return false;
         }
+        int minHits = context.indexShard().indexSettings().getFetchConcurrentMinHits();
+        if (minHits <= 0 || context.docIdsToLoadSize() < minHits) {
+            return false;
+        }
+        return processors.stream().allMatch(FetchSubPhaseProcessor::supportsConcurrentFetch);
+    }
 
-        TotalHits totalHits = context.queryResult().getTotalHits();
-        context.fetchResult().hits(new SearchHits(hits, totalHits, context.queryResult().getMaxScore()));
+    /**
+     * Splits the given hits, which must be sorted by doc id, into one chunk per segment.
+     */
+    static List<DocIdToIndex[]> splitBySegment(DocIdToIndex[] docs, List<LeafReaderContext> leaves) {
+        List<DocIdToIndex[]> chunks = new ArrayList<>();
+        int from = 0;
+        while (from < docs.length) {
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docs[from].docId, leaves));
+            int maxDoc = leaf.docBase + leaf.reader().maxDoc();
+            int to = from + 1;
+            while (to < docs.length && docs[to].docId < maxDoc) {
+                to++;
+            }
+            chunks.add(Arrays.copyOfRange(docs, from, to));
+            from = to;
+        }
+        return chunks;
+    }
 
+    /**
+     * Runs the given chunks on the executor and the calling thread. Chunks are claimed one at a time by whichever thread is free,
+     * and the calling thread only waits for chunks that another thread already started, so a saturated executor degrades to
+     * fetching on the calling thread rather than blocking it.
+     */
+    private static void runConcurrently(List<Runnable> chunks, Executor executor) {
+        AtomicInteger nextChunk = new AtomicInteger();
+        CountDownLatch completedChunks = new CountDownLatch(chunks.size());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks.size()) {
+                try {
+                    if (failure.get() == null) {
+                        chunks.get(chunk).run();
+                    }
+                } catch (Throwable t) {
+                    // rethrown on the calling thread, the hits of this chunk are missing otherwise
+                    failure.accumulateAndGet(t, ExceptionsHelper::useOrSuppress);
+                } finally {
+                    completedChunks.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < chunks.size(); i++) {
+            try {
+                executor.execute(worker);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread picks up the remaining chunks
+                break;
+            }
+        }
+        worker.run();
+        try {
+            completedChunks.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for concurrent fetches to complete", e);
+        }
+        Throwable t = failure.get();
+        if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw ExceptionsHelper.convertToRuntime((Exception) t);
+        }
     }
 
     List<FetchSubPhaseProcessor> getProcessors(SearchShardTarget target, FetchContext context) {
@@ -241,10 +377,11 @@ public class FetchPhase {
                                          int docId,
                                          Map<String, Set<String>> storedToRequestedFields,
                                          LeafReaderContext subReaderContext,
-                                         CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldReader) throws IOException {
+                                         CheckedBiConsumer<Integer, FieldsVisitor, IOException> storedFieldReader,
+                                         boolean concurrent) throws IOException {
         if (nestedDocuments.advance(docId - subReaderContext.docBase) == null) {
             return prepareNonNestedHitContext(
-                context, fieldsVisitor, docId, storedToRequestedFields, subReaderContext, storedFieldReader);
+                context, fieldsVisitor, docId, storedToRequestedFields, subReaderContext, storedFieldReader, concurrent);
         } else {
             return prepareNestedHitContext(context, docId, nestedDocuments, hasNonNestedParent, storedToRequestedFields,
                 subReaderContext, storedFieldReader);
@@ -263,7 +400,8 @@ public class FetchPhase {
                                                   int docId,
                                                   Map<String, Set<String>> storedToRequestedFields,
                                                   LeafReaderContext subReaderContext,
-                                                  CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader) throws IOException {
+                                                  CheckedBiConsumer<Integer, FieldsVisitor, IOException> fieldReader,
+                                                  boolean concurrent) throws IOException {
         int subDocId = docId - subReaderContext.docBase;
         if (fieldsVisitor == null) {
             SearchHit hit = new SearchHit(docId, null, null, null);
@@ -283,12 +421,15 @@ public class FetchPhase {
             HitContext hitContext = new HitContext(hit, subReaderContext, subDocId);
             if (fieldsVisitor.source() != null) {
                 // Store the loaded source on the hit context so that fetch subphases can access it.
-                // Also make it available to scripts by storing it on the shared SearchLookup instance.
                 hitContext.sourceLookup().setSource(fieldsVisitor.source());
 
-                SourceLookup scriptSourceLookup = context.getSearchExecutionContext().lookup().source();
-                scriptSourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
-                scriptSourceLookup.setSource(fieldsVisitor.source());
+                if (concurrent == false) {
+                    // Also make it available to scripts by storing it on the shared SearchLookup instance. Hits are only fetched
+                    // concurrently if no sub phase reads this instance, which the chunks would otherwise move between their hits.
+                    SourceLookup scriptSourceLookup = context.getSearchExecutionContext().lookup().source();
+                    scriptSourceLookup.setSegmentAndDocument(subReaderContext, subDocId);
+                    scriptSourceLookup.setSource(fieldsVisitor.source());
+                }
             }
             return hitContext;
         }
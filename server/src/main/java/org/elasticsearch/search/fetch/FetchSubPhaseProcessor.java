@@ -28,4 +28,14 @@ public interface FetchSubPhaseProcessor {
      */
     void process(HitContext hitContext) throws IOException;
 
+    /**
+     * Whether the hits of different segments may be fetched concurrently, each segment with its own instance of this processor that
+     * is built for the same request, see {@link FetchPhase#execute}. Such a processor must only keep state for the hits that it
+     * processes itself, and must read the source of a hit through {@link HitContext#sourceLookup()}, since the search lookup that is
+     * shared by the whole request, and that scripts read, is not moved to the hit when hits are fetched concurrently.
+     */
+    default boolean supportsConcurrentFetch() {
+        return false;
+    }
+
 }
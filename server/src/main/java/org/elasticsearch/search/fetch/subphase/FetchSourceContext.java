@@ -9,6 +9,7 @@
 package org.elasticsearch.search.fetch.subphase;
 
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.ParsingException;
 import org.elasticsearch.common.Strings;
@@ -42,6 +43,7 @@ public class FetchSourceContext implements Writeable, ToXContentObject {
     private final String[] includes;
     private final String[] excludes;
     private Function<Map<String, ?>, Map<String, Object>> filter;
+    private CheckedBiConsumer<XContentParser, XContentBuilder, IOException> xContentFilter;
 
     public FetchSourceContext(boolean fetchSource, String[] includes, String[] excludes) {
         this.fetchSource = fetchSource;
@@ -223,4 +225,15 @@ public class FetchSourceContext implements Writeable, ToXContentObject {
         }
         return filter;
     }
+
+    /**
+     * Returns a filter that copies the source object the parser is positioned on to the builder, keeping the same properties as
+     * {@link #getFilter()} but without parsing the source into a map.
+     */
+    public CheckedBiConsumer<XContentParser, XContentBuilder, IOException> getXContentFilter() {
+        if (xContentFilter == null) {
+            xContentFilter = XContentMapValues.filterXContent(includes, excludes);
+        }
+        return xContentFilter;
+    }
 }
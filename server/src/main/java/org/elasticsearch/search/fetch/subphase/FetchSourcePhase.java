@@ -12,7 +12,11 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.fetch.FetchContext;
 import org.elasticsearch.search.fetch.FetchSubPhase;
@@ -50,6 +54,11 @@ public final class FetchSourcePhase implements FetchSubPhase {
                 }
                 hitExecute(fetchSourceContext, hitContext);
             }
+
+            @Override
+            public boolean supportsConcurrentFetch() {
+                return true;
+            }
         };
     }
 
@@ -64,6 +73,13 @@ public final class FetchSourcePhase implements FetchSubPhase {
             return;
         }
 
+        // If the source wasn't parsed into a map by an earlier phase, copy the filtered properties straight from its bytes rather
+        // than parsing all of it into a map just to throw most of it away again.
+        if (nestedHit == false && source.hasSourceAsMap() == false && source.internalSourceRef() != null) {
+            hitContext.hit().sourceRef(filterSourceBytes(fetchSourceContext, source.internalSourceRef()));
+            return;
+        }
+
         // Otherwise, filter the source and add it to the hit.
         Object value = source.filter(fetchSourceContext);
         if (nestedHit) {
@@ -91,6 +107,18 @@ public final class FetchSourcePhase implements FetchSubPhase {
         }
     }
 
+    private static BytesReference filterSourceBytes(FetchSourceContext fetchSourceContext, BytesReference source) {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source)) {
+            BytesStreamOutput streamOutput = new BytesStreamOutput(Math.min(1024, source.length()));
+            XContentBuilder builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+            fetchSourceContext.getXContentFilter().accept(parser, builder);
+            return BytesReference.bytes(builder);
+        } catch (IOException e) {
+            throw new ElasticsearchException("Error filtering source", e);
+        }
+    }
+
     private static boolean containsFilters(FetchSourceContext context) {
         return context.includes().length != 0 || context.excludes().length != 0;
     }
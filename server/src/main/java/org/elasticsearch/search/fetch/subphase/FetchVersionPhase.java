@@ -41,6 +41,11 @@ public final class FetchVersionPhase implements FetchSubPhase {
                 }
                 hitContext.hit().version(version < 0 ? -1 : version);
             }
+
+            @Override
+            public boolean supportsConcurrentFetch() {
+                return true;
+            }
         };
     }
 }
@@ -50,6 +50,11 @@ public final class SeqNoPrimaryTermPhase implements FetchSubPhase {
                 hitContext.hit().setSeqNo(seqNo);
                 hitContext.hit().setPrimaryTerm(primaryTerm);
             }
+
+            @Override
+            public boolean supportsConcurrentFetch() {
+                return true;
+            }
         };
     }
 }
@@ -0,0 +1,288 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch.subphase.highlight;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PayloadAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionLengthAttribute;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Caches the tokens that the analysis of texts produces while the fields of a hit are highlighted, so that fields that highlight the
+ * same text with the same analyzer, e.g. multi-fields or fields that values are copied to, only analyze it once. Texts are only cached
+ * until the cache is {@link #clear() cleared}, which the highlight phase does after each hit, and the memory that their tokens hold is
+ * accounted in a circuit breaker in the meantime.
+ */
+final class AnalyzedTextCache {
+
+    private final CircuitBreaker breaker;
+    private final Map<Key, AnalyzedText> texts = new HashMap<>();
+    private long usedBytes;
+
+    AnalyzedTextCache(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    /**
+     * Returns an analyzer that replays the tokens of texts that were already analyzed with the index analyzer of the field, and
+     * caches the tokens of the other texts.
+     *
+     * @param fieldAnalyzers    resolves the index analyzer of a field
+     * @param maxAnalyzedOffset if not {@code null}, tokens that start after this offset are neither cached nor replayed, like
+     *                          {@link LimitTokenOffsetAnalyzer} does
+     */
+    Analyzer wrap(Function<String, NamedAnalyzer> fieldAnalyzers, @Nullable Integer maxAnalyzedOffset) {
+        return new CachingAnalyzer(fieldAnalyzers, maxAnalyzedOffset);
+    }
+
+    /**
+     * Removes all cached texts and releases the memory that they held.
+     */
+    void clear() {
+        texts.clear();
+        breaker.addWithoutBreaking(-usedBytes);
+        usedBytes = 0;
+    }
+
+    /**
+     * Returns the number of cached texts.
+     */
+    int size() {
+        return texts.size();
+    }
+
+    private AnalyzedText analyze(NamedAnalyzer analyzer, @Nullable Integer maxAnalyzedOffset, String field, String text)
+            throws IOException {
+        final Key key = new Key(analyzer, maxAnalyzedOffset, text);
+        AnalyzedText analyzedText = texts.get(key);
+        if (analyzedText == null) {
+            analyzedText = new AnalyzedText();
+            try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
+                analyzedText.record(tokenStream, maxAnalyzedOffset);
+            }
+            final long bytes = analyzedText.ramBytesUsed() + RamUsageEstimator.sizeOf(text);
+            breaker.addEstimateBytesAndMaybeBreak(bytes, "<highlight_analyzed_text>");
+            usedBytes += bytes;
+            texts.put(key, analyzedText);
+        }
+        return analyzedText;
+    }
+
+    private static final class Key {
+        private final NamedAnalyzer analyzer;
+        private final Integer maxAnalyzedOffset;
+        private final String text;
+
+        Key(NamedAnalyzer analyzer, Integer maxAnalyzedOffset, String text) {
+            this.analyzer = analyzer;
+            this.maxAnalyzedOffset = maxAnalyzedOffset;
+            this.text = text;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            // analyzers are compared by identity, different analyzers may share a name
+            return analyzer == other.analyzer && Objects.equals(maxAnalyzedOffset, other.maxAnalyzedOffset) && text.equals(other.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(analyzer) + Objects.hashCode(maxAnalyzedOffset)) + text.hashCode();
+        }
+    }
+
+    /**
+     * The tokens of an analyzed text, their terms are concatenated in a single buffer.
+     */
+    private static final class AnalyzedText {
+        private char[] termChars = new char[16];
+        private int[] termEnds = new int[4];
+        private int[] startOffsets = new int[4];
+        private int[] endOffsets = new int[4];
+        private int[] positionIncrements = new int[4];
+        private int[] positionLengths = new int[4];
+        private BytesRef[] payloads;
+        private int size;
+        private int finalOffset;
+        private int finalPositionIncrement;
+
+        void record(TokenStream tokenStream, @Nullable Integer maxAnalyzedOffset) throws IOException {
+            final CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+            final OffsetAttribute offsetAtt = tokenStream.addAttribute(OffsetAttribute.class);
+            final PositionIncrementAttribute posIncAtt = tokenStream.addAttribute(PositionIncrementAttribute.class);
+            final PositionLengthAttribute posLenAtt = tokenStream.addAttribute(PositionLengthAttribute.class);
+            final PayloadAttribute payloadAtt = tokenStream.hasAttribute(PayloadAttribute.class)
+                ? tokenStream.getAttribute(PayloadAttribute.class)
+                : null;
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                if (maxAnalyzedOffset != null && offsetAtt.startOffset() > maxAnalyzedOffset) {
+                    break;
+                }
+                final int termStart = size == 0 ? 0 : termEnds[size - 1];
+                termChars = ArrayUtil.grow(termChars, termStart + termAtt.length());
+                System.arraycopy(termAtt.buffer(), 0, termChars, termStart, termAtt.length());
+                if (size == termEnds.length) {
+                    termEnds = ArrayUtil.grow(termEnds);
+                    startOffsets = ArrayUtil.growExact(startOffsets, termEnds.length);
+                    endOffsets = ArrayUtil.growExact(endOffsets, termEnds.length);
+                    positionIncrements = ArrayUtil.growExact(positionIncrements, termEnds.length);
+                    positionLengths = ArrayUtil.growExact(positionLengths, termEnds.length);
+                }
+                termEnds[size] = termStart + termAtt.length();
+                startOffsets[size] = offsetAtt.startOffset();
+                endOffsets[size] = offsetAtt.endOffset();
+                positionIncrements[size] = posIncAtt.getPositionIncrement();
+                positionLengths[size] = posLenAtt.getPositionLength();
+                final BytesRef payload = payloadAtt == null ? null : payloadAtt.getPayload();
+                if (payload != null) {
+                    if (payloads == null) {
+                        payloads = new BytesRef[termEnds.length];
+                    } else if (payloads.length < termEnds.length) {
+                        payloads = ArrayUtil.growExact(payloads, termEnds.length);
+                    }
+                    payloads[size] = BytesRef.deepCopyOf(payload);
+                }
+                size++;
+            }
+            tokenStream.end();
+            finalOffset = offsetAtt.endOffset();
+            finalPositionIncrement = posIncAtt.getPositionIncrement();
+        }
+
+        long ramBytesUsed() {
+            long bytes = RamUsageEstimator.sizeOf(termChars) + 5 * RamUsageEstimator.sizeOf(termEnds);
+            if (payloads != null) {
+                bytes += RamUsageEstimator.shallowSizeOf(payloads);
+                for (int i = 0; i < size; i++) {
+                    if (payloads[i] != null) {
+                        bytes += RamUsageEstimator.sizeOf(payloads[i].bytes);
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+
+    private final class CachingAnalyzer extends Analyzer {
+        private final Function<String, NamedAnalyzer> fieldAnalyzers;
+        private final Integer maxAnalyzedOffset;
+
+        CachingAnalyzer(Function<String, NamedAnalyzer> fieldAnalyzers, Integer maxAnalyzedOffset) {
+            super(PER_FIELD_REUSE_STRATEGY);
+            this.fieldAnalyzers = fieldAnalyzers;
+            this.maxAnalyzedOffset = maxAnalyzedOffset;
+        }
+
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            return new TokenStreamComponents(new CachingTokenizer(fieldAnalyzers.apply(fieldName), maxAnalyzedOffset, fieldName));
+        }
+
+        @Override
+        public int getPositionIncrementGap(String fieldName) {
+            return fieldAnalyzers.apply(fieldName).getPositionIncrementGap(fieldName);
+        }
+
+        @Override
+        public int getOffsetGap(String fieldName) {
+            return fieldAnalyzers.apply(fieldName).getOffsetGap(fieldName);
+        }
+    }
+
+    /**
+     * Reads the whole text on {@link #reset()} and replays its cached tokens, offsets are already corrected by the char filters of the
+     * analyzer that the text was analyzed with.
+     */
+    private final class CachingTokenizer extends Tokenizer {
+        private final CharTermAttribute termAtt = addAttribute(CharTermAttribute.class);
+        private final OffsetAttribute offsetAtt = addAttribute(OffsetAttribute.class);
+        private final PositionIncrementAttribute posIncAtt = addAttribute(PositionIncrementAttribute.class);
+        private final PositionLengthAttribute posLenAtt = addAttribute(PositionLengthAttribute.class);
+        private final PayloadAttribute payloadAtt = addAttribute(PayloadAttribute.class);
+        private final NamedAnalyzer analyzer;
+        private final Integer maxAnalyzedOffset;
+        private final String field;
+        private final StringBuilder text = new StringBuilder();
+        private final char[] buffer = new char[1024];
+        private AnalyzedText tokens;
+        private int upto;
+
+        CachingTokenizer(NamedAnalyzer analyzer, Integer maxAnalyzedOffset, String field) {
+            this.analyzer = analyzer;
+            this.maxAnalyzedOffset = maxAnalyzedOffset;
+            this.field = field;
+        }
+
+        @Override
+        public void reset() throws IOException {
+            super.reset();
+            text.setLength(0);
+            for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                text.append(buffer, 0, read);
+            }
+            tokens = analyze(analyzer, maxAnalyzedOffset, field, text.toString());
+            upto = 0;
+        }
+
+        @Override
+        public boolean incrementToken() {
+            if (upto == tokens.size) {
+                return false;
+            }
+            clearAttributes();
+            final int termStart = upto == 0 ? 0 : tokens.termEnds[upto - 1];
+            termAtt.copyBuffer(tokens.termChars, termStart, tokens.termEnds[upto] - termStart);
+            offsetAtt.setOffset(tokens.startOffsets[upto], tokens.endOffsets[upto]);
+            posIncAtt.setPositionIncrement(tokens.positionIncrements[upto]);
+            posLenAtt.setPositionLength(tokens.positionLengths[upto]);
+            if (tokens.payloads != null && upto < tokens.payloads.length) {
+                payloadAtt.setPayload(tokens.payloads[upto]);
+            }
+            upto++;
+            return true;
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            offsetAtt.setOffset(tokens.finalOffset, tokens.finalOffset);
+            posIncAtt.setPositionIncrement(tokens.finalPositionIncrement);
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            tokens = null;
+        }
+    }
+}
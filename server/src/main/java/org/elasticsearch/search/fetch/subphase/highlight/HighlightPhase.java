@@ -12,6 +12,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.RuntimeField;
 import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.search.fetch.FetchContext;
 import org.elasticsearch.search.fetch.FetchSubPhase;
@@ -42,9 +43,13 @@ public class HighlightPhase implements FetchSubPhase {
     }
 
     public FetchSubPhaseProcessor getProcessor(FetchContext context, SearchHighlightContext highlightContext, Query query) {
+        // the cached highlighters keep state for the hit that they highlight, so every processor needs its own cache
         Map<String, Object> sharedCache = new HashMap<>();
         Map<String, Function<HitContext, FieldHighlightContext>> contextBuilders = contextBuilders(
             context, highlightContext, query, sharedCache);
+        // runtime fields load their values with scripts, which read the search lookup that is shared by the whole request
+        boolean highlightsRuntimeFields = contextBuilders.keySet().stream()
+            .anyMatch(field -> context.getSearchExecutionContext().getFieldType(field) instanceof RuntimeField);
 
         return new FetchSubPhaseProcessor() {
             @Override
@@ -55,20 +60,33 @@ public class HighlightPhase implements FetchSubPhase {
             @Override
             public void process(HitContext hitContext) throws IOException {
                 Map<String, HighlightField> highlightFields = new HashMap<>();
-                for (String field : contextBuilders.keySet()) {
-                    FieldHighlightContext fieldContext = contextBuilders.get(field).apply(hitContext);
-                    Highlighter highlighter = getHighlighter(fieldContext.field);
-                    HighlightField highlightField = highlighter.highlight(fieldContext);
-                    if (highlightField != null) {
-                        // Note that we make sure to use the original field name in the response. This is because the
-                        // original field could be an alias, and highlighter implementations may instead reference the
-                        // concrete field it points to.
-                        highlightFields.put(field,
-                            new HighlightField(field, highlightField.fragments()));
+                try {
+                    for (String field : contextBuilders.keySet()) {
+                        FieldHighlightContext fieldContext = contextBuilders.get(field).apply(hitContext);
+                        Highlighter highlighter = getHighlighter(fieldContext.field);
+                        HighlightField highlightField = highlighter.highlight(fieldContext);
+                        if (highlightField != null) {
+                            // Note that we make sure to use the original field name in the response. This is because the
+                            // original field could be an alias, and highlighter implementations may instead reference the
+                            // concrete field it points to.
+                            highlightFields.put(field,
+                                new HighlightField(field, highlightField.fragments()));
+                        }
+                    }
+                } finally {
+                    // analyzed texts are only shared by the fields of a hit
+                    AnalyzedTextCache analyzedTextCache = (AnalyzedTextCache) sharedCache.get(AnalyzedTextCache.class.getName());
+                    if (analyzedTextCache != null) {
+                        analyzedTextCache.clear();
                     }
                 }
                 hitContext.hit().highlightFields(highlightFields);
             }
+
+            @Override
+            public boolean supportsConcurrentFetch() {
+                return highlightsRuntimeFields == false;
+            }
         };
     }
 
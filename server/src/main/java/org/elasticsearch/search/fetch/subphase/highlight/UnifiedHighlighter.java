@@ -104,11 +104,21 @@ public class UnifiedHighlighter implements Highlighter {
         int maxAnalyzedOffset = fieldContext.context.getSearchExecutionContext().getIndexSettings().getHighlightMaxAnalyzedOffset();
         int numberOfFragments = fieldContext.field.fieldOptions().numberOfFragments();
         Integer queryMaxAnalyzedOffset = fieldContext.field.fieldOptions().maxAnalyzedOffset();
-        Analyzer analyzer = wrapAnalyzer(fieldContext.context.getSearchExecutionContext().getIndexAnalyzer(f -> Lucene.KEYWORD_ANALYZER),
+        SearchExecutionContext searchExecutionContext = fieldContext.context.getSearchExecutionContext();
+        OffsetSource offsetSource = getOffsetSource(fieldContext.fieldType);
+        Analyzer indexAnalyzer;
+        if (offsetSource == OffsetSource.ANALYSIS) {
+            // the fields of a hit that highlight the same text with the same analyzer share its analysis
+            AnalyzedTextCache analyzedTextCache = (AnalyzedTextCache) fieldContext.cache
+                .computeIfAbsent(AnalyzedTextCache.class.getName(), k -> new AnalyzedTextCache(fieldContext.context.breaker()));
+            indexAnalyzer = analyzedTextCache.wrap(f -> searchExecutionContext.getIndexAnalyzer(f, u -> Lucene.KEYWORD_ANALYZER),
                 queryMaxAnalyzedOffset);
+        } else {
+            indexAnalyzer = searchExecutionContext.getIndexAnalyzer(f -> Lucene.KEYWORD_ANALYZER);
+        }
+        Analyzer analyzer = wrapAnalyzer(indexAnalyzer, queryMaxAnalyzedOffset);
         PassageFormatter passageFormatter = getPassageFormatter(fieldContext.hitContext, fieldContext.field, encoder);
         IndexSearcher searcher = fieldContext.context.searcher();
-        OffsetSource offsetSource = getOffsetSource(fieldContext.fieldType);
         BreakIterator breakIterator;
         int higlighterNumberOfFragments;
         if (numberOfFragments == 0
@@ -142,6 +142,13 @@ public class SourceLookup implements Map<String, Object> {
         this.source = source;
     }
 
+    /**
+     * Returns whether the source was already parsed into a map, see {@link #source()}.
+     */
+    public boolean hasSourceAsMap() {
+        return source != null;
+    }
+
     /**
      * Internal source representation, might be compressed....
      */
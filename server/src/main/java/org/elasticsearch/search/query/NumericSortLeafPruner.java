@@ -0,0 +1,210 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.ConjunctionDISI;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.FilterWeight;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.DocIdSetBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Prunes the leaves of a shard that is searched for the top hits of a sort on a long or date field, whose values are indexed as
+ * one-dimensional {@link LongPoint}s. Leaves are expected to be searched one after the other, best leaves first, and the top hits of
+ * every searched leaf are reported through {@link #onLeafCollected}. Once {@code numHits} values have been collected, the worst of
+ * them is the bottom of the top hits of the shard: leaves whose points can only hold worse values are skipped entirely, and the
+ * documents of the other leaves are restricted to the ones that have a point at least as good as the bottom, if there are few of them.
+ *
+ * Pruning skips documents that match the query, so it must only be used if the total number of hits is not counted by collecting them.
+ */
+final class NumericSortLeafPruner {
+
+    /** Don't restrict the documents of a leaf if more than {@code 1 / MAX_COMPETITIVE_RATIO} of them could be competitive */
+    private static final int MAX_COMPETITIVE_RATIO = 8;
+
+    private final String field;
+    private final boolean reverse;
+    private final long missingValue;
+    private final int numHits;
+    // the best values collected so far, the worst of them at the head of the queue
+    private final PriorityQueue<Long> topValues;
+    private boolean pruned;
+
+    NumericSortLeafPruner(String field, boolean reverse, long missingValue, int numHits) {
+        this.field = field;
+        this.reverse = reverse;
+        this.missingValue = missingValue;
+        this.numHits = numHits;
+        this.topValues = new PriorityQueue<>(reverse ? Comparator.naturalOrder() : Comparator.reverseOrder());
+    }
+
+    /**
+     * Records the top hits that were collected in a leaf.
+     */
+    void onLeafCollected(TopFieldDocs topDocs) {
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            topValues.add((Long) ((FieldDoc) scoreDoc).fields[0]);
+            if (topValues.size() > numHits) {
+                topValues.poll();
+            }
+        }
+    }
+
+    /**
+     * Returns whether documents of a leaf were skipped because they could not compete with the top hits.
+     */
+    boolean hasPruned() {
+        return pruned;
+    }
+
+    /**
+     * Returns the weight to search the provided leaf with, or {@code null} if the leaf cannot hold any competitive document.
+     */
+    Weight prune(Weight weight, LeafReaderContext ctx) throws IOException {
+        if (topValues.size() < numHits) {
+            return weight;
+        }
+        final long bottom = topValues.peek();
+        final int maxDoc = ctx.reader().maxDoc();
+        final PointValues values = ctx.reader().getPointValues(field);
+        if (values == null) {
+            if (isCompetitive(missingValue, bottom)) {
+                return weight;
+            }
+            pruned = true;
+            return null;
+        }
+        if (values.getNumDimensions() != 1 || values.getBytesPerDimension() != Long.BYTES) {
+            return weight;
+        }
+        final long min = LongPoint.decodeDimension(values.getMinPackedValue(), 0);
+        final long max = LongPoint.decodeDimension(values.getMaxPackedValue(), 0);
+        final boolean hasMissingValues = values.getDocCount() < maxDoc;
+        if (hasMissingValues && isCompetitive(missingValue, bottom)) {
+            // documents without a value may compete, they cannot be found through the points
+            return weight;
+        }
+        if (isCompetitive(reverse ? max : min, bottom) == false) {
+            pruned = true;
+            return null;
+        }
+        if (isCompetitive(reverse ? min : max, bottom)) {
+            // all documents of the leaf may compete
+            return weight;
+        }
+
+        final byte[] lowerPoint = new byte[Long.BYTES];
+        final byte[] upperPoint = new byte[Long.BYTES];
+        LongPoint.encodeDimension(reverse ? bottom : Long.MIN_VALUE, lowerPoint, 0);
+        LongPoint.encodeDimension(reverse ? Long.MAX_VALUE : bottom, upperPoint, 0);
+        final CompetitiveDocsVisitor visitor = new CompetitiveDocsVisitor(lowerPoint, upperPoint);
+        if (values.estimatePointCount(visitor) > maxDoc / MAX_COMPETITIVE_RATIO) {
+            // restricting the documents is not worth building the set of competitive documents
+            return weight;
+        }
+        visitor.builder = new DocIdSetBuilder(maxDoc, values, field);
+        values.intersect(visitor);
+        final DocIdSetIterator competitiveDocs = visitor.builder.build().iterator();
+        pruned = true;
+        return new FilterWeight(weight) {
+            @Override
+            public Scorer scorer(LeafReaderContext context) throws IOException {
+                final Scorer scorer = in.scorer(context);
+                if (scorer == null) {
+                    return null;
+                }
+                final DocIdSetIterator iterator = ConjunctionDISI.intersectIterators(Arrays.asList(scorer.iterator(), competitiveDocs));
+                return new Scorer(this) {
+                    @Override
+                    public DocIdSetIterator iterator() {
+                        return iterator;
+                    }
+
+                    @Override
+                    public int docID() {
+                        return iterator.docID();
+                    }
+
+                    @Override
+                    public float score() throws IOException {
+                        return scorer.score();
+                    }
+
+                    @Override
+                    public float getMaxScore(int upTo) throws IOException {
+                        return scorer.getMaxScore(upTo);
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns whether a document with the provided value may compete with the bottom of the top hits. Values that are equal to the
+     * bottom compete since ties are broken on the following sort fields.
+     */
+    private boolean isCompetitive(long value, long bottom) {
+        return reverse ? value >= bottom : value <= bottom;
+    }
+
+    private static class CompetitiveDocsVisitor implements PointValues.IntersectVisitor {
+        private final byte[] lowerPoint;
+        private final byte[] upperPoint;
+        private DocIdSetBuilder builder;
+        private DocIdSetBuilder.BulkAdder adder;
+
+        CompetitiveDocsVisitor(byte[] lowerPoint, byte[] upperPoint) {
+            this.lowerPoint = lowerPoint;
+            this.upperPoint = upperPoint;
+        }
+
+        @Override
+        public void grow(int count) {
+            adder = builder.grow(count);
+        }
+
+        @Override
+        public void visit(int docID) {
+            adder.add(docID);
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+            if (Arrays.compareUnsigned(packedValue, 0, Long.BYTES, lowerPoint, 0, Long.BYTES) >= 0 &&
+                Arrays.compareUnsigned(packedValue, 0, Long.BYTES, upperPoint, 0, Long.BYTES) <= 0) {
+                adder.add(docID);
+            }
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            if (Arrays.compareUnsigned(minPackedValue, 0, Long.BYTES, upperPoint, 0, Long.BYTES) > 0 ||
+                Arrays.compareUnsigned(maxPackedValue, 0, Long.BYTES, lowerPoint, 0, Long.BYTES) < 0) {
+                return PointValues.Relation.CELL_OUTSIDE_QUERY;
+            }
+            if (Arrays.compareUnsigned(minPackedValue, 0, Long.BYTES, lowerPoint, 0, Long.BYTES) < 0 ||
+                Arrays.compareUnsigned(maxPackedValue, 0, Long.BYTES, upperPoint, 0, Long.BYTES) > 0) {
+                return PointValues.Relation.CELL_CROSSES_QUERY;
+            }
+            return PointValues.Relation.CELL_INSIDE_QUERY;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
@@ -37,6 +38,7 @@ import org.apache.lucene.search.Weight;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.common.Booleans;
 import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.util.concurrent.EWMATrackingEsThreadPoolExecutor;
@@ -45,6 +47,7 @@ import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.DateFieldMapper.DateFieldType;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.node.NodeLoadStats;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchContextSourcePrinter;
 import org.elasticsearch.search.SearchService;
@@ -70,6 +73,7 @@ import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createEarlyTerminationCollectorContext;
 import static org.elasticsearch.search.query.QueryCollectorContext.createFilteredCollectorContext;
@@ -87,15 +91,26 @@ public class QueryPhase {
     private static final Logger LOGGER = LogManager.getLogger(QueryPhase.class);
     // TODO: remove this property in 8.0
     public static final boolean SYS_PROP_REWRITE_SORT = Booleans.parseBoolean(System.getProperty("es.search.rewrite_sort", "true"));
+    public static final boolean SYS_PROP_PRUNE_SORTED_LEAVES =
+        Booleans.parseBoolean(System.getProperty("es.search.prune_sorted_leaves", "true"));
 
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private final RescorePhase rescorePhase;
+    private final Supplier<NodeLoadStats> nodeLoadStats;
 
     public QueryPhase() {
+        this(() -> null);
+    }
+
+    /**
+     * @param nodeLoadStats supplies the load of the local node that query results report to coordinating nodes
+     */
+    public QueryPhase(Supplier<NodeLoadStats> nodeLoadStats) {
         this.aggregationPhase = new AggregationPhase();
         this.suggestPhase = new SuggestPhase();
         this.rescorePhase = new RescorePhase();
+        this.nodeLoadStats = nodeLoadStats;
     }
 
     public void preProcess(SearchContext context) {
@@ -137,6 +152,7 @@ public class QueryPhase {
         // here to make sure it happens during the QUERY phase
         aggregationPhase.preProcess(searchContext);
         boolean rescore = executeInternal(searchContext);
+        searchContext.queryResult().nodeLoadStats(nodeLoadStats.get());
 
         if (rescore) { // only if we do a regular search
             rescorePhase.execute(searchContext);
@@ -231,6 +247,7 @@ public class QueryPhase {
             }
 
             CheckedConsumer<List<LeafReaderContext>, IOException> leafSorter = l -> {};
+            NumericSortLeafPruner leafPruner = null;
             // try to rewrite numeric or date sort to the optimized distanceFeatureQuery
             if ((searchContext.sort() != null) && SYS_PROP_REWRITE_SORT) {
                 Query rewrittenQuery = tryRewriteLongSort(searchContext, searcher.getIndexReader(), query, hasFilterCollector);
@@ -250,6 +267,14 @@ public class QueryPhase {
                     leafSorter = createLeafSorter(oldSortFields[0]);
                 }
             }
+            // otherwise try to skip the leaves and documents that cannot compete with the top hits of a numeric or date sort
+            if (sortAndFormatsForRewrittenNumericSort == null && searchContext.sort() != null && SYS_PROP_PRUNE_SORTED_LEAVES
+                    && collectors.isEmpty() && searchContext.getProfilers() == null) {
+                leafPruner = createLeafPruner(searchContext, reader, query);
+                if (leafPruner != null) {
+                    leafSorter = createLeafSorter(searchContext.sort().sort.getSort()[0]);
+                }
+            }
 
             boolean timeoutSet = scrollContext == null && searchContext.timeout() != null &&
                 searchContext.timeout().equals(SearchService.NO_TIMEOUT) == false;
@@ -282,7 +307,9 @@ public class QueryPhase {
                 boolean shouldRescore;
                 // if we are optimizing sort and there are no other collectors
                 if (sortAndFormatsForRewrittenNumericSort != null && collectors.size() == 0 && searchContext.getProfilers() == null) {
-                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, timeoutSet);
+                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, null, timeoutSet);
+                } else if (leafPruner != null) {
+                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, leafSorter, leafPruner, timeoutSet);
                 } else {
                     shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
                 }
@@ -359,11 +386,14 @@ public class QueryPhase {
      * we have already checked that there are no other collectors, no filters,
      * no search after, no scroll, no collapse, no track scores.
      * Absence of all other collectors and parameters allows us to use TopFieldCollector directly.
+     * If a leafPruner is provided, leaves and documents that cannot compete with the top hits
+     * collected so far are skipped once the total hit count is known or has reached its threshold.
      */
     private static boolean searchWithCollectorManager(SearchContext searchContext,
                                                       ContextIndexSearcher searcher,
                                                       Query query,
                                                       CheckedConsumer<List<LeafReaderContext>, IOException> leafSorter,
+                                                      @Nullable NumericSortLeafPruner leafPruner,
                                                       boolean timeoutSet) throws IOException {
         final QuerySearchResult queryResult = searchContext.queryResult();
         final IndexReader reader = searchContext.searcher().getIndexReader();
@@ -392,14 +422,32 @@ public class QueryPhase {
         List<LeafReaderContext> leaves = new ArrayList<>(searcher.getIndexReader().leaves());
         leafSorter.accept(leaves);
 
-        final Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.TOP_SCORES, 1f);
-        final List<TopFieldCollector> collectors = new ArrayList<>(leaves.size());
+        // scores are only needed by the rewritten sort, which sorts on _score first
+        final ScoreMode scoreMode = leafPruner == null ? ScoreMode.TOP_SCORES : ScoreMode.COMPLETE_NO_SCORES;
+        final Weight weight = searcher.createWeight(searcher.rewrite(query), scoreMode, 1f);
+        final List<TopFieldDocs> leafTopDocs = new ArrayList<>(leaves.size());
+        TopFieldCollector collector = null;
+        long collectedHits = 0;
 
         try {
             for (LeafReaderContext ctx : leaves) {
-                final TopFieldCollector collector = sharedManager.newCollector();
-                collectors.add(collector);
-                searcher.search(Collections.singletonList(ctx), weight, collector);
+                Weight leafWeight = weight;
+                if (leafPruner != null && (totalHits != null || collectedHits >= totalHitsThreshold)) {
+                    leafWeight = leafPruner.prune(weight, ctx);
+                    if (leafWeight == null) {
+                        // the leaf cannot hold any competitive document
+                        continue;
+                    }
+                }
+                collector = sharedManager.newCollector();
+                searcher.search(Collections.singletonList(ctx), leafWeight, collector);
+                TopFieldDocs topDocs = collector.topDocs();
+                collector = null;
+                leafTopDocs.add(topDocs);
+                collectedHits += topDocs.totalHits.value;
+                if (leafPruner != null) {
+                    leafPruner.onLeafCollected(topDocs);
+                }
             }
         } catch (EarlyTerminatingCollector.EarlyTerminationException e) {
             queryResult.terminatedEarly(true);
@@ -411,8 +459,12 @@ public class QueryPhase {
             }
             queryResult.searchTimedOut(true);
         }
+        if (collector != null) {
+            // add the hits of the leaf whose collection was interrupted
+            leafTopDocs.add(collector.topDocs());
+        }
 
-        TopFieldDocs mergedTopDocs = sharedManager.reduce(collectors);
+        TopFieldDocs mergedTopDocs = TopDocs.merge(sortAndFormats.sort, 0, numHits, leafTopDocs.toArray(new TopFieldDocs[0]));
         // Lucene sets shards indexes during merging of topDocs from different collectors
         // We need to reset shard index; ES will set shard index later during reduce stage
         for (ScoreDoc scoreDoc : mergedTopDocs.scoreDocs) {
@@ -420,6 +472,9 @@ public class QueryPhase {
         }
         if (totalHits != null) { // we have already precalculated totalHits for the whole index
             mergedTopDocs = new TopFieldDocs(totalHits, mergedTopDocs.scoreDocs, mergedTopDocs.fields);
+        } else if (leafPruner != null && leafPruner.hasPruned()) { // pruned documents were not counted
+            TotalHits prunedTotalHits = new TotalHits(mergedTopDocs.totalHits.value, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+            mergedTopDocs = new TopFieldDocs(prunedTotalHits, mergedTopDocs.scoreDocs, mergedTopDocs.fields);
         }
         queryResult.topDocs(new TopDocsAndMaxScore(mergedTopDocs, Float.NaN), sortAndFormats.formats);
         return false; // no rescoring when sorting by field
@@ -515,6 +570,45 @@ public class QueryPhase {
         return rewrittenQuery;
     }
 
+    /**
+     * Returns a {@link NumericSortLeafPruner} if the query sorts on a long or date field first and the top hits can be computed
+     * without collecting every matching document, {@code null} otherwise.
+     */
+    private static NumericSortLeafPruner createLeafPruner(SearchContext searchContext, IndexReader reader,
+                                                          Query query) throws IOException {
+        if ((searchContext.from() + searchContext.size()) <= 0) return null;
+        if (searchContext.searchAfter() != null) return null;
+        if (searchContext.scrollContext() != null) return null;
+        if (searchContext.collapse() != null) return null;
+        if (searchContext.trackScores()) return null;
+        if (searchContext.aggregations() != null) return null;
+        if (searchContext.rescore().isEmpty() == false) return null;
+        if (canEarlyTerminate(reader, searchContext.sort())) {
+            // the index sort already allows to early terminate the collection
+            return null;
+        }
+        Sort sort = searchContext.sort().sort;
+        if (sort.needsScores()) return null;
+        SortField sortField = sort.getSort()[0];
+        // custom comparators may read values that differ from the indexed points, e.g. averages or nested values
+        if (sortField instanceof SortedNumericSortField == false) return null;
+        if (SortField.Type.LONG.equals(IndexSortConfig.getSortFieldType(sortField)) == false) return null;
+        if (sortField.getMissingValue() == null) return null;
+
+        String fieldName = sortField.getField();
+        final MappedFieldType fieldType = searchContext.getSearchExecutionContext().getFieldType(fieldName);
+        if (fieldType == null) return null;
+        if ((fieldType.typeName().equals("long") == false) && (fieldType instanceof DateFieldType == false)) return null;
+        if (fieldType.isSearchable() == false) return null;
+        if (fieldType.hasDocValues() == false) return null;
+
+        // only prune if the total hit count doesn't need to be computed by collecting all hits
+        if (searchContext.trackTotalHitsUpTo() == Integer.MAX_VALUE && shortcutTotalHitCount(reader, query) == -1) return null;
+
+        final int numHits = Math.min(searchContext.from() + searchContext.size(), Math.max(1, reader.numDocs()));
+        return new NumericSortLeafPruner(fieldName, sortField.getReverse(), (long) sortField.getMissingValue(), numHits);
+    }
+
     /**
      * Creates a sorter of {@link LeafReaderContext} that orders leaves depending on the minimum
      * value and the sort order of the provided <code>sortField</code>.
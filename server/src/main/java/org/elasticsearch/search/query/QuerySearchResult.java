@@ -15,6 +15,7 @@ import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.node.NodeLoadStats;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.RescoreDocIds;
 import org.elasticsearch.search.SearchPhaseResult;
@@ -56,6 +57,7 @@ public final class QuerySearchResult extends SearchPhaseResult {
     private boolean hasProfileResults;
     private long serviceTimeEWMA = -1;
     private int nodeQueueSize = -1;
+    private NodeLoadStats nodeLoadStats;
 
     private final boolean isNull;
 
@@ -305,6 +307,18 @@ public final class QuerySearchResult extends SearchPhaseResult {
         return this;
     }
 
+    /**
+     * The load of the node that executed the query, or {@code null} if it is not known
+     */
+    public NodeLoadStats nodeLoadStats() {
+        return this.nodeLoadStats;
+    }
+
+    public QuerySearchResult nodeLoadStats(NodeLoadStats nodeLoadStats) {
+        this.nodeLoadStats = nodeLoadStats;
+        return this;
+    }
+
     /**
      * Returns <code>true</code> if this result has any suggest score docs
      */
@@ -346,6 +360,9 @@ public final class QuerySearchResult extends SearchPhaseResult {
             setShardSearchRequest(in.readOptionalWriteable(ShardSearchRequest::new));
             setRescoreDocIds(new RescoreDocIds(in));
         }
+        if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+            nodeLoadStats = in.readOptionalWriteable(NodeLoadStats::new);
+        }
     }
 
     @Override
@@ -387,6 +404,9 @@ public final class QuerySearchResult extends SearchPhaseResult {
             out.writeOptionalWriteable(getShardSearchRequest());
             getRescoreDocIds().writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+            out.writeOptionalWriteable(nodeLoadStats);
+        }
     }
 
     public TotalHits getTotalHits() {
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.node.NodeRanking;
 import org.elasticsearch.node.ResponseCollectorService.ComputedNodeStats;
 import org.elasticsearch.test.ESTestCase;
 
@@ -57,6 +58,43 @@ public class ComputedNodeStatsTests extends ESTestCase {
         assertTrue(first.rank(0) < second.rank(1));
     }
 
+    public void testNodeLoadRanking() {
+        // Without load, both rankings rank nodes the same
+        ComputedNodeStats stats = createStats(2, 150, 100, -1, -1, -1);
+        assertThat(NodeRanking.C3_NODE_LOAD.rank(stats, 1), equalTo(NodeRanking.C3.rank(stats, 1)));
+        stats = createStats(2, 150, 100, 0, 50, 0);
+        assertThat(NodeRanking.C3_NODE_LOAD.rank(stats, 1), equalTo(NodeRanking.C3.rank(stats, 1)));
+
+        // Time spent collecting garbage slows the node down
+        stats = createStats(2, 150, 100, 50, -1, -1);
+        assertThat(NodeRanking.C3_NODE_LOAD.rank(stats, 1), equalTo(2 * NodeRanking.C3.rank(stats, 1)));
+
+        // A node with a saturated CPU or rejections ranks worse than a node with the same stats but no load
+        ComputedNodeStats idle = createStats(2, 150, 100, 0, 10, 0);
+        ComputedNodeStats saturated = createStats(2, 150, 100, 0, 100, 0);
+        ComputedNodeStats rejecting = createStats(2, 150, 100, 0, 10, 1);
+        assertThat(NodeRanking.C3_NODE_LOAD.rank(saturated, 1), equalTo(2 * NodeRanking.C3_NODE_LOAD.rank(idle, 1)));
+        assertThat(NodeRanking.C3_NODE_LOAD.rank(rejecting, 1), equalTo(2 * NodeRanking.C3_NODE_LOAD.rank(idle, 1)));
+
+        // A node in a long garbage collection loses against a node with a larger queue
+        ComputedNodeStats collecting = createStats(1, 150, 100, 80, 50, 0);
+        ComputedNodeStats queued = createStats(2, 150, 100, 0, 50, 0);
+        assertTrue(NodeRanking.C3.rank(collecting, 1) < NodeRanking.C3.rank(queued, 1));
+        assertTrue(NodeRanking.C3_NODE_LOAD.rank(collecting, 1) > NodeRanking.C3_NODE_LOAD.rank(queued, 1));
+    }
+
+    public void testRankingFromName() {
+        assertSame(NodeRanking.C3, NodeRanking.fromName("c3"));
+        assertSame(NodeRanking.C3_NODE_LOAD, NodeRanking.fromName("c3_node_load"));
+        expectThrows(IllegalArgumentException.class, () -> NodeRanking.fromName("unknown"));
+    }
+
+    private ComputedNodeStats createStats(int queueSize, int responseTimeMillis, int serviceTimeMillis,
+                                          double gcOverhead, double cpuPercent, double searchRejections) {
+        return new ComputedNodeStats("node0", 5, queueSize, 1_000_000 * responseTimeMillis, 1_000_000 * serviceTimeMillis,
+            gcOverhead, cpuPercent, searchRejections, NodeRanking.C3_NODE_LOAD);
+    }
+
     private ComputedNodeStats createStats(int queueSize, int responseTimeMillis, int serviceTimeMillis) {
         return new ComputedNodeStats("node0", 5, queueSize, 1_000_000 * responseTimeMillis, 1_000_000 * serviceTimeMillis);
     }
@@ -11,6 +11,10 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 import org.elasticsearch.cluster.coordination.PendingClusterStateStats;
 import org.elasticsearch.cluster.coordination.PublishClusterStateStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.service.ClusterApplierRecordingService;
+import org.elasticsearch.cluster.service.MasterTaskQueueRecordingService;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.discovery.DiscoveryStats;
@@ -277,6 +281,8 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(queueStats.getTotal(), deserializedDiscoveryStats.getQueueStats().getTotal());
                         assertEquals(queueStats.getPending(), deserializedDiscoveryStats.getQueueStats().getPending());
                     }
+                    assertEquals(discoveryStats.getApplierRecordingStats(), deserializedDiscoveryStats.getApplierRecordingStats());
+                    assertEquals(discoveryStats.getMasterTaskQueueStats(), deserializedDiscoveryStats.getMasterTaskQueueStats());
                 }
                 IngestStats ingestStats = nodeStats.getIngestStats();
                 IngestStats deserializedIngestStats = deserializedNodeStats.getIngestStats();
@@ -491,6 +497,17 @@ public class NodeStatsTests extends ESTestCase {
                     randomNonNegativeLong(),
                     randomNonNegativeLong(),
                     randomNonNegativeLong())
+                : null,
+                randomBoolean()
+                ? new ClusterApplierRecordingService.Stats(
+                    randomMap(0, 10, () -> Tuple.tuple(randomAlphaOfLength(10),
+                        new ClusterApplierRecordingService.Recording(randomNonNegativeLong(), randomNonNegativeLong()))))
+                : null,
+                randomBoolean()
+                ? new MasterTaskQueueRecordingService.Stats(
+                    randomMap(0, Priority.values().length, () -> Tuple.tuple(randomFrom(Priority.values()),
+                        new MasterTaskQueueRecordingService.QueueStats(randomNonNegativeLong(), randomNonNegativeLong(),
+                            randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong()))))
                 : null)
             : null;
         IngestStats ingestStats = null;
@@ -0,0 +1,79 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.admin.cluster.tasks;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.service.MasterTaskQueueRecordingService;
+import org.elasticsearch.cluster.service.PendingClusterTask;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PendingClusterTasksResponseTests extends ESTestCase {
+
+    public void testQueuesToXContent() throws IOException {
+        final PendingClusterTasksResponse response = new PendingClusterTasksResponse(List.of(
+            new PendingClusterTask(1, Priority.URGENT, new Text("shard-started"), 20, true),
+            new PendingClusterTask(2, Priority.URGENT, new Text("shard-started"), 10, false),
+            new PendingClusterTask(0, Priority.NORMAL, new Text("ilm-execute-cluster-state-steps"), 300, false)),
+            new MasterTaskQueueRecordingService.Stats(Map.of(
+                Priority.URGENT, new MasterTaskQueueRecordingService.QueueStats(4, 40, 20, 400, 50),
+                Priority.LANGUID, new MasterTaskQueueRecordingService.QueueStats(1, 1, 1, 5, 5))));
+
+        final Map<String, Object> map = XContentHelper.convertToMap(JsonXContent.jsonXContent, Strings.toString(response), false);
+        assertThat(XContentMapValues.extractValue("queues.urgent.pending", map), equalTo(2));
+        assertThat(XContentMapValues.extractValue("queues.urgent.max_time_in_queue_millis", map), equalTo(20));
+        assertThat(XContentMapValues.extractValue("queues.urgent.executed.batches", map), equalTo(4));
+        assertThat(XContentMapValues.extractValue("queues.urgent.executed.max_batch_size", map), equalTo(20));
+        assertThat(XContentMapValues.extractValue("queues.normal.pending", map), equalTo(1));
+        assertThat(XContentMapValues.extractValue("queues.normal.max_time_in_queue_millis", map), equalTo(300));
+        assertThat(XContentMapValues.extractValue("queues.normal.executed", map), nullValue());
+        assertThat(XContentMapValues.extractValue("queues.languid.pending", map), equalTo(0));
+        assertThat(XContentMapValues.extractValue("queues.languid.executed.tasks", map), equalTo(1));
+    }
+
+    public void testSerialization() throws IOException {
+        final MasterTaskQueueRecordingService.Stats queueStats = new MasterTaskQueueRecordingService.Stats(Map.of(
+            randomFrom(Priority.values()), new MasterTaskQueueRecordingService.QueueStats(randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong())));
+        final PendingClusterTasksResponse response = new PendingClusterTasksResponse(List.of(
+            new PendingClusterTask(randomNonNegativeLong(), randomFrom(Priority.values()), new Text(randomAlphaOfLength(10)),
+                randomNonNegativeLong(), randomBoolean())), randomBoolean() ? queueStats : null);
+
+        final Version version = VersionUtils.randomVersion(random());
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            response.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                final PendingClusterTasksResponse deserialized = new PendingClusterTasksResponse(in);
+                assertThat(deserialized.pendingTasks().size(), equalTo(1));
+                if (version.onOrAfter(Version.V_8_0_0)) {
+                    assertThat(deserialized.getQueueStats(), equalTo(response.getQueueStats()));
+                } else {
+                    assertThat(deserialized.getQueueStats(), nullValue());
+                }
+            }
+        }
+    }
+}
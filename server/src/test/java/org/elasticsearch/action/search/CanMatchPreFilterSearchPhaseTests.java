@@ -25,9 +25,12 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.query.AbstractQueryBuilder;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.CoordinatorFieldRange;
+import org.elasticsearch.index.query.CoordinatorFieldRangeCache;
 import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
 import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
@@ -604,6 +607,79 @@ public class CanMatchPreFilterSearchPhaseTests extends ESTestCase {
         );
     }
 
+    public void testCanMatchFilteringOnCoordinatorWithCachedFieldRanges() throws Exception {
+        Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
+        DiscoveryNode primaryNode = new DiscoveryNode("node_1", buildNewFakeTransportAddress(), Version.CURRENT);
+        lookup.put("node1", new SearchAsyncActionTests.MockConnection(primaryNode));
+
+        Index index = new Index("idx", UUIDs.base64UUID());
+        String fieldName = "event_time";
+        StaticCoordinatorRewriteContextProviderBuilder contextProviderBuilder = new StaticCoordinatorRewriteContextProviderBuilder();
+        contextProviderBuilder.addWriteBlockedIndex(index, fieldName);
+        CoordinatorRewriteContextProvider contextProvider = contextProviderBuilder.build();
+
+        long minValue = randomLongBetween(0, 5000);
+        long maxValue = randomLongBetween(minValue, 5000 * 2);
+        List<CoordinatorFieldRange> fieldRanges =
+            List.of(new CoordinatorFieldRange(new DateFieldMapper.DateFieldType(fieldName), ShardLongFieldRange.of(minValue, maxValue)));
+        final List<ShardSearchRequest> requests = Collections.synchronizedList(new ArrayList<>());
+        SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendCanMatch(Transport.Connection connection, ShardSearchRequest request, SearchTask task,
+                                     ActionListener<SearchService.CanMatchResponse> listener) {
+                requests.add(request);
+                listener.onResponse(new SearchService.CanMatchResponse(true, null, fieldRanges));
+            }
+        };
+
+        // We query a range outside of the range of values of every shard
+        final SearchRequest searchRequest = new SearchRequest("idx");
+        searchRequest.allowPartialSearchResults(true);
+        searchRequest.source(SearchSourceBuilder.searchSource().query(new RangeQueryBuilder(fieldName).from(maxValue + 1)));
+        int numShards = randomIntBetween(2, 6);
+
+        for (int round = 0; round < 2; round++) {
+            requests.clear();
+            GroupShardsIterator<SearchShardIterator> shardsIter = GroupShardsIterator.sortAndCreate(getShardsIter(index,
+                new OriginalIndices(new String[]{"idx"}, SearchRequest.DEFAULT_INDICES_OPTIONS), numShards, false, primaryNode, null));
+            AtomicReference<GroupShardsIterator<SearchShardIterator>> result = new AtomicReference<>();
+            CountDownLatch latch = new CountDownLatch(1);
+            CanMatchPreFilterSearchPhase canMatchPhase = new CanMatchPreFilterSearchPhase(logger,
+                searchTransportService,
+                (clusterAlias, node) -> lookup.get(node),
+                Collections.singletonMap(index.getUUID(), new AliasFilter(null, Strings.EMPTY_ARRAY)),
+                Collections.emptyMap(), EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                searchRequest, null, shardsIter,
+                new TransportSearchAction.SearchTimeProvider(0, System.nanoTime(), System::nanoTime),
+                ClusterState.EMPTY_STATE, null,
+                (iter) -> new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        result.set(iter);
+                        latch.countDown();
+                    }
+                }, SearchResponse.Clusters.EMPTY, contextProvider);
+            canMatchPhase.start();
+            latch.await();
+
+            int skippedShards = 0;
+            for (SearchShardIterator shardIt : result.get()) {
+                if (shardIt.skip()) {
+                    skippedShards++;
+                }
+            }
+            if (round == 0) {
+                // nothing is cached yet, all shards are asked and report their ranges
+                assertThat(requests.size(), equalTo(numShards));
+                assertThat(skippedShards, equalTo(0));
+            } else {
+                // the cached ranges are used to skip the shards without asking them, one shard is kept to build the response
+                assertThat(requests.size(), equalTo(0));
+                assertThat(skippedShards, equalTo(numShards - 1));
+            }
+        }
+    }
+
     private void assertAllShardsAreQueried(List<SearchShardIterator> updatedSearchShardIterators, List<ShardSearchRequest> requests) {
         int skippedShards = (int) updatedSearchShardIterators.stream()
             .filter(SearchShardIterator::skip)
@@ -783,13 +859,30 @@ public class CanMatchPreFilterSearchPhaseTests extends ESTestCase {
             fields.put(index, new DateFieldMapper.DateFieldType(fieldName));
         }
 
+        private void addWriteBlockedIndex(Index index, String... coordinatorRangeFields) {
+            Settings.Builder indexSettings = settings(Version.CURRENT)
+                .put(IndexMetadata.SETTING_INDEX_UUID, index.getUUID())
+                .put(IndexMetadata.SETTING_BLOCKS_WRITE, true)
+                .putList(IndexSettings.COORDINATOR_RANGE_FIELDS_SETTING.getKey(), coordinatorRangeFields);
+
+            IndexMetadata.Builder indexMetadataBuilder = IndexMetadata.builder(index.getName())
+                .settings(indexSettings)
+                .numberOfShards(1)
+                .numberOfReplicas(0);
+
+            clusterState = ClusterState.builder(clusterState)
+                .metadata(Metadata.builder(clusterState.metadata()).put(indexMetadataBuilder))
+                .build();
+        }
+
         public CoordinatorRewriteContextProvider build() {
             return new CoordinatorRewriteContextProvider(NamedXContentRegistry.EMPTY,
                 mock(NamedWriteableRegistry.class),
                 mock(Client.class),
                 System::currentTimeMillis,
                 () -> clusterState,
-                fields::get);
+                fields::get,
+                new CoordinatorFieldRangeCache(Settings.EMPTY));
         }
     }
 }
@@ -13,6 +13,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
@@ -21,6 +22,7 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
@@ -35,6 +37,8 @@ import org.elasticsearch.search.suggest.Suggest;
 import org.elasticsearch.search.suggest.SuggestTests;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
+import org.elasticsearch.test.rest.FakeRestChannel;
+import org.elasticsearch.test.rest.FakeRestRequest;
 import org.junit.After;
 import org.junit.Before;
 
@@ -282,6 +286,18 @@ public class SearchResponseTests extends ESTestCase {
         assertEquals(searchResponse.getClusters(), deserialized.getClusters());
     }
 
+    public void testToXContentChunked() throws IOException {
+        SearchResponse response = createTestItem();
+        FakeRestChannel channel = new FakeRestChannel(new FakeRestRequest(), false, 1);
+        ChunkedRestResponseBody body = ChunkedRestResponseBody.fromXContent(response, ToXContent.EMPTY_PARAMS, channel);
+        List<BytesReference> chunks = new ArrayList<>();
+        while (body.isDone() == false) {
+            chunks.add(body.encodeChunk(randomIntBetween(1, 1024)));
+        }
+        BytesReference expected = XContentHelper.toXContent(response, XContentType.JSON, false);
+        assertToXContentEquivalent(expected, CompositeBytesReference.of(chunks.toArray(new BytesReference[0])), XContentType.JSON);
+    }
+
     public void testToXContentEmptyClusters() throws IOException {
         SearchResponse searchResponse = new SearchResponse(InternalSearchResponse.empty(), null, 1, 1, 0, 1,
             ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
@@ -23,6 +23,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.TestCustomMetadata;
 
@@ -214,6 +215,58 @@ public class ClusterChangedEventTests extends ESTestCase {
         assertTrue("index routing table should not be the same object", event.indexRoutingTableChanged(initialIndices.get(0).getName()));
     }
 
+    /**
+     * Test the changed indices and shards.
+     */
+    public void testChangedIndicesAndShards() {
+        final ClusterState originalState = createState(3, randomBoolean(), initialIndices);
+
+        // nothing changed
+        ClusterChangedEvent event = new ClusterChangedEvent("_na_", ClusterState.builder(originalState).build(), originalState);
+        assertThat(event.changedIndices(), equalTo(Collections.emptySet()));
+        assertThat(event.changedShards(), equalTo(Collections.emptySet()));
+
+        // the metadata of one index changed
+        final Index updatedIndex = initialIndices.get(0);
+        final IndexMetadata updatedIndexMetadata =
+            createIndexMetadata(updatedIndex, originalState.metadata().index(updatedIndex).getVersion() + 1);
+        ClusterState newState = ClusterState.builder(originalState)
+            .metadata(Metadata.builder(originalState.metadata()).put(updatedIndexMetadata, false))
+            .build();
+        event = new ClusterChangedEvent("_na_", newState, originalState);
+        assertThat(event.changedIndices(), equalTo(Collections.singleton(updatedIndex)));
+        assertThat(event.changedShards(), equalTo(Collections.emptySet()));
+
+        // an index was added and another one removed
+        final Index addedIndex = new Index("added", UUIDs.randomBase64UUID());
+        final Index removedIndex = initialIndices.get(1);
+        final Metadata metadata = Metadata.builder(originalState.metadata())
+            .put(createIndexMetadata(addedIndex), true)
+            .remove(removedIndex.getName())
+            .build();
+        final RoutingTable.Builder routingTableBuilder = RoutingTable.builder(originalState.routingTable())
+            .addAsNew(metadata.index(addedIndex));
+        routingTableBuilder.remove(removedIndex.getName());
+        newState = ClusterState.builder(originalState).metadata(metadata).routingTable(routingTableBuilder.build()).build();
+        event = new ClusterChangedEvent("_na_", newState, originalState);
+        assertThat(event.changedIndices(), equalTo(Set.of(addedIndex, removedIndex)));
+        assertThat(event.changedShards(), equalTo(Set.of(new ShardId(addedIndex, 0), new ShardId(removedIndex, 0))));
+
+        // an index was recreated with the same name
+        final Index recreatedIndex = new Index(updatedIndex.getName(), UUIDs.randomBase64UUID());
+        final Metadata recreatedMetadata = Metadata.builder(originalState.metadata())
+            .remove(updatedIndex.getName())
+            .put(createIndexMetadata(recreatedIndex), true)
+            .build();
+        newState = ClusterState.builder(originalState)
+            .metadata(recreatedMetadata)
+            .routingTable(RoutingTable.builder(originalState.routingTable()).addAsNew(recreatedMetadata.index(recreatedIndex)).build())
+            .build();
+        event = new ClusterChangedEvent("_na_", newState, originalState);
+        assertThat(event.changedIndices(), equalTo(Set.of(updatedIndex, recreatedIndex)));
+        assertThat(event.changedShards(), equalTo(Set.of(new ShardId(updatedIndex, 0), new ShardId(recreatedIndex, 0))));
+    }
+
     /**
      * Test custom metadata change checks
      */
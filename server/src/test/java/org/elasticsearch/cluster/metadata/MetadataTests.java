@@ -1077,6 +1077,54 @@ public class MetadataTests extends ESTestCase {
         assertTrue(Metadata.isGlobalStateEquals(orig, fromStreamMeta));
     }
 
+    public void testMappingsAreDeduplicated() throws IOException {
+        final Settings.Builder indexSettings = Settings.builder().put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0);
+        final int numIndices = between(2, 10);
+        final Metadata.Builder builder = Metadata.builder();
+        for (int i = 0; i < numIndices; i++) {
+            // each index has its own, equal, instance of the mappings
+            builder.put(IndexMetadata.builder("index" + i).settings(indexSettings).putMapping(new MappingMetadata("_doc",
+                XContentHelper.convertToMap(JsonXContent.jsonXContent, FIND_MAPPINGS_TEST_ITEM, true))));
+        }
+        final MappingMetadata otherMapping = new MappingMetadata("_doc", Map.of("properties", Map.of("field", Map.of("type", "long"))));
+        builder.put(IndexMetadata.builder("other").settings(indexSettings).putMapping(otherMapping));
+        final Metadata metadata = builder.build();
+
+        assertThat(metadata.getMappingsByHash().size(), equalTo(2));
+        final MappingMetadata sharedMapping = metadata.index("index0").mapping();
+        assertSame(sharedMapping, metadata.getMappingsByHash().get(sharedMapping.getSha256()));
+        for (int i = 1; i < numIndices; i++) {
+            assertSame(sharedMapping, metadata.index("index" + i).mapping());
+        }
+        assertSame(otherMapping, metadata.index("other").mapping());
+
+        // rebuilding the metadata keeps the shared instances, and with them the same index metadata
+        final Metadata rebuilt = Metadata.builder(metadata)
+            .put(IndexMetadata.builder("new").settings(indexSettings).putMapping(new MappingMetadata("_doc",
+                XContentHelper.convertToMap(JsonXContent.jsonXContent, FIND_MAPPINGS_TEST_ITEM, true))))
+            .remove("other")
+            .build();
+        assertThat(rebuilt.getMappingsByHash().size(), equalTo(1));
+        assertSame(sharedMapping, rebuilt.index("new").mapping());
+        for (int i = 0; i < numIndices; i++) {
+            assertSame(metadata.index("index" + i), rebuilt.index("index" + i));
+        }
+
+        // the shared mappings are serialized once, and shared again after deserialization
+        final BytesStreamOutput out = new BytesStreamOutput();
+        rebuilt.writeTo(out);
+        final Metadata fromStreamMeta = Metadata.readFrom(new NamedWriteableAwareStreamInput(out.bytes().streamInput(),
+            new NamedWriteableRegistry(ClusterModule.getNamedWriteables())));
+        assertThat(fromStreamMeta.getMappingsByHash().size(), equalTo(1));
+        final MappingMetadata readMapping = fromStreamMeta.index("new").mapping();
+        assertThat(readMapping, equalTo(sharedMapping));
+        for (int i = 0; i < numIndices; i++) {
+            assertSame(readMapping, fromStreamMeta.index("index" + i).mapping());
+            assertThat(fromStreamMeta.index("index" + i), equalTo(rebuilt.index("index" + i)));
+        }
+    }
+
     public void testValidateDataStreamsNoConflicts() {
         Metadata metadata = createIndices(5, 10, "foo-datastream").metadata;
         // don't expect any exception when validating a system without indices that would conflict with future backing indices
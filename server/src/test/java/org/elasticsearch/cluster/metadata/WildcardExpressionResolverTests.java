@@ -20,12 +20,16 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.function.Predicate;
 
 import static org.elasticsearch.cluster.metadata.DataStreamTestHelper.createBackingIndex;
 import static org.elasticsearch.cluster.metadata.DataStreamTestHelper.createTimestampField;
 import static org.elasticsearch.common.util.set.Sets.newHashSet;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 
 public class WildcardExpressionResolverTests extends ESTestCase {
@@ -128,6 +132,21 @@ public class WildcardExpressionResolverTests extends ESTestCase {
         assertThat(newHashSet(resolver.resolve(context, Collections.singletonList("*Y*X"))).size(), equalTo(0));
     }
 
+    public void testLiteralPrefixRange() {
+        final SortedMap<String, String> lookup = new TreeMap<>();
+        for (String name : Arrays.asList("kuku", "logs-app-prod", "logs-app-test", "logs-db-prod", "logsX", "test\uffff", "test\uffffX")) {
+            lookup.put(name, name);
+        }
+        assertThat(IndexNameExpressionResolver.WildcardExpressionResolver.literalPrefixRange(lookup, "logs-*").keySet(),
+            contains("logs-app-prod", "logs-app-test", "logs-db-prod"));
+        assertThat(IndexNameExpressionResolver.WildcardExpressionResolver.literalPrefixRange(lookup, "logs-app*prod").keySet(),
+            contains("logs-app-prod", "logs-app-test"));
+        assertThat(IndexNameExpressionResolver.WildcardExpressionResolver.literalPrefixRange(lookup, "test\uffff*").keySet(),
+            contains("test\uffff", "test\uffffX"));
+        assertThat(IndexNameExpressionResolver.WildcardExpressionResolver.literalPrefixRange(lookup, "none*").keySet(), empty());
+        assertSame(lookup, IndexNameExpressionResolver.WildcardExpressionResolver.literalPrefixRange(lookup, "*-prod"));
+    }
+
     public void testAll() {
         Metadata.Builder mdBuilder = Metadata.builder()
             .put(indexBuilder("testXXX"))
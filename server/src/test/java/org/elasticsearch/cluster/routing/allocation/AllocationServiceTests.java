@@ -7,6 +7,7 @@
  */
 package org.elasticsearch.cluster.routing.allocation;
 
+import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterName;
@@ -40,6 +41,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -256,6 +258,46 @@ public class AllocationServiceTests extends ESTestCase {
         }
     }
 
+    public void testCallsAfterAllocationEvenIfAllocatingExistingShardsFails() {
+        final AllocationService allocationService = new AllocationService(new AllocationDeciders(Collections.emptyList()),
+            new ShardsAllocator() {
+                @Override
+                public void allocate(RoutingAllocation allocation) {
+                    fail("allocating the existing shards failed, so the shards allocator should not be called");
+                }
+
+                @Override
+                public ShardAllocationDecision decideShardAllocation(ShardRouting shard, RoutingAllocation allocation) {
+                    return ShardAllocationDecision.NOT_TAKEN;
+                }
+            }, new EmptyClusterInfoService(), EmptySnapshotsInfoService.INSTANCE);
+
+        final AtomicInteger afterAllocationCalls = new AtomicInteger();
+        allocationService.setExistingShardsAllocators(Collections.singletonMap(GatewayAllocator.ALLOCATOR_NAME, new UnrealisticAllocator() {
+            @Override
+            public void allocateUnassigned(ShardRouting shardRouting, RoutingAllocation allocation,
+                                           UnassignedAllocationHandler unassignedAllocationHandler) {
+                throw new ElasticsearchException("simulated");
+            }
+
+            @Override
+            public void afterAllocation(RoutingAllocation allocation) {
+                afterAllocationCalls.incrementAndGet();
+            }
+        }));
+
+        final Metadata.Builder metadata = Metadata.builder().put(indexMetadata("index", Settings.builder()));
+        final ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT)
+            .nodes(DiscoveryNodes.builder().add(new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT)))
+            .metadata(metadata)
+            .routingTable(RoutingTable.builder().addAsRecovery(metadata.get("index")).build())
+            .build();
+
+        final ElasticsearchException e = expectThrows(ElasticsearchException.class, () -> allocationService.reroute(clusterState, "test"));
+        assertThat(e.getMessage(), equalTo("simulated"));
+        assertThat(afterAllocationCalls.get(), equalTo(1));
+    }
+
     private static final String FAKE_IN_SYNC_ALLOCATION_ID = "_in_sync_"; // so we can allocate primaries anywhere
 
     private static IndexMetadata.Builder indexMetadata(String name, Settings.Builder settings) {
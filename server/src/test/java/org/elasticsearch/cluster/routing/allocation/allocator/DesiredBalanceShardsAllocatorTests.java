@@ -0,0 +1,94 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.allocator;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.EmptyClusterInfoService;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.gateway.TestGatewayAllocator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class DesiredBalanceShardsAllocatorTests extends ESAllocationTestCase {
+
+    public void testConvergesToDesiredBalance() {
+        final int numberOfShards = between(4, 12);
+        final AtomicInteger reroutes = new AtomicInteger();
+        final DesiredBalanceShardsAllocator allocator = new DesiredBalanceShardsAllocator(new BalancedShardsAllocator(Settings.EMPTY),
+            Runnable::run, () -> (reason, priority, listener) -> reroutes.incrementAndGet());
+        final AllocationService allocationService = new AllocationService(
+            randomAllocationDeciders(Settings.EMPTY, new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                random()),
+            new TestGatewayAllocator(), allocator, EmptyClusterInfoService.INSTANCE, SNAPSHOT_INFO_SERVICE_WITH_NO_SHARD_SIZES);
+
+        final Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("test").settings(settings(Version.CURRENT)).numberOfShards(numberOfShards).numberOfReplicas(1))
+            .build();
+        ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT)
+            .metadata(metadata)
+            .routingTable(RoutingTable.builder().addAsNew(metadata.index("test")).build())
+            .nodes(DiscoveryNodes.builder().add(newNode("node1")).add(newNode("node2")).add(newNode("node3")))
+            .build();
+
+        clusterState = rerouteUntilStable(allocationService, clusterState);
+        assertThat(clusterState.routingTable().shardsWithState(ShardRoutingState.STARTED).size(), equalTo(numberOfShards * 2));
+        assertOnDesiredNodes(clusterState, allocator.getCurrentDesiredBalance());
+        assertThat(reroutes.get(), greaterThan(0));
+
+        clusterState = ClusterState.builder(clusterState)
+            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node4")))
+            .build();
+        clusterState = rerouteUntilStable(allocationService, clusterState);
+        assertOnDesiredNodes(clusterState, allocator.getCurrentDesiredBalance());
+        int minShards = Integer.MAX_VALUE;
+        int maxShards = 0;
+        for (RoutingNode routingNode : clusterState.getRoutingNodes()) {
+            minShards = Math.min(minShards, routingNode.size());
+            maxShards = Math.max(maxShards, routingNode.size());
+        }
+        assertThat(maxShards - minShards, lessThanOrEqualTo(1));
+
+        // nothing changes once the cluster is balanced
+        final int reroutesWhenBalanced = reroutes.get();
+        assertSame(clusterState, allocationService.reroute(clusterState, "test"));
+        assertThat(reroutes.get(), equalTo(reroutesWhenBalanced));
+    }
+
+    private static ClusterState rerouteUntilStable(AllocationService allocationService, ClusterState clusterState) {
+        clusterState = allocationService.reroute(clusterState, "test");
+        while (clusterState.getRoutingNodes().hasInactiveShards()) {
+            clusterState = startInitializingShardsAndReroute(allocationService, clusterState);
+        }
+        return clusterState;
+    }
+
+    private static void assertOnDesiredNodes(ClusterState clusterState, DesiredBalance desiredBalance) {
+        for (ShardRouting shardRouting : clusterState.routingTable().allShards()) {
+            assertThat(shardRouting.toString(), desiredBalance.getAssignment(shardRouting.shardId()),
+                hasItem(shardRouting.currentNodeId()));
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.hamcrest.Matchers;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class AllocationDecidersTests extends ESTestCase {
 
@@ -232,4 +233,70 @@ public class AllocationDecidersTests extends ESTestCase {
         assertEquals(expectedDebugDecision, allocationDeciders.canRebalance(allocation));
         assertEquals(expectedDebugDecision, allocationDeciders.canForceAllocatePrimary(shardRouting, routingNode, allocation));
     }
+
+    public void testCachesIndexLevelDecisionsUnlessDebugging() {
+        final AtomicInteger canAllocateCalls = new AtomicInteger();
+        final AtomicInteger canRemainCalls = new AtomicInteger();
+        final AtomicInteger shardLevelCalls = new AtomicInteger();
+        final AllocationDeciders allocationDeciders = new AllocationDeciders(List.of(
+                new AllocationDecider() {
+                    @Override
+                    public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                        canAllocateCalls.incrementAndGet();
+                        return allocation.decision(Decision.YES, "index_level", "same for all shards of the index");
+                    }
+
+                    @Override
+                    public Decision canRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                        canRemainCalls.incrementAndGet();
+                        return allocation.decision(Decision.YES, "index_level", "same for all shards of the index");
+                    }
+
+                    @Override
+                    public boolean hasIndexLevelDecisions(ShardRouting shardRouting, RoutingAllocation allocation) {
+                        return true;
+                    }
+                }, new AllocationDecider() {
+                    @Override
+                    public Decision canAllocate(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                        shardLevelCalls.incrementAndGet();
+                        return Decision.YES;
+                    }
+
+                    @Override
+                    public Decision canRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                        shardLevelCalls.incrementAndGet();
+                        return Decision.YES;
+                    }
+                }));
+
+        final ClusterState clusterState = ClusterState.builder(new ClusterName("test")).build();
+        final RoutingAllocation allocation = new RoutingAllocation(allocationDeciders,
+                clusterState.getRoutingNodes(), clusterState, null, null, 0L);
+        final List<ShardRouting> shards = List.of(
+            ShardRouting.newUnassigned(new ShardId("test", "testUUID", 0), true,
+                RecoverySource.ExistingStoreRecoverySource.INSTANCE, new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "_message")),
+            ShardRouting.newUnassigned(new ShardId("test", "testUUID", 1), true,
+                RecoverySource.ExistingStoreRecoverySource.INSTANCE, new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "_message")));
+        final List<RoutingNode> routingNodes = List.of(new RoutingNode("node1", null), new RoutingNode("node2", null));
+
+        for (int i = 0; i < 2; i++) {
+            for (ShardRouting shardRouting : shards) {
+                for (RoutingNode routingNode : routingNodes) {
+                    assertEquals(Decision.Type.YES, allocationDeciders.canAllocate(shardRouting, routingNode, allocation).type());
+                    assertEquals(Decision.Type.YES, allocationDeciders.canRemain(shardRouting, routingNode, allocation).type());
+                }
+            }
+        }
+        // the index-level decisions are made once per node, the others for every shard
+        assertEquals(routingNodes.size(), canAllocateCalls.get());
+        assertEquals(routingNodes.size(), canRemainCalls.get());
+        assertEquals(2 * 2 * shards.size() * routingNodes.size(), shardLevelCalls.get());
+
+        // debugging bypasses the cache so that the explanation of every decision is reported
+        allocation.debugDecision(true);
+        final Decision.Multi decision = (Decision.Multi) allocationDeciders.canAllocate(shards.get(0), routingNodes.get(0), allocation);
+        assertEquals(routingNodes.size() + 1, canAllocateCalls.get());
+        assertEquals("same for all shards of the index", decision.getDecisions().get(0).getExplanation());
+    }
 }
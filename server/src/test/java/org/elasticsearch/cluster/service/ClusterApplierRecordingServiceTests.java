@@ -0,0 +1,92 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ClusterApplierRecordingServiceTests extends ESTestCase {
+
+    public void testRecordings() {
+        final AtomicLong currentTime = new AtomicLong();
+        final ClusterApplierRecordingService recordingService = new ClusterApplierRecordingService();
+
+        ClusterApplierRecordingService.Recorder recorder = new ClusterApplierRecordingService.Recorder(new StopWatch(), currentTime::get);
+        try (Releasable ignored = recorder.record("action1")) {
+            currentTime.addAndGet(5);
+        }
+        try (Releasable ignored = recorder.record("action2")) {
+            currentTime.addAndGet(37);
+        }
+        recordingService.updateStats(recorder);
+
+        recorder = new ClusterApplierRecordingService.Recorder(new StopWatch(), currentTime::get);
+        try (Releasable ignored = recorder.record("action1")) {
+            currentTime.addAndGet(3);
+        }
+        try (Releasable ignored = recorder.record("action2")) {
+            currentTime.addAndGet(1);
+        }
+        recordingService.updateStats(recorder);
+
+        Map<String, ClusterApplierRecordingService.Recording> recordings = recordingService.getStats().getRecordings();
+        assertThat(List.copyOf(recordings.keySet()), contains("action2", "action1")); // sorted by cumulative time
+        assertThat(recordings.get("action1"), equalTo(new ClusterApplierRecordingService.Recording(2, 8)));
+        assertThat(recordings.get("action2"), equalTo(new ClusterApplierRecordingService.Recording(2, 38)));
+
+        // steps that don't run on every update keep their recordings
+        recorder = new ClusterApplierRecordingService.Recorder(new StopWatch(), currentTime::get);
+        try (Releasable ignored = recorder.record("action1")) {
+            currentTime.addAndGet(2);
+        }
+        recordingService.updateStats(recorder);
+
+        recordings = recordingService.getStats().getRecordings();
+        assertThat(List.copyOf(recordings.keySet()), contains("action2", "action1"));
+        assertThat(recordings.get("action1"), equalTo(new ClusterApplierRecordingService.Recording(3, 10)));
+        assertThat(recordings.get("action2"), equalTo(new ClusterApplierRecordingService.Recording(2, 38)));
+    }
+
+    public void testRecordingsOfRemovedComponents() {
+        final AtomicLong currentTime = new AtomicLong();
+        final ClusterApplierRecordingService recordingService = new ClusterApplierRecordingService();
+
+        ClusterApplierRecordingService.Recorder recorder = new ClusterApplierRecordingService.Recorder(new StopWatch(), currentTime::get);
+        try (Releasable ignored = recorder.recordComponent("applier1")) {
+            currentTime.addAndGet(5);
+        }
+        try (Releasable ignored = recorder.recordComponent("applier2")) {
+            currentTime.addAndGet(3);
+        }
+        try (Releasable ignored = recorder.record("step")) {
+            currentTime.addAndGet(1);
+        }
+        recordingService.updateStats(recorder);
+
+        // appliers and listeners run on every update, so those that don't run any more were removed
+        recorder = new ClusterApplierRecordingService.Recorder(new StopWatch(), currentTime::get);
+        try (Releasable ignored = recorder.recordComponent("applier1")) {
+            currentTime.addAndGet(2);
+        }
+        recordingService.updateStats(recorder);
+
+        Map<String, ClusterApplierRecordingService.Recording> recordings = recordingService.getStats().getRecordings();
+        assertThat(List.copyOf(recordings.keySet()), contains("applier1", "step"));
+        assertThat(recordings.get("applier1"), equalTo(new ClusterApplierRecordingService.Recording(2, 7)));
+        assertThat(recordings.get("step"), equalTo(new ClusterApplierRecordingService.Recording(1, 1)));
+    }
+}
@@ -12,8 +12,10 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateApplier;
 import org.elasticsearch.cluster.ClusterStateObserver;
 import org.elasticsearch.cluster.LocalNodeMasterListener;
 import org.elasticsearch.cluster.block.ClusterBlocks;
@@ -51,7 +53,10 @@ import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.createNoOpNodeConnectionsService;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 public class ClusterApplierServiceTests extends ESTestCase {
 
@@ -525,6 +530,44 @@ public class ClusterApplierServiceTests extends ESTestCase {
         latch.await();
     }
 
+    public void testRecordingsOfStepsThatDoNotRunOnEveryUpdate() {
+        final ClusterStateApplier applier = new ClusterStateApplier() {
+            @Override
+            public void applyClusterState(ClusterChangedEvent event) {
+            }
+
+            @Override
+            public String toString() {
+                return "test applier";
+            }
+        };
+        clusterApplierService.addStateApplier(applier);
+
+        final int updates = randomIntBetween(2, 10);
+        int metadataUpdates = 0;
+        for (int i = 0; i < updates; i++) {
+            final ClusterState state = clusterApplierService.state();
+            if (i % 2 == 0) {
+                metadataUpdates++;
+                setState(clusterApplierService, ClusterState.builder(state).metadata(Metadata.builder(state.metadata())).build());
+            } else {
+                // a routing only update, which doesn't apply the settings
+                setState(clusterApplierService, state);
+            }
+        }
+        Map<String, ClusterApplierRecordingService.Recording> recordings = clusterApplierService.getStats().getRecordings();
+        assertThat(recordings.get("applying settings").getCount(), equalTo((long) metadataUpdates));
+        assertThat(recordings.get("running applier [test applier]").getCount(), equalTo((long) updates));
+        assertThat(recordings.get("connecting to new nodes").getCount(), equalTo((long) updates));
+
+        // the recordings of appliers are dropped once they are removed
+        clusterApplierService.removeApplier(applier);
+        setState(clusterApplierService, clusterApplierService.state());
+        recordings = clusterApplierService.getStats().getRecordings();
+        assertThat(recordings.keySet(), not(hasItem("running applier [test applier]")));
+        assertThat(recordings.get("applying settings").getCount(), equalTo((long) metadataUpdates));
+    }
+
     static class TimedClusterApplierService extends ClusterApplierService {
 
         final ClusterSettings clusterSettings;
@@ -0,0 +1,43 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class MasterTaskQueueRecordingServiceTests extends ESTestCase {
+
+    public void testRecordings() {
+        final MasterTaskQueueRecordingService recordingService = new MasterTaskQueueRecordingService();
+
+        recordingService.recordBatch(Arrays.asList(
+            Tuple.tuple(Priority.NORMAL, 10L),
+            Tuple.tuple(Priority.NORMAL, 30L),
+            Tuple.tuple(Priority.URGENT, 5L)));
+        recordingService.recordBatch(Arrays.asList(
+            Tuple.tuple(Priority.NORMAL, 7L),
+            Tuple.tuple(Priority.NORMAL, 4L)));
+        recordingService.recordBatch(List.of(Tuple.tuple(Priority.LANGUID, 100L)));
+
+        final Map<Priority, MasterTaskQueueRecordingService.QueueStats> queueStats = recordingService.getStats().getQueueStats();
+        assertThat(List.copyOf(queueStats.keySet()), contains(Priority.URGENT, Priority.NORMAL, Priority.LANGUID));
+        // a batch counts towards the highest priority of its tasks
+        assertThat(queueStats.get(Priority.URGENT), equalTo(new MasterTaskQueueRecordingService.QueueStats(1, 1, 3, 5, 5)));
+        assertThat(queueStats.get(Priority.NORMAL), equalTo(new MasterTaskQueueRecordingService.QueueStats(1, 4, 2, 51, 30)));
+        assertThat(queueStats.get(Priority.LANGUID), equalTo(new MasterTaskQueueRecordingService.QueueStats(1, 1, 1, 100, 100)));
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +38,7 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasToString;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class TaskBatcherTests extends TaskExecutorTests {
 
@@ -49,10 +51,24 @@ public class TaskBatcherTests extends TaskExecutorTests {
 
     class TestTaskBatcher extends TaskBatcher {
 
+        volatile int maxBatchSize = Integer.MAX_VALUE;
+
+        volatile int starvationLimit = 0;
+
         TestTaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
             super(logger, threadExecutor);
         }
 
+        @Override
+        protected int maxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        protected int starvationLimit() {
+            return starvationLimit;
+        }
+
         @Override
         protected void run(Object batchingKey, List<? extends BatchedTask> tasks, String tasksSummary) {
             List<UpdateTask> updateTasks = (List) tasks;
@@ -277,6 +293,128 @@ public class TaskBatcherTests extends TaskExecutorTests {
         latch.await();
     }
 
+    public void testMaxBatchSize() throws InterruptedException {
+        taskBatcher.maxBatchSize = 2;
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        final TestExecutor<String> executorA = tasks -> batches.add(new ArrayList<>(tasks));
+        final TestExecutor<String> executorB = tasks -> batches.add(new ArrayList<>(tasks));
+        final CountDownLatch latch = new CountDownLatch(7);
+        final TestListener listener = new TestListener() {
+            @Override
+            public void processed(String source) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+        final ClusterStateTaskConfig config = ClusterStateTaskConfig.build(Priority.NORMAL);
+
+        try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
+            submitTask("blocking", blockingTask);
+            submitTask("1", "A1", config, executorA, listener);
+            submitTask("2", "A2", config, executorA, listener);
+            submitTask("3", "A3", config, executorA, listener);
+            submitTask("4", "B4", config, executorB, listener);
+            final Map<String, TestListener> tasks = new LinkedHashMap<>();
+            tasks.put("A5", listener);
+            tasks.put("A6", listener);
+            submitTasks("5", tasks, config, executorA);
+            submitTask("7", "A7", config, executorA, listener);
+        }
+        latch.await();
+
+        // a batch stops at the limit, but it includes the submission that triggered it and never splits a submission
+        assertThat(batches, equalTo(Arrays.asList(
+            Arrays.asList("A1", "A2"),
+            Arrays.asList("A3", "A5", "A6"),
+            Collections.singletonList("B4"),
+            Collections.singletonList("A7"))));
+        synchronized (taskBatcher.tasksPerBatchingKey) {
+            assertTrue(taskBatcher.tasksPerBatchingKey.isEmpty());
+        }
+    }
+
+    public void testStarvationLimit() throws InterruptedException {
+        taskBatcher.starvationLimit = 2;
+        final List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(8);
+        final TestListener listener = new TestListener() {
+            @Override
+            public void processed(String source) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+
+        try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
+            submitTask("blocking", blockingTask);
+            submitTask("normal", "N1", ClusterStateTaskConfig.build(Priority.NORMAL), executionOrder::addAll, listener);
+            submitTask("languid", "L1", ClusterStateTaskConfig.build(Priority.LANGUID), executionOrder::addAll, listener);
+            for (int i = 1; i <= 6; i++) {
+                // every task has its own executor, so that each of them runs in its own batch
+                submitTask("urgent", "U" + i, ClusterStateTaskConfig.build(Priority.URGENT), executionOrder::addAll, listener);
+            }
+        }
+        latch.await();
+
+        // the oldest waiting task with a lower priority runs after each run of two batches ahead of it
+        assertThat(executionOrder, equalTo(Arrays.asList("U1", "U2", "N1", "U3", "U4", "U5", "L1", "U6")));
+        synchronized (taskBatcher.tasksPerBatchingKey) {
+            assertTrue(taskBatcher.tasksPerBatchingKey.isEmpty());
+        }
+    }
+
+    public void testStarvationLimitIgnoresTimedOutTasks() throws InterruptedException {
+        taskBatcher.starvationLimit = 1;
+        final List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(4);
+        final TestListener listener = new TestListener() {
+            @Override
+            public void processed(String source) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        };
+
+        try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
+            submitTask("blocking", blockingTask);
+            submitTask("normal", "N1", ClusterStateTaskConfig.build(Priority.NORMAL, TimeValue.timeValueMillis(1)), executionOrder::addAll,
+                new TestListener() {
+                    @Override
+                    public void processed(String source) {
+                        throw new AssertionError("timed out task must not run");
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        assertThat(e, instanceOf(ProcessClusterEventTimeoutException.class));
+                        timedOut.countDown();
+                    }
+                });
+            timedOut.await();
+            submitTask("languid", "L1", ClusterStateTaskConfig.build(Priority.LANGUID), executionOrder::addAll, listener);
+            for (int i = 1; i <= 3; i++) {
+                submitTask("urgent", "U" + i, ClusterStateTaskConfig.build(Priority.URGENT), executionOrder::addAll, listener);
+            }
+        }
+        latch.await();
+
+        // the task that timed out no longer counts as waiting, so the languid task is the oldest one with a lower priority
+        assertThat(executionOrder, equalTo(Arrays.asList("U1", "L1", "U2", "U3")));
+    }
+
     public void testDuplicateSubmission() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(2);
         try (BlockingTask blockingTask = new BlockingTask(Priority.IMMEDIATE)) {
@@ -15,9 +15,11 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
@@ -28,8 +30,11 @@ import org.elasticsearch.test.VersionUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import static org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.loadDocIdAndVersion;
+import static org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.loadDocIdAndVersions;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -134,6 +139,50 @@ public class VersionsTests extends ESTestCase {
         dir.close();
     }
 
+    public void testLoadDocIdAndVersions() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER));
+        int numSegments = randomIntBetween(1, 5);
+        int numDocs = 0;
+        for (int segment = 0; segment < numSegments; segment++) {
+            int docsPerSegment = randomIntBetween(1, 20);
+            for (int i = 0; i < docsPerSegment; i++) {
+                String id = Integer.toString(randomIntBetween(0, 99));
+                Document doc = new Document();
+                doc.add(new Field(IdFieldMapper.NAME, id, IdFieldMapper.Defaults.FIELD_TYPE));
+                doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, ++numDocs));
+                doc.add(new NumericDocValuesField(SeqNoFieldMapper.NAME, numDocs));
+                doc.add(new NumericDocValuesField(SeqNoFieldMapper.PRIMARY_TERM_NAME, 1));
+                writer.updateDocument(new Term(IdFieldMapper.NAME, id), doc);
+            }
+            writer.commit();
+        }
+        DirectoryReader directoryReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(writer), new ShardId("foo", "_na_", 1));
+
+        SortedSet<BytesRef> ids = new TreeSet<>();
+        for (int i = randomIntBetween(0, 20); i > 0; i--) {
+            ids.add(new BytesRef(Integer.toString(randomIntBetween(0, 199))));
+        }
+        BytesRef[] sortedIds = ids.toArray(new BytesRef[0]);
+        boolean loadSeqNo = randomBoolean();
+        DocIdAndVersion[] results = loadDocIdAndVersions(directoryReader, IdFieldMapper.NAME, sortedIds, loadSeqNo);
+        assertThat(results.length, equalTo(sortedIds.length));
+        for (int i = 0; i < sortedIds.length; i++) {
+            DocIdAndVersion expected = loadDocIdAndVersion(directoryReader, new Term(IdFieldMapper.NAME, sortedIds[i]), loadSeqNo);
+            if (expected == null) {
+                assertThat(results[i], nullValue());
+            } else {
+                assertThat(results[i].version, equalTo(expected.version));
+                assertThat(results[i].seqNo, equalTo(expected.seqNo));
+                assertThat(results[i].docId, equalTo(expected.docId));
+                assertThat(results[i].docBase, equalTo(expected.docBase));
+            }
+        }
+        directoryReader.close();
+        writer.close();
+        dir.close();
+    }
+
     /** Test that version map cache works, is evicted on close, etc */
     public void testCache() throws Exception {
         int size = VersionsAndSeqNoResolver.lookupStates.size();
@@ -30,6 +30,7 @@ import java.util.Set;
 
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static org.elasticsearch.common.xcontent.XContentHelper.convertToJson;
 import static org.elasticsearch.common.xcontent.XContentHelper.convertToMap;
 import static org.elasticsearch.common.xcontent.XContentHelper.toXContent;
 import static org.hamcrest.Matchers.contains;
@@ -64,6 +65,65 @@ public class XContentMapValuesTests extends AbstractFilteringTestCase {
         assertEquals("Filtered map must be equal to the expected map",
                 toMap(expected, xContentType, humanReadable),
                 XContentMapValues.filter(toMap(actual, xContentType, humanReadable), sourceIncludes, sourceExcludes));
+
+        BytesReference actualBytes = toXContent((ToXContentObject) (builder, params) -> actual.apply(builder), xContentType, humanReadable);
+        assertEquals("Filtered content must be equal to the expected map",
+                toMap(expected, xContentType, humanReadable),
+                convertToMap(filterXContent(actualBytes, xContentType, sourceIncludes, sourceExcludes), true, xContentType).v2());
+    }
+
+    public void testFilterXContentMatchesFilter() throws IOException {
+        final String[] names = new String[] { "a", "b", "c", "a.b", "ab" };
+        final String[] patterns = new String[] { "a", "b", "a.b", "a.c", "a*", "*.b", "*c", "b.*", "a.b.c", "ab" };
+        for (int iteration = 0; iteration < 100; iteration++) {
+            final XContentType xContentType = randomFrom(XContentType.values());
+            final BytesReference source = BytesReference.bytes(randomObject(XContentBuilder.builder(xContentType.xContent()), names, 0));
+            final String[] includes = randomSubsetOf(Arrays.asList(patterns)).toArray(Strings.EMPTY_ARRAY);
+            final String[] excludes = randomSubsetOf(randomIntBetween(0, 2), patterns).toArray(Strings.EMPTY_ARRAY);
+            assertEquals("filtering " + Arrays.toString(includes) + " but not " + Arrays.toString(excludes) + " from "
+                    + convertToJson(source, false, xContentType),
+                XContentMapValues.filter(convertToMap(source, true, xContentType).v2(), includes, excludes),
+                convertToMap(filterXContent(source, xContentType, includes, excludes), true, xContentType).v2());
+        }
+    }
+
+    private static XContentBuilder randomObject(XContentBuilder builder, String[] names, int depth) throws IOException {
+        builder.startObject();
+        for (String name : randomSubsetOf(names)) {
+            builder.field(name);
+            randomValue(builder, names, depth + 1);
+        }
+        return builder.endObject();
+    }
+
+    private static void randomValue(XContentBuilder builder, String[] names, int depth) throws IOException {
+        switch (depth < 3 ? randomIntBetween(0, 3) : randomIntBetween(0, 1)) {
+            case 0:
+                builder.value(randomInt());
+                break;
+            case 1:
+                builder.value(randomBoolean() ? null : randomAlphaOfLength(3));
+                break;
+            case 2:
+                randomObject(builder, names, depth);
+                break;
+            default:
+                builder.startArray();
+                for (int i = randomIntBetween(0, 3); i > 0; i--) {
+                    randomValue(builder, names, depth + 1);
+                }
+                builder.endArray();
+                break;
+        }
+    }
+
+    private BytesReference filterXContent(BytesReference source, XContentType xContentType,
+                                          String[] includes, String[] excludes) throws IOException {
+        try (XContentParser parser = createParser(xContentType.xContent(), source)) {
+            XContentBuilder builder = XContentBuilder.builder(xContentType.xContent());
+            XContentMapValues.filterXContent(includes, excludes).accept(parser, builder);
+            return BytesReference.bytes(builder);
+        }
     }
 
     @SuppressWarnings({"unchecked"})
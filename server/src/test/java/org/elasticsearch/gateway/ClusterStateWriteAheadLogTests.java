@@ -0,0 +1,171 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ClusterStateWriteAheadLogTests extends ESTestCase {
+
+    public void testReadsAppendedEntriesAcrossGenerations() throws IOException {
+        final Path directory = createTempDir();
+        final List<BytesReference> expected = new ArrayList<>();
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            final int generations = between(1, 3);
+            for (int i = 0; i < generations; i++) {
+                if (i > 0) {
+                    log.rollGeneration();
+                }
+                appendRandomEntries(log, expected);
+            }
+        }
+        assertEntries(directory, expected);
+    }
+
+    public void testDeletesGenerations() throws IOException {
+        final Path directory = createTempDir();
+        final List<BytesReference> expected = new ArrayList<>();
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            appendRandomEntries(log, new ArrayList<>());
+            log.rollGeneration();
+            appendRandomEntries(log, expected);
+            log.deleteGenerationsBefore(log.getGeneration());
+        }
+        assertEntries(directory, expected);
+
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            assertThat(log.getGeneration(), equalTo(2L));
+        }
+        assertEntries(directory, List.of());
+    }
+
+    public void testIgnoresZerosAfterLastEntry() throws IOException {
+        final Path directory = createTempDir();
+        final List<BytesReference> expected = new ArrayList<>();
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            appendRandomEntries(log, expected);
+        }
+        // a crash during an append that was never synced may leave the file extended with zeros
+        Files.write(lastGenerationPath(directory), new byte[between(1, 8192)], StandardOpenOption.APPEND);
+        assertEntries(directory, expected);
+    }
+
+    public void testIgnoresPartiallyWrittenLastEntry() throws IOException {
+        final Path directory = createTempDir();
+        final List<BytesReference> expected = new ArrayList<>();
+        // no zero bytes in the last entry, so that replacing the end of its content with zeros always changes it
+        final byte[] lastEntry = new byte[between(ClusterStateWriteAheadLog.MIN_ENTRY_LENGTH, 1000)];
+        for (int i = 0; i < lastEntry.length; i++) {
+            lastEntry[i] = (byte) between(1, 255);
+        }
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            appendRandomEntries(log, expected);
+            log.append(new BytesArray(lastEntry));
+        }
+        final Path path = lastGenerationPath(directory);
+        final byte[] bytes = Files.readAllBytes(path);
+        final int lastEntryStart = bytes.length - Integer.BYTES - lastEntry.length - Long.BYTES;
+        if (randomBoolean()) {
+            Files.write(path, Arrays.copyOf(bytes, between(lastEntryStart + 1, bytes.length - 1)));
+        } else {
+            // the rest of the entry may also have been replaced by zeros rather than cut off
+            final int tornLength = between(lastEntryStart, bytes.length - Long.BYTES - 1);
+            final byte[] zeroFilled = new byte[bytes.length + between(0, 100)];
+            System.arraycopy(bytes, 0, zeroFilled, 0, tornLength);
+            Files.write(path, zeroFilled);
+        }
+        assertEntries(directory, expected);
+    }
+
+    public void testIgnoresZeroFilledLastGeneration() throws IOException {
+        final Path directory = createTempDir();
+        final List<BytesReference> expected = new ArrayList<>();
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            appendRandomEntries(log, expected);
+            log.rollGeneration();
+        }
+        Files.write(lastGenerationPath(directory), new byte[between(0, 100)]);
+        assertEntries(directory, expected);
+    }
+
+    public void testFailsOnCorruptEntryFollowedByOtherEntries() throws IOException {
+        final Path directory = createTempDir();
+        final List<BytesReference> expected = new ArrayList<>();
+        final boolean corruptEarlierGeneration = randomBoolean();
+        final Path corruptPath;
+        try (ClusterStateWriteAheadLog log = ClusterStateWriteAheadLog.createNew(directory)) {
+            log.append(randomEntry());
+            if (corruptEarlierGeneration) {
+                corruptPath = lastGenerationPath(directory);
+                log.rollGeneration();
+            } else {
+                corruptPath = null;
+            }
+            appendRandomEntries(log, expected);
+        }
+        final Path path = corruptEarlierGeneration ? corruptPath : lastGenerationPath(directory);
+        final byte[] bytes = Files.readAllBytes(path);
+        // flip a byte of the content of the first entry, which directly follows the header and the length of the entry
+        final int position = Integer.BYTES * 3 + between(0, ClusterStateWriteAheadLog.MIN_ENTRY_LENGTH - 1);
+        bytes[position] = (byte) (bytes[position] ^ 0xff);
+        Files.write(path, bytes);
+        final CorruptStateException e = expectThrows(CorruptStateException.class,
+            () -> ClusterStateWriteAheadLog.readEntries(directory));
+        assertThat(e.getMessage(), containsString("checksum mismatch"));
+    }
+
+    private static void appendRandomEntries(ClusterStateWriteAheadLog log, List<BytesReference> entries) throws IOException {
+        final int count = between(1, 10);
+        for (int i = 0; i < count; i++) {
+            final BytesReference entry = randomEntry();
+            log.append(entry);
+            entries.add(entry);
+        }
+        log.sync();
+    }
+
+    private static BytesReference randomEntry() {
+        return new BytesArray(randomByteArrayOfLength(between(ClusterStateWriteAheadLog.MIN_ENTRY_LENGTH, 1000)));
+    }
+
+    private static Path lastGenerationPath(Path directory) throws IOException {
+        try (var paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().startsWith(ClusterStateWriteAheadLog.FILE_PREFIX))
+                .max(Comparator.comparingLong(ClusterStateWriteAheadLogTests::generation))
+                .orElseThrow();
+        }
+    }
+
+    private static long generation(Path path) {
+        final String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(ClusterStateWriteAheadLog.FILE_PREFIX.length(),
+            fileName.length() - ClusterStateWriteAheadLog.FILE_SUFFIX.length()));
+    }
+
+    private static void assertEntries(Path directory, List<BytesReference> expected) throws IOException {
+        final List<BytesReference> entries = ClusterStateWriteAheadLog.readEntries(directory);
+        assertThat(entries.size(), equalTo(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(entries.get(i), equalTo(expected.get(i)));
+        }
+    }
+}
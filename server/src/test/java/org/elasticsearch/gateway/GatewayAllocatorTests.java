@@ -0,0 +1,65 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.gateway.GatewayAllocator.PendingShardFetch;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodeGatewayStartedShards;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class GatewayAllocatorTests extends ESTestCase {
+
+    public void testFetchesAreBatchedByNodesUpToTheMaxBatchSize() {
+        final DiscoveryNode node1 = new DiscoveryNode("node1", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode node2 = new DiscoveryNode("node2", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNode[] allNodes = new DiscoveryNode[] { node1, node2 };
+        final DiscoveryNode[] allNodesReversed = new DiscoveryNode[] { node2, node1 };
+        final DiscoveryNode[] someNodes = new DiscoveryNode[] { node2 };
+
+        final List<PendingShardFetch<NodeGatewayStartedShards>> fetches = new ArrayList<>();
+        final int numberOfFetchesToAllNodes = between(1, 50);
+        final int numberOfFetchesToSomeNodes = between(1, 50);
+        for (int i = 0; i < numberOfFetchesToAllNodes; i++) {
+            // the order of the nodes does not matter
+            fetches.add(new PendingShardFetch<>(new ShardId("all", "_na_", i), "", randomBoolean() ? allNodes : allNodesReversed,
+                ActionListener.wrap(() -> {})));
+        }
+        for (int i = 0; i < numberOfFetchesToSomeNodes; i++) {
+            fetches.add(new PendingShardFetch<>(new ShardId("some", "_na_", i), "", someNodes, ActionListener.wrap(() -> {})));
+        }
+        final int maxBatchSize = between(1, 20);
+
+        final List<List<PendingShardFetch<NodeGatewayStartedShards>>> batches = GatewayAllocator.toBatches(fetches, maxBatchSize);
+
+        final int expectedBatches = (numberOfFetchesToAllNodes + maxBatchSize - 1) / maxBatchSize
+            + (numberOfFetchesToSomeNodes + maxBatchSize - 1) / maxBatchSize;
+        assertThat(batches.size(), equalTo(expectedBatches));
+        final Set<ShardId> batchedShards = new HashSet<>();
+        for (List<PendingShardFetch<NodeGatewayStartedShards>> batch : batches) {
+            assertThat(batch.size(), lessThanOrEqualTo(maxBatchSize));
+            final String indexName = batch.get(0).shardId().getIndexName();
+            for (PendingShardFetch<NodeGatewayStartedShards> fetch : batch) {
+                assertThat(fetch.shardId().getIndexName(), equalTo(indexName));
+                assertTrue(batchedShards.add(fetch.shardId()));
+            }
+        }
+        assertThat(batchedShards.size(), equalTo(fetches.size()));
+    }
+}
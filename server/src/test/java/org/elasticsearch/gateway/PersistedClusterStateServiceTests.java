@@ -7,12 +7,16 @@
  */
 package org.elasticsearch.gateway;
 
+import com.carrotsearch.hppc.cursors.ObjectCursor;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
@@ -23,6 +27,7 @@ import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.coordination.CoordinationMetadata;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -44,17 +49,25 @@ import org.elasticsearch.test.junit.annotations.TestLogging;
 
 import java.io.IOError;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 
 public class PersistedClusterStateServiceTests extends ESTestCase {
@@ -514,6 +527,86 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testPersistsAndReloadsSharedMappingsOnce() throws IOException {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
+            final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
+            final MappingMetadata sharedMapping
+                = new MappingMetadata("_doc", Map.of("_doc", Map.of("properties", Map.of("shared", Map.of("type", "keyword")))));
+            final MappingMetadata otherMapping
+                = new MappingMetadata("_doc", Map.of("_doc", Map.of("properties", Map.of("other", Map.of("type", "long")))));
+            final int numSharingIndices = between(2, 5);
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                final Metadata.Builder metadata = Metadata.builder(clusterState.metadata())
+                    .version(clusterState.metadata().version() + 1)
+                    .put(newIndexMetadataBuilder("other").putMapping(otherMapping));
+                for (int i = 0; i < numSharingIndices; i++) {
+                    metadata.put(newIndexMetadataBuilder("shared-" + i).putMapping(new MappingMetadata(sharedMapping.source())));
+                }
+                writeState(writer, 0L, ClusterState.builder(clusterState).metadata(metadata).incrementVersion().build(), clusterState);
+            }
+            assertThat(countMappingDocuments(nodeEnvironment), equalTo(2));
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                assertThat(clusterState.metadata().getMappingsByHash().size(), equalTo(2));
+                assertThat(clusterState.metadata().index("other").mapping(), equalTo(otherMapping));
+                final MappingMetadata loadedSharedMapping = clusterState.metadata().index("shared-0").mapping();
+                assertThat(loadedSharedMapping, equalTo(sharedMapping));
+                for (int i = 1; i < numSharingIndices; i++) {
+                    assertSame(loadedSharedMapping, clusterState.metadata().index("shared-" + i).mapping());
+                }
+
+                // writing the state removes the mapping that is no longer used
+                writeState(writer, 0L, ClusterState.builder(clusterState)
+                        .metadata(Metadata.builder(clusterState.metadata())
+                            .version(clusterState.metadata().version() + 1)
+                            .remove("other"))
+                        .incrementVersion().build(),
+                    clusterState);
+            }
+            assertThat(countMappingDocuments(nodeEnvironment), equalTo(1));
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+                assertThat(clusterState.metadata().getMappingsByHash().size(), equalTo(1));
+                assertThat(clusterState.metadata().index("other"), nullValue());
+
+                // and adds the mappings of the new indices
+                writeState(writer, 0L, ClusterState.builder(clusterState)
+                        .metadata(Metadata.builder(clusterState.metadata())
+                            .version(clusterState.metadata().version() + 1)
+                            .put(newIndexMetadataBuilder("added").putMapping(otherMapping)))
+                        .incrementVersion().build(),
+                    clusterState);
+            }
+            assertThat(countMappingDocuments(nodeEnvironment), equalTo(2));
+
+            final ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+            assertThat(clusterState.metadata().getMappingsByHash().size(), equalTo(2));
+            assertThat(clusterState.metadata().index("added").mapping(), equalTo(otherMapping));
+            assertThat(clusterState.metadata().index("shared-0").mapping(), equalTo(sharedMapping));
+        }
+    }
+
+    private static IndexMetadata.Builder newIndexMetadataBuilder(String name) {
+        return IndexMetadata.builder(name)
+            .settings(Settings.builder()
+                .put(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey(), 1)
+                .put(IndexMetadata.INDEX_NUMBER_OF_REPLICAS_SETTING.getKey(), 0)
+                .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID(random())));
+    }
+
+    private static int countMappingDocuments(NodeEnvironment nodeEnvironment) throws IOException {
+        try (Directory directory = new SimpleFSDirectory(
+                nodeEnvironment.nodeDataPath().resolve(PersistedClusterStateService.METADATA_DIRECTORY_NAME));
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return new IndexSearcher(reader).count(new TermQuery(new Term("type", "mapping")));
+        }
+    }
+
     public void testReloadsMetadataAcrossMultipleSegments() throws IOException {
         try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
             final PersistedClusterStateService persistedClusterStateService = newPersistedClusterStateService(nodeEnvironment);
@@ -548,6 +641,98 @@ public class PersistedClusterStateServiceTests extends ESTestCase {
         }
     }
 
+    public void testPersistsAndReloadsStatesWrittenToWriteAheadLog() throws IOException {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment(createTempDir())) {
+            final PersistedClusterStateService persistedClusterStateService = new PersistedClusterStateService(nodeEnvironment,
+                xContentRegistry(), getBigArrays(), new ClusterSettings(Settings.builder()
+                    .put(PersistedClusterStateService.WRITE_AHEAD_LOG_ENABLED_SETTING.getKey(), true).build(),
+                    ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), () -> 0L);
+            final Path indexPath = nodeEnvironment.nodeDataPath().resolve(PersistedClusterStateService.METADATA_DIRECTORY_NAME);
+
+            long currentTerm = 0L;
+            ClusterState clusterState = loadPersistedClusterState(persistedClusterStateService);
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                final int writes = between(1, 30);
+                for (int i = 0; i < writes; i++) {
+                    final ClusterState previousState = clusterState;
+                    final Metadata.Builder metadata = Metadata.builder(previousState.metadata())
+                        .version(previousState.metadata().version() + 1);
+                    switch (between(0, 4)) {
+                        case 0:
+                            if (previousState.metadata().indices().isEmpty() == false) {
+                                metadata.remove(randomFrom(previousState.metadata().indices().keys().toArray(String.class)));
+                                break;
+                            }
+                            // fall through to add an index instead
+                        case 1:
+                            metadata.put(newIndexMetadataBuilder("index-" + i).putMapping(new MappingMetadata("_doc",
+                                Map.of("_doc", Map.of("properties", Map.of("field-" + between(1, 3), Map.of("type", "keyword")))))));
+                            break;
+                        case 2:
+                            metadata.coordinationMetadata(CoordinationMetadata.builder(previousState.coordinationMetadata())
+                                .term(previousState.term() + 1).build());
+                            currentTerm = Math.max(currentTerm, previousState.term() + 1);
+                            break;
+                        case 3:
+                            if (writer.fullStateWritten) {
+                                currentTerm += 1;
+                                writer.writeIncrementalTermUpdateAndCommit(currentTerm, previousState.version());
+                                continue;
+                            }
+                            // fall through to update the global metadata instead
+                        default:
+                            metadata.persistentSettings(Settings.builder().put("test.setting", randomAlphaOfLength(10)).build());
+                    }
+                    clusterState = ClusterState.builder(previousState).metadata(metadata).incrementVersion().build();
+                    writeState(writer, currentTerm, clusterState, previousState);
+                }
+            }
+
+            final List<Path> writeAheadLogFiles = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexPath, ClusterStateWriteAheadLog.FILE_PREFIX + "*")) {
+                stream.forEach(writeAheadLogFiles::add);
+            }
+            assertThat(writeAheadLogFiles, not(empty()));
+            if (randomBoolean()) {
+                // a partially-written entry at the end of the log was never acknowledged, so it is ignored
+                // the file names only differ by generation, so shorter names have lower generations
+                writeAheadLogFiles.sort(Comparator.comparing((Path path) -> path.toString().length()).thenComparing(Path::toString));
+                final Path lastFile = writeAheadLogFiles.get(writeAheadLogFiles.size() - 1);
+                // as are the zeros that a crash during an append may leave behind instead
+                final byte[] tail = randomBoolean() ? randomByteArrayOfLength(between(1, Integer.BYTES - 1)) : new byte[between(1, 4096)];
+                Files.write(lastFile, tail, StandardOpenOption.APPEND);
+            }
+
+            final PersistedClusterStateService.OnDiskState onDiskState = persistedClusterStateService.loadOnDiskState();
+            assertThat(onDiskState.currentTerm, equalTo(currentTerm));
+            assertThat(onDiskState.lastAcceptedVersion, equalTo(clusterState.version()));
+            assertExpectedMetadata(onDiskState.metadata, clusterState.metadata());
+
+            try (Writer writer = persistedClusterStateService.createWriter()) {
+                // the first state written by the new writer is committed directly, replacing the replayed log with a new one
+                writer.writeFullStateAndCommit(currentTerm,
+                    clusterStateFromMetadata(onDiskState.lastAcceptedVersion, onDiskState.metadata));
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(indexPath, ClusterStateWriteAheadLog.FILE_PREFIX + "*")) {
+                    for (Path path : stream) {
+                        assertThat(writeAheadLogFiles, not(hasItem(path)));
+                    }
+                }
+            }
+            assertExpectedMetadata(persistedClusterStateService.loadOnDiskState().metadata, clusterState.metadata());
+        }
+    }
+
+    private static void assertExpectedMetadata(Metadata actual, Metadata expected) {
+        assertTrue(Metadata.isGlobalStateEquals(actual, expected));
+        assertThat(actual.indices().size(), equalTo(expected.indices().size()));
+        for (ObjectCursor<IndexMetadata> cursor : expected.indices().values()) {
+            final IndexMetadata indexMetadata = actual.index(cursor.value.getIndex());
+            assertThat(indexMetadata.getIndexUUID(), equalTo(cursor.value.getIndexUUID()));
+            assertThat(indexMetadata.getVersion(), equalTo(cursor.value.getVersion()));
+            assertThat(indexMetadata.mapping(), equalTo(cursor.value.mapping()));
+        }
+    }
+
     @TestLogging(value = "org.elasticsearch.gateway:WARN", reason = "to ensure that we log gateway events on WARN level")
     public void testSlowLogging() throws IOException, IllegalAccessException {
         final long slowWriteLoggingThresholdMillis;
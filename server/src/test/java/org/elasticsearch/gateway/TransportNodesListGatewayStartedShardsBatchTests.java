@@ -0,0 +1,84 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShards.NodeGatewayStartedShards;
+import org.elasticsearch.gateway.TransportNodesListGatewayStartedShardsBatch.NodeGatewayStartedShardsBatch;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TransportNodesListGatewayStartedShardsBatchTests extends ESTestCase {
+
+    public void testNodeResponseSerialization() throws IOException {
+        final DiscoveryNode node = new DiscoveryNode("node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final Map<ShardId, NodeGatewayStartedShards> startedShards = new HashMap<>();
+        final Map<ShardId, Exception> failures = new HashMap<>();
+        final int numberOfShards = between(1, 20);
+        for (int i = 0; i < numberOfShards; i++) {
+            final ShardId shardId = new ShardId("index", "_na_", i);
+            switch (between(0, 3)) {
+                case 0:
+                    startedShards.put(shardId, new NodeGatewayStartedShards(node, null, false));
+                    break;
+                case 1:
+                    startedShards.put(shardId, new NodeGatewayStartedShards(node, randomAlphaOfLength(10), randomBoolean()));
+                    break;
+                case 2:
+                    startedShards.put(shardId, new NodeGatewayStartedShards(node, randomAlphaOfLength(10), randomBoolean(),
+                        new ElasticsearchException("simulated store failure")));
+                    break;
+                default:
+                    failures.put(shardId, new ElasticsearchException("simulated listing failure"));
+            }
+        }
+
+        final NodeGatewayStartedShardsBatch response = new NodeGatewayStartedShardsBatch(node, startedShards, failures);
+        final NodeGatewayStartedShardsBatch deserialized;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            response.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                deserialized = new NodeGatewayStartedShardsBatch(in);
+            }
+        }
+
+        assertThat(deserialized.getNode(), equalTo(node));
+        assertThat(deserialized.getStartedShards().keySet(), equalTo(startedShards.keySet()));
+        for (Map.Entry<ShardId, NodeGatewayStartedShards> entry : deserialized.getStartedShards().entrySet()) {
+            final NodeGatewayStartedShards expected = startedShards.get(entry.getKey());
+            final NodeGatewayStartedShards actual = entry.getValue();
+            // the per-shard responses are not serialized with the node but carry it nonetheless
+            assertThat(actual.getNode(), sameInstance(deserialized.getNode()));
+            assertThat(actual.allocationId(), equalTo(expected.allocationId()));
+            assertThat(actual.primary(), equalTo(expected.primary()));
+            if (expected.storeException() == null) {
+                assertThat(actual.storeException(), nullValue());
+            } else {
+                assertThat(actual.storeException().getMessage(), containsString("simulated store failure"));
+            }
+        }
+        assertThat(deserialized.getFailures().keySet(), equalTo(failures.keySet()));
+        for (Exception failure : deserialized.getFailures().values()) {
+            assertThat(failure.getMessage(), containsString("simulated listing failure"));
+        }
+    }
+}
@@ -12,6 +12,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
@@ -20,10 +21,14 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponse;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
@@ -301,6 +306,49 @@ public class DefaultRestChannelTests extends ESTestCase {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public void testChunkedResponse() throws IOException {
+        final boolean supportsChunks = randomBoolean();
+        final TestHttpRequest httpRequest = new TestHttpRequest(HttpRequest.HttpVersion.HTTP_1_1, RestRequest.Method.GET, "/") {
+            @Override
+            public boolean supportsChunkedResponses() {
+                return supportsChunks;
+            }
+
+            @Override
+            public HttpResponse createResponse(RestStatus status, ChunkedRestResponse response) {
+                assertTrue(supportsChunks);
+                return new TestHttpResponse(status, BytesArray.EMPTY);
+            }
+        };
+        final RestRequest request = RestRequest.request(xContentRegistry(), httpRequest, httpChannel);
+        DefaultRestChannel channel = new DefaultRestChannel(httpChannel, httpRequest, request, bigArrays,
+            HttpHandlingSettings.fromSettings(Settings.EMPTY), threadPool.getThreadContext(), CorsHandler.fromSettings(Settings.EMPTY),
+            null);
+        final ChunkedToXContent chunkedToXContent =
+            () -> Iterators.<ToXContent>single((builder, params) -> builder.startObject().field("field", "value").endObject());
+        channel.sendResponse(new ChunkedRestResponse(RestStatus.OK,
+            ChunkedRestResponseBody.fromXContent(chunkedToXContent, ToXContent.EMPTY_PARAMS, channel)));
+
+        ArgumentCaptor<TestHttpResponse> responseCaptor = ArgumentCaptor.forClass(TestHttpResponse.class);
+        Class<ActionListener<Void>> listenerClass = (Class<ActionListener<Void>>) (Class) ActionListener.class;
+        ArgumentCaptor<ActionListener<Void>> listenerCaptor = ArgumentCaptor.forClass(listenerClass);
+        verify(httpChannel).sendResponse(responseCaptor.capture(), listenerCaptor.capture());
+        TestHttpResponse httpResponse = responseCaptor.getValue();
+        if (supportsChunks) {
+            // the length is unknown up-front, and the connection cannot be reused if a chunk cannot be sent
+            assertThat(httpResponse.headers().get(DefaultRestChannel.CONTENT_LENGTH), nullValue());
+            listenerCaptor.getValue().onFailure(new ClosedChannelException());
+            verify(httpChannel, times(1)).close();
+        } else {
+            // channels that cannot send chunks send the whole content at once
+            assertThat(httpResponse.content().utf8ToString(), equalTo("{\"field\":\"value\"}"));
+            assertThat(httpResponse.headers().get(DefaultRestChannel.CONTENT_LENGTH).get(0),
+                equalTo(Integer.toString(httpResponse.content().length())));
+            listenerCaptor.getValue().onResponse(null);
+        }
+    }
+
     public void testCloseOnException() {
         final boolean close = randomBoolean();
         final HttpRequest.HttpVersion httpVersion = close ? HttpRequest.HttpVersion.HTTP_1_0 : HttpRequest.HttpVersion.HTTP_1_1;
@@ -536,6 +536,24 @@ public class IndexSettingsTests extends ESTestCase {
         assertTrue(IndexSettings.INDEX_SOFT_DELETES_SETTING.get(settings));
     }
 
+    public void testTranslogEnabled() {
+        IndexMetadata metadata = newIndexMeta("index", Settings.EMPTY);
+        assertTrue(new IndexSettings(metadata, Settings.EMPTY).isTranslogEnabled());
+
+        metadata = newIndexMeta("index", Settings.builder().put(IndexSettings.INDEX_TRANSLOG_ENABLED_SETTING.getKey(), false).build());
+        assertFalse(new IndexSettings(metadata, Settings.EMPTY).isTranslogEnabled());
+
+        IndexMetadata withoutSoftDeletes = newIndexMeta("index", Settings.builder()
+            .put(IndexMetadata.SETTING_VERSION_CREATED, VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0))
+            .put(IndexSettings.INDEX_SOFT_DELETES_SETTING.getKey(), false)
+            .put(IndexSettings.INDEX_TRANSLOG_ENABLED_SETTING.getKey(), false)
+            .build());
+        IllegalArgumentException e =
+            expectThrows(IllegalArgumentException.class, () -> new IndexSettings(withoutSoftDeletes, Settings.EMPTY));
+        assertThat(e.getMessage(),
+            equalTo("[index.translog.enabled] can only be disabled on indices with [index.soft_deletes.enabled] enabled"));
+    }
+
     public void testCustomDataPathDeprecated() {
         final Settings settings = Settings.builder()
             .put(IndexMetadata.INDEX_DATA_PATH_SETTING.getKey(), "my-custom-dir")
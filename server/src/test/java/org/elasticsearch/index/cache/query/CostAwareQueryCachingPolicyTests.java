@@ -0,0 +1,169 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.query;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConstantScoreScorer;
+import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesQueryCache;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class CostAwareQueryCachingPolicyTests extends ESTestCase {
+
+    public void testMinFrequencyDependsOnBuildCost() {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query unknown = new TermQuery(new Term("field", "unknown"));
+        Query cheap = new TermQuery(new Term("field", "cheap"));
+        Query average = new TermQuery(new Term("field", "average"));
+        Query expensive = new TermQuery(new Term("field", "expensive"));
+
+        int defaultFrequency = policy.minFrequencyToCache(unknown);
+        assertThat(policy.buildNanosPerByte(unknown), equalTo(-1d));
+
+        policy.onCache(cheap, 1_000, 1_000);
+        policy.onCache(average, 50_000, 1_000);
+        policy.onCache(expensive, 1_000_000, 1_000);
+
+        assertThat(policy.minFrequencyToCache(cheap), equalTo(2 * defaultFrequency));
+        assertThat(policy.minFrequencyToCache(average), equalTo(defaultFrequency));
+        assertThat(policy.minFrequencyToCache(expensive), equalTo(2));
+    }
+
+    public void testBuildCostIsAveragedOverCachedSets() {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query query = new TermQuery(new Term("field", "value"));
+        policy.onCache(query, 1_000_000, 1_000);
+        policy.onCache(query, 0, 9_000);
+        assertThat(policy.buildNanosPerByte(query), equalTo(100d));
+    }
+
+    public void testUncachedEvaluationSeedsBuildCost() {
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        Query cheap = new TermQuery(new Term("field", "cheap"));
+        Query expensive = new TermQuery(new Term("field", "expensive"));
+        int defaultFrequency = policy.minFrequencyToCache(cheap);
+
+        assertTrue(policy.needsCostEstimate(cheap));
+        // 10 matches out of 100k documents would be cached as a sparse set of 20 bytes
+        policy.onUncachedEvaluation(cheap, 20, 10, 100_000);
+        policy.onUncachedEvaluation(expensive, 1_000_000, 10, 100_000);
+        assertFalse(policy.needsCostEstimate(cheap));
+        assertThat(policy.buildNanosPerByte(cheap), equalTo(1d));
+        assertThat(policy.buildNanosPerByte(expensive), equalTo(50_000d));
+
+        // the evaluation time misses the work that queries do lazily, so an estimate never makes a query look cheap
+        assertThat(policy.minFrequencyToCache(cheap), equalTo(defaultFrequency));
+        assertThat(policy.minFrequencyToCache(expensive), equalTo(2));
+
+        // further evaluations do not change the estimate, and caching replaces it with the actual cost
+        policy.onUncachedEvaluation(expensive, 0, 10, 100_000);
+        assertThat(policy.buildNanosPerByte(expensive), equalTo(50_000d));
+        policy.onCache(expensive, 1_000, 1_000);
+        assertThat(policy.buildNanosPerByte(expensive), equalTo(1d));
+        assertThat(policy.minFrequencyToCache(expensive), equalTo(2 * defaultFrequency));
+        policy.onUncachedEvaluation(expensive, 1_000_000, 10, 100_000);
+        assertThat(policy.buildNanosPerByte(expensive), equalTo(1d));
+    }
+
+    public void testEstimateRamBytesUsed() {
+        // dense sets are cached as bitsets over all documents of the segment, sparse ones take two bytes per match
+        assertThat(CostAwareQueryCachingPolicy.estimateRamBytesUsed(1_000, 100_000), equalTo(12_504L));
+        assertThat(CostAwareQueryCachingPolicy.estimateRamBytesUsed(999, 100_000), equalTo(1_998L));
+        assertThat(CostAwareQueryCachingPolicy.estimateRamBytesUsed(0, 100_000), equalTo(1L));
+        assertThat(CostAwareQueryCachingPolicy.estimateRamBytesUsed(1, 1), equalTo(8L));
+    }
+
+    public void testQueryCacheRecordsBuildCost() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        w.addDocument(new Document());
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        CostAwareQueryCachingPolicy policy = new CostAwareQueryCachingPolicy();
+        s.setQueryCachingPolicy(policy);
+
+        Settings settings = Settings.builder()
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+            .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        Query query = new DummyQuery();
+        assertThat(policy.buildNanosPerByte(query), equalTo(-1d));
+        int uses = 0;
+        while (cache.getStats(shard).getCacheCount() == 0) {
+            assertEquals(1, s.count(query));
+            // the first evaluation seeds the cost of the query even though it did not cache it
+            assertThat(policy.buildNanosPerByte(query), greaterThanOrEqualTo(0d));
+            assertTrue("query was not cached after " + uses + " uses", ++uses <= policy.minFrequencyToCache(query));
+        }
+        assertThat(policy.buildNanosPerByte(query), greaterThanOrEqualTo(0d));
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close();
+    }
+
+    private static class DummyQuery extends Query {
+
+        @Override
+        public boolean equals(Object obj) {
+            return sameClassAs(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return classHash();
+        }
+
+        @Override
+        public String toString(String field) {
+            return "dummy";
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
+            return new ConstantScoreWeight(this, boost) {
+                @Override
+                public Scorer scorer(LeafReaderContext context) {
+                    return new ConstantScoreScorer(this, score(), scoreMode, DocIdSetIterator.all(context.reader().maxDoc()));
+                }
+
+                @Override
+                public boolean isCacheable(LeafReaderContext ctx) {
+                    return true;
+                }
+            };
+        }
+    }
+}
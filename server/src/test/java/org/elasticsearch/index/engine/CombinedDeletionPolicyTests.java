@@ -20,8 +20,11 @@ import org.elasticsearch.test.ESTestCase;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -231,6 +234,69 @@ public class CombinedDeletionPolicyTests extends ESTestCase {
         }
     }
 
+    public void testKeepCommitsOfPointInTimes() throws Exception {
+        final AtomicLong globalCheckpoint = new AtomicLong();
+        final SoftDeletesPolicy softDeletesPolicy = new SoftDeletesPolicy(globalCheckpoint::get, -1, 0, () -> RetentionLeases.EMPTY);
+        final TranslogDeletionPolicy translogPolicy = new TranslogDeletionPolicy();
+        final UUID translogUUID = UUID.randomUUID();
+        final List<IndexCommit> commitList = new ArrayList<>();
+        final Map<IndexCommit, String> searcherIds = new IdentityHashMap<>();
+        int totalCommits = between(2, 20);
+        long lastMaxSeqNo = between(1, 1000);
+        long lastCheckpoint = randomLongBetween(-1, lastMaxSeqNo);
+        for (int i = 0; i < totalCommits; i++) {
+            lastMaxSeqNo += between(1, 1000);
+            lastCheckpoint = randomLongBetween(lastCheckpoint, lastMaxSeqNo);
+            final IndexCommit commit = mockIndexCommit(lastCheckpoint, lastMaxSeqNo, translogUUID);
+            commitList.add(commit);
+            searcherIds.put(commit, "searcher_" + i);
+        }
+        final Set<String> retainedSearcherIds = new HashSet<>(randomSubsetOf(searcherIds.values()));
+        final CombinedDeletionPolicy indexPolicy =
+            new CombinedDeletionPolicy(logger, translogPolicy, softDeletesPolicy, globalCheckpoint::get, () -> retainedSearcherIds) {
+                @Override
+                protected int getDocCountOfCommit(IndexCommit indexCommit) {
+                    return between(0, 1000);
+                }
+
+                @Override
+                protected String getSearcherIdOfCommit(IndexCommit indexCommit) {
+                    return searcherIds.get(indexCommit);
+                }
+            };
+        final IndexCommit lastCommit = commitList.get(commitList.size() - 1);
+        globalCheckpoint.set(randomLongBetween(lastMaxSeqNo, Long.MAX_VALUE));
+        indexPolicy.onCommit(commitList);
+        for (IndexCommit commit : commitList) {
+            final boolean retained = retainedSearcherIds.contains(searcherIds.get(commit));
+            assertThat(commit.isDeleted(), equalTo(commit != lastCommit && retained == false));
+            final IndexCommit snapshot = indexPolicy.acquireIndexCommit(searcherIds.get(commit));
+            if (retained || commit == lastCommit) {
+                assertNotNull(snapshot);
+                assertThat(snapshot.getUserData(), equalTo(commit.getUserData()));
+                expectThrows(UnsupportedOperationException.class, snapshot::delete);
+                indexPolicy.releaseCommit(snapshot);
+            } else {
+                assertNull(snapshot);
+            }
+        }
+        assertNull(indexPolicy.acquireIndexCommit("unknown"));
+        // released commits are still retained as long as their points in time exist
+        commitList.forEach(this::resetDeletion);
+        indexPolicy.onCommit(commitList);
+        for (IndexCommit commit : commitList) {
+            assertThat(commit.isDeleted(), equalTo(commit != lastCommit && retainedSearcherIds.contains(searcherIds.get(commit)) == false));
+        }
+
+        // commits are deleted once their points in time are closed
+        retainedSearcherIds.clear();
+        commitList.forEach(this::resetDeletion);
+        indexPolicy.onCommit(commitList);
+        for (IndexCommit commit : commitList) {
+            assertThat(commit.isDeleted(), equalTo(commit != lastCommit));
+        }
+    }
+
     private CombinedDeletionPolicy newCombinedDeletionPolicy(TranslogDeletionPolicy translogPolicy, SoftDeletesPolicy softDeletesPolicy,
                                                              AtomicLong globalCheckpoint) {
         return new CombinedDeletionPolicy(logger, translogPolicy, softDeletesPolicy, globalCheckpoint::get)
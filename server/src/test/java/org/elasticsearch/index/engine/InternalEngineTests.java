@@ -111,6 +111,7 @@ import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.elasticsearch.index.merge.MergeBudget;
 import org.elasticsearch.index.seqno.LocalCheckpointTracker;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLease;
@@ -2924,7 +2925,8 @@ public class InternalEngineTests extends EngineTestCase {
                 () -> UNASSIGNED_SEQ_NO,
                 () -> RetentionLeases.EMPTY,
                 primaryTerm::get,
-                IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER);
+                IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER,
+                MergeBudget.UNBOUNDED);
         expectThrows(EngineCreationFailureException.class, () -> new InternalEngine(brokenConfig));
 
         engine = createEngine(store, primaryTranslogDir); // and recover again!
@@ -3171,6 +3173,28 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testPrefetchDocVersions() throws IOException {
+        ParsedDocument doc1 = testParsedDocument("1", null, testDocument(), B_1, null);
+        ParsedDocument doc2 = testParsedDocument("2", null, testDocument(), B_1, null);
+        ParsedDocument doc3 = testParsedDocument("3", null, testDocument(), B_1, null);
+        engine.index(indexForDoc(doc1));
+        engine.index(indexForDoc(doc2));
+        engine.refresh("test");
+
+        engine.prefetchDocVersions(List.of(newUid(doc3).bytes(), newUid(doc1).bytes(), newUid(doc2).bytes()));
+        assertThat(engine.index(indexForDoc(doc1)).getVersion(), equalTo(2L));
+        Engine.IndexResult createResult = engine.index(new Engine.Index(newUid(doc2), primaryTerm.get(), doc2, Versions.MATCH_DELETED));
+        assertThat(createResult.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+        assertThat(createResult.getFailure(), instanceOf(VersionConflictEngineException.class));
+        createResult = engine.index(new Engine.Index(newUid(doc3), primaryTerm.get(), doc3, Versions.MATCH_DELETED));
+        assertThat(createResult.getVersion(), equalTo(1L));
+
+        // the prefetched versions must not be used anymore once the reader they were loaded from got refreshed
+        engine.refresh("test");
+        assertThat(engine.index(indexForDoc(doc1)).getVersion(), equalTo(3L));
+        assertThat(engine.index(indexForDoc(doc3)).getVersion(), equalTo(2L));
+    }
+
     public void testDoubleDeliveryPrimary() throws IOException {
         final ParsedDocument doc = testParsedDocument("1", null, testDocumentWithTextField(),
             new BytesArray("{}".getBytes(Charset.defaultCharset())), null);
@@ -4863,6 +4887,85 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testShouldPeriodicallyFlushWithTranslogDisabled() throws Exception {
+        Settings settings = Settings.builder()
+            .put(indexSettings())
+            .put(IndexSettings.INDEX_TRANSLOG_ENABLED_SETTING.getKey(), false)
+            .put(IndexSettings.INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING.getKey(), "1kb")
+            .build();
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test", settings);
+        try (Store store = createStore(indexSettings, newDirectory());
+             InternalEngine engine = createEngine(config(indexSettings, store, createTempDir(), NoMergePolicy.INSTANCE, null))) {
+            assertFalse("Empty engine does not need flushing", engine.shouldPeriodicallyFlush());
+            int numDocs = 0;
+            while (engine.shouldPeriodicallyFlush() == false) {
+                final ParsedDocument doc =
+                    testParsedDocument(Integer.toString(numDocs++), null, testDocumentWithTextField(), SOURCE, null);
+                final Engine.IndexResult result = engine.index(indexForDoc(doc));
+                assertNull(result.getTranslogLocation());
+                assertThat(engine.getPersistedLocalCheckpoint(), equalTo(SequenceNumbers.NO_OPS_PERFORMED));
+            }
+            assertThat(engine.getTranslog().stats().getUncommittedOperations(), equalTo(0));
+            engine.flush();
+            assertFalse(engine.shouldPeriodicallyFlush());
+            assertThat(Long.parseLong(engine.getLastCommittedSegmentInfos().userData.get(SequenceNumbers.LOCAL_CHECKPOINT_KEY)),
+                equalTo((long) numDocs - 1));
+            assertThat(engine.getPersistedLocalCheckpoint(), equalTo((long) numDocs - 1));
+        }
+    }
+
+    public void testPersistedCheckpointWithTranslogDisabledOnlyCoversCommittedOperations() throws Exception {
+        Settings settings = Settings.builder()
+            .put(indexSettings())
+            .put(IndexSettings.INDEX_TRANSLOG_ENABLED_SETTING.getKey(), false)
+            .build();
+        IndexSettings indexSettings = IndexSettingsModule.newIndexSettings("test", settings);
+        try (Store store = createStore(indexSettings, newDirectory())) {
+            final AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+            final EngineConfig config =
+                config(indexSettings, store, createTempDir(), NoMergePolicy.INSTANCE, null, null, globalCheckpoint::get);
+            final int committedDocs = between(1, 10);
+            final long persistedCheckpoint;
+            try (InternalEngine engine = createEngine(config)) {
+                for (int i = 0; i < committedDocs; i++) {
+                    engine.index(indexForDoc(testParsedDocument(Integer.toString(i), null, testDocumentWithTextField(), SOURCE, null)));
+                }
+                engine.flush();
+                assertThat(engine.getPersistedLocalCheckpoint(), equalTo((long) committedDocs - 1));
+                // the global checkpoint follows the persisted checkpoint, which makes the commit safe to recover from
+                globalCheckpoint.set(engine.getPersistedLocalCheckpoint());
+                engine.syncTranslog();
+                final int uncommittedOps = between(1, 10);
+                for (int i = 0; i < uncommittedOps; i++) {
+                    if (randomBoolean()) {
+                        final ParsedDocument doc = testParsedDocument("new" + i, null, testDocumentWithTextField(), SOURCE, null);
+                        engine.index(indexForDoc(doc));
+                    } else {
+                        final String id = Integer.toString(randomIntBetween(0, committedDocs - 1));
+                        engine.delete(new Engine.Delete(id, newUid(id), primaryTerm.get()));
+                    }
+                }
+                assertThat(engine.getProcessedLocalCheckpoint(), equalTo((long) committedDocs + uncommittedOps - 1));
+                // the uncommitted operations are lost when crashing without a translog, so they must not count as persisted
+                persistedCheckpoint = engine.getPersistedLocalCheckpoint();
+                assertThat(persistedCheckpoint, equalTo((long) committedDocs - 1));
+                // closing the engine does not commit it, which is what happens on a crash
+            }
+            try (InternalEngine recoveredEngine = new InternalEngine(config)) {
+                recoveredEngine.recoverFromTranslog(translogHandler, Long.MAX_VALUE);
+                final long localCheckpointOfCommit = Long.parseLong(
+                    recoveredEngine.getLastCommittedSegmentInfos().userData.get(SequenceNumbers.LOCAL_CHECKPOINT_KEY));
+                assertThat(localCheckpointOfCommit, equalTo(persistedCheckpoint));
+                assertThat(recoveredEngine.getPersistedLocalCheckpoint(), equalTo(persistedCheckpoint));
+                assertThat(recoveredEngine.getProcessedLocalCheckpoint(), equalTo(persistedCheckpoint));
+                recoveredEngine.refresh("test");
+                try (Engine.Searcher searcher = recoveredEngine.acquireSearcher("test")) {
+                    assertThat(searcher.getIndexReader().numDocs(), equalTo(committedDocs));
+                }
+            }
+        }
+    }
+
     public void testShouldPeriodicallyFlushAfterMerge() throws Exception {
         engine.close();
         // Do not use MockRandomMergePolicy as it can cause a force merge performing two merges.
@@ -5998,7 +6101,7 @@ public class InternalEngineTests extends EngineTestCase {
                 config.getQueryCachingPolicy(), translogConfig, config.getFlushMergesAfter(),
                 config.getExternalRefreshListener(), config.getInternalRefreshListener(), config.getIndexSort(),
                 config.getCircuitBreakerService(), config.getGlobalCheckpointSupplier(), config.retentionLeasesSupplier(),
-                config.getPrimaryTermSupplier(), config.getSnapshotCommitSupplier());
+                config.getPrimaryTermSupplier(), config.getSnapshotCommitSupplier(), config.getMergeBudget());
             try (InternalEngine engine = createEngine(configWithWarmer)) {
                 assertThat(warmedUpReaders, empty());
                 assertThat(expectThrows(Throwable.class, () -> engine.acquireSearcher("test")).getMessage(),
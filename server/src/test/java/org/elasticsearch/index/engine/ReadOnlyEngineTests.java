@@ -336,4 +336,31 @@ public class ReadOnlyEngineTests extends EngineTestCase {
             }
         }
     }
+
+    public void testAcquireSearcherSupplierOnCommit() throws Exception {
+        IOUtils.close(engine, store);
+        AtomicLong globalCheckpoint = new AtomicLong(SequenceNumbers.NO_OPS_PERFORMED);
+        try (Store store = createStore()) {
+            final EngineConfig config =
+                config(defaultSettings, store, createTempDir(), NoMergePolicy.INSTANCE, null, null, globalCheckpoint::get);
+            final String commitId;
+            try (InternalEngine engine = createEngine(config)) {
+                final List<Engine.Operation> operations = generateHistoryOnReplica(between(1, 100),
+                    engine.getProcessedLocalCheckpoint() + 1L, false, randomBoolean(), randomBoolean());
+                applyOperations(engine, operations);
+                globalCheckpoint.set(engine.getProcessedLocalCheckpoint());
+                engine.flush(true, true);
+                commitId = ReadOnlyEngine.generateSearcherId(engine.getLastCommittedSegmentInfos());
+            }
+            try (ReadOnlyEngine readOnlyEngine = new ReadOnlyEngine(config, null, null, true, Function.identity(), true,
+                randomBoolean())) {
+                // a read-only engine can't flush, so it opens point-in-time readers on its only commit
+                try (Engine.SearcherSupplier searcher =
+                         readOnlyEngine.acquireSearcherSupplierOnCommit(Function.identity(), randomFrom(commitId, null))) {
+                    assertThat(searcher.getSearcherId(), equalTo(commitId));
+                }
+                assertNull(readOnlyEngine.acquireSearcherSupplierOnCommit(Function.identity(), randomAlphaOfLength(10)));
+            }
+        }
+    }
 }
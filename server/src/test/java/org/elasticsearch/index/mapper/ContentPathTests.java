@@ -0,0 +1,40 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ContentPathTests extends ESTestCase {
+
+    public void testPathAsText() {
+        ContentPath contentPath = new ContentPath();
+        String name = randomAlphaOfLength(5);
+        assertThat(contentPath.pathAsText(name), sameInstance(name));
+
+        contentPath.add("foo");
+        contentPath.add("bar");
+        assertThat(contentPath.pathAsText("baz"), equalTo("foo.bar.baz"));
+        contentPath.remove();
+        assertThat(contentPath.pathAsText("baz"), equalTo("foo.baz"));
+        contentPath.remove();
+        assertThat(contentPath.pathAsText(name), sameInstance(name));
+    }
+
+    public void testPathAsTextWithOffset() {
+        ContentPath contentPath = new ContentPath(1);
+        contentPath.add("foo");
+        String name = randomAlphaOfLength(5);
+        assertThat(contentPath.pathAsText(name), sameInstance(name));
+        contentPath.add("bar");
+        assertThat(contentPath.pathAsText("baz"), equalTo("bar.baz"));
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.merge;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class MergeBudgetTests extends ESTestCase {
+
+    public void testLargeMergeSize() {
+        MergeBudget budget = new MergeBudget(1024, 1, 0, () -> 0);
+        assertFalse(budget.isLargeMerge(randomLongBetween(0, 1023)));
+        assertTrue(budget.isLargeMerge(1024));
+        assertTrue(budget.isLargeMerge(randomLongBetween(1024, Long.MAX_VALUE)));
+    }
+
+    public void testLargeMergesAreNotLimitedByDefault() {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        MergeBudget budget = new MergeBudget(Settings.EMPTY, clusterSettings, () -> Integer.MAX_VALUE);
+        assertThat(budget.availableLargeMergeSlots(), equalTo(Integer.MAX_VALUE));
+        int numMerges = between(1, 10);
+        List<Releasable> slots = new ArrayList<>();
+        for (int i = 0; i < numMerges; i++) {
+            slots.add(budget.acquire(randomLongBetween(1024, Long.MAX_VALUE), () -> false));
+        }
+        assertThat(budget.getRunningLargeMerges(), equalTo(numMerges));
+        assertThat(budget.getWaitingLargeMerges(), equalTo(0));
+        Releasables.close(slots);
+        assertThat(budget.getRunningLargeMerges(), equalTo(0));
+    }
+
+    public void testLargeMergesWaitForSlot() throws Exception {
+        MergeBudget budget = new MergeBudget(1024, 1, 0, () -> 0);
+        Releasable first = budget.acquire(2048, () -> false);
+        assertThat(budget.getRunningLargeMerges(), equalTo(1));
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (Releasable ignored = budget.acquire(4096, () -> false)) {
+                acquired.countDown();
+            }
+        });
+        thread.start();
+        assertBusy(() -> assertThat(budget.getWaitingLargeMerges(), equalTo(1)));
+        assertThat(acquired.getCount(), equalTo(1L));
+
+        first.close();
+        thread.join();
+        assertThat(acquired.getCount(), equalTo(0L));
+        assertThat(budget.getRunningLargeMerges(), equalTo(0));
+        assertThat(budget.getWaitingLargeMerges(), equalTo(0));
+    }
+
+    public void testSmallestWaitingMergeGoesFirst() throws Exception {
+        MergeBudget budget = new MergeBudget(1024, 1, 0, () -> 0);
+        Releasable first = budget.acquire(2048, () -> false);
+        List<Long> order = new CopyOnWriteArrayList<>();
+        long[] sizes = new long[] { 8192, 4096, 16384 };
+        Thread[] threads = new Thread[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            final long size = sizes[i];
+            threads[i] = new Thread(() -> {
+                try (Releasable ignored = budget.acquire(size, () -> false)) {
+                    order.add(size);
+                }
+            });
+            threads[i].start();
+            final int waiting = i + 1;
+            assertBusy(() -> assertThat(budget.getWaitingLargeMerges(), equalTo(waiting)));
+        }
+        first.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(order, equalTo(List.of(4096L, 8192L, 16384L)));
+    }
+
+    public void testSearchLoadReducesSlots() {
+        AtomicInteger searchQueueSize = new AtomicInteger();
+        MergeBudget budget = new MergeBudget(1024, 3, 10, searchQueueSize::get);
+        assertThat(budget.availableLargeMergeSlots(), equalTo(3));
+        searchQueueSize.set(9);
+        assertThat(budget.availableLargeMergeSlots(), equalTo(3));
+        searchQueueSize.set(10);
+        assertThat(budget.availableLargeMergeSlots(), equalTo(1));
+
+        MergeBudget ignoringSearchLoad = new MergeBudget(1024, 3, 0, searchQueueSize::get);
+        assertThat(ignoringSearchLoad.availableLargeMergeSlots(), equalTo(3));
+
+        MergeBudget unlimited = new MergeBudget(1024, -1, 10, searchQueueSize::get);
+        assertThat(unlimited.availableLargeMergeSlots(), equalTo(Integer.MAX_VALUE));
+    }
+
+    public void testMaxConcurrentLargeMergesValidation() {
+        for (int value : new int[] { -1, 1, between(2, 100) }) {
+            Settings settings = Settings.builder().put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), value).build();
+            assertThat(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.get(settings), equalTo(value));
+        }
+        for (int value : new int[] { 0, between(-100, -2) }) {
+            Settings settings = Settings.builder().put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), value).build();
+            expectThrows(IllegalArgumentException.class, () -> MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.get(settings));
+        }
+    }
+
+    public void testMergeStopsWaitingAfterMaxWaitTime() throws Exception {
+        MergeBudget budget = new MergeBudget(1024, 1, 0, TimeValue.timeValueMillis(between(1, 100)), () -> 0);
+        Releasable first = budget.acquire(2048, () -> false);
+        // admitted although the first merge still holds the only slot
+        Releasable second = budget.acquire(2048, () -> false);
+        assertThat(budget.getRunningLargeMerges(), equalTo(2));
+        assertThat(budget.getWaitingLargeMerges(), equalTo(0));
+        Releasables.close(first, second);
+        assertThat(budget.getRunningLargeMerges(), equalTo(0));
+    }
+
+    public void testMaxWaitTimeChangeWakesUpWaitingMerges() throws Exception {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        MergeBudget budget = new MergeBudget(Settings.builder()
+            .put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), 1)
+            .put(MergeBudget.MAX_WAIT_TIME_SETTING.getKey(), "1h")
+            .build(), clusterSettings, () -> 0);
+        Releasable first = budget.acquire(2048, () -> false);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (Releasable ignored = budget.acquire(2048, () -> false)) {
+                acquired.countDown();
+            }
+        });
+        thread.start();
+        assertBusy(() -> assertThat(budget.getWaitingLargeMerges(), equalTo(1)));
+        clusterSettings.applySettings(Settings.builder()
+            .put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), 1)
+            .put(MergeBudget.MAX_WAIT_TIME_SETTING.getKey(), "0s")
+            .build());
+        thread.join();
+        assertThat(acquired.getCount(), equalTo(0L));
+        first.close();
+        assertThat(budget.getRunningLargeMerges(), equalTo(0));
+    }
+
+    public void testAbortedMergeStopsWaiting() throws Exception {
+        MergeBudget budget = new MergeBudget(1024, 1, 0, () -> 0);
+        Releasable first = budget.acquire(2048, () -> false);
+        AtomicBoolean aborted = new AtomicBoolean();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (Releasable ignored = budget.acquire(2048, aborted::get)) {
+                acquired.countDown();
+            }
+        });
+        thread.start();
+        assertBusy(() -> assertThat(budget.getWaitingLargeMerges(), equalTo(1)));
+        aborted.set(true);
+        budget.onMergesAborted();
+        thread.join();
+        assertThat(acquired.getCount(), equalTo(0L));
+        first.close();
+        assertThat(budget.getRunningLargeMerges(), equalTo(0));
+    }
+
+    public void testSettingsChangesWakeUpWaitingMerges() throws Exception {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        MergeBudget budget = new MergeBudget(Settings.builder()
+            .put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), 1)
+            .build(), clusterSettings, () -> 0);
+        Releasable first = budget.acquire(2048, () -> false);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (Releasable ignored = budget.acquire(2048, () -> false)) {
+                acquired.countDown();
+            }
+        });
+        thread.start();
+        assertBusy(() -> assertThat(budget.getWaitingLargeMerges(), equalTo(1)));
+        clusterSettings.applySettings(Settings.builder()
+            .put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), randomFrom(-1, 2))
+            .build());
+        thread.join();
+        assertThat(acquired.getCount(), equalTo(0L));
+        first.close();
+        assertThat(budget.getRunningLargeMerges(), equalTo(0));
+    }
+
+    public void testDynamicSettings() {
+        ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        MergeBudget budget = new MergeBudget(Settings.EMPTY, clusterSettings, () -> 0);
+        clusterSettings.applySettings(Settings.builder()
+            .put(MergeBudget.MAX_CONCURRENT_LARGE_MERGES_SETTING.getKey(), 7)
+            .put(MergeBudget.LARGE_MERGE_SIZE_SETTING.getKey(), "1kb")
+            .build());
+        assertThat(budget.availableLargeMergeSlots(), equalTo(7));
+        assertFalse(budget.isLargeMerge(1023));
+        assertTrue(budget.isLargeMerge(1024));
+        Releasable large = budget.acquire(1024, () -> false);
+        assertThat(budget.getRunningLargeMerges(), equalTo(1));
+        large.close();
+    }
+}
@@ -25,6 +25,7 @@ import java.util.stream.IntStream;
 import static org.elasticsearch.index.seqno.LocalCheckpointTracker.BIT_SET_SIZE;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.oneOf;
 
 public class LocalCheckpointTrackerTests extends ESTestCase {
@@ -117,6 +118,28 @@ public class LocalCheckpointTrackerTests extends ESTestCase {
         assertThat(tracker.getMaxSeqNo(), equalTo(2L));
     }
 
+    public void testFastForwardPersisted() {
+        final long maxSeqNo = between(0, BIT_SET_SIZE * 3);
+        for (long seqNo = 0; seqNo <= maxSeqNo; seqNo++) {
+            tracker.markSeqNoAsProcessed(seqNo);
+        }
+        final long checkpoint = randomLongBetween(0, maxSeqNo);
+        // sequence numbers persisted individually right after the new checkpoint move it further
+        final long persistedAfterCheckpoint = randomLongBetween(checkpoint, maxSeqNo);
+        for (long seqNo = checkpoint + 1; seqNo <= persistedAfterCheckpoint; seqNo++) {
+            tracker.markSeqNoAsPersisted(seqNo);
+        }
+        assertThat(tracker.getPersistedCheckpoint(), equalTo(SequenceNumbers.NO_OPS_PERFORMED));
+        tracker.fastForwardPersistedSeqNo(checkpoint);
+        assertThat(tracker.getPersistedCheckpoint(), equalTo(persistedAfterCheckpoint));
+        assertThat(tracker.persistedSeqNo.size(), lessThanOrEqualTo(1));
+        tracker.fastForwardPersistedSeqNo(randomLongBetween(SequenceNumbers.NO_OPS_PERFORMED, persistedAfterCheckpoint));
+        assertThat(tracker.getPersistedCheckpoint(), equalTo(persistedAfterCheckpoint));
+        tracker.fastForwardPersistedSeqNo(maxSeqNo);
+        assertThat(tracker.getPersistedCheckpoint(), equalTo(maxSeqNo));
+        assertThat(tracker.getProcessedCheckpoint(), equalTo(maxSeqNo));
+    }
+
     public void testLazyInitialization() {
         /*
          * Previously this would allocate the entire chain of bit sets to the one for the sequence number being marked; for very large
@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.store;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.seqno.RetentionLease;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadata.StoreFilesMetadata;
+import org.elasticsearch.indices.store.TransportNodesListShardStoreMetadataBatch.NodeStoreFilesMetadataBatch;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TransportNodesListShardStoreMetadataBatchTests extends ESTestCase {
+
+    public void testNodeResponseSerialization() throws IOException {
+        final DiscoveryNode node = new DiscoveryNode("node", buildNewFakeTransportAddress(), Version.CURRENT);
+        final Map<ShardId, StoreFilesMetadata> storeFiles = new HashMap<>();
+        final Map<ShardId, Exception> failures = new HashMap<>();
+        final int numberOfShards = between(1, 20);
+        for (int i = 0; i < numberOfShards; i++) {
+            final ShardId shardId = new ShardId("index", "_na_", i);
+            switch (between(0, 2)) {
+                case 0:
+                    storeFiles.put(shardId, new StoreFilesMetadata(shardId, Store.MetadataSnapshot.EMPTY, Collections.emptyList()));
+                    break;
+                case 1:
+                    final StoreFileMetadata file = new StoreFileMetadata("file_" + i, randomLongBetween(1, 1000),
+                        randomAlphaOfLength(8), Version.CURRENT.luceneVersion);
+                    final Store.MetadataSnapshot snapshot = new Store.MetadataSnapshot(Map.of(file.name(), file),
+                        Collections.emptyMap(), randomNonNegativeLong());
+                    storeFiles.put(shardId, new StoreFilesMetadata(shardId, snapshot,
+                        List.of(new RetentionLease(randomAlphaOfLength(10), randomNonNegativeLong(), randomNonNegativeLong(), "peer"))));
+                    break;
+                default:
+                    failures.put(shardId, new ElasticsearchException("simulated listing failure"));
+            }
+        }
+
+        final NodeStoreFilesMetadataBatch response = new NodeStoreFilesMetadataBatch(node, storeFiles, failures);
+        final NodeStoreFilesMetadataBatch deserialized;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            response.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                deserialized = new NodeStoreFilesMetadataBatch(in);
+            }
+        }
+
+        assertThat(deserialized.getNode(), equalTo(node));
+        assertThat(deserialized.getStoreFiles().keySet(), equalTo(storeFiles.keySet()));
+        for (Map.Entry<ShardId, StoreFilesMetadata> entry : deserialized.getStoreFiles().entrySet()) {
+            final StoreFilesMetadata expected = storeFiles.get(entry.getKey());
+            final StoreFilesMetadata actual = entry.getValue();
+            assertThat(actual.shardId(), equalTo(entry.getKey()));
+            assertThat(actual.isEmpty(), equalTo(expected.isEmpty()));
+            for (StoreFileMetadata file : expected) {
+                assertTrue(actual.file(file.name()).isSame(file));
+            }
+            assertThat(actual.peerRecoveryRetentionLeases(), equalTo(expected.peerRecoveryRetentionLeases()));
+        }
+        assertThat(deserialized.getFailures().keySet(), equalTo(failures.keySet()));
+        for (Exception failure : deserialized.getFailures().values()) {
+            assertThat(failure.getMessage(), containsString("simulated listing failure"));
+        }
+    }
+}
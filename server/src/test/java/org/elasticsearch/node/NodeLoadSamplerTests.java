@@ -0,0 +1,52 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.node;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class NodeLoadSamplerTests extends ESTestCase {
+
+    public void testSampling() {
+        AtomicLong gcTime = new AtomicLong(randomLongBetween(0, 1000));
+        AtomicLong rejections = new AtomicLong(randomLongBetween(0, 1000));
+        AtomicLong time = new AtomicLong(randomLongBetween(0, 1000));
+        int cpu = randomIntBetween(0, 100);
+        NodeLoadSampler sampler = new NodeLoadSampler(gcTime::get, () -> cpu, rejections::get, time::get);
+        assertNull(sampler.current());
+
+        time.addAndGet(1000);
+        gcTime.addAndGet(250);
+        rejections.addAndGet(3);
+        sampler.run();
+        assertThat(sampler.current(), equalTo(new NodeLoadStats(25, cpu, 3)));
+
+        // only the last interval counts
+        time.addAndGet(500);
+        sampler.run();
+        assertThat(sampler.current(), equalTo(new NodeLoadStats(0, cpu, 0)));
+
+        // the overhead is capped, collections may have started before the interval
+        time.addAndGet(100);
+        gcTime.addAndGet(300);
+        sampler.run();
+        assertThat(sampler.current(), equalTo(new NodeLoadStats(100, cpu, 0)));
+    }
+
+    public void testUnavailableSignals() {
+        AtomicLong time = new AtomicLong();
+        NodeLoadSampler sampler = new NodeLoadSampler(() -> -1, () -> -1, () -> -1, time::get);
+        time.addAndGet(1000);
+        sampler.run();
+        assertThat(sampler.current(), equalTo(new NodeLoadStats(-1, -1, -1)));
+    }
+}
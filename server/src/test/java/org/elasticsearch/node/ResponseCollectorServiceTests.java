@@ -14,6 +14,8 @@ import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
@@ -26,6 +28,7 @@ import org.junit.Before;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
+import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 
@@ -60,6 +63,60 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         assertThat(nodeStats.get("node1").serviceTime, equalTo(10.0));
     }
 
+    public void testNodeLoadStats() throws Exception {
+        collector.addNodeStatistics("node1", 1, 100, 10);
+        ResponseCollectorService.ComputedNodeStats stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.gcOverhead, equalTo(-1.0));
+        assertThat(stats.cpuPercent, equalTo(-1.0));
+        assertThat(stats.searchRejections, equalTo(-1.0));
+
+        collector.addNodeStatistics("node1", 1, 100, 10, new NodeLoadStats(20, -1, 4));
+        stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.gcOverhead, equalTo(20.0));
+        assertThat(stats.cpuPercent, equalTo(-1.0));
+        assertThat(stats.searchRejections, equalTo(4.0));
+
+        collector.addNodeStatistics("node1", 1, 100, 10, new NodeLoadStats(10, 50, 0));
+        stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.gcOverhead, closeTo(17.0, 0.001));
+        assertThat(stats.cpuPercent, equalTo(50.0));
+        assertThat(stats.searchRejections, closeTo(2.8, 0.001));
+    }
+
+    public void testRankingSetting() throws Exception {
+        collector.addNodeStatistics("node1", 1, 100, 10, new NodeLoadStats(50, 10, 0));
+        ResponseCollectorService.ComputedNodeStats stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.rank(1), equalTo(NodeRanking.C3.rank(stats, 1)));
+
+        clusterService.getClusterSettings().applySettings(
+            Settings.builder().put(ResponseCollectorService.RANKING_SETTING.getKey(), "c3_node_load").build());
+        stats = collector.getNodeStatistics("node1").get();
+        assertThat(stats.rank(1), equalTo(NodeRanking.C3_NODE_LOAD.rank(stats, 1)));
+
+        NodeRanking custom = new NodeRanking() {
+            @Override
+            public String name() {
+                return "custom";
+            }
+
+            @Override
+            public double rank(ResponseCollectorService.ComputedNodeStats stats, long outstandingRequests) {
+                return 42;
+            }
+        };
+        collector.setRanking(custom);
+        assertThat(collector.getNodeStatistics("node1").get().rank(1), equalTo(42.0));
+
+        // nodes that don't know a custom ranking fall back to the default one
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            collector.getNodeStatistics("node1").get().writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                ResponseCollectorService.ComputedNodeStats deserialized = new ResponseCollectorService.ComputedNodeStats(in);
+                assertThat(deserialized.rank(1), equalTo(NodeRanking.C3.rank(deserialized, 1)));
+            }
+        }
+    }
+
     /*
      * Test that concurrently adding values and removing nodes does not cause exceptions
      */
@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class RequestCoalescerTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Before
+    public void setUpThreadPool() {
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @After
+    public void tearDownThreadPool() {
+        terminate(threadPool);
+    }
+
+    public void testIdenticalRequestsJoinRunningComputation() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(threadPool);
+        AtomicReference<ActionListener<String>> running = new AtomicReference<>();
+        List<String> joined = new ArrayList<>();
+        AtomicInteger fallbacks = new AtomicInteger();
+
+        coalescer.execute("key", TimeValue.ZERO, running::set, joined::add, fallbacks::incrementAndGet);
+        int followers = randomIntBetween(1, 10);
+        for (int i = 0; i < followers; i++) {
+            coalescer.execute("key", TimeValue.ZERO, l -> fail("identical request must not run"), joined::add,
+                fallbacks::incrementAndGet);
+        }
+        AtomicReference<ActionListener<String>> other = new AtomicReference<>();
+        coalescer.execute("other", TimeValue.ZERO, other::set, joined::add, fallbacks::incrementAndGet);
+        assertNotNull(other.get());
+        assertThat(coalescer.size(), equalTo(2));
+
+        running.get().onResponse("value");
+        assertThat(joined.size(), equalTo(followers));
+        assertTrue(joined.stream().allMatch("value"::equals));
+        assertThat(fallbacks.get(), equalTo(0));
+        assertThat(coalescer.size(), equalTo(1));
+
+        // the computation completed and there is no window, so the next request runs again
+        running.set(null);
+        coalescer.execute("key", TimeValue.ZERO, running::set, joined::add, fallbacks::incrementAndGet);
+        assertNotNull(running.get());
+    }
+
+    public void testFailuresAndUnshareableValuesAreNotShared() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(threadPool);
+        AtomicReference<ActionListener<String>> running = new AtomicReference<>();
+        AtomicInteger fallbacks = new AtomicInteger();
+        coalescer.execute("key", TimeValue.ZERO, running::set, v -> fail("nothing to join"), fallbacks::incrementAndGet);
+        coalescer.execute("key", TimeValue.ZERO, l -> fail("identical request must not run"), v -> fail("nothing to join"),
+            fallbacks::incrementAndGet);
+        if (randomBoolean()) {
+            running.get().onFailure(new IllegalStateException("boom"));
+        } else {
+            running.get().onResponse(null);
+        }
+        assertThat(fallbacks.get(), equalTo(1));
+        assertThat(coalescer.size(), equalTo(0));
+    }
+
+    public void testCompletedComputationCanBeJoinedWithinWindow() {
+        RequestCoalescer<String, String> coalescer = new RequestCoalescer<>(threadPool);
+        AtomicReference<ActionListener<String>> running = new AtomicReference<>();
+        AtomicReference<String> joined = new AtomicReference<>();
+        coalescer.execute("key", TimeValue.timeValueHours(1), running::set, v -> fail("leader does not join"), () -> fail("no fallback"));
+        running.get().onResponse("value");
+
+        coalescer.execute("key", TimeValue.timeValueHours(1), l -> fail("identical request must not run"), joined::set,
+            () -> fail("no fallback"));
+        assertThat(joined.get(), equalTo("value"));
+        assertThat(coalescer.size(), equalTo(1));
+    }
+}
@@ -79,12 +79,14 @@ import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
+import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESSingleNodeTestCase;
@@ -817,6 +819,42 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
             .suggest(new SuggestBuilder())));
     }
 
+    public void testConcurrentFetchMatchesSequentialFetch() {
+        createIndex("index", Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexSettings.FETCH_CONCURRENT_MIN_HITS_SETTING.getKey(), 1)
+            .put("index.refresh_interval", -1)
+            .build(), null, "field", "text");
+        int numSegments = randomIntBetween(2, 5);
+        int numDocs = 0;
+        for (int i = 0; i < numSegments; i++) {
+            int segmentDocs = randomIntBetween(1, 20);
+            for (int j = 0; j < segmentDocs; j++) {
+                client().prepareIndex("index").setId(Integer.toString(numDocs++)).setSource("field", "foo bar " + randomAlphaOfLength(5))
+                    .get();
+            }
+            client().admin().indices().prepareRefresh("index").get();
+        }
+
+        SearchResponse concurrent = client().prepareSearch("index").setQuery(new TermQueryBuilder("field", "foo")).setSize(numDocs)
+            .addSort("_doc", SortOrder.DESC).highlighter(new HighlightBuilder().field("field")).get();
+        assertHitCount(concurrent, numDocs);
+
+        client().admin().indices().prepareUpdateSettings("index")
+            .setSettings(Settings.builder().put(IndexSettings.FETCH_CONCURRENT_MIN_HITS_SETTING.getKey(), 0)).get();
+        SearchResponse sequential = client().prepareSearch("index").setQuery(new TermQueryBuilder("field", "foo")).setSize(numDocs)
+            .addSort("_doc", SortOrder.DESC).highlighter(new HighlightBuilder().field("field")).get();
+
+        assertThat(concurrent.getHits().getHits().length, equalTo(sequential.getHits().getHits().length));
+        for (int i = 0; i < numDocs; i++) {
+            SearchHit expected = sequential.getHits().getAt(i);
+            SearchHit actual = concurrent.getHits().getAt(i);
+            assertThat(actual.getId(), equalTo(expected.getId()));
+            assertThat(actual.getSourceAsMap(), equalTo(expected.getSourceAsMap()));
+            assertThat(actual.getHighlightFields(), equalTo(expected.getHighlightFields()));
+        }
+    }
+
     public void testSetSearchThrottled() {
         createIndex("throttled_threadpool_index");
         client().execute(
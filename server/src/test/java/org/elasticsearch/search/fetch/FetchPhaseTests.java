@@ -8,8 +8,22 @@
 
 package org.elasticsearch.search.fetch;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+
 public class FetchPhaseTests extends ESTestCase {
     public void testSequentialDocs() {
         FetchPhase.DocIdToIndex[] docs = new FetchPhase.DocIdToIndex[10];
@@ -28,4 +42,41 @@ public class FetchPhaseTests extends ESTestCase {
         }
         assertFalse(FetchPhase.hasSequentialDocs(docs));
     }
+
+    public void testSplitBySegment() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            int numSegments = randomIntBetween(1, 5);
+            for (int i = 0; i < numSegments; i++) {
+                int numDocs = randomIntBetween(1, 20);
+                for (int j = 0; j < numDocs; j++) {
+                    writer.addDocument(new Document());
+                }
+                writer.flush();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                List<LeafReaderContext> leaves = reader.leaves();
+                int[] docIds = IntStream.range(0, reader.maxDoc()).filter(i -> randomBoolean()).toArray();
+                FetchPhase.DocIdToIndex[] docs = new FetchPhase.DocIdToIndex[docIds.length];
+                for (int i = 0; i < docIds.length; i++) {
+                    docs[i] = new FetchPhase.DocIdToIndex(docIds[i], i);
+                }
+
+                List<FetchPhase.DocIdToIndex[]> chunks = FetchPhase.splitBySegment(docs, leaves);
+                int next = 0;
+                int previousLeaf = -1;
+                for (FetchPhase.DocIdToIndex[] chunk : chunks) {
+                    assertTrue(chunk.length > 0);
+                    int leaf = ReaderUtil.subIndex(chunk[0].docId, leaves);
+                    assertTrue(leaf > previousLeaf);
+                    for (FetchPhase.DocIdToIndex doc : chunk) {
+                        assertThat(ReaderUtil.subIndex(doc.docId, leaves), equalTo(leaf));
+                        assertThat(doc.index, equalTo(next++));
+                    }
+                    previousLeaf = leaf;
+                }
+                assertThat(next, equalTo(docs.length));
+            }
+        }
+    }
 }
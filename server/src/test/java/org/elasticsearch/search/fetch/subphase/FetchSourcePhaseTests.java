@@ -159,6 +159,7 @@ public class FetchSourcePhaseTests extends ESTestCase {
             assertNull(processor);
         } else {
             assertNotNull(processor);
+            assertTrue(processor.supportsConcurrentFetch());
             processor.process(hitContext);
         }
         return hitContext;
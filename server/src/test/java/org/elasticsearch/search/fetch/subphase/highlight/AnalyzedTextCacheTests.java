@@ -0,0 +1,110 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch.subphase.highlight;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.analysis.tokenattributes.PositionIncrementAttribute;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.index.analysis.AnalyzerScope;
+import org.elasticsearch.index.analysis.NamedAnalyzer;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class AnalyzedTextCacheTests extends ESTestCase {
+
+    public void testFieldsShareAnalysisOfSameText() throws IOException {
+        NamedAnalyzer standard = new NamedAnalyzer("standard", AnalyzerScope.INDEX, new StandardAnalyzer());
+        NamedAnalyzer whitespace = new NamedAnalyzer("whitespace", AnalyzerScope.INDEX, new WhitespaceAnalyzer());
+        AtomicLong usedBytes = new AtomicLong();
+        AnalyzedTextCache cache = new AnalyzedTextCache(new AccountingBreaker(usedBytes));
+        Analyzer analyzer = cache.wrap(field -> field.startsWith("ws") ? whitespace : standard, null);
+
+        String text = "The Quick brown-fox jumped over the lazy DOG";
+        assertThat(tokens(analyzer, "body", text), equalTo(tokens(standard, "body", text)));
+        assertThat(cache.size(), equalTo(1));
+        long used = usedBytes.get();
+        assertThat(used, greaterThan(0L));
+
+        // same text and analyzer on another field is replayed
+        assertThat(tokens(analyzer, "title", text), equalTo(tokens(standard, "title", text)));
+        assertThat(cache.size(), equalTo(1));
+        assertThat(usedBytes.get(), equalTo(used));
+
+        // other analyzers and other texts are analyzed again
+        assertThat(tokens(analyzer, "ws_body", text), equalTo(tokens(whitespace, "ws_body", text)));
+        assertThat(tokens(analyzer, "body", "another text"), equalTo(tokens(standard, "body", "another text")));
+        assertThat(cache.size(), equalTo(3));
+        assertThat(usedBytes.get(), greaterThan(used));
+
+        cache.clear();
+        assertThat(cache.size(), equalTo(0));
+        assertThat(usedBytes.get(), equalTo(0L));
+    }
+
+    public void testMaxAnalyzedOffset() throws IOException {
+        NamedAnalyzer whitespace = new NamedAnalyzer("whitespace", AnalyzerScope.INDEX, new WhitespaceAnalyzer());
+        AnalyzedTextCache cache = new AnalyzedTextCache(new NoopCircuitBreaker("test"));
+        String text = "aaa bbb ccc ddd";
+        Analyzer limited = cache.wrap(field -> whitespace, 5);
+        assertThat(tokens(limited, "body", text), equalTo(List.of("aaa[0-4]+1", "bbb[4-7]+1", "end[15]")));
+        assertThat(tokens(limited, "body", text), equalTo(tokens(new LimitTokenOffsetAnalyzer(whitespace, 5), "body", text)));
+
+        // the limit is part of the cache key
+        Analyzer unlimited = cache.wrap(field -> whitespace, null);
+        assertThat(tokens(unlimited, "body", text), equalTo(tokens(whitespace, "body", text)));
+        assertThat(cache.size(), equalTo(2));
+    }
+
+    private static List<String> tokens(Analyzer analyzer, String field, String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+            OffsetAttribute offsetAtt = tokenStream.addAttribute(OffsetAttribute.class);
+            PositionIncrementAttribute posIncAtt = tokenStream.addAttribute(PositionIncrementAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                tokens.add(termAtt + "[" + offsetAtt.startOffset() + "-" + offsetAtt.endOffset() + "]+" + posIncAtt.getPositionIncrement());
+            }
+            tokenStream.end();
+            tokens.add("end[" + offsetAtt.endOffset() + "]");
+        }
+        return tokens;
+    }
+
+    private static class AccountingBreaker extends NoopCircuitBreaker {
+        private final AtomicLong usedBytes;
+
+        AccountingBreaker(AtomicLong usedBytes) {
+            super("test");
+            this.usedBytes = usedBytes;
+        }
+
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) {
+            usedBytes.addAndGet(bytes);
+        }
+
+        @Override
+        public void addWithoutBreaking(long bytes) {
+            usedBytes.addAndGet(bytes);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch.subphase.highlight;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.RuntimeField;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.search.fetch.FetchContext;
+import org.elasticsearch.search.fetch.FetchSubPhaseProcessor;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class HighlightPhaseTests extends ESTestCase {
+
+    public void testSupportsConcurrentFetch() {
+        MappedFieldType keyword = mock(MappedFieldType.class);
+        when(keyword.name()).thenReturn("keyword");
+        MappedFieldType runtime = mock(MappedFieldType.class, withSettings().extraInterfaces(RuntimeField.class));
+        when(runtime.name()).thenReturn("runtime");
+
+        SearchExecutionContext searchExecutionContext = mock(SearchExecutionContext.class);
+        when(searchExecutionContext.getMatchingFieldNames("keyword")).thenReturn(List.of("keyword"));
+        when(searchExecutionContext.getMatchingFieldNames("runtime")).thenReturn(List.of("runtime"));
+        when(searchExecutionContext.getFieldType("keyword")).thenReturn(keyword);
+        when(searchExecutionContext.getFieldType("runtime")).thenReturn(runtime);
+        FetchContext fetchContext = mock(FetchContext.class);
+        when(fetchContext.getSearchExecutionContext()).thenReturn(searchExecutionContext);
+
+        HighlightPhase phase = new HighlightPhase(Map.of("unified", new UnifiedHighlighter()));
+        FetchSubPhaseProcessor processor = phase.getProcessor(fetchContext, highlight("keyword"), new MatchAllDocsQuery());
+        assertTrue(processor.supportsConcurrentFetch());
+
+        // runtime fields read their values through the search lookup that is shared by the whole request
+        processor = phase.getProcessor(fetchContext, highlight("keyword", "runtime"), new MatchAllDocsQuery());
+        assertFalse(processor.supportsConcurrentFetch());
+    }
+
+    private static SearchHighlightContext highlight(String... fields) {
+        SearchHighlightContext.FieldOptions options = new SearchHighlightContext.FieldOptions.Builder().forceSource(false).build();
+        return new SearchHighlightContext(
+            Arrays.stream(fields).map(field -> new SearchHighlightContext.Field(field, options)).collect(Collectors.toList()));
+    }
+}
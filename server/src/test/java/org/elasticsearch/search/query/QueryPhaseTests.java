@@ -15,6 +15,7 @@ import org.apache.lucene.document.LatLonDocValuesField;
 import org.apache.lucene.document.LatLonPoint;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
@@ -32,6 +33,7 @@ import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.FieldComparator;
 import org.apache.lucene.search.FieldDoc;
@@ -47,8 +49,10 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.search.Weight;
@@ -93,6 +97,7 @@ import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -783,6 +788,77 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testNumericSortLeafPruning() throws Exception {
+        final String fieldName = "date-field";
+        MappedFieldType fieldType = new DateFieldMapper.DateFieldType(fieldName);
+        SearchExecutionContext searchExecutionContext = mock(SearchExecutionContext.class);
+        when(searchExecutionContext.getFieldType(fieldName)).thenReturn(fieldType);
+        // time-based segments, every segment holds newer values than the previous ones
+        final int numSegments = 5;
+        final int docsPerSegment = 10000;
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int i = 0; i < docsPerSegment; i++) {
+                Document doc = new Document();
+                long value = segment * 1000000L + randomLongBetween(0, 999999L);
+                doc.add(new LongPoint(fieldName, value));
+                doc.add(new SortedNumericDocValuesField(fieldName, value));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+        }
+        writer.close();
+        final IndexReader reader = DirectoryReader.open(dir);
+        assertEquals(numSegments, reader.leaves().size());
+
+        // missing values first disables the rewrite of the sort to a distance feature query
+        final SortField sortField = new SortedNumericSortField(fieldName, SortField.Type.LONG, true);
+        sortField.setMissingValue(Long.MAX_VALUE);
+        final Sort sort = new Sort(sortField);
+        final int size = randomIntBetween(1, 100);
+        final TopFieldDocs expected = new IndexSearcher(reader).search(new MatchAllDocsQuery(), size, sort);
+
+        TestSearchContext searchContext = spy(new TestSearchContext(searchExecutionContext, indexShard, newContextSearcher(reader)));
+        searchContext.sort(new SortAndFormats(sort, new DocValueFormat[]{DocValueFormat.RAW}));
+        searchContext.parsedQuery(new ParsedQuery(new MatchAllDocsQuery()));
+        searchContext.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+        searchContext.setSize(size);
+        QueryPhase.executeInternal(searchContext);
+        TopDocs topDocs = searchContext.queryResult().topDocs().topDocs;
+        assertEquals(new TotalHits(numSegments * docsPerSegment, TotalHits.Relation.EQUAL_TO), topDocs.totalHits);
+        assertEquals(size, topDocs.scoreDocs.length);
+        for (int i = 0; i < size; i++) {
+            assertEquals(((FieldDoc) expected.scoreDocs[i]).fields[0], ((FieldDoc) topDocs.scoreDocs[i]).fields[0]);
+        }
+
+        // the leaves that only hold older values than the top hits are skipped
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Weight weight = searcher.createWeight(new MatchAllDocsQuery(), org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES, 1f);
+        NumericSortLeafPruner pruner = new NumericSortLeafPruner(fieldName, true, Long.MAX_VALUE, size);
+        LeafReaderContext newest = reader.leaves().get(numSegments - 1);
+        assertSame(weight, pruner.prune(weight, newest));
+        pruner.onLeafCollected(expected);
+        for (int i = 0; i < numSegments - 1; i++) {
+            assertNull(pruner.prune(weight, reader.leaves().get(i)));
+        }
+        assertTrue(pruner.hasPruned());
+
+        // and the documents of the newest leaf are restricted to the competitive ones
+        Weight prunedWeight = pruner.prune(weight, newest);
+        assertNotSame(weight, prunedWeight);
+        DocIdSetIterator iterator = prunedWeight.scorer(newest).iterator();
+        int competitiveDocs = 0;
+        while (iterator.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+            competitiveDocs++;
+        }
+        assertThat(competitiveDocs, greaterThanOrEqualTo(size));
+        assertThat(competitiveDocs, lessThan(docsPerSegment));
+
+        reader.close();
+        dir.close();
+    }
+
     public void testIndexHasDuplicateData() throws IOException {
         int docsCount = 5000;
         int maxPointsInLeafNode = 40;
@@ -21,6 +21,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.NodeLoadStats;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.SearchShardTarget;
@@ -63,6 +64,9 @@ public class QuerySearchResultTests extends ESTestCase {
         if (randomBoolean()) {
             result.aggregations(InternalAggregationsTests.createTestInstance());
         }
+        if (randomBoolean()) {
+            result.nodeLoadStats(new NodeLoadStats(randomIntBetween(-1, 100), randomIntBetween(-1, 100), randomLongBetween(-1, 100)));
+        }
         return result;
     }
 
@@ -83,6 +87,7 @@ public class QuerySearchResultTests extends ESTestCase {
             assertEquals(aggs.asList(), deserializedAggs.asList());
         }
         assertEquals(querySearchResult.terminatedEarly(), deserialized.terminatedEarly());
+        assertEquals(querySearchResult.nodeLoadStats(), deserialized.nodeLoadStats());
     }
 
     public void testNullResponse() throws Exception {
@@ -1580,7 +1580,7 @@ public class SnapshotResiliencyTests extends ESTestCase {
                     SearchExecutionStatsCollector.makeWrapper(responseCollectorService));
                 final SearchService searchService = new SearchService(clusterService, indicesService, threadPool, scriptService,
                     bigArrays, new FetchPhase(Collections.emptyList()), responseCollectorService, new NoneCircuitBreakerService(),
-                    EmptySystemIndices.INSTANCE.getExecutorSelector());
+                    EmptySystemIndices.INSTANCE.getExecutorSelector(), client);
                 SearchPhaseController searchPhaseController = new SearchPhaseController(
                     writableRegistry(), searchService::aggReduceContextBuilder);
                 actions.put(SearchAction.INSTANCE,
@@ -1688,7 +1688,7 @@ public class SnapshotResiliencyTests extends ESTestCase {
                 final CoordinationState.PersistedState persistedState =
                     new InMemoryPersistedState(initialState.term(), stateForNode(initialState, node));
                 coordinator = new Coordinator(node.getName(), clusterService.getSettings(),
-                    clusterService.getClusterSettings(), transportService, namedWriteableRegistry,
+                    clusterService.getClusterSettings(), bigArrays, transportService, namedWriteableRegistry,
                     allocationService, masterService, () -> persistedState,
                     hostsResolver -> nodes.values().stream().filter(n -> n.node.isMasterNode())
                         .map(n -> n.node.getAddress()).collect(Collectors.toList()),
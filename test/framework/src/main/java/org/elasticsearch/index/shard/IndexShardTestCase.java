@@ -49,6 +49,7 @@ import org.elasticsearch.index.engine.EngineTestCase;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.merge.MergeBudget;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLeaseSyncer;
 import org.elasticsearch.index.seqno.SequenceNumbers;
@@ -395,7 +396,8 @@ public abstract class IndexShardTestCase extends ESTestCase {
                     globalCheckpointSyncer,
                     retentionLeaseSyncer,
                     breakerService,
-                    IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER);
+                    IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER,
+                    MergeBudget.UNBOUNDED);
             indexShard.addShardFailureCallback(DEFAULT_SHARD_FAILURE_HANDLER);
             success = true;
         } finally {
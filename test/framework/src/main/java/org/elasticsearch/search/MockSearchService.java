@@ -9,6 +9,7 @@
 package org.elasticsearch.search;
 
 import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.indices.ExecutorSelector;
@@ -73,9 +74,9 @@ public class MockSearchService extends SearchService {
     public MockSearchService(ClusterService clusterService, IndicesService indicesService, ThreadPool threadPool,
                              ScriptService scriptService, BigArrays bigArrays, FetchPhase fetchPhase,
                              ResponseCollectorService responseCollectorService, CircuitBreakerService circuitBreakerService,
-                             ExecutorSelector executorSelector) {
+                             ExecutorSelector executorSelector, Client client) {
         super(clusterService, indicesService, threadPool, scriptService, bigArrays, fetchPhase, responseCollectorService,
-            circuitBreakerService, executorSelector);
+            circuitBreakerService, executorSelector, client);
     }
 
     @Override
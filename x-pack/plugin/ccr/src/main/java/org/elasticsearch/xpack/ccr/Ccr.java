@@ -94,6 +94,7 @@ import org.elasticsearch.xpack.ccr.rest.RestPutAutoFollowPatternAction;
 import org.elasticsearch.xpack.ccr.rest.RestPutFollowAction;
 import org.elasticsearch.xpack.ccr.rest.RestResumeAutoFollowPatternAction;
 import org.elasticsearch.xpack.ccr.rest.RestResumeFollowAction;
+import org.elasticsearch.xpack.ccr.rest.RestShardChangesAction;
 import org.elasticsearch.xpack.ccr.rest.RestUnfollowAction;
 import org.elasticsearch.xpack.core.XPackPlugin;
 import org.elasticsearch.xpack.core.action.XPackInfoFeatureAction;
@@ -281,7 +282,9 @@ public class Ccr extends Plugin implements ActionPlugin, PersistentTaskPlugin, E
                 new RestPauseAutoFollowPatternAction(),
                 new RestResumeAutoFollowPatternAction(),
                 // forget follower API
-                new RestForgetFollowerAction());
+                new RestForgetFollowerAction(),
+                // shard changes API
+                new RestShardChangesAction());
     }
 
     public List<NamedWriteableRegistry.Entry> getNamedWriteables() {
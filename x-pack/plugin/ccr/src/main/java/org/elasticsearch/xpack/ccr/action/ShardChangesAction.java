@@ -17,16 +17,21 @@ import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.single.shard.SingleShardRequest;
 import org.elasticsearch.action.support.single.shard.TransportSingleShardAction;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexAbstraction;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.routing.ShardsIterator;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
@@ -49,6 +54,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
@@ -71,13 +77,20 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
         private long fromSeqNo;
         private int maxOperationCount;
         private final ShardId shardId;
+        @Nullable
         private final String expectedHistoryUUID;
         private TimeValue pollTimeout = TransportResumeFollowAction.DEFAULT_READ_POLL_TIMEOUT;
         private ByteSizeValue maxBatchSize = TransportResumeFollowAction.DEFAULT_MAX_READ_REQUEST_SIZE;
 
         private long relativeStartNanos;
 
-        public Request(ShardId shardId, String expectedHistoryUUID) {
+        /**
+         * @param shardId             the shard to read the changes from. The UUID of its index may be
+         *                            {@link IndexMetadata#INDEX_UUID_NA_VALUE} if the caller only knows the name of the index.
+         * @param expectedHistoryUUID the history UUID that the shard is expected to have, or {@code null} to read the changes of
+         *                            whatever history the shard has
+         */
+        public Request(ShardId shardId, @Nullable String expectedHistoryUUID) {
             super(shardId.getIndexName());
             this.shardId = shardId;
             this.expectedHistoryUUID = expectedHistoryUUID;
@@ -88,7 +101,11 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
             fromSeqNo = in.readVLong();
             maxOperationCount = in.readVInt();
             shardId = new ShardId(in);
-            expectedHistoryUUID = in.readString();
+            if (in.getVersion().onOrAfter(Version.V_8_0_0)) {
+                expectedHistoryUUID = in.readOptionalString();
+            } else {
+                expectedHistoryUUID = in.readString();
+            }
             pollTimeout = in.readTimeValue();
             maxBatchSize = new ByteSizeValue(in);
 
@@ -159,7 +176,17 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
             out.writeVLong(fromSeqNo);
             out.writeVInt(maxOperationCount);
             shardId.writeTo(out);
-            out.writeString(expectedHistoryUUID);
+            if (out.getVersion().onOrAfter(Version.V_8_0_0)) {
+                out.writeOptionalString(expectedHistoryUUID);
+            } else {
+                // older nodes neither accept a missing history UUID nor resolve a shard of an index whose UUID is unknown
+                if (expectedHistoryUUID == null || IndexMetadata.INDEX_UUID_NA_VALUE.equals(shardId.getIndex().getUUID())) {
+                    throw new IllegalArgumentException("reading the changes of shard " + shardId + " by index name or without a " +
+                        "history UUID requires all copies of the shard to be on nodes of version [" + Version.V_8_0_0 + "] or later, " +
+                        "but found a copy on a node of version [" + out.getVersion() + "]");
+                }
+                out.writeString(expectedHistoryUUID);
+            }
             out.writeTimeValue(pollTimeout);
             maxBatchSize.writeTo(out);
         }
@@ -197,7 +224,7 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
 
     }
 
-    public static final class Response extends ActionResponse {
+    public static final class Response extends ActionResponse implements ToXContentObject {
 
         private long mappingVersion;
 
@@ -299,6 +326,50 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
             out.writeVLong(tookInMillis);
         }
 
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("global_checkpoint", globalCheckpoint);
+            builder.field("max_seq_no", maxSeqNo);
+            builder.field("max_seq_no_of_updates_or_deletes", maxSeqNoOfUpdatesOrDeletes);
+            builder.field("mapping_version", mappingVersion);
+            builder.field("settings_version", settingsVersion);
+            builder.field("aliases_version", aliasesVersion);
+            builder.field("took_in_millis", tookInMillis);
+            builder.startArray("operations");
+            for (Translog.Operation operation : operations) {
+                builder.startObject();
+                builder.field("op_type", operation.opType().name().toLowerCase(Locale.ROOT));
+                builder.field("_seq_no", operation.seqNo());
+                builder.field("_primary_term", operation.primaryTerm());
+                switch (operation.opType()) {
+                    case CREATE:
+                    case INDEX:
+                        final Translog.Index index = (Translog.Index) operation;
+                        builder.field("_id", index.id());
+                        builder.field("_version", index.version());
+                        if (index.routing() != null) {
+                            builder.field("_routing", index.routing());
+                        }
+                        XContentHelper.writeRawField("_source", index.source(), builder, params);
+                        break;
+                    case DELETE:
+                        final Translog.Delete delete = (Translog.Delete) operation;
+                        builder.field("_id", delete.id());
+                        builder.field("_version", delete.version());
+                        break;
+                    case NO_OP:
+                        builder.field("reason", ((Translog.NoOp) operation).reason());
+                        break;
+                    default:
+                        throw new IllegalStateException("unexpected operation type [" + operation.opType() + "]");
+                }
+                builder.endObject();
+            }
+            builder.endArray();
+            return builder.endObject();
+        }
+
         @Override
         public boolean equals(final Object o) {
             if (this == o) return true;
@@ -346,8 +417,8 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
 
         @Override
         protected Response shardOperation(Request request, ShardId shardId) throws IOException {
-            final IndexService indexService = indicesService.indexServiceSafe(request.getShard().getIndex());
-            final IndexShard indexShard = indexService.getShard(request.getShard().id());
+            final IndexService indexService = indexService(request, shardId);
+            final IndexShard indexShard = indexService.getShard(shardId.id());
             final SeqNoStats seqNoStats = indexShard.seqNoStats();
             final Translog.Operation[] operations = getOperations(
                     indexShard,
@@ -380,8 +451,8 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
                 final Request request,
                 final ShardId shardId,
                 final ActionListener<Response> listener) throws IOException {
-            final IndexService indexService = indicesService.indexServiceSafe(request.getShard().getIndex());
-            final IndexShard indexShard = indexService.getShard(request.getShard().id());
+            final IndexService indexService = indexService(request, shardId);
+            final IndexShard indexShard = indexService.getShard(shardId.id());
             final SeqNoStats seqNoStats = indexShard.seqNoStats();
 
             if (request.getFromSeqNo() > seqNoStats.getGlobalCheckpoint()) {
@@ -418,6 +489,15 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
             }
         }
 
+        private IndexService indexService(Request request, ShardId shardId) {
+            // requests that come in through the REST layer only know the name of the index, in which case we read from the shard that
+            // was resolved through the routing table rather than checking that the index wasn't recreated in the meantime
+            if (IndexMetadata.INDEX_UUID_NA_VALUE.equals(request.getShard().getIndex().getUUID())) {
+                return indicesService.indexServiceSafe(shardId.getIndex());
+            }
+            return indicesService.indexServiceSafe(request.getShard().getIndex());
+        }
+
         private void globalCheckpointAdvanced(
                 final ShardId shardId,
                 final long globalCheckpoint,
@@ -479,6 +559,13 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
 
         @Override
         protected ShardsIterator shards(ClusterState state, InternalRequest request) {
+            // the operations of a shard are only meaningful for a single concrete index, whereas aliases and data streams may point
+            // to several indices whose shards have unrelated histories
+            final IndexAbstraction indexAbstraction = state.metadata().getIndicesLookup().get(request.concreteIndex());
+            if (indexAbstraction != null && indexAbstraction.getType() != IndexAbstraction.Type.CONCRETE_INDEX) {
+                throw new IllegalArgumentException("shard changes can only be read from concrete indices, but [" +
+                    request.concreteIndex() + "] is of type [" + indexAbstraction.getType().getDisplayName() + "]");
+            }
             return state
                     .routingTable()
                     .shardRoutingTable(request.concreteIndex(), request.request().getShard().id())
@@ -494,9 +581,9 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
 
     static final Translog.Operation[] EMPTY_OPERATIONS_ARRAY = new Translog.Operation[0];
 
-    private static void checkHistoryUUID(IndexShard indexShard, String expectedHistoryUUID) {
+    private static void checkHistoryUUID(IndexShard indexShard, @Nullable String expectedHistoryUUID) {
         final String historyUUID = indexShard.getHistoryUUID();
-        if (historyUUID.equals(expectedHistoryUUID) == false) {
+        if (expectedHistoryUUID != null && historyUUID.equals(expectedHistoryUUID) == false) {
             throw new IllegalStateException(
                 "unexpected history uuid, expected [" + expectedHistoryUUID + "], actual [" + historyUUID + "]");
         }
@@ -513,7 +600,7 @@ public class ShardChangesAction extends ActionType<ShardChangesAction.Response>
      * @param globalCheckpoint the global checkpoint
      * @param fromSeqNo the starting sequence number
      * @param maxOperationCount the maximum number of operations
-     * @param expectedHistoryUUID the expected history UUID for the shard
+     * @param expectedHistoryUUID the expected history UUID for the shard, or {@code null} to not check the history UUID
      * @param maxBatchSize the maximum batch size
      * @return the operations
      * @throws IOException if an I/O exception occurs reading the operations
@@ -0,0 +1,60 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.ccr.rest;
+
+import org.elasticsearch.client.node.NodeClient;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.action.RestToXContentListener;
+import org.elasticsearch.xpack.ccr.action.ShardChangesAction;
+
+import java.util.List;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ * Exposes the operations of a single shard in sequence number order so that external consumers can tail an index without polling it
+ * with searches. Operations are only returned up to the global checkpoint, and each response stops once the configured batch size is
+ * exceeded, so consumers page through the history by passing the sequence number following the last returned operation.
+ * <p>
+ * Unlike a follower index, such a consumer holds no retention lease on the shard, so the shard may discard operations that the
+ * consumer has not read yet. Consumers that fall behind get a {@link org.elasticsearch.index.engine.MissingHistoryOperationsException}
+ * and have to start over from a copy of the index.
+ */
+public class RestShardChangesAction extends BaseRestHandler {
+
+    static final int DEFAULT_MAX_OPERATIONS_COUNT = 1024;
+    static final ByteSizeValue DEFAULT_MAX_BATCH_SIZE = new ByteSizeValue(10, ByteSizeUnit.MB);
+
+    @Override
+    public List<Route> routes() {
+        return List.of(new Route(GET, "/{index}/_ccr/shard_changes/{shard}"));
+    }
+
+    @Override
+    public String getName() {
+        return "ccr_shard_changes";
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(final RestRequest restRequest, final NodeClient client) {
+        final ShardId shardId = new ShardId(restRequest.param("index"), IndexMetadata.INDEX_UUID_NA_VALUE,
+            Integer.parseInt(restRequest.param("shard")));
+        final ShardChangesAction.Request request = new ShardChangesAction.Request(shardId, restRequest.param("history_uuid"));
+        request.setFromSeqNo(restRequest.paramAsLong("from_seq_no", 0L));
+        request.setMaxOperationCount(restRequest.paramAsInt("max_operations_count", DEFAULT_MAX_OPERATIONS_COUNT));
+        request.setMaxBatchSize(restRequest.paramAsSize("max_batch_size", DEFAULT_MAX_BATCH_SIZE));
+        request.setPollTimeout(restRequest.paramAsTime("poll_timeout", request.getPollTimeout()));
+        return channel -> client.execute(ShardChangesAction.INSTANCE, request, new RestToXContentListener<>(channel));
+    }
+
+}
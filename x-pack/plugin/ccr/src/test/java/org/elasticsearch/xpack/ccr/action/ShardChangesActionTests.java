@@ -8,9 +8,12 @@ package org.elasticsearch.xpack.ccr.action;
 
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.ActionTestUtils;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -173,6 +176,49 @@ public class ShardChangesActionTests extends ESSingleNodeTestCase {
         assertThat(operations[0].seqNo(), equalTo(0L));
     }
 
+    public void testGetOperationsByIndexNameWithoutHistoryUUID() {
+        final Settings settings = Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            .build();
+        createIndex("index", settings);
+        final int numWrites = randomIntBetween(1, 32);
+        for (int i = 0; i < numWrites; i++) {
+            client().prepareIndex("index").setId(Integer.toString(i)).setSource("{\"field\":" + i + "}", XContentType.JSON).get();
+        }
+
+        final ShardChangesAction.TransportAction transportAction = node().injector().getInstance(ShardChangesAction.TransportAction.class);
+        final ShardChangesAction.Request request =
+            new ShardChangesAction.Request(new ShardId("index", IndexMetadata.INDEX_UUID_NA_VALUE, 0), null);
+        request.setMaxOperationCount(numWrites);
+        final PlainActionFuture<ShardChangesAction.Response> future = new PlainActionFuture<>();
+        ActionTestUtils.execute(transportAction, null, request, future);
+        final ShardChangesAction.Response response = future.actionGet();
+        assertThat(response.getOperations().length, equalTo(numWrites));
+        assertThat(response.getGlobalCheckpoint(), equalTo((long) numWrites - 1));
+
+        final String json = Strings.toString(response);
+        assertThat(json, containsString("\"_id\":\"0\""));
+        assertThat(json, containsString("\"_source\":{\"field\":0}"));
+    }
+
+    public void testRejectsAliases() {
+        final Settings settings = Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 0)
+            .build();
+        createIndex("index", settings);
+        client().admin().indices().prepareAliases().addAlias("index", "alias").get();
+
+        final ShardChangesAction.TransportAction transportAction = node().injector().getInstance(ShardChangesAction.TransportAction.class);
+        final ShardChangesAction.Request request =
+            new ShardChangesAction.Request(new ShardId("alias", IndexMetadata.INDEX_UUID_NA_VALUE, 0), null);
+        final PlainActionFuture<ShardChangesAction.Response> future = new PlainActionFuture<>();
+        ActionTestUtils.execute(transportAction, null, request, future);
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, future::actionGet);
+        assertThat(e.getMessage(), equalTo("shard changes can only be read from concrete indices, but [alias] is of type [alias]"));
+    }
+
     public void testIndexNotFound() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
         final AtomicReference<Exception> reference = new AtomicReference<>();
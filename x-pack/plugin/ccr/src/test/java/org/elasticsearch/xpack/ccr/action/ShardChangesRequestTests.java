@@ -6,11 +6,19 @@
  */
 package org.elasticsearch.xpack.ccr.action;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.AbstractWireSerializingTestCase;
+import org.elasticsearch.test.VersionUtils;
+
+import java.io.IOException;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 
 public class ShardChangesRequestTests extends AbstractWireSerializingTestCase<ShardChangesAction.Request> {
@@ -18,7 +26,7 @@ public class ShardChangesRequestTests extends AbstractWireSerializingTestCase<Sh
     @Override
     protected ShardChangesAction.Request createTestInstance() {
         ShardChangesAction.Request request =
-            new ShardChangesAction.Request(new ShardId("_index", "_indexUUID", 0), randomAlphaOfLength(4));
+            new ShardChangesAction.Request(new ShardId("_index", "_indexUUID", 0), randomBoolean() ? null : randomAlphaOfLength(4));
         request.setMaxOperationCount(randomIntBetween(0, Integer.MAX_VALUE));
         request.setFromSeqNo(randomNonNegativeLong());
         return request;
@@ -41,4 +49,27 @@ public class ShardChangesRequestTests extends AbstractWireSerializingTestCase<Sh
         request.setMaxOperationCount(8);
         assertThat(request.validate(), nullValue());
     }
+
+    public void testSerializationToNodesBefore8_0() throws IOException {
+        final Version version = VersionUtils.randomPreviousCompatibleVersion(random(), Version.V_8_0_0);
+        final ShardChangesAction.Request request = new ShardChangesAction.Request(new ShardId("_index", "_indexUUID", 0), "uuid");
+        request.setFromSeqNo(randomNonNegativeLong());
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            request.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                assertThat(new ShardChangesAction.Request(in), equalTo(request));
+            }
+        }
+
+        final ShardChangesAction.Request withoutHistoryUUID = randomBoolean()
+            ? new ShardChangesAction.Request(new ShardId("_index", "_indexUUID", 0), null)
+            : new ShardChangesAction.Request(new ShardId("_index", IndexMetadata.INDEX_UUID_NA_VALUE, 0), randomBoolean() ? null : "uuid");
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> withoutHistoryUUID.writeTo(out));
+            assertThat(e.getMessage(), containsString("requires all copies of the shard to be on nodes of version [" + Version.V_8_0_0));
+        }
+    }
 }
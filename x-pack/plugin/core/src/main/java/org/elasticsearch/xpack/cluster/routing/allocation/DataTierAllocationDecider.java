@@ -120,6 +120,12 @@ public class DataTierAllocationDecider extends AllocationDecider {
         return shouldFilter(shardRouting, node.node(), allocation);
     }
 
+    @Override
+    public boolean hasIndexLevelDecisions(ShardRouting shardRouting, RoutingAllocation allocation) {
+        // the decisions only depend on the tier preference of the index and the roles of the node
+        return true;
+    }
+
     @Override
     public Decision shouldAutoExpandToNode(IndexMetadata indexMetadata, DiscoveryNode node, RoutingAllocation allocation) {
         return shouldFilter(indexMetadata, node.getRoles(), allocation);
@@ -28,14 +28,30 @@ import java.util.function.Predicate;
  * provided role.
  */
 public final class LimitedRole extends Role {
+    private final Role fromRole;
     private final Role limitedBy;
 
-    LimitedRole(ClusterPermission cluster, IndicesPermission indices, ApplicationPermission application, RunAsPermission runAs,
-                Role limitedBy) {
-        super(Objects.requireNonNull(limitedBy, "limiting role is required").names(), cluster, indices, application, runAs);
+    LimitedRole(Role fromRole, Role limitedBy) {
+        super(Objects.requireNonNull(limitedBy, "limiting role is required").names(), fromRole.cluster(), fromRole.indices(),
+            fromRole.application(), fromRole.runAs());
+        this.fromRole = fromRole;
         this.limitedBy = limitedBy;
     }
 
+    /**
+     * @return the role whose permissions are limited by {@link #limitedBy()}
+     */
+    public Role fromRole() {
+        return fromRole;
+    }
+
+    /**
+     * @return the role that limits the permissions of {@link #fromRole()}
+     */
+    public Role limitedBy() {
+        return limitedBy;
+    }
+
     @Override
     public ClusterPermission cluster() {
         throw new UnsupportedOperationException("cannot retrieve cluster permission on limited role");
@@ -183,6 +199,6 @@ public final class LimitedRole extends Role {
      */
     public static LimitedRole createLimitedRole(Role fromRole, Role limitedByRole) {
         Objects.requireNonNull(limitedByRole, "limited by role is required to create limited role");
-        return new LimitedRole(fromRole.cluster(), fromRole.indices(), fromRole.application(), fromRole.runAs(), limitedByRole);
+        return new LimitedRole(fromRole, limitedByRole);
     }
 }
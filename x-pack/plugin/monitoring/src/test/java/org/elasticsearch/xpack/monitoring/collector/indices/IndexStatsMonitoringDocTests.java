@@ -354,7 +354,7 @@ public class IndexStatsMonitoringDocTests extends BaseFilteredMonitoringDocTestC
         final CommonStats commonStats = new CommonStats(CommonStatsFlags.ALL);
         commonStats.getDocs().add(new DocsStats(++iota, no, randomNonNegativeLong()));
         commonStats.getFieldData().add(new FieldDataStats(++iota, ++iota, null));
-        commonStats.getMerge().add(no, no, no, ++iota, no, no, no, no, no, no);
+        commonStats.getMerge().add(no, no, no, ++iota, no, no, no, no, no, no, no, no, no);
         commonStats.getQueryCache().add(new QueryCacheStats(++iota, ++iota, ++iota, ++iota, no));
         commonStats.getRequestCache().add(new RequestCacheStats(++iota, ++iota, ++iota, ++iota));
         commonStats.getStore().add(new StoreStats(++iota, no, no));
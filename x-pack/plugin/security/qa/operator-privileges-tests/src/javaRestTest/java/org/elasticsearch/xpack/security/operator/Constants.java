@@ -447,7 +447,9 @@ public class Constants {
         "internal:admin/xpack/searchable_snapshots/frozen_cache_info",
         "internal:admin/xpack/searchable_snapshots/frozen_cache_info[n]",
         "internal:cluster/nodes/indices/shard/store",
+        "internal:cluster/nodes/indices/shard/store_batch",
         "internal:gateway/local/meta_state",
-        "internal:gateway/local/started_shards"
+        "internal:gateway/local/started_shards",
+        "internal:gateway/local/started_shards_batch"
     );
 }
@@ -419,7 +419,7 @@ public class Security extends Plugin implements SystemIndexPlugin, IngestPlugin,
                                         NamedXContentRegistry xContentRegistry, Environment environment,
                                         IndexNameExpressionResolver expressionResolver) throws Exception {
         if (enabled == false) {
-            return Collections.singletonList(new SecurityUsageServices(null, null, null, null));
+            return Collections.singletonList(new SecurityUsageServices(null, null, null, null, null));
         }
 
         // We need to construct the checks here while the secure settings are still available.
@@ -587,7 +587,7 @@ public class Security extends Plugin implements SystemIndexPlugin, IngestPlugin,
         securityActionFilter.set(new SecurityActionFilter(authcService.get(), authzService, auditTrailService, getLicenseState(),
             threadPool, securityContext.get(), destructiveOperations));
 
-        components.add(new SecurityUsageServices(realms, allRolesStore, nativeRoleMappingStore, ipFilter.get()));
+        components.add(new SecurityUsageServices(realms, allRolesStore, nativeRoleMappingStore, ipFilter.get(), authzService));
 
         cacheInvalidatorRegistry.validate();
 
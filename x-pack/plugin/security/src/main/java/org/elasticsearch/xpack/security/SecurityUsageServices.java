@@ -8,6 +8,7 @@ package org.elasticsearch.xpack.security;
 
 import org.elasticsearch.xpack.security.authc.Realms;
 import org.elasticsearch.xpack.security.authc.support.mapper.NativeRoleMappingStore;
+import org.elasticsearch.xpack.security.authz.AuthorizationService;
 import org.elasticsearch.xpack.security.authz.store.CompositeRolesStore;
 import org.elasticsearch.xpack.security.transport.filter.IPFilter;
 
@@ -21,11 +22,14 @@ class SecurityUsageServices {
     final CompositeRolesStore rolesStore;
     final NativeRoleMappingStore roleMappingStore;
     final IPFilter ipFilter;
+    final AuthorizationService authzService;
 
-    SecurityUsageServices(Realms realms, CompositeRolesStore rolesStore, NativeRoleMappingStore roleMappingStore, IPFilter ipFilter) {
+    SecurityUsageServices(Realms realms, CompositeRolesStore rolesStore, NativeRoleMappingStore roleMappingStore, IPFilter ipFilter,
+                          AuthorizationService authzService) {
         this.realms = realms;
         this.rolesStore = rolesStore;
         this.roleMappingStore = roleMappingStore;
         this.ipFilter = ipFilter;
+        this.authzService = authzService;
     }
 }
@@ -29,6 +29,7 @@ import org.elasticsearch.xpack.core.security.user.AnonymousUser;
 import org.elasticsearch.xpack.security.audit.logfile.LoggingAuditTrail;
 import org.elasticsearch.xpack.security.authc.Realms;
 import org.elasticsearch.xpack.security.authc.support.mapper.NativeRoleMappingStore;
+import org.elasticsearch.xpack.security.authz.AuthorizationService;
 import org.elasticsearch.xpack.security.authz.store.CompositeRolesStore;
 import org.elasticsearch.xpack.security.operator.OperatorPrivileges;
 import org.elasticsearch.xpack.security.transport.filter.IPFilter;
@@ -54,6 +55,7 @@ public class SecurityUsageTransportAction extends XPackUsageFeatureTransportActi
     private final CompositeRolesStore rolesStore;
     private final NativeRoleMappingStore roleMappingStore;
     private final IPFilter ipFilter;
+    private final AuthorizationService authzService;
 
     @Inject
     public SecurityUsageTransportAction(TransportService transportService, ClusterService clusterService, ThreadPool threadPool,
@@ -67,6 +69,7 @@ public class SecurityUsageTransportAction extends XPackUsageFeatureTransportActi
         this.rolesStore = securityServices.rolesStore;
         this.roleMappingStore = securityServices.roleMappingStore;
         this.ipFilter = securityServices.ipFilter;
+        this.authzService = securityServices.authzService;
     }
 
     @Override
@@ -120,8 +123,14 @@ public class SecurityUsageTransportAction extends XPackUsageFeatureTransportActi
 
         if (rolesStore == null || enabled == false) {
             rolesStoreUsageListener.onResponse(Collections.emptyMap());
-        } else {
+        } else if (authzService == null) {
             rolesStore.usageStats(rolesStoreUsageListener);
+        } else {
+            rolesStore.usageStats(rolesStoreUsageListener.map(rolesStoreUsage -> {
+                final Map<String, Object> usage = new HashMap<>(rolesStoreUsage);
+                usage.put("authorized_indices_cache", authzService.authorizedIndicesCacheUsageStats());
+                return usage;
+            }));
         }
         if (roleMappingStore == null || enabled == false) {
             roleMappingStoreUsageListener.onResponse(Collections.emptyMap());
@@ -137,6 +137,11 @@ public class AuthorizationService {
         this.isAnonymousEnabled = AnonymousUser.isAnonymousEnabled(settings);
         this.anonymousAuthzExceptionEnabled = ANONYMOUS_AUTHORIZATION_EXCEPTION_SETTING.get(settings);
         this.rbacEngine = new RBACEngine(settings, rolesStore);
+        clusterService.addListener(event -> {
+            if (event.state().metadata().getIndicesLookup() != event.previousState().metadata().getIndicesLookup()) {
+                rbacEngine.invalidateAuthorizedIndicesCache();
+            }
+        });
         this.authorizationEngine = authorizationEngine == null ? this.rbacEngine : authorizationEngine;
         this.requestInterceptors = requestInterceptors;
         this.settings = settings;
@@ -156,6 +161,13 @@ public class AuthorizationService {
         getAuthorizationEngine(authentication).getUserPrivileges(authentication, getAuthorizationInfoFromContext(), request, listener);
     }
 
+    /**
+     * Returns the usage statistics of the cache of the indices that the built-in authorization engine authorized for each role and action.
+     */
+    public Map<String, Object> authorizedIndicesCacheUsageStats() {
+        return rbacEngine.authorizedIndicesCacheUsageStats();
+    }
+
     private AuthorizationInfo getAuthorizationInfoFromContext() {
         return Objects.requireNonNull(threadContext.getTransient(AUTHORIZATION_INFO_KEY), "authorization info is missing from context");
     }
@@ -733,5 +745,6 @@ public class AuthorizationService {
 
     public static void addSettings(List<Setting<?>> settings) {
         settings.add(ANONYMOUS_AUTHORIZATION_EXCEPTION_SETTING);
+        settings.add(AuthorizedIndicesCache.CACHE_SIZE_SETTING);
     }
 }
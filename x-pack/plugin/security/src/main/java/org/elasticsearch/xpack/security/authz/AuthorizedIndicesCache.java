@@ -0,0 +1,126 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.security.authz;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.cluster.metadata.IndexAbstraction;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.xpack.core.security.authz.permission.LimitedRole;
+import org.elasticsearch.xpack.core.security.authz.permission.Role;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import static org.elasticsearch.xpack.core.security.SecurityField.setting;
+
+/**
+ * Caches the names of the indices, aliases and data streams that a {@link Role} authorizes for an action. Resolving them means matching
+ * every entry of the indices lookup against the role's index patterns, which dominates the cost of authorizing wildcard requests on
+ * clusters with many indices, while the result only changes when the role or the indices lookup does.
+ * <p>
+ * Entries are keyed by the identity of both the role and the indices lookup: roles are resolved through the roles cache, which builds a new
+ * instance whenever a role changes, and the cluster metadata builds a new indices lookup whenever an index, alias or data stream changes.
+ * The {@link LimitedRole} of an API key is the exception, since a new one is created for every request out of the cached roles of the key
+ * and of its owner, so it is keyed by the identity of these two roles instead. Entries for a superseded indices lookup can never be hit
+ * again, so the whole cache is invalidated on every new one.
+ */
+final class AuthorizedIndicesCache {
+
+    /**
+     * The maximum total number of index names held in the cache.
+     */
+    static final Setting<Long> CACHE_SIZE_SETTING = Setting.longSetting(
+        setting("authz.authorized_indices_cache.max_size"), 100_000L, -1L, Property.NodeScope);
+
+    private final Cache<Key, Set<String>> cache;
+
+    AuthorizedIndicesCache(Settings settings) {
+        final CacheBuilder<Key, Set<String>> builder = CacheBuilder.<Key, Set<String>>builder()
+            .weigher((key, authorizedIndices) -> 1L + authorizedIndices.size());
+        final long cacheSize = CACHE_SIZE_SETTING.get(settings);
+        if (cacheSize >= 0) {
+            builder.setMaximumWeight(cacheSize);
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Returns the cached authorized indices of the given role for the given action and indices lookup, or resolves them with the given
+     * supplier and caches them if they were not found.
+     */
+    Set<String> getOrResolve(Role role, String action, boolean includeDataStreams, Map<String, IndexAbstraction> indicesLookup,
+                             Supplier<Set<String>> resolver) {
+        try {
+            final Key key = role instanceof LimitedRole
+                ? new Key(((LimitedRole) role).fromRole(), ((LimitedRole) role).limitedBy(), action, includeDataStreams, indicesLookup)
+                : new Key(role, null, action, includeDataStreams, indicesLookup);
+            return cache.computeIfAbsent(key, k -> resolver.get());
+        } catch (ExecutionException e) {
+            throw new ElasticsearchException("unable to resolve authorized indices", e);
+        }
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    Map<String, Object> usageStats() {
+        final Cache.CacheStats stats = cache.stats();
+        return Map.of(
+            "count", cache.count(),
+            "size", cache.weight(),
+            "hits", stats.getHits(),
+            "misses", stats.getMisses(),
+            "evictions", stats.getEvictions()
+        );
+    }
+
+    private static final class Key {
+        private final Role role;
+        @Nullable
+        private final Role limitedBy;
+        private final String action;
+        private final boolean includeDataStreams;
+        private final Map<String, IndexAbstraction> indicesLookup;
+
+        private Key(Role role, @Nullable Role limitedBy, String action, boolean includeDataStreams,
+                    Map<String, IndexAbstraction> indicesLookup) {
+            this.role = role;
+            this.limitedBy = limitedBy;
+            this.action = action;
+            this.includeDataStreams = includeDataStreams;
+            this.indicesLookup = indicesLookup;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return role == key.role && limitedBy == key.limitedBy && indicesLookup == key.indicesLookup
+                && includeDataStreams == key.includeDataStreams && action.equals(key.action);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(role);
+            result = 31 * result + System.identityHashCode(limitedBy);
+            result = 31 * result + System.identityHashCode(indicesLookup);
+            result = 31 * result + Boolean.hashCode(includeDataStreams);
+            result = 31 * result + action.hashCode();
+            return result;
+        }
+    }
+}
@@ -108,10 +108,12 @@ public class RBACEngine implements AuthorizationEngine {
 
     private final CompositeRolesStore rolesStore;
     private final FieldPermissionsCache fieldPermissionsCache;
+    private final AuthorizedIndicesCache authorizedIndicesCache;
 
     public RBACEngine(Settings settings, CompositeRolesStore rolesStore) {
         this.rolesStore = rolesStore;
         this.fieldPermissionsCache = new FieldPermissionsCache(settings);
+        this.authorizedIndicesCache = new AuthorizedIndicesCache(settings);
     }
 
     @Override
@@ -363,7 +365,9 @@ public class RBACEngine implements AuthorizationEngine {
                                       Map<String, IndexAbstraction> indicesLookup, ActionListener<Set<String>> listener) {
         if (authorizationInfo instanceof RBACAuthorizationInfo) {
             final Role role = ((RBACAuthorizationInfo) authorizationInfo).getRole();
-            listener.onResponse(resolveAuthorizedIndicesFromRole(role, requestInfo, indicesLookup));
+            listener.onResponse(authorizedIndicesCache.getOrResolve(role, requestInfo.getAction(),
+                includeDataStreams(requestInfo.getRequest()), indicesLookup,
+                () -> resolveAuthorizedIndicesFromRole(role, requestInfo, indicesLookup)));
         } else {
             listener.onFailure(
                 new IllegalArgumentException("unsupported authorization info:" + authorizationInfo.getClass().getSimpleName()));
@@ -524,8 +528,7 @@ public class RBACEngine implements AuthorizationEngine {
         Predicate<IndexAbstraction> predicate = role.allowedIndicesMatcher(requestInfo.getAction());
 
         // do not include data streams for actions that do not operate on data streams
-        TransportRequest request = requestInfo.getRequest();
-        final boolean includeDataStreams = (request instanceof IndicesRequest) && ((IndicesRequest) request).includeDataStreams();
+        final boolean includeDataStreams = includeDataStreams(requestInfo.getRequest());
 
         Set<String> indicesAndAliases = new HashSet<>();
         // TODO: can this be done smarter? I think there are usually more indices/aliases in the cluster then indices defined a roles?
@@ -551,6 +554,21 @@ public class RBACEngine implements AuthorizationEngine {
         return Collections.unmodifiableSet(indicesAndAliases);
     }
 
+    private static boolean includeDataStreams(TransportRequest request) {
+        return (request instanceof IndicesRequest) && ((IndicesRequest) request).includeDataStreams();
+    }
+
+    /**
+     * Drops the cached authorized indices, which all refer to a superseded indices lookup once the cluster metadata has changed.
+     */
+    void invalidateAuthorizedIndicesCache() {
+        authorizedIndicesCache.invalidateAll();
+    }
+
+    Map<String, Object> authorizedIndicesCacheUsageStats() {
+        return authorizedIndicesCache.usageStats();
+    }
+
     private void buildIndicesAccessControl(Authentication authentication, String action,
                                            AuthorizationInfo authorizationInfo, Set<String> indices,
                                            Map<String, IndexAbstraction> aliasAndIndexLookup,
@@ -66,7 +66,7 @@ public class SecurityInfoTransportActionTests extends ESTestCase {
         ipFilter = mock(IPFilter.class);
         rolesStore = mock(CompositeRolesStore.class);
         roleMappingStore = mock(NativeRoleMappingStore.class);
-        securityServices = new SecurityUsageServices(realms, rolesStore, roleMappingStore, ipFilter);
+        securityServices = new SecurityUsageServices(realms, rolesStore, roleMappingStore, ipFilter, null);
     }
 
     public void testAvailable() {
@@ -32,10 +32,13 @@ import org.elasticsearch.xpack.security.authz.store.CompositeRolesStore;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.cluster.metadata.DataStreamTestHelper.createTimestampField;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.not;
 
 public class AuthorizedIndicesTests extends ESTestCase {
@@ -248,6 +251,38 @@ public class AuthorizedIndicesTests extends ESTestCase {
         assertThat(list, not(contains(RestrictedIndicesNames.SECURITY_MAIN_ALIAS)));
     }
 
+    public void testAuthorizedIndicesAreCachedPerRoleActionAndIndicesLookup() {
+        final AuthorizedIndicesCache cache = new AuthorizedIndicesCache(Settings.EMPTY);
+        final AtomicInteger resolutions = new AtomicInteger();
+        final Supplier<Set<String>> resolver = () -> {
+            resolutions.incrementAndGet();
+            return Set.of("index");
+        };
+        final Settings indexSettings = Settings.builder().put("index.version.created", Version.CURRENT).build();
+        final Metadata metadata = Metadata.builder()
+            .put(new IndexMetadata.Builder("index").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), true)
+            .build();
+        final Role role = Role.builder("role").add(IndexPrivilege.ALL, "*").build();
+
+        assertThat(cache.getOrResolve(role, SearchAction.NAME, true, metadata.getIndicesLookup(), resolver), contains("index"));
+        assertThat(cache.getOrResolve(role, SearchAction.NAME, true, metadata.getIndicesLookup(), resolver), contains("index"));
+        assertThat(resolutions.get(), equalTo(1));
+
+        // a different role instance, action, data streams flag or indices lookup must not share the cached result
+        cache.getOrResolve(Role.builder("role").add(IndexPrivilege.ALL, "*").build(), SearchAction.NAME, true,
+            metadata.getIndicesLookup(), resolver);
+        cache.getOrResolve(role, ResolveIndexAction.NAME, true, metadata.getIndicesLookup(), resolver);
+        cache.getOrResolve(role, SearchAction.NAME, false, metadata.getIndicesLookup(), resolver);
+        cache.getOrResolve(role, SearchAction.NAME, true, Metadata.builder(metadata).build().getIndicesLookup(), resolver);
+        assertThat(resolutions.get(), equalTo(5));
+        assertThat(cache.usageStats().get("hits"), equalTo(1L));
+        assertThat(cache.usageStats().get("misses"), equalTo(5L));
+
+        cache.invalidateAll();
+        cache.getOrResolve(role, SearchAction.NAME, true, metadata.getIndicesLookup(), resolver);
+        assertThat(resolutions.get(), equalTo(6));
+    }
+
     public static AuthorizationEngine.RequestInfo getRequestInfo(String action) {
         return getRequestInfo(TransportRequest.Empty.INSTANCE, action);
     }
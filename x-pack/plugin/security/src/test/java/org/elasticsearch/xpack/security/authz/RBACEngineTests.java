@@ -7,6 +7,7 @@
 
 package org.elasticsearch.xpack.security.authz;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthAction;
 import org.elasticsearch.action.admin.cluster.state.ClusterStateAction;
 import org.elasticsearch.action.admin.cluster.stats.ClusterStatsAction;
@@ -22,6 +23,7 @@ import org.elasticsearch.cluster.metadata.DataStreamTestHelper;
 import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.cluster.metadata.IndexAbstraction;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.collect.MapBuilder;
@@ -51,10 +53,12 @@ import org.elasticsearch.xpack.core.security.authc.esnative.NativeRealmSettings;
 import org.elasticsearch.xpack.core.security.authc.file.FileRealmSettings;
 import org.elasticsearch.xpack.core.security.authc.ldap.LdapRealmSettings;
 import org.elasticsearch.xpack.core.security.authc.pki.PkiRealmSettings;
+import org.elasticsearch.xpack.core.security.authz.AuthorizationEngine;
 import org.elasticsearch.xpack.core.security.authz.AuthorizationEngine.AuthorizationInfo;
 import org.elasticsearch.xpack.core.security.authz.RoleDescriptor;
 import org.elasticsearch.xpack.core.security.authz.permission.FieldPermissions;
 import org.elasticsearch.xpack.core.security.authz.permission.FieldPermissionsDefinition;
+import org.elasticsearch.xpack.core.security.authz.permission.LimitedRole;
 import org.elasticsearch.xpack.core.security.authz.permission.ResourcePrivileges;
 import org.elasticsearch.xpack.core.security.authz.permission.Role;
 import org.elasticsearch.xpack.core.security.authz.privilege.ApplicationPrivilege;
@@ -1078,6 +1082,35 @@ public class RBACEngineTests extends ESTestCase {
             .map(im -> im.getIndex().getName()).collect(Collectors.toList()).toArray(Strings.EMPTY_ARRAY)));
     }
 
+    public void testAuthorizedIndicesOfApiKeyRolesAreCached() {
+        final Settings indexSettings = Settings.builder().put("index.version.created", Version.CURRENT).build();
+        final Metadata metadata = Metadata.builder()
+            .put(new IndexMetadata.Builder("index-1").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), true)
+            .put(new IndexMetadata.Builder("index-2").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), true)
+            .build();
+        final Role apiKeyRole = Role.builder("api_key_role").add(IndexPrivilege.READ, "index-*").build();
+        final Role ownerRole = Role.builder("owner_role").add(IndexPrivilege.READ, "index-1").build();
+        final AuthorizationEngine.RequestInfo requestInfo = getRequestInfo(new SearchRequest("*"), SearchAction.NAME);
+
+        // the roles store creates a new limited role for every request of an API key, out of the cached roles of the key and its owner
+        for (int i = 0; i < 3; i++) {
+            final PlainActionFuture<Set<String>> future = new PlainActionFuture<>();
+            engine.loadAuthorizedIndices(requestInfo, new RBACAuthorizationInfo(LimitedRole.createLimitedRole(apiKeyRole, ownerRole), null),
+                metadata.getIndicesLookup(), future);
+            assertThat(future.actionGet(), containsInAnyOrder("index-1"));
+        }
+        assertThat(engine.authorizedIndicesCacheUsageStats().get("misses"), equalTo(1L));
+        assertThat(engine.authorizedIndicesCacheUsageStats().get("hits"), equalTo(2L));
+
+        // a different owner role must not share the cached result
+        final Role otherOwnerRole = Role.builder("owner_role").add(IndexPrivilege.READ, "index-*").build();
+        final Role otherLimitedRole = LimitedRole.createLimitedRole(apiKeyRole, otherOwnerRole);
+        final PlainActionFuture<Set<String>> future = new PlainActionFuture<>();
+        engine.loadAuthorizedIndices(requestInfo, new RBACAuthorizationInfo(otherLimitedRole, null), metadata.getIndicesLookup(), future);
+        assertThat(future.actionGet(), containsInAnyOrder("index-1", "index-2"));
+        assertThat(engine.authorizedIndicesCacheUsageStats().get("misses"), equalTo(2L));
+    }
+
     public void testExplicitMappingUpdatesAreNotGrantedWithIngestPrivileges() {
         final String dataStreamName = "my_data_stream";
         User user = new User(randomAlphaOfLengthBetween(4, 12));